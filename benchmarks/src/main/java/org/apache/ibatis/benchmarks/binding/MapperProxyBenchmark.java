@@ -0,0 +1,108 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks.binding;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a mapper method call through {@code MapperProxy} and {@code MapperMethod}, compared with calling the
+ * {@link SqlSession} directly. The statement result is served by the local (session) cache after the first call, so
+ * that the measurement is dominated by the binding and executor layers instead of JDBC.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapperProxyBenchmark {
+
+  private SqlSession sqlSession;
+  private ItemMapper mapper;
+
+  @Setup(Level.Trial)
+  public void setup() throws SQLException {
+    UnpooledDataSource dataSource = new UnpooledDataSource("org.h2.Driver", "jdbc:h2:mem:mapper;DB_CLOSE_DELAY=-1", "sa", "");
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+      statement.execute("create table if not exists item (id int primary key, name varchar(32))");
+      statement.execute("merge into item key (id) values (1, 'item1')");
+    }
+    Configuration configuration = new Configuration(new Environment("bench", new JdbcTransactionFactory(), dataSource));
+    configuration.addMapper(ItemMapper.class);
+    SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+    sqlSession = sqlSessionFactory.openSession();
+    mapper = sqlSession.getMapper(ItemMapper.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    sqlSession.close();
+  }
+
+  @Benchmark
+  public String mapperMethod() {
+    return mapper.selectName(1);
+  }
+
+  @Benchmark
+  public String mapperMethodWithParams() {
+    return mapper.selectNameByIdAndName(1, "item1");
+  }
+
+  @Benchmark
+  public String sqlSessionSelectOne() {
+    return sqlSession.selectOne(ItemMapper.class.getName() + ".selectName", 1);
+  }
+
+  @Benchmark
+  public ItemMapper getMapper() {
+    return sqlSession.getMapper(ItemMapper.class);
+  }
+
+  public interface ItemMapper {
+    @Select("select name from item where id = #{id}")
+    String selectName(int id);
+
+    @Select("select name from item where id = #{id} and name = #{name}")
+    String selectNameByIdAndName(@Param("id") int id, @Param("name") String name);
+  }
+
+}
@@ -0,0 +1,151 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks.builder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to build a {@link Configuration} from a generated corpus of mapper XML files, with the mappers built one after
+ * another or concurrently into stages that are then merged in declaration order ({@code parallelMapperParsing}).
+ * <p>
+ * Every mapper has a cache, SQL fragments, result maps (one of them extending a result map of the next mapper, so
+ * that it is only resolved by the incomplete result map pass) and dynamic statements.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperParsingBenchmark {
+
+  @Param({ "300" })
+  public int mapperCount;
+
+  @Param({ "false", "true" })
+  public boolean parallelMapperParsing;
+
+  private Path directory;
+  private Path config;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("mybatis-mappers");
+    StringBuilder mappers = new StringBuilder();
+    for (int i = 0; i < mapperCount; i++) {
+      Path mapper = directory.resolve("Mapper" + i + ".xml");
+      Files.write(mapper, mapper(i).getBytes(StandardCharsets.UTF_8));
+      mappers.append("    <mapper url=\"").append(mapper.toUri()).append("\"/>\n");
+    }
+    config = directory.resolve("mybatis-config.xml");
+    Files.write(config, ("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+        + "<!DOCTYPE configuration PUBLIC \"-//mybatis.org//DTD Config 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-config.dtd\">\n"
+        + "<configuration>\n"
+        + "  <settings>\n"
+        + "    <setting name=\"parallelMapperParsing\" value=\"" + parallelMapperParsing + "\"/>\n"
+        + "  </settings>\n"
+        + "  <mappers>\n"
+        + mappers
+        + "  </mappers>\n"
+        + "</configuration>\n").getBytes(StandardCharsets.UTF_8));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public Configuration build() throws IOException {
+    try (Reader reader = Files.newBufferedReader(config, StandardCharsets.UTF_8)) {
+      return new XMLConfigBuilder(reader).parse();
+    }
+  }
+
+  private String mapper(int i) {
+    String next = "corpus.Mapper" + ((i + 1) % mapperCount);
+    StringBuilder xml = new StringBuilder();
+    xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n")
+        .append("<!DOCTYPE mapper PUBLIC \"-//mybatis.org//DTD Mapper 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-mapper.dtd\">\n")
+        .append("<mapper namespace=\"corpus.Mapper").append(i).append("\">\n")
+        .append("  <cache/>\n")
+        .append("  <sql id=\"columns\">id, name, status, created_at, updated_at</sql>\n")
+        .append("  <sql id=\"criteria\">\n")
+        .append("    <where>\n")
+        .append("      <if test=\"name != null\">and name like #{name}</if>\n")
+        .append("      <if test=\"statuses != null\">and status in\n")
+        .append("        <foreach item=\"status\" collection=\"statuses\" open=\"(\" separator=\",\" close=\")\">#{status}</foreach>\n")
+        .append("      </if>\n")
+        .append("    </where>\n")
+        .append("  </sql>\n")
+        .append("  <resultMap id=\"base\" type=\"map\">\n")
+        .append("    <id property=\"id\" column=\"id\" javaType=\"long\"/>\n")
+        .append("    <result property=\"name\" column=\"name\" javaType=\"string\"/>\n")
+        .append("    <result property=\"status\" column=\"status\" javaType=\"int\"/>\n")
+        .append("  </resultMap>\n")
+        .append("  <resultMap id=\"detail\" type=\"map\" extends=\"").append(next).append(".base\">\n")
+        .append("    <result property=\"createdAt\" column=\"created_at\" javaType=\"date\"/>\n")
+        .append("    <result property=\"updatedAt\" column=\"updated_at\" javaType=\"date\"/>\n")
+        .append("  </resultMap>\n");
+    for (int s = 0; s < 10; s++) {
+      xml.append("  <select id=\"select").append(s).append("\" resultMap=\"detail\">\n")
+          .append("    select <include refid=\"columns\"/> from table").append(s).append("\n")
+          .append("    <include refid=\"criteria\"/>\n")
+          .append("    <if test=\"orderBy != null\">order by ${orderBy}</if>\n")
+          .append("  </select>\n");
+    }
+    xml.append("  <insert id=\"insert\" useGeneratedKeys=\"true\" keyProperty=\"id\">\n")
+        .append("    insert into table0 (name, status) values (#{name}, #{status})\n")
+        .append("  </insert>\n")
+        .append("  <update id=\"update\">\n")
+        .append("    update table0\n")
+        .append("    <set>\n")
+        .append("      <if test=\"name != null\">name = #{name},</if>\n")
+        .append("      <if test=\"status != null\">status = #{status},</if>\n")
+        .append("    </set>\n")
+        .append("    where id = #{id}\n")
+        .append("  </update>\n")
+        .append("  <delete id=\"delete\">delete from table0 where id = #{id}</delete>\n")
+        .append("</mapper>\n");
+    return xml.toString();
+  }
+
+}
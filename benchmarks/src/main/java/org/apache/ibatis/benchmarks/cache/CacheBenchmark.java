@@ -0,0 +1,110 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks.cache;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeAliasRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Second level cache get/put through the decorator chain that {@link CacheBuilder} builds for a namespace
+ * ({@code <cache/>}). Run with {@code -t <threads>} to change the number of competing threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+
+  private static final int KEYS = 1024;
+
+  @Param({ "PERPETUAL", "CONCURRENT_PERPETUAL" })
+  public String type;
+
+  @Param({ "true", "false" })
+  public boolean readWrite;
+
+  @Param({ "LRU", "WEIGHTED" })
+  public String eviction;
+
+  private Cache cache;
+  private CacheKey[] keys;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    // resolved like the type and eviction attributes of <cache/>
+    TypeAliasRegistry typeAliasRegistry = new Configuration().getTypeAliasRegistry();
+    cache = new CacheBuilder("bench")
+        .implementation(typeAliasRegistry.resolveAlias(type))
+        .addDecorator(typeAliasRegistry.resolveAlias(eviction))
+        .size(KEYS * 2)
+        .readWrite(readWrite)
+        .build();
+    keys = new CacheKey[KEYS];
+    for (int i = 0; i < KEYS; i++) {
+      // the components of the key of a real statement: id, offset, limit, sql, parameter and environment
+      CacheKey key = new CacheKey();
+      key.update("org.apache.ibatis.benchmarks.BlogMapper.selectBlog");
+      key.update(0);
+      key.update(Integer.MAX_VALUE);
+      key.update("select id, title, author_id from blog where id = ?");
+      key.update(i);
+      key.update("bench");
+      keys[i] = key;
+      cache.putObject(key, "value" + i);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    private int next;
+
+    CacheKey nextKey(CacheKey[] keys) {
+      return keys[next++ & (KEYS - 1)];
+    }
+  }
+
+  @Benchmark
+  public Object getObject(Cursor cursor) {
+    return cache.getObject(cursor.nextKey(keys));
+  }
+
+  @Benchmark
+  public void putObject(Cursor cursor) {
+    cache.putObject(cursor.nextKey(keys), "value");
+  }
+
+}
@@ -0,0 +1,135 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks.cache;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hit ratio of the eviction policies of {@code <cache/>} on a skewed (Zipf) workload, optionally interleaved with
+ * scans of keys that are requested only once (e.g. report queries). Each request that misses puts the key, like
+ * {@code CachingExecutor} does. The {@code hits} and {@code misses} counters are reported next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CacheHitRatioBenchmark {
+
+  private static final int TRACE_LENGTH = 1 << 20;
+  private static final int KEY_SPACE = 100_000;
+  private static final int SCAN_EVERY = 10_000;
+  private static final int SCAN_LENGTH = 5_000;
+
+  @Param({ "LRU", "FIFO", "TINYLFU" })
+  public String eviction;
+
+  @Param({ "zipf", "zipf+scan" })
+  public String workload;
+
+  @Param({ "1000" })
+  public int size;
+
+  private Cache cache;
+  private Integer[] trace;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    cache = new CacheBuilder("hitratio")
+        .addDecorator(new Configuration().getTypeAliasRegistry().resolveAlias(eviction))
+        .size(size)
+        .build();
+    trace = new Integer[TRACE_LENGTH];
+    double[] cumulative = zipfCumulative(KEY_SPACE, 0.99);
+    Random random = new Random(42);
+    int scanKey = KEY_SPACE;
+    for (int i = 0; i < TRACE_LENGTH; i++) {
+      if ("zipf+scan".equals(workload) && i % SCAN_EVERY < SCAN_LENGTH && (i / SCAN_EVERY) % 2 == 1) {
+        trace[i] = scanKey++;
+      } else {
+        trace[i] = rank(cumulative, random.nextDouble());
+      }
+    }
+  }
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Counters {
+    public long hits;
+    public long misses;
+  }
+
+  @Benchmark
+  public Object request(Counters counters) {
+    Integer key = trace[next++ & (TRACE_LENGTH - 1)];
+    Object value = cache.getObject(key);
+    if (value == null) {
+      counters.misses++;
+      cache.putObject(key, key);
+      return key;
+    }
+    counters.hits++;
+    return value;
+  }
+
+  private static double[] zipfCumulative(int n, double exponent) {
+    double[] cumulative = new double[n];
+    double sum = 0;
+    for (int i = 0; i < n; i++) {
+      sum += 1.0 / Math.pow(i + 1, exponent);
+      cumulative[i] = sum;
+    }
+    for (int i = 0; i < n; i++) {
+      cumulative[i] /= sum;
+    }
+    return cumulative;
+  }
+
+  private static int rank(double[] cumulative, double p) {
+    int low = 0;
+    int high = cumulative.length - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (cumulative[mid] < p) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+}
@@ -0,0 +1,101 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building a {@link CacheKey} the way {@code BaseExecutor.createCacheKey} does, and looking it up in a local cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CacheKeyBenchmark {
+
+  private static final String STATEMENT_ID = "org.apache.ibatis.benchmarks.BlogMapper.selectBlogs";
+
+  @Param({ "2", "50" })
+  public int parameters;
+
+  private String sql;
+  private Object[] values;
+  private Map<CacheKey, Object> localCache;
+  private CacheKey cachedKey;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    StringBuilder builder = new StringBuilder("select * from blog where id in (?");
+    for (int i = 1; i < parameters; i++) {
+      builder.append(", ?");
+    }
+    sql = builder.append(')').toString();
+    values = new Object[parameters];
+    for (int i = 0; i < parameters; i++) {
+      values[i] = i % 2 == 0 ? (Object) i : "value" + i;
+    }
+    localCache = new HashMap<>();
+    cachedKey = createCacheKey();
+    localCache.put(cachedKey, "result");
+  }
+
+  private CacheKey createCacheKey() {
+    CacheKey cacheKey = new CacheKey(values.length + 5);
+    cacheKey.update(STATEMENT_ID);
+    cacheKey.update(0);
+    cacheKey.update(Integer.MAX_VALUE);
+    cacheKey.update(sql);
+    for (Object value : values) {
+      cacheKey.update(value);
+    }
+    cacheKey.update("development");
+    return cacheKey;
+  }
+
+  @Benchmark
+  public CacheKey create() {
+    return createCacheKey();
+  }
+
+  @Benchmark
+  public Object createAndLookup() {
+    return localCache.get(createCacheKey());
+  }
+
+  @Benchmark
+  public boolean compare() {
+    return cachedKey.equals(createCacheKey());
+  }
+
+}
@@ -0,0 +1,151 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks.cache;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Get/put of a result list in a read-write cache: Java serialization into heap byte arrays ({@code <cache/>}) versus
+ * the compact serialization into direct buffers of {@link OffHeapCache} ({@code <cache type="OFF_HEAP"/>}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializingCacheBenchmark {
+
+  @Param({ "SERIALIZED", "OFF_HEAP" })
+  public String store;
+
+  @Param({ "100" })
+  public int rows;
+
+  private Cache cache;
+  private List<Row> result;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    CacheBuilder builder = new CacheBuilder("bench").readWrite(true);
+    if ("OFF_HEAP".equals(store)) {
+      builder.implementation(OffHeapCache.class);
+    }
+    cache = builder.build();
+    result = new ArrayList<>();
+    for (int i = 0; i < rows; i++) {
+      Row row = new Row();
+      row.setId(i);
+      row.setCode("CODE-" + i);
+      row.setDescription("description of reference row " + i);
+      row.setAmount(new BigDecimal(i).movePointLeft(2));
+      row.setActive(i % 2 == 0);
+      row.setUpdatedAt(LocalDateTime.of(2020, 1, 1, 0, 0).plusMinutes(i));
+      result.add(row);
+    }
+    cache.putObject("key", result);
+  }
+
+  @Benchmark
+  public Object getObject() {
+    return cache.getObject("key");
+  }
+
+  @Benchmark
+  public void putObject() {
+    cache.putObject("key", result);
+  }
+
+  public static class Row implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private int id;
+    private String code;
+    private String description;
+    private BigDecimal amount;
+    private boolean active;
+    private LocalDateTime updatedAt;
+
+    public int getId() {
+      return id;
+    }
+
+    public void setId(int id) {
+      this.id = id;
+    }
+
+    public String getCode() {
+      return code;
+    }
+
+    public void setCode(String code) {
+      this.code = code;
+    }
+
+    public String getDescription() {
+      return description;
+    }
+
+    public void setDescription(String description) {
+      this.description = description;
+    }
+
+    public BigDecimal getAmount() {
+      return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+      this.amount = amount;
+    }
+
+    public boolean isActive() {
+      return active;
+    }
+
+    public void setActive(boolean active) {
+      this.active = active;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+      return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+      this.updatedAt = updatedAt;
+    }
+  }
+
+}
@@ -0,0 +1,92 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.datasource.pooled.ConcurrentPooledDataSource;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Connection checkout/return throughput of {@link PooledDataSource} and {@link ConcurrentPooledDataSource} under
+ * contention. Run with {@code -t <threads>} to change the number of competing threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class PooledDataSourceBenchmark {
+
+  @Param({ "POOLED", "CONCURRENT_POOLED" })
+  public String pool;
+
+  @Param({ "10" })
+  public int maximumActiveConnections;
+
+  private PooledDataSource dataSource;
+
+  @Setup(Level.Trial)
+  public void setup() throws SQLException {
+    dataSource = "POOLED".equals(pool) ? new PooledDataSource() : new ConcurrentPooledDataSource();
+    dataSource.setDriver("org.h2.Driver");
+    dataSource.setUrl("jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1");
+    dataSource.setUsername("sa");
+    dataSource.setPassword("");
+    dataSource.setPoolMaximumActiveConnections(maximumActiveConnections);
+    dataSource.setPoolMaximumIdleConnections(maximumActiveConnections);
+    // Warm the pool up so that the measurement does not include physical connects
+    Connection[] connections = new Connection[maximumActiveConnections];
+    for (int i = 0; i < connections.length; i++) {
+      connections[i] = dataSource.getConnection();
+    }
+    for (Connection connection : connections) {
+      connection.close();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    dataSource.forceCloseAll();
+  }
+
+  @Benchmark
+  public void checkoutAndReturn(Blackhole blackhole) throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      blackhole.consume(connection);
+    }
+  }
+
+}
@@ -0,0 +1,109 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks.executor;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.MultiRowInsertExecutor;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rows per second inserted into H2 with generated keys by {@link ExecutorType#BATCH} (JDBC batches) and by
+ * {@link MultiRowInsertExecutor} (multi-row inserts). The rows are rolled back after every invocation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultiRowInsertBenchmark {
+
+  private static final int ROWS = 1000;
+
+  @Param({ "BATCH", "MULTI_ROW_INSERT" })
+  public ExecutorType executorType;
+
+  @Param({ "100" })
+  public int multiRowInsertSize;
+
+  private PooledDataSource dataSource;
+  private SqlSessionFactory sqlSessionFactory;
+  private final List<Item> items = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setup() throws SQLException {
+    dataSource = new PooledDataSource("org.h2.Driver", "jdbc:h2:mem:multirowinsert;DB_CLOSE_DELAY=-1", "sa", "");
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+      statement.execute("drop table if exists item");
+      statement.execute("create table item (id int auto_increment primary key, name varchar(32), quantity int)");
+    }
+    Configuration configuration = new Configuration(new Environment("bench", new JdbcTransactionFactory(), dataSource));
+    configuration.setMultiRowInsertSize(multiRowInsertSize);
+    configuration.addMapper(ItemMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+    for (int i = 0; i < ROWS; i++) {
+      items.add(new Item("item" + i, i));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    dataSource.forceCloseAll();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public List<BatchResult> insert() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(executorType)) {
+      ItemMapper mapper = sqlSession.getMapper(ItemMapper.class);
+      for (Item item : items) {
+        mapper.insertItem(item);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      sqlSession.rollback(true);
+      return results;
+    }
+  }
+
+}
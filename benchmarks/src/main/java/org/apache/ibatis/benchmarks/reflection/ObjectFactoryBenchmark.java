@@ -0,0 +1,100 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks.reflection;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.reflection.factory.CachingObjectFactory;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Objects created per second by {@link DefaultObjectFactory} and {@link CachingObjectFactory}: a bean through its
+ * default constructor, a bean through a constructor with arguments and the list of a collection property.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ObjectFactoryBenchmark {
+
+  @Param({ "DEFAULT", "CACHING" })
+  public String objectFactory;
+
+  private ObjectFactory factory;
+  private List<Class<?>> constructorArgTypes;
+  private List<Object> constructorArgs;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    factory = "DEFAULT".equals(objectFactory) ? new DefaultObjectFactory() : new CachingObjectFactory();
+    constructorArgTypes = Arrays.asList(Integer.class, String.class);
+    constructorArgs = Arrays.asList(1, "name");
+  }
+
+  @Benchmark
+  public Object defaultConstructor() {
+    return factory.create(Bean.class);
+  }
+
+  @Benchmark
+  public Object constructorWithArgs() {
+    return factory.create(Bean.class, constructorArgTypes, constructorArgs);
+  }
+
+  @Benchmark
+  public Object list() {
+    return factory.create(List.class);
+  }
+
+  public static class Bean {
+    private Integer id;
+    private String name;
+
+    public Bean() {
+    }
+
+    public Bean(Integer id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+
+    public Integer getId() {
+      return id;
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+
+}
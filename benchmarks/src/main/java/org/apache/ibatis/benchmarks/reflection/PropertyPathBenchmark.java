@@ -0,0 +1,121 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks.reflection;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.PropertyPath;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading and writing {@code customer.address.city} through a new {@link MetaObject} per access, the way
+ * {@code DefaultParameterHandler} used to, and through a {@link PropertyPath}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PropertyPathBenchmark {
+
+  private static final String EXPRESSION = "customer.address.city";
+
+  private Configuration configuration;
+  private PropertyPath path;
+  private Order order;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    configuration = new Configuration();
+    path = configuration.getPropertyPath(EXPRESSION);
+    order = new Order();
+    order.setCustomer(new Customer());
+    order.getCustomer().setAddress(new Address());
+    order.getCustomer().getAddress().setCity("Rome");
+  }
+
+  @Benchmark
+  public Object getWithMetaObject() {
+    return configuration.newMetaObject(order).getValue(EXPRESSION);
+  }
+
+  @Benchmark
+  public Object getWithPropertyPath() {
+    return path.getValue(order);
+  }
+
+  @Benchmark
+  public Order setWithMetaObject() {
+    configuration.newMetaObject(order).setValue(EXPRESSION, "Milan");
+    return order;
+  }
+
+  @Benchmark
+  public Order setWithPropertyPath() {
+    path.setValue(order, "Milan");
+    return order;
+  }
+
+  public static class Order {
+    private Customer customer;
+
+    public Customer getCustomer() {
+      return customer;
+    }
+
+    public void setCustomer(Customer customer) {
+      this.customer = customer;
+    }
+  }
+
+  public static class Customer {
+    private Address address;
+
+    public Address getAddress() {
+      return address;
+    }
+
+    public void setAddress(Address address) {
+      this.address = address;
+    }
+  }
+
+  public static class Address {
+    private String city;
+
+    public String getCity() {
+      return city;
+    }
+
+    public void setCity(String city) {
+      this.city = city;
+    }
+  }
+
+}
@@ -0,0 +1,106 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks.reflection;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.benchmarks.resultset.WideRow;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.MethodHandleReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Getter and setter throughput of the invokers built by {@link DefaultReflectorFactory} and
+ * {@link MethodHandleReflectorFactory}, accessing all the properties of a 24 property bean.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReflectorBenchmark {
+
+  @Param({ "DEFAULT", "METHOD_HANDLE" })
+  public String reflectorFactory;
+
+  private Invoker[] getters;
+  private Invoker[] setters;
+  private Object[][] values;
+  private WideRow row;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Reflector reflector = ("DEFAULT".equals(reflectorFactory) ? new DefaultReflectorFactory()
+        : new MethodHandleReflectorFactory()).findForClass(WideRow.class);
+    String[] properties = reflector.getSetablePropertyNames();
+    getters = new Invoker[properties.length];
+    setters = new Invoker[properties.length];
+    values = new Object[properties.length][];
+    for (int i = 0; i < properties.length; i++) {
+      getters[i] = reflector.getGetInvoker(properties[i]);
+      setters[i] = reflector.getSetInvoker(properties[i]);
+      values[i] = new Object[] { sampleValue(reflector.getSetterType(properties[i]), i) };
+    }
+    row = new WideRow();
+  }
+
+  private static Object sampleValue(Class<?> type, int i) {
+    if (type == Integer.class) {
+      return i;
+    } else if (type == Long.class) {
+      return (long) i;
+    } else if (type == Double.class) {
+      return i / 2.0;
+    } else if (type == Boolean.class) {
+      return i % 2 == 0;
+    } else if (type == Date.class) {
+      return new Date(i);
+    }
+    return "value" + i;
+  }
+
+  @Benchmark
+  public WideRow setAll() throws Exception {
+    for (int i = 0; i < setters.length; i++) {
+      setters[i].invoke(row, values[i]);
+    }
+    return row;
+  }
+
+  @Benchmark
+  public void getAll(Blackhole blackhole) throws Exception {
+    for (Invoker getter : getters) {
+      blackhole.consume(getter.invoke(row, null));
+    }
+  }
+
+}
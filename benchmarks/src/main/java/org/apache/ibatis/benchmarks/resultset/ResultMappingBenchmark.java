@@ -0,0 +1,123 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks.resultset;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rows per second mapped from H2 result sets by a wide flat result map (24 auto-mapped columns) and by a nested
+ * result map (a blog with an author association and a posts collection).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultMappingBenchmark {
+
+  private static final int WIDE_ROWS = 1000;
+  private static final int BLOGS = 100;
+  private static final int POSTS_PER_BLOG = 10;
+
+  @Param({ "false", "true" })
+  public boolean compiledRowMappingEnabled;
+
+  private PooledDataSource dataSource;
+  private SqlSessionFactory sqlSessionFactory;
+
+  @Setup(Level.Trial)
+  public void setup() throws SQLException {
+    dataSource = new PooledDataSource("org.h2.Driver", "jdbc:h2:mem:resultmapping;DB_CLOSE_DELAY=-1", "sa", "");
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+      statement.execute("drop table if exists wide_row");
+      statement.execute("create table wide_row (id int primary key,"
+          + " col01 int, col02 varchar(32), col03 bigint, col04 double, col05 timestamp, col06 boolean,"
+          + " col07 int, col08 varchar(32), col09 bigint, col10 double, col11 timestamp, col12 boolean,"
+          + " col13 int, col14 varchar(32), col15 bigint, col16 double, col17 timestamp, col18 boolean,"
+          + " col19 int, col20 varchar(32), col21 bigint, col22 double, col23 timestamp, col24 boolean)");
+      statement.execute("insert into wide_row select x,"
+          + " mod(x, 1000), 'text' || x, x * 1000, x * 0.5, current_timestamp, mod(x, 2) = 0,"
+          + " mod(x, 1000), 'text' || x, x * 1000, x * 0.5, current_timestamp, mod(x, 2) = 0,"
+          + " mod(x, 1000), 'text' || x, x * 1000, x * 0.5, current_timestamp, mod(x, 2) = 0,"
+          + " mod(x, 1000), 'text' || x, x * 1000, x * 0.5, current_timestamp, mod(x, 2) = 0"
+          + " from system_range(1, " + WIDE_ROWS + ")");
+      statement.execute("drop table if exists post");
+      statement.execute("drop table if exists blog");
+      statement.execute("drop table if exists author");
+      statement.execute("create table author (id int primary key, username varchar(32), email varchar(64))");
+      statement.execute("create table blog (id int primary key, title varchar(64), author_id int)");
+      statement.execute("create table post (id int primary key, blog_id int, subject varchar(64), body varchar(256))");
+      statement.execute("insert into author select x, 'author' || x, 'author' || x || '@example.com'"
+          + " from system_range(1, " + BLOGS + ")");
+      statement.execute("insert into blog select x, 'blog ' || x, x from system_range(1, " + BLOGS + ")");
+      statement.execute("insert into post select x, (x - 1) / " + POSTS_PER_BLOG + " + 1, 'subject ' || x, 'body ' || x"
+          + " from system_range(1, " + BLOGS * POSTS_PER_BLOG + ")");
+    }
+    Configuration configuration = new Configuration(new Environment("bench", new JdbcTransactionFactory(), dataSource));
+    configuration.setCompiledRowMappingEnabled(compiledRowMappingEnabled);
+    configuration.addMapper(ResultMappingMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    dataSource.forceCloseAll();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(WIDE_ROWS)
+  public List<WideRow> wideResultMap() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(ResultMappingMapper.class).selectWideRows();
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BLOGS * POSTS_PER_BLOG)
+  public List<Blog> nestedResultMap() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(ResultMappingMapper.class).selectBlogs();
+    }
+  }
+
+}
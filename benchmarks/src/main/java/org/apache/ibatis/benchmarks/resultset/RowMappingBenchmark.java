@@ -0,0 +1,179 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks.resultset;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rows per second mapped from an H2 result set into a flat bean, through the generic {@code MetaObject} based path
+ * and through compiled row mappers ({@code compiledRowMappingEnabled}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowMappingBenchmark {
+
+  private static final int ROWS = 1000;
+
+  @Param({ "false", "true" })
+  public boolean compiledRowMappingEnabled;
+
+  private PooledDataSource dataSource;
+  private SqlSessionFactory sqlSessionFactory;
+
+  @Setup(Level.Trial)
+  public void setup() throws SQLException {
+    dataSource = new PooledDataSource("org.h2.Driver", "jdbc:h2:mem:rows;DB_CLOSE_DELAY=-1", "sa", "");
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+      statement.execute("drop table if exists account");
+      statement.execute("create table account (id int primary key, user_name varchar(32), email varchar(64),"
+          + " age int, balance double, active boolean, created_at timestamp, notes varchar(128))");
+      statement.execute("insert into account select x, 'user' || x, 'user' || x || '@example.com', mod(x, 90),"
+          + " x * 1.5, mod(x, 2) = 0, current_timestamp, case when mod(x, 3) = 0 then null else 'note ' || x end"
+          + " from system_range(1, " + ROWS + ")");
+    }
+    Configuration configuration = new Configuration(new Environment("bench", new JdbcTransactionFactory(), dataSource));
+    configuration.setMapUnderscoreToCamelCase(true);
+    configuration.setCompiledRowMappingEnabled(compiledRowMappingEnabled);
+    configuration.addMapper(AccountMapper.class);
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    dataSource.forceCloseAll();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public List<Account> selectAll() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(AccountMapper.class).selectAll();
+    }
+  }
+
+  public interface AccountMapper {
+    @Select("select id, user_name, email, age, balance, active, created_at, notes from account")
+    List<Account> selectAll();
+  }
+
+  public static class Account {
+    private int id;
+    private String userName;
+    private String email;
+    private Integer age;
+    private double balance;
+    private boolean active;
+    private Date createdAt;
+    private String notes;
+
+    public int getId() {
+      return id;
+    }
+
+    public void setId(int id) {
+      this.id = id;
+    }
+
+    public String getUserName() {
+      return userName;
+    }
+
+    public void setUserName(String userName) {
+      this.userName = userName;
+    }
+
+    public String getEmail() {
+      return email;
+    }
+
+    public void setEmail(String email) {
+      this.email = email;
+    }
+
+    public Integer getAge() {
+      return age;
+    }
+
+    public void setAge(Integer age) {
+      this.age = age;
+    }
+
+    public double getBalance() {
+      return balance;
+    }
+
+    public void setBalance(double balance) {
+      this.balance = balance;
+    }
+
+    public boolean isActive() {
+      return active;
+    }
+
+    public void setActive(boolean active) {
+      this.active = active;
+    }
+
+    public Date getCreatedAt() {
+      return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+      this.createdAt = createdAt;
+    }
+
+    public String getNotes() {
+      return notes;
+    }
+
+    public void setNotes(String notes) {
+      this.notes = notes;
+    }
+  }
+
+}
@@ -0,0 +1,242 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks.resultset;
+
+import java.util.Date;
+
+/**
+ * A 24 column row for {@link ResultMappingBenchmark}.
+ */
+public class WideRow {
+
+  private Integer col01;
+  private String col02;
+  private Long col03;
+  private Double col04;
+  private Date col05;
+  private Boolean col06;
+  private Integer col07;
+  private String col08;
+  private Long col09;
+  private Double col10;
+  private Date col11;
+  private Boolean col12;
+  private Integer col13;
+  private String col14;
+  private Long col15;
+  private Double col16;
+  private Date col17;
+  private Boolean col18;
+  private Integer col19;
+  private String col20;
+  private Long col21;
+  private Double col22;
+  private Date col23;
+  private Boolean col24;
+
+  public Integer getCol01() {
+    return col01;
+  }
+
+  public void setCol01(Integer col01) {
+    this.col01 = col01;
+  }
+
+  public String getCol02() {
+    return col02;
+  }
+
+  public void setCol02(String col02) {
+    this.col02 = col02;
+  }
+
+  public Long getCol03() {
+    return col03;
+  }
+
+  public void setCol03(Long col03) {
+    this.col03 = col03;
+  }
+
+  public Double getCol04() {
+    return col04;
+  }
+
+  public void setCol04(Double col04) {
+    this.col04 = col04;
+  }
+
+  public Date getCol05() {
+    return col05;
+  }
+
+  public void setCol05(Date col05) {
+    this.col05 = col05;
+  }
+
+  public Boolean getCol06() {
+    return col06;
+  }
+
+  public void setCol06(Boolean col06) {
+    this.col06 = col06;
+  }
+
+  public Integer getCol07() {
+    return col07;
+  }
+
+  public void setCol07(Integer col07) {
+    this.col07 = col07;
+  }
+
+  public String getCol08() {
+    return col08;
+  }
+
+  public void setCol08(String col08) {
+    this.col08 = col08;
+  }
+
+  public Long getCol09() {
+    return col09;
+  }
+
+  public void setCol09(Long col09) {
+    this.col09 = col09;
+  }
+
+  public Double getCol10() {
+    return col10;
+  }
+
+  public void setCol10(Double col10) {
+    this.col10 = col10;
+  }
+
+  public Date getCol11() {
+    return col11;
+  }
+
+  public void setCol11(Date col11) {
+    this.col11 = col11;
+  }
+
+  public Boolean getCol12() {
+    return col12;
+  }
+
+  public void setCol12(Boolean col12) {
+    this.col12 = col12;
+  }
+
+  public Integer getCol13() {
+    return col13;
+  }
+
+  public void setCol13(Integer col13) {
+    this.col13 = col13;
+  }
+
+  public String getCol14() {
+    return col14;
+  }
+
+  public void setCol14(String col14) {
+    this.col14 = col14;
+  }
+
+  public Long getCol15() {
+    return col15;
+  }
+
+  public void setCol15(Long col15) {
+    this.col15 = col15;
+  }
+
+  public Double getCol16() {
+    return col16;
+  }
+
+  public void setCol16(Double col16) {
+    this.col16 = col16;
+  }
+
+  public Date getCol17() {
+    return col17;
+  }
+
+  public void setCol17(Date col17) {
+    this.col17 = col17;
+  }
+
+  public Boolean getCol18() {
+    return col18;
+  }
+
+  public void setCol18(Boolean col18) {
+    this.col18 = col18;
+  }
+
+  public Integer getCol19() {
+    return col19;
+  }
+
+  public void setCol19(Integer col19) {
+    this.col19 = col19;
+  }
+
+  public String getCol20() {
+    return col20;
+  }
+
+  public void setCol20(String col20) {
+    this.col20 = col20;
+  }
+
+  public Long getCol21() {
+    return col21;
+  }
+
+  public void setCol21(Long col21) {
+    this.col21 = col21;
+  }
+
+  public Double getCol22() {
+    return col22;
+  }
+
+  public void setCol22(Double col22) {
+    this.col22 = col22;
+  }
+
+  public Date getCol23() {
+    return col23;
+  }
+
+  public void setCol23(Date col23) {
+    this.col23 = col23;
+  }
+
+  public Boolean getCol24() {
+    return col24;
+  }
+
+  public void setCol24(Boolean col24) {
+    this.col24 = col24;
+  }
+
+}
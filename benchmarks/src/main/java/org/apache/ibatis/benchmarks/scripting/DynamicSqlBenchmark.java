@@ -0,0 +1,91 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks.scripting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering of a dynamic statement ({@code <where>}, {@code <if>}, {@code <foreach>} and {@code <bind>}) into a
+ * {@link BoundSql}, with and without the parsed SQL cache ({@code dynamicSqlCacheSize}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DynamicSqlBenchmark {
+
+  private static final String SCRIPT = "<script>"
+      + "select id, title, author_id, content from blog"
+      + "<where>"
+      + "  <if test=\"title != null\"><bind name=\"pattern\" value=\"title + '%'\"/>and title like #{pattern}</if>"
+      + "  <if test=\"authorIds != null and authorIds.size() > 0\">"
+      + "    and author_id in <foreach item=\"id\" collection=\"authorIds\" open=\"(\" separator=\",\" close=\")\">#{id}</foreach>"
+      + "  </if>"
+      + "  <if test=\"state != null\">and state = #{state}</if>"
+      + "</where>"
+      + "<choose>"
+      + "  <when test=\"orderBy == 'title'\">order by title</when>"
+      + "  <otherwise>order by id</otherwise>"
+      + "</choose>"
+      + "</script>";
+
+  @Param({ "0", "64" })
+  public int dynamicSqlCacheSize;
+
+  private SqlSource sqlSource;
+  private Map<String, Object> parameter;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlCacheSize(dynamicSqlCacheSize);
+    sqlSource = new XMLLanguageDriver().createSqlSource(configuration, SCRIPT, Map.class);
+    parameter = new HashMap<>();
+    parameter.put("title", "MyBatis");
+    parameter.put("authorIds", new ArrayList<>(Arrays.asList(1, 2, 3, 4, 5)));
+    parameter.put("state", "ACTIVE");
+    parameter.put("orderBy", "title");
+  }
+
+  @Benchmark
+  public BoundSql getBoundSql() {
+    return sqlSource.getBoundSql(parameter);
+  }
+
+}
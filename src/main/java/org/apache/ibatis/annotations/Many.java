@@ -63,4 +63,13 @@ public @interface Many {
    */
   FetchType fetchType() default FetchType.DEFAULT;
 
+  /**
+   * Returns the columns of the nested statement that match the columns of the parent row when the fetch strategy is
+   * {@link FetchType#BATCH} or {@link FetchType#LAZY_BATCH}.
+   *
+   * @return the foreign columns, separated by commas
+   * @since 3.5.6
+   */
+  String foreignColumn() default "";
+
 }
@@ -37,6 +37,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Clinton Begin
@@ -55,6 +56,33 @@ public class MapperMethod {
     }
 
     public Object execute(SqlSession sqlSession, Object[] args) {
+        // 返回CompletableFuture的方法在异步执行器上用独立的SqlSession执行
+        if (method.returnsFuture()) {
+            return executeAsync(sqlSession, args);
+        }
+        return executeCommand(sqlSession, args);
+    }
+
+    private CompletableFuture<Object> executeAsync(SqlSession sqlSession, Object[] args) {
+        // SqlSession不是线程安全的, 每次调用都从打开当前会话的工厂打开自己的会话和事务(执行器类型和自动提交方式相同),
+        // 成功时提交, 失败时回滚(未提交的事务在关闭会话时回滚)
+        // 在调用线程上打开, 会话在第一次执行语句时才获取连接
+        SqlSession asyncSession = sqlSession.openSiblingSession();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try (SqlSession session = asyncSession) {
+                    Object result = executeCommand(session, args);
+                    session.commit();
+                    return result;
+                }
+            }, sqlSession.getConfiguration().getAsyncExecutor());
+        } catch (RuntimeException e) {
+            asyncSession.close();
+            throw e;
+        }
+    }
+
+    private Object executeCommand(SqlSession sqlSession, Object[] args) {
         // SQL执行结果
         Object result;
         // command是MapperMethod的成员变量, 它用来定位出SQL属于哪种类型- SqlCommandType.
@@ -298,6 +326,7 @@ public class MapperMethod {
         private final boolean returnsVoid;
         private final boolean returnsCursor;
         private final boolean returnsOptional;
+        private final boolean returnsFuture;
         private final Class<?> returnType;
         private final String mapKey;
         private final Integer resultHandlerIndex;
@@ -306,18 +335,28 @@ public class MapperMethod {
 
         public MethodSignature(Configuration configuration, Class<?> mapperInterface, Method method) {
             Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, mapperInterface);
+            this.returnsFuture = CompletableFuture.class.equals(method.getReturnType());
+            if (returnsFuture) {
+                // 异步方法的结果类型是CompletableFuture的类型参数
+                resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+                        ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+            }
             if (resolvedReturnType instanceof Class<?>) {
                 this.returnType = (Class<?>) resolvedReturnType;
             } else if (resolvedReturnType instanceof ParameterizedType) {
                 this.returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
             } else {
-                this.returnType = method.getReturnType();
+                this.returnType = returnsFuture ? Object.class : method.getReturnType();
             }
-            this.returnsVoid = void.class.equals(this.returnType);
+            this.returnsVoid = void.class.equals(this.returnType) || returnsFuture && Void.class.equals(this.returnType);
             this.returnsMany = configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray();
             this.returnsCursor = Cursor.class.equals(this.returnType);
             this.returnsOptional = Optional.class.equals(this.returnType);
-            this.mapKey = getMapKey(method);
+            if (returnsFuture && returnsCursor) {
+                throw new BindingException(method.getName() + " cannot return a Cursor asynchronously, "
+                        + "because the Cursor would be closed with its SqlSession");
+            }
+            this.mapKey = getMapKey(method, returnsFuture ? this.returnType : method.getReturnType());
             this.returnsMap = this.mapKey != null;
             this.rowBoundsIndex = getUniqueParamIndex(method, RowBounds.class);
             this.resultHandlerIndex = getUniqueParamIndex(method, ResultHandler.class);
@@ -374,6 +413,17 @@ public class MapperMethod {
             return returnsOptional;
         }
 
+        /**
+         * Returns whether the return type is {@code java.util.concurrent.CompletableFuture}, in which case the other
+         * methods describe the type of the result of the future.
+         *
+         * @return {@code true}, if the method is executed asynchronously
+         * @since 3.5.6
+         */
+        public boolean returnsFuture() {
+            return returnsFuture;
+        }
+
         private Integer getUniqueParamIndex(Method method, Class<?> paramType) {
             Integer index = null;
             final Class<?>[] argTypes = method.getParameterTypes();
@@ -393,9 +443,9 @@ public class MapperMethod {
             return mapKey;
         }
 
-        private String getMapKey(Method method) {
+        private String getMapKey(Method method, Class<?> returnType) {
             String mapKey = null;
-            if (Map.class.isAssignableFrom(method.getReturnType())) {
+            if (Map.class.isAssignableFrom(returnType)) {
                 final MapKey mapKeyAnnotation = method.getAnnotation(MapKey.class);
                 if (mapKeyAnnotation != null) {
                     mapKey = mapKeyAnnotation.value();
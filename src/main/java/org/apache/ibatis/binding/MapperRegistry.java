@@ -85,6 +85,23 @@ public class MapperRegistry {
     }
   }
 
+  /**
+   * Adds a mapper whose statements have already been added to the configuration, without parsing its annotations
+   * again.
+   *
+   * @param <T>
+   *          the mapper type
+   * @param type
+   *          the mapper interface
+   * @since 3.5.6
+   */
+  public <T> void addParsedMapper(Class<T> type) {
+    if (hasMapper(type)) {
+      throw new BindingException("Type " + type + " is already known to the MapperRegistry.");
+    }
+    knownMappers.put(type, new MapperProxyFactory<>(type));
+  }
+
   /**
    * Gets the mappers.
    *
@@ -136,6 +136,7 @@ public class MapperBuilderAssistant extends BaseBuilder {
         .readWrite(readWrite)
         .blocking(blocking)
         .properties(props)
+        .weightBudget(configuration.getCacheWeightBudget())
         .build();
     configuration.addCache(cache);
     currentCache = cache;
@@ -423,6 +424,31 @@ public class MapperBuilderAssistant extends BaseBuilder {
       String resultSet,
       String foreignColumn,
       boolean lazy) {
+    return buildResultMapping(resultType, property, column, javaType, jdbcType, nestedSelect, nestedResultMap,
+        notNullColumn, columnPrefix, typeHandler, flags, resultSet, foreignColumn, lazy, false);
+  }
+
+  /**
+   * Builds a result mapping whose nested select may be batched.
+   *
+   * @since 3.5.6
+   */
+  public ResultMapping buildResultMapping(
+      Class<?> resultType,
+      String property,
+      String column,
+      Class<?> javaType,
+      JdbcType jdbcType,
+      String nestedSelect,
+      String nestedResultMap,
+      String notNullColumn,
+      String columnPrefix,
+      Class<? extends TypeHandler<?>> typeHandler,
+      List<ResultFlag> flags,
+      String resultSet,
+      String foreignColumn,
+      boolean lazy,
+      boolean batch) {
     Class<?> javaTypeClass = resolveResultJavaType(resultType, property, javaType);
     TypeHandler<?> typeHandlerInstance = resolveTypeHandler(javaTypeClass, typeHandler);
     List<ResultMapping> composites;
@@ -443,6 +469,7 @@ public class MapperBuilderAssistant extends BaseBuilder {
         .columnPrefix(columnPrefix)
         .foreignColumn(foreignColumn)
         .lazy(lazy)
+        .batch(batch)
         .build();
   }
 
@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -410,13 +411,20 @@ public class MapperAnnotationBuilder {
   private Class<?> getReturnType(Method method) {
     Class<?> returnType = method.getReturnType();
     Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, type);
+    if (CompletableFuture.class.equals(returnType)) {
+      // asynchronous methods return the result in a future
+      resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+          ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+      returnType = resolvedReturnType instanceof ParameterizedType
+          ? (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType() : Object.class;
+    }
     if (resolvedReturnType instanceof Class) {
       returnType = (Class<?>) resolvedReturnType;
       if (returnType.isArray()) {
         returnType = returnType.getComponentType();
       }
       // gcode issue #508
-      if (void.class.equals(returnType)) {
+      if (void.class.equals(returnType) || Void.class.equals(returnType)) {
         ResultType rt = method.getAnnotation(ResultType.class);
         if (rt != null) {
           returnType = rt.value();
@@ -487,8 +495,9 @@ public class MapperAnnotationBuilder {
           typeHandler,
           flags,
           null,
-          null,
-          isLazy(result));
+          nullOrEmpty(findForeignColumn(result)),
+          isLazy(result),
+          isBatch(result));
       resultMappings.add(resultMapping);
     }
   }
@@ -501,6 +510,14 @@ public class MapperAnnotationBuilder {
     return columnPrefix;
   }
 
+  private String findForeignColumn(Result result) {
+    String foreignColumn = result.one().foreignColumn();
+    if (foreignColumn.length() < 1) {
+      foreignColumn = result.many().foreignColumn();
+    }
+    return foreignColumn;
+  }
+
   private String nestedResultMapId(Result result) {
     String resultMapId = result.one().resultMap();
     if (resultMapId.length() < 1) {
@@ -533,13 +550,21 @@ public class MapperAnnotationBuilder {
   private boolean isLazy(Result result) {
     boolean isLazy = configuration.isLazyLoadingEnabled();
     if (result.one().select().length() > 0 && FetchType.DEFAULT != result.one().fetchType()) {
-      isLazy = result.one().fetchType() == FetchType.LAZY;
+      isLazy = result.one().fetchType() == FetchType.LAZY || result.one().fetchType() == FetchType.LAZY_BATCH;
     } else if (result.many().select().length() > 0 && FetchType.DEFAULT != result.many().fetchType()) {
-      isLazy = result.many().fetchType() == FetchType.LAZY;
+      isLazy = result.many().fetchType() == FetchType.LAZY || result.many().fetchType() == FetchType.LAZY_BATCH;
     }
     return isLazy;
   }
 
+  private boolean isBatch(Result result) {
+    if (result.one().select().length() > 0) {
+      return result.one().fetchType() == FetchType.BATCH || result.one().fetchType() == FetchType.LAZY_BATCH;
+    }
+    return result.many().select().length() > 0
+        && (result.many().fetchType() == FetchType.BATCH || result.many().fetchType() == FetchType.LAZY_BATCH);
+  }
+
   private boolean hasNestedSelect(Result result) {
     if (result.one().select().length() > 0 && result.many().select().length() > 0) {
       throw new BuilderException("Cannot use both @One and @Many annotations in the same @Result");
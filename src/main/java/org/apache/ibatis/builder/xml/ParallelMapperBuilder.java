@@ -0,0 +1,178 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.builder.xml;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.apache.ibatis.builder.CacheRefResolver;
+import org.apache.ibatis.builder.IncompleteElementException;
+import org.apache.ibatis.builder.ResultMapResolver;
+import org.apache.ibatis.builder.annotation.MethodResolver;
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.io.ResolverUtil;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ConfigurationStage;
+
+/**
+ * Builds the mappers of a {@code <mappers>} element concurrently.
+ * <p>
+ * Every mapper, an XML file or an annotated interface, is built on a {@link ForkJoinPool} into its own
+ * {@link ConfigurationStage}. Once all of them are built, the stages are merged into the configuration in the order the
+ * mappers are declared, each merge followed by the incomplete result map, cache-ref, statement and method passes that
+ * the sequential build runs after every mapper. A mapper whose stage cannot be merged, because building it failed or
+ * because it depends on a mapper declared before it in a way that a stage cannot see, is built again on the
+ * configuration at its turn, so the result and the first error reported are those of the sequential build.
+ *
+ * @since 3.5.6
+ */
+class ParallelMapperBuilder {
+
+  private final Configuration configuration;
+  private final List<MapperElement> elements = new ArrayList<>();
+
+  ParallelMapperBuilder(Configuration configuration) {
+    this.configuration = configuration;
+  }
+
+  void add(MapperElement element) {
+    elements.add(element);
+  }
+
+  void addMappers(String packageName) {
+    // same classes as MapperRegistry#addMappers(String), which ignores those that are not interfaces
+    ResolverUtil<Class<?>> resolverUtil = new ResolverUtil<>();
+    resolverUtil.find(new ResolverUtil.IsA(Object.class), packageName);
+    for (Class<?> mapperClass : resolverUtil.getClasses()) {
+      if (mapperClass.isInterface()) {
+        add(() -> configuration.addMapper(mapperClass));
+      }
+    }
+  }
+
+  void build() throws Exception {
+    List<ConfigurationStage> stages = buildStages();
+    for (int i = 0; i < elements.size(); i++) {
+      if (stages.get(i).merge()) {
+        parsePendingElements();
+      } else {
+        elements.get(i).build();
+      }
+    }
+  }
+
+  private List<ConfigurationStage> buildStages() {
+    List<ConfigurationStage> stages = new ArrayList<>(elements.size());
+    if (elements.isEmpty()) {
+      return stages;
+    }
+    ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    ForkJoinPool pool = new ForkJoinPool(Math.min(elements.size(), Runtime.getRuntime().availableProcessors()));
+    try {
+      List<ForkJoinTask<?>> tasks = new ArrayList<>(elements.size());
+      for (MapperElement element : elements) {
+        ConfigurationStage stage = configuration.newStage();
+        stages.add(stage);
+        tasks.add(pool.submit(() -> {
+          Thread thread = Thread.currentThread();
+          ClassLoader previous = thread.getContextClassLoader();
+          // resources and classes are looked up as if they were loaded by the thread building the configuration
+          thread.setContextClassLoader(contextClassLoader);
+          try {
+            stage.build(() -> {
+              element.build();
+              return null;
+            });
+          } finally {
+            ErrorContext.instance().reset();
+            thread.setContextClassLoader(previous);
+          }
+        }));
+      }
+      // the configuration must not change while stages are read from it
+      for (ForkJoinTask<?> task : tasks) {
+        task.join();
+      }
+    } finally {
+      pool.shutdown();
+    }
+    return stages;
+  }
+
+  private void parsePendingElements() {
+    Collection<ResultMapResolver> incompleteResultMaps = configuration.getIncompleteResultMaps();
+    synchronized (incompleteResultMaps) {
+      Iterator<ResultMapResolver> iter = incompleteResultMaps.iterator();
+      while (iter.hasNext()) {
+        try {
+          iter.next().resolve();
+          iter.remove();
+        } catch (IncompleteElementException e) {
+          // ResultMap is still missing a resource...
+        }
+      }
+    }
+    Collection<CacheRefResolver> incompleteCacheRefs = configuration.getIncompleteCacheRefs();
+    synchronized (incompleteCacheRefs) {
+      Iterator<CacheRefResolver> iter = incompleteCacheRefs.iterator();
+      while (iter.hasNext()) {
+        try {
+          iter.next().resolveCacheRef();
+          iter.remove();
+        } catch (IncompleteElementException e) {
+          // Cache ref is still missing a resource...
+        }
+      }
+    }
+    Collection<XMLStatementBuilder> incompleteStatements = configuration.getIncompleteStatements();
+    synchronized (incompleteStatements) {
+      Iterator<XMLStatementBuilder> iter = incompleteStatements.iterator();
+      while (iter.hasNext()) {
+        try {
+          iter.next().parseStatementNode();
+          iter.remove();
+        } catch (IncompleteElementException e) {
+          // Statement is still missing a resource...
+        }
+      }
+    }
+    Collection<MethodResolver> incompleteMethods = configuration.getIncompleteMethods();
+    synchronized (incompleteMethods) {
+      Iterator<MethodResolver> iter = incompleteMethods.iterator();
+      while (iter.hasNext()) {
+        try {
+          iter.next().resolve();
+          iter.remove();
+        } catch (IncompleteElementException e) {
+          // This method is still missing a resource
+        }
+      }
+    }
+  }
+
+  /**
+   * One child of {@code <mappers>}, built the way the sequential build does.
+   */
+  @FunctionalInterface
+  interface MapperElement {
+    void build() throws Exception;
+  }
+
+}
@@ -292,6 +292,16 @@ public class XMLConfigBuilder extends BaseBuilder {
         configuration.setConfigurationFactory(resolveClass(props.getProperty("configurationFactory")));
         configuration.setShrinkWhitespacesInSql(booleanValueOf(props.getProperty("shrinkWhitespacesInSql"), false));
         configuration.setDefaultSqlProviderType(resolveClass(props.getProperty("defaultSqlProviderType")));
+        configuration.setDynamicSqlCacheSize(integerValueOf(props.getProperty("dynamicSqlCacheSize"), 0));
+        configuration.setCompiledRowMappingEnabled(booleanValueOf(props.getProperty("compiledRowMappingEnabled"), false));
+        configuration.setMaximumCacheWeight(longValueOf(props.getProperty("maximumCacheWeight"), 0L));
+        configuration.setBatchFetchSize(integerValueOf(props.getProperty("batchFetchSize"), 100));
+        configuration.setMultiRowInsertSize(integerValueOf(props.getProperty("multiRowInsertSize"), 100));
+        configuration.setBatchMaxStatements(integerValueOf(props.getProperty("batchMaxStatements"), 32));
+        configuration.setBatchFlushRows(integerValueOf(props.getProperty("batchFlushRows"), 1000));
+        configuration.setBatchFlushBytes(longValueOf(props.getProperty("batchFlushBytes"), 0L));
+        configuration.setReuseStatementCacheSize(integerValueOf(props.getProperty("reuseStatementCacheSize"), 0));
+        configuration.setParallelMapperParsing(booleanValueOf(props.getProperty("parallelMapperParsing"), false));
     }
 
     private void environmentsElement(XNode context) throws Exception {
@@ -388,6 +398,19 @@ public class XMLConfigBuilder extends BaseBuilder {
 
     private void mapperElement(XNode parent) throws Exception {
         if (parent != null) {
+            if (configuration.isParallelMapperParsing()) {
+                // 每个Mapper在ForkJoinPool中构建到各自的暂存区, 再按声明顺序合并到configuration中
+                ParallelMapperBuilder parallelBuilder = new ParallelMapperBuilder(configuration);
+                for (XNode child : parent.getChildren()) {
+                    if ("package".equals(child.getName())) {
+                        parallelBuilder.addMappers(child.getStringAttribute("name"));
+                    } else {
+                        parallelBuilder.add(() -> mapperChildElement(child));
+                    }
+                }
+                parallelBuilder.build();
+                return;
+            }
             for (XNode child : parent.getChildren()) {
                 if ("package".equals(child.getName())) {
                     // 如果是<package>子标签, 会加载该包下的所有Class(只获取接口), 然后靠它创建出
@@ -395,35 +418,39 @@ public class XMLConfigBuilder extends BaseBuilder {
                     String mapperPackage = child.getStringAttribute("name");
                     configuration.addMappers(mapperPackage);
                 } else {
-                    // 如果是<mapper>子标签, 取出它的三个属性.
-                    String resource = child.getStringAttribute("resource");
-                    String url = child.getStringAttribute("url");
-                    String mapperClass = child.getStringAttribute("class");
-                    if (resource != null && url == null && mapperClass == null) {
-                        // 如果配置的是resource属性, 即配置了*mapper.xml, 则根据它指定的路径生成一个
-                        // XMLMapperBuilder去解析
-                        ErrorContext.instance().resource(resource);
-                        InputStream inputStream = Resources.getResourceAsStream(resource);
-                        XMLMapperBuilder mapperParser = new XMLMapperBuilder(inputStream, configuration, resource, configuration.getSqlFragments());
-                        mapperParser.parse();
-                    } else if (resource == null && url != null && mapperClass == null) {
-                        // 如果配置的url属性, 生成XMLMapperBuilder去解析. 这种方式比较少
-                        ErrorContext.instance().resource(url);
-                        InputStream inputStream = Resources.getUrlAsStream(url);
-                        XMLMapperBuilder mapperParser = new XMLMapperBuilder(inputStream, configuration, url, configuration.getSqlFragments());
-                        mapperParser.parse();
-                    } else if (resource == null && url == null && mapperClass != null) {
-                        // 如果配置的是class属性, 直接将其添加到MapperRegistry中
-                        Class<?> mapperInterface = Resources.classForName(mapperClass);
-                        configuration.addMapper(mapperInterface);
-                    } else {
-                        throw new BuilderException("A mapper element may only specify a url, resource or class, but not more than one.");
-                    }
+                    mapperChildElement(child);
                 }
             }
         }
     }
 
+    private void mapperChildElement(XNode child) throws Exception {
+        // 如果是<mapper>子标签, 取出它的三个属性.
+        String resource = child.getStringAttribute("resource");
+        String url = child.getStringAttribute("url");
+        String mapperClass = child.getStringAttribute("class");
+        if (resource != null && url == null && mapperClass == null) {
+            // 如果配置的是resource属性, 即配置了*mapper.xml, 则根据它指定的路径生成一个
+            // XMLMapperBuilder去解析
+            ErrorContext.instance().resource(resource);
+            InputStream inputStream = Resources.getResourceAsStream(resource);
+            XMLMapperBuilder mapperParser = new XMLMapperBuilder(inputStream, configuration, resource, configuration.getSqlFragments());
+            mapperParser.parse();
+        } else if (resource == null && url != null && mapperClass == null) {
+            // 如果配置的url属性, 生成XMLMapperBuilder去解析. 这种方式比较少
+            ErrorContext.instance().resource(url);
+            InputStream inputStream = Resources.getUrlAsStream(url);
+            XMLMapperBuilder mapperParser = new XMLMapperBuilder(inputStream, configuration, url, configuration.getSqlFragments());
+            mapperParser.parse();
+        } else if (resource == null && url == null && mapperClass != null) {
+            // 如果配置的是class属性, 直接将其添加到MapperRegistry中
+            Class<?> mapperInterface = Resources.classForName(mapperClass);
+            configuration.addMapper(mapperInterface);
+        } else {
+            throw new BuilderException("A mapper element may only specify a url, resource or class, but not more than one.");
+        }
+    }
+
     private boolean isSpecifiedEnvironment(String id) {
         if (environment == null) {
             throw new BuilderException("No environment specified.");
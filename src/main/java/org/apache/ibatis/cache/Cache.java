@@ -97,4 +97,18 @@ public interface Cache {
     return null;
   }
 
+  /**
+   * Optional. Reports whether this cache (including the caches it decorates) can be used by several threads without
+   * external synchronization. When a cache chain built by MyBatis reports itself as thread-safe, it is not wrapped in
+   * a {@link org.apache.ibatis.cache.decorators.SynchronizedCache}.
+   * <p>
+   * Decorators must only return {@code true} when they are thread-safe themselves and their delegate is thread-safe.
+   *
+   * @return {@code true} if the cache is thread-safe, {@code false} (the default) otherwise
+   * @since 3.5.6
+   */
+  default boolean isThreadSafe() {
+    return false;
+  }
+
 }
@@ -16,8 +16,7 @@
 package org.apache.ibatis.cache;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.StringJoiner;
 
 import org.apache.ibatis.reflection.ArrayUtil;
@@ -27,7 +26,7 @@ import org.apache.ibatis.reflection.ArrayUtil;
  */
 public class CacheKey implements Cloneable, Serializable {
 
-  private static final long serialVersionUID = 1146682552656046210L;
+  private static final long serialVersionUID = -1695475542386406449L;
 
   public static final CacheKey NULL_CACHE_KEY = new CacheKey() {
 
@@ -44,41 +43,57 @@ public class CacheKey implements Cloneable, Serializable {
 
   private static final int DEFAULT_MULTIPLIER = 37;
   private static final int DEFAULT_HASHCODE = 17;
+  private static final int DEFAULT_CAPACITY = 8;
+  private static final Object[] EMPTY_UPDATES = new Object[0];
 
   private final int multiplier;
   private int hashcode;
+  // a 64-bit hash of the components in order, so that keys that share their hashcode rarely need a full compare
   private long checksum;
   private int count;
   // 8/21/2017 - Sonarlint flags this as needing to be marked transient. While true if content is not serializable, this
   // is not always true and thus should not be marked transient.
-  private List<Object> updateList;
+  private Object[] updates;
 
   public CacheKey() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty key sized for the expected number of components, e.g. the statement id, the row bounds, the SQL
+   * and each parameter of a statement.
+   *
+   * @param expectedUpdateCount
+   *          the number of {@link #update(Object)} calls expected, more calls are still allowed
+   * @since 3.5.6
+   */
+  public CacheKey(int expectedUpdateCount) {
     this.hashcode = DEFAULT_HASHCODE;
     this.multiplier = DEFAULT_MULTIPLIER;
     this.count = 0;
-    this.updateList = new ArrayList<>();
+    this.updates = expectedUpdateCount > 0 ? new Object[expectedUpdateCount] : EMPTY_UPDATES;
   }
 
   public CacheKey(Object[] objects) {
-    this();
+    this(objects.length);
     updateAll(objects);
   }
 
   public int getUpdateCount() {
-    return updateList.size();
+    return count;
   }
 
   public void update(Object object) {
     int baseHashCode = object == null ? 1 : ArrayUtil.hashCode(object);
 
-    count++;
-    checksum += baseHashCode;
+    if (count == updates.length) {
+      updates = Arrays.copyOf(updates, Math.max(DEFAULT_CAPACITY, count + (count >> 1)));
+    }
+    updates[count++] = object;
+    checksum = mix(checksum + baseHashCode);
     baseHashCode *= count;
 
     hashcode = multiplier * hashcode + baseHashCode;
-
-    updateList.add(object);
   }
 
   public void updateAll(Object[] objects) {
@@ -108,10 +123,11 @@ public class CacheKey implements Cloneable, Serializable {
       return false;
     }
 
-    for (int i = 0; i < updateList.size(); i++) {
-      Object thisObject = updateList.get(i);
-      Object thatObject = cacheKey.updateList.get(i);
-      if (!ArrayUtil.equals(thisObject, thatObject)) {
+    for (int i = 0; i < count; i++) {
+      Object thisObject = updates[i];
+      Object thatObject = cacheKey.updates[i];
+      // the statement id and the SQL of a statement are usually the same instances in both keys
+      if (thisObject != thatObject && !ArrayUtil.equals(thisObject, thatObject)) {
         return false;
       }
     }
@@ -128,15 +144,25 @@ public class CacheKey implements Cloneable, Serializable {
     StringJoiner returnValue = new StringJoiner(":");
     returnValue.add(String.valueOf(hashcode));
     returnValue.add(String.valueOf(checksum));
-    updateList.stream().map(ArrayUtil::toString).forEach(returnValue::add);
+    for (int i = 0; i < count; i++) {
+      returnValue.add(ArrayUtil.toString(updates[i]));
+    }
     return returnValue.toString();
   }
 
   @Override
   public CacheKey clone() throws CloneNotSupportedException {
     CacheKey clonedCacheKey = (CacheKey) super.clone();
-    clonedCacheKey.updateList = new ArrayList<>(updateList);
+    // cloned keys are usually updated once more, see DefaultResultSetHandler#combineKeys
+    clonedCacheKey.updates = Arrays.copyOf(updates, count + 1);
     return clonedCacheKey;
   }
 
+  // the finalizer of MurmurHash3
+  private static long mix(long hash) {
+    hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+    hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return hash ^ (hash >>> 33);
+  }
+
 }
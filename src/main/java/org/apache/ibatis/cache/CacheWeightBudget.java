@@ -0,0 +1,81 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ibatis.cache.decorators.WeightedCache;
+
+/**
+ * A byte budget shared by the weight-bounded caches of a configuration.
+ * <p>
+ * Each {@link WeightedCache} reports the weight it adds and releases. When a put exceeds the budget, the overflow is
+ * charged to the caches holding the most weight: their least recently used entries are evicted, heaviest cache first,
+ * until the total is back under the budget. A namespace of large lists therefore gives way before the namespaces of
+ * small objects do.
+ *
+ * @since 3.5.6
+ */
+public class CacheWeightBudget {
+
+  private final AtomicLong weight = new AtomicLong();
+  private final List<WeightedCache> caches = new CopyOnWriteArrayList<>();
+  private volatile long maximumWeight;
+
+  /**
+   * @return the current weight of all the caches sharing this budget, in bytes
+   */
+  public long getWeight() {
+    return weight.get();
+  }
+
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  /**
+   * @param maximumWeight
+   *          the maximum weight in bytes, or {@code 0} for no limit
+   */
+  public void setMaximumWeight(long maximumWeight) {
+    this.maximumWeight = maximumWeight;
+  }
+
+  public void register(WeightedCache cache) {
+    caches.add(cache);
+  }
+
+  /**
+   * @return the caches sharing this budget
+   */
+  public Collection<WeightedCache> getCaches() {
+    return Collections.unmodifiableList(caches);
+  }
+
+  public void add(long delta) {
+    weight.addAndGet(delta);
+  }
+
+  public boolean isExceeded() {
+    long max = maximumWeight;
+    return max > 0 && weight.get() > max;
+  }
+
+}
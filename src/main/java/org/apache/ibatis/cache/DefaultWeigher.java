@@ -0,0 +1,190 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.reflection.Reflector;
+
+/**
+ * A {@link Weigher} that estimates the retained size of cached select results.
+ * <p>
+ * A result list is assumed to hold rows of a similar size, so only its first element is measured and its weight is
+ * multiplied by the row count. Rows are measured by walking their fields down to a few levels of nested objects;
+ * JDK types other than strings, collections, maps and arrays are counted by their shallow size only. Serialized values
+ * (byte arrays) are counted exactly. The estimates assume a 64-bit JVM and are meant to bound the cache, not to
+ * account for every byte.
+ *
+ * @since 3.5.6
+ */
+public class DefaultWeigher implements Weigher {
+
+  private static final int OBJECT_HEADER = 16;
+  private static final int ARRAY_HEADER = 16;
+  private static final int REFERENCE = 8;
+  // the map node of the cache and a CacheKey sharing its parts with the statement
+  private static final int ENTRY_OVERHEAD = 96;
+  private static final int MAX_DEPTH = 4;
+
+  private static final ClassValue<Layout> LAYOUTS = new ClassValue<Layout>() {
+    @Override
+    protected Layout computeValue(Class<?> type) {
+      return new Layout(type);
+    }
+  };
+
+  @Override
+  public long weigh(Object key, Object value) {
+    return ENTRY_OVERHEAD + estimate(value, 0);
+  }
+
+  protected long estimate(Object value, int depth) {
+    if (value == null) {
+      return 0;
+    }
+    if (value instanceof byte[]) {
+      return align(ARRAY_HEADER + ((byte[]) value).length);
+    }
+    if (value instanceof CharSequence) {
+      // the object itself plus its backing array, counting two bytes per char
+      return align(OBJECT_HEADER + 8) + align(ARRAY_HEADER + 2L * ((CharSequence) value).length());
+    }
+    if (value instanceof Collection) {
+      Collection<?> collection = (Collection<?>) value;
+      int size = collection.size();
+      return align(OBJECT_HEADER + 16) + align(ARRAY_HEADER + (long) REFERENCE * size)
+          + size * estimate(firstNonNull(collection.iterator()), depth + 1);
+    }
+    if (value instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      int size = map.size();
+      if (size == 0) {
+        return align(OBJECT_HEADER + 32);
+      }
+      Map.Entry<?, ?> entry = map.entrySet().iterator().next();
+      return align(OBJECT_HEADER + 32) + align(ARRAY_HEADER + (long) REFERENCE * size)
+          + size * (align(OBJECT_HEADER + 16) + estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1));
+    }
+    Class<?> type = value.getClass();
+    if (type.isArray()) {
+      return estimateArray(value, type.getComponentType(), depth);
+    }
+    Layout layout = LAYOUTS.get(type);
+    long size = layout.shallowSize;
+    if (depth < MAX_DEPTH) {
+      for (Field field : layout.referenceFields) {
+        try {
+          size += estimate(field.get(value), depth + 1);
+        } catch (IllegalAccessException e) {
+          // count the reference only
+        }
+      }
+    }
+    return size;
+  }
+
+  private long estimateArray(Object array, Class<?> componentType, int depth) {
+    int length = Array.getLength(array);
+    if (componentType.isPrimitive()) {
+      return align(ARRAY_HEADER + (long) primitiveSize(componentType) * length);
+    }
+    long size = align(ARRAY_HEADER + (long) REFERENCE * length);
+    Object sample = null;
+    for (int i = 0; i < length && sample == null; i++) {
+      sample = Array.get(array, i);
+    }
+    return size + length * estimate(sample, depth + 1);
+  }
+
+  private static Object firstNonNull(Iterator<?> iterator) {
+    while (iterator.hasNext()) {
+      Object element = iterator.next();
+      if (element != null) {
+        return element;
+      }
+    }
+    return null;
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+
+  private static int primitiveSize(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    } else if (type == int.class || type == float.class) {
+      return 4;
+    } else if (type == short.class || type == char.class) {
+      return 2;
+    }
+    return 1;
+  }
+
+  private static final class Layout {
+
+    private final long shallowSize;
+    private final Field[] referenceFields;
+
+    Layout(Class<?> type) {
+      long size = OBJECT_HEADER;
+      List<Field> fields = new ArrayList<>();
+      boolean walkFields = !isJdkType(type);
+      for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+        for (Field field : current.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers())) {
+            continue;
+          }
+          if (field.getType().isPrimitive()) {
+            size += primitiveSize(field.getType());
+          } else {
+            size += REFERENCE;
+            if (walkFields && trySetAccessible(field)) {
+              fields.add(field);
+            }
+          }
+        }
+      }
+      this.shallowSize = align(size);
+      this.referenceFields = fields.toArray(new Field[0]);
+    }
+
+    private static boolean isJdkType(Class<?> type) {
+      String name = type.getName();
+      return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.");
+    }
+
+    private static boolean trySetAccessible(Field field) {
+      if (!Reflector.canControlMemberAccessible()) {
+        return Modifier.isPublic(field.getModifiers()) && Modifier.isPublic(field.getDeclaringClass().getModifiers());
+      }
+      try {
+        field.setAccessible(true);
+        return true;
+      } catch (RuntimeException e) {
+        return false;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,39 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Estimates the memory retained by a cache entry.
+ * <p>
+ * Implementations must be thread-safe and should be cheap, as a weigher is called each time an entry is put in a
+ * weight-bounded cache.
+ *
+ * @since 3.5.6
+ * @see org.apache.ibatis.cache.decorators.WeightedCache
+ */
+@FunctionalInterface
+public interface Weigher {
+
+  /**
+   * @param key
+   *          the key of the entry, usually a {@link CacheKey}
+   * @param value
+   *          the cached value, usually the {@code List} returned by a select or its serialized form
+   * @return the estimated size of the entry in bytes, never negative
+   */
+  long weigh(Object key, Object value);
+
+}
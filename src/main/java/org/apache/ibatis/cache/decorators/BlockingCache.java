@@ -29,6 +29,12 @@ import org.apache.ibatis.cache.CacheException;
  * Simple and inefficient version of EhCache's BlockingCache decorator.
  * It sets a lock over a cache key when the element is not found in cache.
  * This way, other threads will wait until this element is filled instead of hitting the database.
+ * <p>
+ * By default each key being loaded has a lock of its own, which is dropped once no thread holds or waits for it, so
+ * the number of locks is bounded by the number of concurrent misses. Since 3.5.6 the {@code lockStripes} property
+ * selects a fixed number of locks shared by the keys of the same hash instead, which never allocates on a miss. Keys
+ * that share a stripe wait for each other until the first one is loaded, and a lock is held until the end of the
+ * transaction that missed it, so striping should be combined with enough stripes and a {@code timeout}.
  *
  * @author Eduardo Macarron
  *
@@ -37,7 +43,8 @@ public class BlockingCache implements Cache {
 
   private long timeout;
   private final Cache delegate;
-  private final ConcurrentHashMap<Object, ReentrantLock> locks;
+  private final ConcurrentHashMap<Object, CountedLock> locks;
+  private ReentrantLock[] stripes;
 
   public BlockingCache(Cache delegate) {
     this.delegate = delegate;
@@ -85,12 +92,33 @@ public class BlockingCache implements Cache {
     delegate.clear();
   }
 
-  private ReentrantLock getLockForKey(Object key) {
-    return locks.computeIfAbsent(key, k -> new ReentrantLock());
+  @Override
+  public boolean isThreadSafe() {
+    return delegate.isThreadSafe();
   }
 
   private void acquireLock(Object key) {
-    Lock lock = getLockForKey(key);
+    if (stripes != null) {
+      lock(stripeForKey(key), key);
+      return;
+    }
+    CountedLock lock = locks.compute(key, (k, current) -> {
+      CountedLock counted = current == null ? new CountedLock() : current;
+      counted.references++;
+      return counted;
+    });
+    boolean acquired = false;
+    try {
+      lock(lock, key);
+      acquired = true;
+    } finally {
+      if (!acquired) {
+        dereference(key);
+      }
+    }
+  }
+
+  private void lock(Lock lock, Object key) {
     if (timeout > 0) {
       try {
         boolean acquired = lock.tryLock(timeout, TimeUnit.MILLISECONDS);
@@ -106,12 +134,25 @@ public class BlockingCache implements Cache {
   }
 
   private void releaseLock(Object key) {
-    ReentrantLock lock = locks.get(key);
-    if (lock.isHeldByCurrentThread()) {
+    ReentrantLock lock = stripes != null ? stripeForKey(key) : locks.get(key);
+    if (lock != null && lock.isHeldByCurrentThread()) {
       lock.unlock();
+      if (stripes == null) {
+        dereference(key);
+      }
     }
   }
 
+  private void dereference(Object key) {
+    locks.computeIfPresent(key, (k, lock) -> --lock.references == 0 ? null : lock);
+  }
+
+  private ReentrantLock stripeForKey(Object key) {
+    int hash = key.hashCode();
+    hash ^= hash >>> 16;
+    return stripes[(hash & Integer.MAX_VALUE) % stripes.length];
+  }
+
   public long getTimeout() {
     return timeout;
   }
@@ -119,4 +160,38 @@ public class BlockingCache implements Cache {
   public void setTimeout(long timeout) {
     this.timeout = timeout;
   }
+
+  public int getLockStripes() {
+    return stripes == null ? 0 : stripes.length;
+  }
+
+  /**
+   * @param lockStripes
+   *          the number of locks shared by all the keys, or {@code 0} (the default) for one lock per key being loaded
+   * @since 3.5.6
+   */
+  public void setLockStripes(int lockStripes) {
+    if (lockStripes > 0) {
+      stripes = new ReentrantLock[lockStripes];
+      for (int i = 0; i < lockStripes; i++) {
+        stripes[i] = new ReentrantLock();
+      }
+    } else {
+      stripes = null;
+    }
+  }
+
+  /**
+   * @return the number of locks currently allocated
+   * @since 3.5.6
+   */
+  public int getLockCount() {
+    return stripes == null ? locks.size() : stripes.length;
+  }
+
+  // a lock that is removed from the lock map when no thread holds or waits for it, guarded by the map
+  private static final class CountedLock extends ReentrantLock {
+    private static final long serialVersionUID = 1L;
+    private int references;
+  }
 }
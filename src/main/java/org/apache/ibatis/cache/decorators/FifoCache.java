@@ -16,12 +16,15 @@
 package org.apache.ibatis.cache.decorators;
 
 import java.util.Deque;
-import java.util.LinkedList;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ibatis.cache.Cache;
 
 /**
  * FIFO (first in, first out) cache decorator.
+ * <p>
+ * The insertion order is kept in a concurrent queue, so this decorator is thread-safe when its delegate is.
  *
  * @author Clinton Begin
  */
@@ -29,11 +32,13 @@ public class FifoCache implements Cache {
 
   private final Cache delegate;
   private final Deque<Object> keyList;
+  // the size of a ConcurrentLinkedDeque is not a constant-time operation
+  private final AtomicInteger keyCount = new AtomicInteger();
   private int size;
 
   public FifoCache(Cache delegate) {
     this.delegate = delegate;
-    this.keyList = new LinkedList<>();
+    this.keyList = new ConcurrentLinkedDeque<>();
     this.size = 1024;
   }
 
@@ -53,8 +58,9 @@ public class FifoCache implements Cache {
 
   @Override
   public void putObject(Object key, Object value) {
-    cycleKeyList(key);
+    // the key is queued once the entry exists, so that a concurrent eviction cannot remove it before it is added
     delegate.putObject(key, value);
+    cycleKeyList(key);
   }
 
   @Override
@@ -71,13 +77,22 @@ public class FifoCache implements Cache {
   public void clear() {
     delegate.clear();
     keyList.clear();
+    keyCount.set(0);
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return delegate.isThreadSafe();
   }
 
   private void cycleKeyList(Object key) {
     keyList.addLast(key);
-    if (keyList.size() > size) {
-      Object oldestKey = keyList.removeFirst();
-      delegate.removeObject(oldestKey);
+    if (keyCount.incrementAndGet() > size) {
+      Object oldestKey = keyList.pollFirst();
+      if (oldestKey != null) {
+        keyCount.decrementAndGet();
+        delegate.removeObject(oldestKey);
+      }
     }
   }
 
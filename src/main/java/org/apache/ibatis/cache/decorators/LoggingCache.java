@@ -15,6 +15,8 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -24,10 +26,14 @@ import org.apache.ibatis.logging.LogFactory;
  */
 public class LoggingCache implements Cache {
 
+  // the counters are updated atomically, a thread-safe chain is not wrapped in a SynchronizedCache
+  private static final AtomicIntegerFieldUpdater<LoggingCache> REQUESTS = AtomicIntegerFieldUpdater.newUpdater(LoggingCache.class, "requests");
+  private static final AtomicIntegerFieldUpdater<LoggingCache> HITS = AtomicIntegerFieldUpdater.newUpdater(LoggingCache.class, "hits");
+
   private final Log log;
   private final Cache delegate;
-  protected int requests = 0;
-  protected int hits = 0;
+  protected volatile int requests = 0;
+  protected volatile int hits = 0;
 
   public LoggingCache(Cache delegate) {
     this.delegate = delegate;
@@ -51,10 +57,10 @@ public class LoggingCache implements Cache {
 
   @Override
   public Object getObject(Object key) {
-    requests++;
+    REQUESTS.incrementAndGet(this);
     final Object value = delegate.getObject(key);
     if (value != null) {
-      hits++;
+      HITS.incrementAndGet(this);
     }
     if (log.isDebugEnabled()) {
       log.debug("Cache Hit Ratio [" + getId() + "]: " + getHitRatio());
@@ -72,6 +78,11 @@ public class LoggingCache implements Cache {
     delegate.clear();
   }
 
+  @Override
+  public boolean isThreadSafe() {
+    return delegate.isThreadSafe();
+  }
+
   @Override
   public int hashCode() {
     return delegate.hashCode();
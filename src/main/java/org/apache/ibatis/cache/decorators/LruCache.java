@@ -17,17 +17,23 @@ package org.apache.ibatis.cache.decorators;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ibatis.cache.Cache;
 
 /**
  * Lru (least recently used) cache decorator.
+ * <p>
+ * The access order is guarded by a lock of its own, so this decorator is thread-safe when its delegate is. Recording
+ * a read is best effort: a read that finds the access order being updated by another thread does not wait for it.
  *
  * @author Clinton Begin
  */
 public class LruCache implements Cache {
 
   private final Cache delegate;
+  private final Lock keyMapLock = new ReentrantLock();
   private Map<Object, Object> keyMap;
   private Object eldestKey;
 
@@ -69,7 +75,13 @@ public class LruCache implements Cache {
 
   @Override
   public Object getObject(Object key) {
-    keyMap.get(key); // touch
+    if (keyMapLock.tryLock()) {
+      try {
+        keyMap.get(key); // touch
+      } finally {
+        keyMapLock.unlock();
+      }
+    }
     return delegate.getObject(key);
   }
 
@@ -81,14 +93,31 @@ public class LruCache implements Cache {
   @Override
   public void clear() {
     delegate.clear();
-    keyMap.clear();
+    keyMapLock.lock();
+    try {
+      keyMap.clear();
+    } finally {
+      keyMapLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return delegate.isThreadSafe();
   }
 
   private void cycleKeyList(Object key) {
-    keyMap.put(key, key);
-    if (eldestKey != null) {
-      delegate.removeObject(eldestKey);
+    Object evictedKey;
+    keyMapLock.lock();
+    try {
+      keyMap.put(key, key);
+      evictedKey = eldestKey;
       eldestKey = null;
+    } finally {
+      keyMapLock.unlock();
+    }
+    if (evictedKey != null) {
+      delegate.removeObject(evictedKey);
     }
   }
 
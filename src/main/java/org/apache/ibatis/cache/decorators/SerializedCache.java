@@ -74,6 +74,11 @@ public class SerializedCache implements Cache {
     delegate.clear();
   }
 
+  @Override
+  public boolean isThreadSafe() {
+    return delegate.isThreadSafe();
+  }
+
   @Override
   public int hashCode() {
     return delegate.hashCode();
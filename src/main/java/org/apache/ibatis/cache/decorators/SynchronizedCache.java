@@ -58,6 +58,11 @@ public class SynchronizedCache implements Cache {
     delegate.clear();
   }
 
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
   @Override
   public int hashCode() {
     return delegate.hashCode();
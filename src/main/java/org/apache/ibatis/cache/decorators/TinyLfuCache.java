@@ -0,0 +1,381 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * W-TinyLFU (window TinyLFU) cache decorator.
+ * <p>
+ * New entries enter a small LRU window. An entry leaving the window is only admitted to the main space, a segmented
+ * LRU made of a probation and a protected segment, when it has been requested more often than the entry it would
+ * evict. Request frequencies are estimated by a count-min sketch that is aged periodically, so a scan of entries
+ * that are never requested again cannot flush the frequently used ones.
+ * <p>
+ * Reads do not take the lock that guards the eviction policy: they are recorded in a lock-free buffer that is
+ * replayed by the thread holding the lock. Reads that find the buffer full are not recorded. This decorator is
+ * thread-safe when its delegate is.
+ *
+ * @since 3.5.6
+ */
+public class TinyLfuCache implements Cache {
+
+  private static final int READ_BUFFER_SIZE = 128;
+  private static final int READ_BUFFER_DRAIN_THRESHOLD = 32;
+
+  private final Cache delegate;
+  private final Lock evictionLock = new ReentrantLock();
+
+  // guarded by evictionLock
+  private final Map<Object, Node> nodes = new HashMap<>();
+  private final AccessOrder window = new AccessOrder();
+  private final AccessOrder probation = new AccessOrder();
+  private final AccessOrder protectedSegment = new AccessOrder();
+  private FrequencySketch sketch;
+  private int maximumSize;
+  private int maximumWindowSize;
+  private int maximumProtectedSize;
+
+  private final AtomicReferenceArray<Object> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+  private final AtomicLong readBufferWriteCount = new AtomicLong();
+  private final AtomicLong readBufferReadCount = new AtomicLong();
+
+  public TinyLfuCache(Cache delegate) {
+    this.delegate = delegate;
+    setSize(1024);
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  public void setSize(int size) {
+    evictionLock.lock();
+    try {
+      this.maximumSize = Math.max(size, 1);
+      this.maximumWindowSize = Math.max(maximumSize / 100, 1);
+      this.maximumProtectedSize = (int) ((maximumSize - maximumWindowSize) * 0.8);
+      this.sketch = new FrequencySketch(maximumSize);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    delegate.putObject(key, value);
+    evictionLock.lock();
+    try {
+      drainReadBuffer();
+      onWrite(key);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Object value = delegate.getObject(key);
+    recordRead(key);
+    return value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    evictionLock.lock();
+    try {
+      drainReadBuffer();
+      Node node = nodes.remove(key);
+      if (node != null) {
+        node.segment.unlink(node);
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      drainReadBuffer();
+      nodes.clear();
+      window.clear();
+      probation.clear();
+      protectedSegment.clear();
+      delegate.clear();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return delegate.isThreadSafe();
+  }
+
+  private void recordRead(Object key) {
+    long writeCount = readBufferWriteCount.get();
+    long pending = writeCount - readBufferReadCount.get();
+    if (pending < READ_BUFFER_SIZE && readBufferWriteCount.compareAndSet(writeCount, writeCount + 1)) {
+      readBuffer.lazySet((int) (writeCount & (READ_BUFFER_SIZE - 1)), key);
+      pending++;
+    }
+    if (pending >= READ_BUFFER_DRAIN_THRESHOLD && evictionLock.tryLock()) {
+      try {
+        drainReadBuffer();
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  private void drainReadBuffer() {
+    long readCount = readBufferReadCount.get();
+    long writeCount = readBufferWriteCount.get();
+    for (; readCount < writeCount; readCount++) {
+      int index = (int) (readCount & (READ_BUFFER_SIZE - 1));
+      Object key = readBuffer.get(index);
+      if (key == null) {
+        // the slot has been claimed but the key is not published yet
+        break;
+      }
+      readBuffer.lazySet(index, null);
+      onRead(key);
+    }
+    readBufferReadCount.set(readCount);
+  }
+
+  private void onRead(Object key) {
+    sketch.increment(key);
+    Node node = nodes.get(key);
+    if (node != null) {
+      onHit(node);
+    }
+  }
+
+  private void onWrite(Object key) {
+    sketch.increment(key);
+    Node node = nodes.get(key);
+    if (node != null) {
+      onHit(node);
+      return;
+    }
+    node = new Node(key);
+    nodes.put(key, node);
+    window.addLast(node);
+    if (window.size > maximumWindowSize) {
+      admit(window.removeFirst());
+    }
+  }
+
+  private void onHit(Node node) {
+    if (node.segment == probation) {
+      probation.unlink(node);
+      protectedSegment.addLast(node);
+      if (protectedSegment.size > maximumProtectedSize) {
+        probation.addLast(protectedSegment.removeFirst());
+      }
+    } else {
+      node.segment.moveToLast(node);
+    }
+  }
+
+  private void admit(Node candidate) {
+    if (probation.size + protectedSegment.size < maximumSize - maximumWindowSize) {
+      probation.addLast(candidate);
+      return;
+    }
+    AccessOrder victimSegment = probation.size == 0 ? protectedSegment : probation;
+    if (victimSegment.size == 0) {
+      // no main space at all (a cache of one entry)
+      evict(candidate);
+      return;
+    }
+    Node victim = victimSegment.first;
+    if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+      victimSegment.unlink(victim);
+      evict(victim);
+      probation.addLast(candidate);
+    } else {
+      evict(candidate);
+    }
+  }
+
+  private void evict(Node node) {
+    nodes.remove(node.key);
+    delegate.removeObject(node.key);
+  }
+
+  private static final class Node {
+    private final Object key;
+    private AccessOrder segment;
+    private Node previous;
+    private Node next;
+
+    Node(Object key) {
+      this.key = key;
+    }
+  }
+
+  /**
+   * A doubly linked list of nodes, least recently used first.
+   */
+  private static final class AccessOrder {
+    private Node first;
+    private Node last;
+    private int size;
+
+    void addLast(Node node) {
+      node.segment = this;
+      node.previous = last;
+      node.next = null;
+      if (last == null) {
+        first = node;
+      } else {
+        last.next = node;
+      }
+      last = node;
+      size++;
+    }
+
+    Node removeFirst() {
+      Node node = first;
+      unlink(node);
+      return node;
+    }
+
+    void moveToLast(Node node) {
+      if (node != last) {
+        unlink(node);
+        addLast(node);
+      }
+    }
+
+    void unlink(Node node) {
+      if (node.previous == null) {
+        first = node.next;
+      } else {
+        node.previous.next = node.next;
+      }
+      if (node.next == null) {
+        last = node.previous;
+      } else {
+        node.next.previous = node.previous;
+      }
+      node.previous = null;
+      node.next = null;
+      node.segment = null;
+      size--;
+    }
+
+    void clear() {
+      first = null;
+      last = null;
+      size = 0;
+    }
+  }
+
+  /**
+   * A count-min sketch of 4-bit counters, four per key, that halves all the counters once it has recorded ten
+   * times as many increments as the maximum size of the cache.
+   */
+  static final class FrequencySketch {
+
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+        0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    FrequencySketch(int maximumSize) {
+      int length = Integer.highestOneBit(Math.max(maximumSize, 8) - 1) << 1;
+      this.table = new long[length];
+      this.tableMask = length - 1;
+      this.sampleSize = 10 * maximumSize;
+    }
+
+    int frequency(Object key) {
+      int hash = spread(key.hashCode());
+      int start = (hash & 3) << 2;
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < 4; i++) {
+        int index = indexOf(hash, i);
+        int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+        frequency = Math.min(frequency, count);
+      }
+      return frequency;
+    }
+
+    void increment(Object key) {
+      int hash = spread(key.hashCode());
+      int start = (hash & 3) << 2;
+      boolean added = false;
+      for (int i = 0; i < 4; i++) {
+        added |= incrementAt(indexOf(hash, i), start + i);
+      }
+      if (added && ++size >= sampleSize) {
+        reset();
+      }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+      int offset = counter << 2;
+      long mask = 0xfL << offset;
+      if ((table[index] & mask) != mask) {
+        table[index] += 1L << offset;
+        return true;
+      }
+      return false;
+    }
+
+    private void reset() {
+      for (int i = 0; i < table.length; i++) {
+        table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      size /= 2;
+    }
+
+    private int indexOf(int hash, int i) {
+      long h = (hash + SEEDS[i]) * SEEDS[i];
+      h += h >>> 32;
+      return ((int) h) & tableMask;
+    }
+
+    private static int spread(int hash) {
+      int h = hash * 0x9e3779b9;
+      return h ^ (h >>> 16);
+    }
+  }
+
+}
@@ -0,0 +1,254 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheWeightBudget;
+import org.apache.ibatis.cache.DefaultWeigher;
+import org.apache.ibatis.cache.Weigher;
+import org.apache.ibatis.io.Resources;
+
+/**
+ * Weight-bounded cache decorator.
+ * <p>
+ * Entries are weighed by a {@link Weigher} when they are put and the least recently used ones are evicted while the
+ * total weight exceeds {@code maximumWeight} or the entry count exceeds {@code size}. An entry heavier than
+ * {@code maximumWeight} is not cached at all. When the {@link CacheWeightBudget} shared with the other caches of the
+ * configuration is exceeded, entries are evicted from the caches holding the most weight, which may not be this one.
+ * <p>
+ * Like {@link LruCache}, the access order is guarded by a lock of its own, so this decorator is thread-safe when its
+ * delegate is. As other caches may evict its entries, the delegate is only read under that lock when it is not
+ * thread-safe.
+ *
+ * @since 3.5.6
+ */
+public class WeightedCache implements Cache {
+
+  private final Cache delegate;
+  private final Lock lock = new ReentrantLock();
+  private final LinkedHashMap<Object, Long> weights = new LinkedHashMap<>(16, .75F, true);
+  private Weigher weigher = new DefaultWeigher();
+  private CacheWeightBudget weightBudget;
+  private long maximumWeight = Long.MAX_VALUE;
+  private int size = 1024;
+  private volatile long weight;
+
+  public WeightedCache(Cache delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  /**
+   * @return the current weight of the entries of this cache, in bytes
+   */
+  public long getWeight() {
+    return weight;
+  }
+
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  public void setMaximumWeight(long maximumWeight) {
+    this.maximumWeight = maximumWeight;
+  }
+
+  public void setSize(int size) {
+    this.size = size;
+  }
+
+  public void setWeigher(Weigher weigher) {
+    this.weigher = weigher;
+  }
+
+  public void setWeigherClass(String weigherClass) {
+    try {
+      this.weigher = (Weigher) Resources.classForName(weigherClass).getDeclaredConstructor().newInstance();
+    } catch (Exception e) {
+      throw new CacheException("Error creating weigher '" + weigherClass + "'.  Cause: " + e, e);
+    }
+  }
+
+  public void setWeightBudget(CacheWeightBudget weightBudget) {
+    this.weightBudget = weightBudget;
+    weightBudget.register(this);
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    long entryWeight = weigher.weigh(key, value);
+    lock.lock();
+    try {
+      if (entryWeight > maximumWeight) {
+        discard(key);
+        return;
+      }
+      delegate.putObject(key, value);
+      Long previous = weights.put(key, entryWeight);
+      addWeight(previous == null ? entryWeight : entryWeight - previous);
+      evict();
+    } finally {
+      lock.unlock();
+    }
+    // not under the lock of this cache, the weight may be reclaimed from another one
+    if (weightBudget != null && weightBudget.isExceeded()) {
+      reclaimBudget();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    if (!delegate.isThreadSafe()) {
+      lock.lock();
+      try {
+        weights.get(key); // touch
+        return delegate.getObject(key);
+      } finally {
+        lock.unlock();
+      }
+    }
+    if (lock.tryLock()) {
+      try {
+        weights.get(key); // touch
+      } finally {
+        lock.unlock();
+      }
+    }
+    return delegate.getObject(key);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    lock.lock();
+    try {
+      return discard(key);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    lock.lock();
+    try {
+      delegate.clear();
+      weights.clear();
+      addWeight(-weight);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return delegate.isThreadSafe();
+  }
+
+  private Object discard(Object key) {
+    Long entryWeight = weights.remove(key);
+    if (entryWeight != null) {
+      addWeight(-entryWeight);
+    }
+    return delegate.removeObject(key);
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<Object, Long>> eldest = weights.entrySet().iterator();
+    while ((weight > maximumWeight || weights.size() > size) && eldest.hasNext()) {
+      evict(eldest);
+    }
+  }
+
+  private void evict(Iterator<Map.Entry<Object, Long>> eldest) {
+    Map.Entry<Object, Long> entry = eldest.next();
+    eldest.remove();
+    addWeight(-entry.getValue());
+    delegate.removeObject(entry.getKey());
+  }
+
+  /**
+   * Evicts entries from the heaviest caches of the budget until it is no longer exceeded. Each round evicts from the
+   * heaviest cache until it is no heavier than the next one or the excess is released, so that the weight is taken
+   * from the largest namespaces first.
+   */
+  private void reclaimBudget() {
+    while (weightBudget.isExceeded()) {
+      WeightedCache heaviest = null;
+      long heaviestWeight = 0;
+      long nextWeight = 0;
+      for (WeightedCache cache : weightBudget.getCaches()) {
+        long cacheWeight = cache.weight;
+        if (cacheWeight > heaviestWeight) {
+          nextWeight = heaviestWeight;
+          heaviestWeight = cacheWeight;
+          heaviest = cache;
+        } else if (cacheWeight > nextWeight) {
+          nextWeight = cacheWeight;
+        }
+      }
+      long excess = weightBudget.getWeight() - weightBudget.getMaximumWeight();
+      if (heaviest == null || !heaviest.evictDownTo(Math.max(nextWeight, heaviestWeight - excess))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Evicts the least recently used entries until the weight of this cache is at most {@code targetWeight}, evicting
+   * at least one entry.
+   *
+   * @return whether an entry was evicted
+   */
+  private boolean evictDownTo(long targetWeight) {
+    lock.lock();
+    try {
+      Iterator<Map.Entry<Object, Long>> eldest = weights.entrySet().iterator();
+      if (!eldest.hasNext()) {
+        return false;
+      }
+      do {
+        evict(eldest);
+      } while (weight > targetWeight && eldest.hasNext());
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void addWeight(long delta) {
+    weight += delta;
+    if (weightBudget != null) {
+      weightBudget.add(delta);
+    }
+  }
+
+}
@@ -0,0 +1,647 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.SerializedCache.CustomObjectInputStream;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+
+/**
+ * A compact binary serializer for cached select results.
+ * <p>
+ * Primitive wrappers, strings, {@code BigDecimal}, {@code BigInteger}, the JDBC and {@code java.time} date types,
+ * enums, byte arrays and the common {@code java.util} lists, sets and maps are written with a one byte tag and a
+ * variable-length payload. Serializable beans with a default constructor are written property by property, using the
+ * {@link Reflector} of their class, and their class names are written once per value. Shared and circular references
+ * are preserved. Other serializable objects, including beans with custom serialization methods and lazy loading
+ * proxies, fall back to Java serialization.
+ * <p>
+ * The output is only meant to be read back by the same JVM, as beans are not versioned.
+ *
+ * @since 3.5.6
+ */
+public class CompactSerializer {
+
+  private static final byte NULL = 0;
+  private static final byte REFERENCE = 1;
+  private static final byte TRUE = 2;
+  private static final byte FALSE = 3;
+  private static final byte BYTE = 4;
+  private static final byte SHORT = 5;
+  private static final byte INTEGER = 6;
+  private static final byte LONG = 7;
+  private static final byte FLOAT = 8;
+  private static final byte DOUBLE = 9;
+  private static final byte CHARACTER = 10;
+  private static final byte STRING = 11;
+  private static final byte BIG_DECIMAL = 12;
+  private static final byte BIG_INTEGER = 13;
+  private static final byte DATE = 14;
+  private static final byte SQL_DATE = 15;
+  private static final byte SQL_TIME = 16;
+  private static final byte SQL_TIMESTAMP = 17;
+  private static final byte LOCAL_DATE = 18;
+  private static final byte LOCAL_TIME = 19;
+  private static final byte LOCAL_DATE_TIME = 20;
+  private static final byte INSTANT = 21;
+  private static final byte OFFSET_DATE_TIME = 22;
+  private static final byte BYTES = 23;
+  private static final byte ENUM = 24;
+  private static final byte COLLECTION = 25;
+  private static final byte MAP = 26;
+  private static final byte BEAN = 27;
+  private static final byte SERIALIZED = 28;
+
+  private static final int NON_ASCII = 0xFF;
+
+  // the collections and maps written element by element, identified by their index
+  private static final List<Class<?>> CONTAINER_TYPES = Arrays.asList(ArrayList.class, LinkedList.class,
+      HashSet.class, LinkedHashSet.class, HashMap.class, LinkedHashMap.class);
+  private static final List<Supplier<Object>> CONTAINER_FACTORIES = Arrays.asList(ArrayList::new, LinkedList::new,
+      HashSet::new, LinkedHashSet::new, HashMap::new, LinkedHashMap::new);
+
+  private final ReflectorFactory reflectorFactory = new DefaultReflectorFactory();
+  private final Map<Class<?>, BeanLayout> beanLayouts = new ConcurrentHashMap<>();
+  private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+  /**
+   * @param value
+   *          the value to serialize
+   * @return the serialized value
+   * @throws CacheException
+   *           if the value, or an object it references, cannot be serialized
+   */
+  public byte[] serialize(Object value) {
+    Output out = new Output();
+    write(out, value);
+    return out.toByteArray();
+  }
+
+  /**
+   * @param bytes
+   *          a value returned by {@link #serialize(Object)}
+   * @return a copy of the serialized value
+   */
+  public Object deserialize(byte[] bytes) {
+    return read(new Input(bytes));
+  }
+
+  private void write(Output out, Object value) {
+    if (value == null) {
+      out.writeByte(NULL);
+      return;
+    }
+    Class<?> type = value.getClass();
+    if (type == String.class) {
+      out.writeByte(STRING);
+      out.writeString((String) value);
+    } else if (type == Integer.class) {
+      out.writeByte(INTEGER);
+      out.writeVarLong((Integer) value);
+    } else if (type == Long.class) {
+      out.writeByte(LONG);
+      out.writeVarLong((Long) value);
+    } else if (type == Boolean.class) {
+      out.writeByte((Boolean) value ? TRUE : FALSE);
+    } else if (type == BigDecimal.class) {
+      BigDecimal decimal = (BigDecimal) value;
+      out.writeByte(BIG_DECIMAL);
+      out.writeVarLong(decimal.scale());
+      out.writeBytes(decimal.unscaledValue().toByteArray());
+    } else if (type == java.sql.Timestamp.class) {
+      java.sql.Timestamp timestamp = (java.sql.Timestamp) value;
+      out.writeByte(SQL_TIMESTAMP);
+      out.writeVarLong(timestamp.getTime());
+      out.writeVarLong(timestamp.getNanos());
+    } else if (type == java.sql.Date.class || type == java.sql.Time.class || type == Date.class) {
+      out.writeByte(type == Date.class ? DATE : type == java.sql.Date.class ? SQL_DATE : SQL_TIME);
+      out.writeVarLong(((Date) value).getTime());
+    } else if (type == LocalDate.class) {
+      out.writeByte(LOCAL_DATE);
+      out.writeVarLong(((LocalDate) value).toEpochDay());
+    } else if (type == LocalDateTime.class) {
+      out.writeByte(LOCAL_DATE_TIME);
+      writeLocalDateTime(out, (LocalDateTime) value);
+    } else if (type == LocalTime.class) {
+      out.writeByte(LOCAL_TIME);
+      out.writeVarLong(((LocalTime) value).toNanoOfDay());
+    } else if (type == Instant.class) {
+      Instant instant = (Instant) value;
+      out.writeByte(INSTANT);
+      out.writeVarLong(instant.getEpochSecond());
+      out.writeVarLong(instant.getNano());
+    } else if (type == OffsetDateTime.class) {
+      OffsetDateTime dateTime = (OffsetDateTime) value;
+      out.writeByte(OFFSET_DATE_TIME);
+      writeLocalDateTime(out, dateTime.toLocalDateTime());
+      out.writeVarLong(dateTime.getOffset().getTotalSeconds());
+    } else if (type == Double.class) {
+      out.writeByte(DOUBLE);
+      out.writeLong(Double.doubleToRawLongBits((Double) value));
+    } else if (type == Float.class) {
+      out.writeByte(FLOAT);
+      out.writeVarLong(Float.floatToRawIntBits((Float) value));
+    } else if (type == Short.class || type == Byte.class) {
+      out.writeByte(type == Short.class ? SHORT : BYTE);
+      out.writeVarLong(((Number) value).longValue());
+    } else if (type == Character.class) {
+      out.writeByte(CHARACTER);
+      out.writeVarLong((Character) value);
+    } else if (type == BigInteger.class) {
+      out.writeByte(BIG_INTEGER);
+      out.writeBytes(((BigInteger) value).toByteArray());
+    } else if (type == byte[].class) {
+      out.writeByte(BYTES);
+      out.writeBytes((byte[]) value);
+    } else if (value instanceof Enum) {
+      out.writeByte(ENUM);
+      out.writeClass(((Enum<?>) value).getDeclaringClass());
+      out.writeVarLong(((Enum<?>) value).ordinal());
+    } else if (!writeReference(out, value)) {
+      writeObject(out, value, type);
+    }
+  }
+
+  private void writeObject(Output out, Object value, Class<?> type) {
+    int container = CONTAINER_TYPES.indexOf(type);
+    if (container >= 0 && value instanceof Collection) {
+      Collection<?> collection = (Collection<?>) value;
+      out.writeByte(COLLECTION);
+      out.writeVarLong(container);
+      out.writeVarLong(collection.size());
+      for (Object element : collection) {
+        write(out, element);
+      }
+    } else if (container >= 0) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      out.writeByte(MAP);
+      out.writeVarLong(container);
+      out.writeVarLong(map.size());
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        write(out, entry.getKey());
+        write(out, entry.getValue());
+      }
+    } else if (!(value instanceof Serializable)) {
+      throw new CacheException("SharedCache failed to make a copy of a non-serializable object: " + value);
+    } else {
+      BeanLayout layout = beanLayouts.computeIfAbsent(type, this::newBeanLayout);
+      if (layout.supported) {
+        out.writeByte(BEAN);
+        out.writeClass(type);
+        for (Invoker getter : layout.getters) {
+          write(out, invoke(getter, value, null));
+        }
+      } else {
+        out.writeByte(SERIALIZED);
+        out.writeBytes(javaSerialize(value));
+      }
+    }
+  }
+
+  private boolean writeReference(Output out, Object value) {
+    Integer index = out.references.putIfAbsent(value, out.references.size());
+    if (index == null) {
+      return false;
+    }
+    out.writeByte(REFERENCE);
+    out.writeVarLong(index);
+    return true;
+  }
+
+  private static void writeLocalDateTime(Output out, LocalDateTime dateTime) {
+    out.writeVarLong(dateTime.toLocalDate().toEpochDay());
+    out.writeVarLong(dateTime.toLocalTime().toNanoOfDay());
+  }
+
+  private Object read(Input in) {
+    byte tag = in.readByte();
+    switch (tag) {
+      case NULL:
+        return null;
+      case REFERENCE:
+        return in.references.get((int) in.readVarLong());
+      case TRUE:
+        return Boolean.TRUE;
+      case FALSE:
+        return Boolean.FALSE;
+      case BYTE:
+        return (byte) in.readVarLong();
+      case SHORT:
+        return (short) in.readVarLong();
+      case INTEGER:
+        return (int) in.readVarLong();
+      case LONG:
+        return in.readVarLong();
+      case FLOAT:
+        return Float.intBitsToFloat((int) in.readVarLong());
+      case DOUBLE:
+        return Double.longBitsToDouble(in.readLong());
+      case CHARACTER:
+        return (char) in.readVarLong();
+      case STRING:
+        return in.readString();
+      case BIG_DECIMAL:
+        int scale = (int) in.readVarLong();
+        return new BigDecimal(new BigInteger(in.readBytes()), scale);
+      case BIG_INTEGER:
+        return new BigInteger(in.readBytes());
+      case DATE:
+        return new Date(in.readVarLong());
+      case SQL_DATE:
+        return new java.sql.Date(in.readVarLong());
+      case SQL_TIME:
+        return new java.sql.Time(in.readVarLong());
+      case SQL_TIMESTAMP:
+        java.sql.Timestamp timestamp = new java.sql.Timestamp(in.readVarLong());
+        timestamp.setNanos((int) in.readVarLong());
+        return timestamp;
+      case LOCAL_DATE:
+        return LocalDate.ofEpochDay(in.readVarLong());
+      case LOCAL_TIME:
+        return LocalTime.ofNanoOfDay(in.readVarLong());
+      case LOCAL_DATE_TIME:
+        return readLocalDateTime(in);
+      case INSTANT:
+        long seconds = in.readVarLong();
+        return Instant.ofEpochSecond(seconds, in.readVarLong());
+      case OFFSET_DATE_TIME:
+        LocalDateTime dateTime = readLocalDateTime(in);
+        return OffsetDateTime.of(dateTime, ZoneOffset.ofTotalSeconds((int) in.readVarLong()));
+      case BYTES:
+        return in.readBytes();
+      case ENUM:
+        Class<?> enumType = readClass(in);
+        return enumType.getEnumConstants()[(int) in.readVarLong()];
+      case COLLECTION:
+        return readCollection(in);
+      case MAP:
+        return readMap(in);
+      case BEAN:
+        return readBean(in);
+      case SERIALIZED:
+        Object value = javaDeserialize(in.readBytes());
+        in.references.add(value);
+        return value;
+      default:
+        throw new CacheException("Error deserializing object.  Cause: unknown tag " + tag);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object readCollection(Input in) {
+    Collection<Object> collection = (Collection<Object>) CONTAINER_FACTORIES.get((int) in.readVarLong()).get();
+    in.references.add(collection);
+    int size = (int) in.readVarLong();
+    if (collection instanceof ArrayList) {
+      ((ArrayList<Object>) collection).ensureCapacity(size);
+    }
+    for (int i = 0; i < size; i++) {
+      collection.add(read(in));
+    }
+    return collection;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object readMap(Input in) {
+    Map<Object, Object> map = (Map<Object, Object>) CONTAINER_FACTORIES.get((int) in.readVarLong()).get();
+    in.references.add(map);
+    int size = (int) in.readVarLong();
+    for (int i = 0; i < size; i++) {
+      Object key = read(in);
+      map.put(key, read(in));
+    }
+    return map;
+  }
+
+  private Object readBean(Input in) {
+    BeanLayout layout = beanLayouts.computeIfAbsent(readClass(in), this::newBeanLayout);
+    Object bean;
+    try {
+      bean = layout.constructor.newInstance();
+    } catch (Exception e) {
+      throw new CacheException("Error deserializing object.  Cause: " + e, e);
+    }
+    in.references.add(bean);
+    for (int i = 0; i < layout.setters.length; i++) {
+      Object value = read(in);
+      if (value != null || !layout.primitives[i]) {
+        invoke(layout.setters[i], bean, new Object[] { value });
+      }
+    }
+    return bean;
+  }
+
+  private static LocalDateTime readLocalDateTime(Input in) {
+    LocalDate date = LocalDate.ofEpochDay(in.readVarLong());
+    return LocalDateTime.of(date, LocalTime.ofNanoOfDay(in.readVarLong()));
+  }
+
+  private Class<?> readClass(Input in) {
+    int index = (int) in.readVarLong();
+    if (index > 0) {
+      return in.classes.get(index - 1);
+    }
+    Class<?> type = classes.computeIfAbsent(in.readString(), name -> {
+      try {
+        return Resources.classForName(name);
+      } catch (ClassNotFoundException e) {
+        throw new CacheException("Error deserializing object.  Cause: " + e, e);
+      }
+    });
+    in.classes.add(type);
+    return type;
+  }
+
+  private BeanLayout newBeanLayout(Class<?> type) {
+    return new BeanLayout(reflectorFactory.findForClass(type));
+  }
+
+  private static Object invoke(Invoker invoker, Object target, Object[] args) {
+    try {
+      return invoker.invoke(target, args);
+    } catch (Exception e) {
+      throw new CacheException("Error copying object of " + target.getClass() + ".  Cause: " + e, e);
+    }
+  }
+
+  private static byte[] javaSerialize(Object value) {
+    try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(value);
+      oos.flush();
+      return bos.toByteArray();
+    } catch (Exception e) {
+      throw new CacheException("Error serializing object.  Cause: " + e, e);
+    }
+  }
+
+  private static Object javaDeserialize(byte[] bytes) {
+    try (CustomObjectInputStream ois = new CustomObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return ois.readObject();
+    } catch (Exception e) {
+      throw new CacheException("Error deserializing object.  Cause: " + e, e);
+    }
+  }
+
+  private static final class BeanLayout {
+
+    private final boolean supported;
+    private final Constructor<?> constructor;
+    private final Invoker[] getters;
+    private final Invoker[] setters;
+    private final boolean[] primitives;
+
+    BeanLayout(Reflector reflector) {
+      Class<?> type = reflector.getType();
+      this.supported = reflector.hasDefaultConstructor() && !type.getName().startsWith("java.")
+          && !hasCustomSerialization(type);
+      this.constructor = supported ? accessibleConstructor(reflector.getDefaultConstructor()) : null;
+      Set<String> skippedFields = skippedFields(type);
+      List<Invoker> getterList = new ArrayList<>();
+      List<Invoker> setterList = new ArrayList<>();
+      List<Boolean> primitiveList = new ArrayList<>();
+      for (String property : reflector.getGetablePropertyNames()) {
+        if (reflector.hasSetter(property) && !skippedFields.contains(property)) {
+          getterList.add(reflector.getGetInvoker(property));
+          setterList.add(reflector.getSetInvoker(property));
+          primitiveList.add(reflector.getSetterType(property).isPrimitive());
+        }
+      }
+      this.getters = getterList.toArray(new Invoker[0]);
+      this.setters = setterList.toArray(new Invoker[0]);
+      this.primitives = new boolean[primitiveList.size()];
+      for (int i = 0; i < primitives.length; i++) {
+        primitives[i] = primitiveList.get(i);
+      }
+    }
+
+    private static Constructor<?> accessibleConstructor(Constructor<?> constructor) {
+      if (Reflector.canControlMemberAccessible()) {
+        try {
+          constructor.setAccessible(true);
+        } catch (RuntimeException e) {
+          // instantiation fails later if the constructor is really not accessible
+        }
+      }
+      return constructor;
+    }
+
+    private static boolean hasCustomSerialization(Class<?> type) {
+      for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+        for (Method method : current.getDeclaredMethods()) {
+          String name = method.getName();
+          if (("writeObject".equals(name) || "readObject".equals(name)) && method.getParameterCount() == 1
+              || ("writeReplace".equals(name) || "readResolve".equals(name)) && method.getParameterCount() == 0) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    // properties backed by static or transient fields are not part of the serialized form of a bean
+    private static Set<String> skippedFields(Class<?> type) {
+      Set<String> names = new HashSet<>();
+      for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+        for (Field field : current.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+            names.add(field.getName());
+          }
+        }
+      }
+      return names;
+    }
+  }
+
+  private static final class Output {
+
+    private final IdentityHashMap<Object, Integer> references = new IdentityHashMap<>();
+    private final Map<Class<?>, Integer> classes = new HashMap<>();
+    private byte[] buffer = new byte[256];
+    private int position;
+
+    void writeByte(int b) {
+      ensureCapacity(1);
+      buffer[position++] = (byte) b;
+    }
+
+    void writeLong(long value) {
+      ensureCapacity(8);
+      for (int i = 0; i < 8; i++) {
+        buffer[position++] = (byte) (value >>> (i * 8));
+      }
+    }
+
+    // zigzag encoded, so that small negative values stay short
+    void writeVarLong(long value) {
+      long zigzag = (value << 1) ^ (value >> 63);
+      ensureCapacity(10);
+      while ((zigzag & ~0x7FL) != 0) {
+        buffer[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+        zigzag >>>= 7;
+      }
+      buffer[position++] = (byte) zigzag;
+    }
+
+    void writeBytes(byte[] bytes) {
+      writeVarLong(bytes.length);
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, position, bytes.length);
+      position += bytes.length;
+    }
+
+    void writeString(String value) {
+      int length = value.length();
+      writeVarLong(length);
+      ensureCapacity(length);
+      int i = 0;
+      for (; i < length; i++) {
+        char c = value.charAt(i);
+        if (c >= 0x80) {
+          break;
+        }
+        buffer[position++] = (byte) c;
+      }
+      if (i < length) {
+        // not ASCII: a marker that is not an ASCII char, then the rest of the string in UTF-8
+        writeByte(NON_ASCII);
+        writeBytes(value.substring(i).getBytes(StandardCharsets.UTF_8));
+      }
+    }
+
+    void writeClass(Class<?> type) {
+      Integer index = classes.putIfAbsent(type, classes.size() + 1);
+      if (index == null) {
+        writeVarLong(0);
+        writeString(type.getName());
+      } else {
+        writeVarLong(index);
+      }
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensureCapacity(int length) {
+      if (position + length > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+      }
+    }
+  }
+
+  private static final class Input {
+
+    private final List<Object> references = new ArrayList<>();
+    private final List<Class<?>> classes = new ArrayList<>();
+    private final byte[] buffer;
+    private int position;
+
+    Input(byte[] buffer) {
+      this.buffer = buffer;
+    }
+
+    byte readByte() {
+      return buffer[position++];
+    }
+
+    long readLong() {
+      long value = 0;
+      for (int i = 0; i < 8; i++) {
+        value |= (buffer[position++] & 0xFFL) << (i * 8);
+      }
+      return value;
+    }
+
+    long readVarLong() {
+      long zigzag = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = buffer[position++];
+        zigzag |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    byte[] readBytes() {
+      int length = (int) readVarLong();
+      byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+      position += length;
+      return bytes;
+    }
+
+    String readString() {
+      int length = (int) readVarLong();
+      char[] chars = new char[length];
+      int i = 0;
+      for (; i < length; i++) {
+        byte b = buffer[position];
+        if (b < 0) {
+          break;
+        }
+        chars[i] = (char) b;
+        position++;
+      }
+      if (i == length) {
+        return new String(chars);
+      }
+      // skip the marker, the rest of the string is in UTF-8
+      position++;
+      String rest = new String(readBytes(), StandardCharsets.UTF_8);
+      return new String(chars, 0, i) + rest;
+    }
+  }
+
+}
@@ -0,0 +1,110 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * A {@link PerpetualCache} counterpart backed by a {@link ConcurrentHashMap}, whose bins are locked independently, so
+ * that the readers and writers of a namespace do not serialize on one monitor.
+ * <p>
+ * The cache is thread-safe. When it is decorated only by thread-safe decorators (e.g. LRU, FIFO, scheduled flush,
+ * read-write and logging), the cache built for the namespace is not wrapped in a
+ * {@link org.apache.ibatis.cache.decorators.SynchronizedCache}.
+ *
+ * @since 3.5.6
+ */
+public class ConcurrentPerpetualCache implements Cache {
+
+  // ConcurrentHashMap does not accept null values, which are put to release the locks of a blocking cache
+  private static final Object NULL_VALUE = new Object();
+
+  private final String id;
+
+  private final Map<Object, Object> cache = new ConcurrentHashMap<>();
+
+  public ConcurrentPerpetualCache(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    return cache.size();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    cache.put(key, value == null ? NULL_VALUE : value);
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    return unmask(cache.get(key));
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    return unmask(cache.remove(key));
+  }
+
+  @Override
+  public void clear() {
+    cache.clear();
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private static Object unmask(Object value) {
+    return value == NULL_VALUE ? null : value;
+  }
+
+}
@@ -0,0 +1,284 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * A cache that keeps its values out of the Java heap.
+ * <p>
+ * Values are serialized by a {@link CompactSerializer} and appended to direct {@link ByteBuffer} slabs of
+ * {@code slabSize} bytes, up to {@code capacity} bytes in total. Only the keys and the location of the values stay on
+ * the heap. When the last slab is full, the oldest one is reused and the values it holds are evicted, so that the
+ * cache behaves like a FIFO of slabs. Space freed by removed values is only reclaimed when their slab is reused.
+ * <p>
+ * Each read returns a new copy of the cached value, like a read-write cache, and values must be serializable.
+ * Decorators such as the eviction policies are not applied to this cache, which is bounded by its capacity.
+ *
+ * <pre>
+ * &lt;cache type="OFF_HEAP"&gt;
+ *   &lt;property name="capacity" value="1073741824"/&gt;
+ * &lt;/cache&gt;
+ * </pre>
+ *
+ * @since 3.5.6
+ */
+public class OffHeapCache implements Cache {
+
+  private final String id;
+  private final CompactSerializer serializer = new CompactSerializer();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Object, Location> locations = new HashMap<>();
+  private long capacity = 64L * 1024 * 1024;
+  private int slabSize = 4 * 1024 * 1024;
+  private ByteBuffer[] slabs;
+  // the keys written to each slab, some of them may have been removed or overwritten since
+  private List<List<Object>> slabKeys;
+  private int currentSlab;
+  private int position;
+
+  public OffHeapCache(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @param capacity
+   *          the maximum number of bytes allocated for values, rounded down to a multiple of the slab size
+   */
+  public void setCapacity(long capacity) {
+    this.capacity = capacity;
+    resetSlabs();
+  }
+
+  public int getSlabSize() {
+    return slabSize;
+  }
+
+  /**
+   * @param slabSize
+   *          the number of bytes allocated at once, which is also the size of the largest value that can be cached
+   */
+  public void setSlabSize(int slabSize) {
+    this.slabSize = slabSize;
+    resetSlabs();
+  }
+
+  /**
+   * @return the number of off-heap bytes allocated by this cache
+   */
+  public long getAllocatedBytes() {
+    lock.readLock().lock();
+    try {
+      long allocated = 0;
+      if (slabs != null) {
+        for (ByteBuffer slab : slabs) {
+          allocated += slab == null ? 0 : slab.capacity();
+        }
+      }
+      return allocated;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public int getSize() {
+    lock.readLock().lock();
+    try {
+      return locations.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    byte[] bytes = serializer.serialize(value);
+    lock.writeLock().lock();
+    try {
+      locations.remove(key);
+      if (bytes.length > slabSize) {
+        return;
+      }
+      if (slabs == null) {
+        allocateSlabs();
+      }
+      if (position + bytes.length > slabSize) {
+        recycle((currentSlab + 1) % slabs.length);
+      }
+      if (slabs[currentSlab] == null) {
+        slabs[currentSlab] = ByteBuffer.allocateDirect(slabSize);
+      }
+      ByteBuffer slab = slabs[currentSlab];
+      slab.position(position);
+      slab.put(bytes);
+      locations.put(key, new Location(currentSlab, position, bytes.length));
+      slabKeys.get(currentSlab).add(key);
+      position += bytes.length;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    byte[] bytes;
+    lock.readLock().lock();
+    try {
+      Location location = locations.get(key);
+      if (location == null) {
+        return null;
+      }
+      bytes = new byte[location.length];
+      ByteBuffer slab = slabs[location.slab].duplicate();
+      slab.position(location.offset);
+      slab.get(bytes);
+    } finally {
+      lock.readLock().unlock();
+    }
+    return serializer.deserialize(bytes);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    byte[] bytes;
+    lock.writeLock().lock();
+    try {
+      Location location = locations.remove(key);
+      if (location == null) {
+        return null;
+      }
+      bytes = new byte[location.length];
+      ByteBuffer slab = slabs[location.slab].duplicate();
+      slab.position(location.offset);
+      slab.get(bytes);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    return serializer.deserialize(bytes);
+  }
+
+  @Override
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      locations.clear();
+      if (slabKeys != null) {
+        slabKeys.forEach(List::clear);
+      }
+      currentSlab = 0;
+      position = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private void allocateSlabs() {
+    int count = (int) Math.max(1, Math.min(Integer.MAX_VALUE, capacity / slabSize));
+    slabs = new ByteBuffer[count];
+    slabKeys = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      slabKeys.add(new ArrayList<>());
+    }
+  }
+
+  private void resetSlabs() {
+    lock.writeLock().lock();
+    try {
+      locations.clear();
+      slabs = null;
+      slabKeys = null;
+      currentSlab = 0;
+      position = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void recycle(int slab) {
+    List<Object> keys = slabKeys.get(slab);
+    for (Object key : keys) {
+      Location location = locations.get(key);
+      if (location != null && location.slab == slab) {
+        locations.remove(key);
+      }
+    }
+    keys.clear();
+    currentSlab = slab;
+    position = 0;
+  }
+
+  private static final class Location {
+
+    private final int slab;
+    private final int offset;
+    private final int length;
+
+    Location(int slab, int offset, int length) {
+      this.slab = slab;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+}
@@ -0,0 +1,240 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ibatis.cursor.defaults.DefaultCursor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * Publishes the results of a select to subscribers as they request them, reading them through a {@link Cursor}.
+ * <p>
+ * The {@link Subscriber} and {@link Subscription} contracts are those of {@code java.util.concurrent.Flow} and
+ * Reactive Streams, which cannot be used directly while MyBatis supports Java 8. Adapting to either only takes
+ * delegating methods.
+ * <p>
+ * Each subscription runs the select in its own {@link SqlSession}, opened by the {@link SqlSessionFactory} of the
+ * publisher when rows are first requested. Rows are
+ * read on {@link Configuration#getAsyncExecutor()} only while there is outstanding demand, so that no thread is held
+ * while the subscriber does not request more. When the statement has no fetch size, the driver is asked to fetch as
+ * many rows as are requested. The session, and thus the statement and the connection, is closed when the last row has
+ * been published, when reading fails and when the subscription is cancelled.
+ *
+ * @param <T>
+ *          the type of the published rows
+ * @since 3.5.6
+ */
+public class CursorPublisher<T> {
+
+  // larger demands (e.g. Long.MAX_VALUE for "everything") must not make the driver buffer that many rows
+  private static final int MAX_FETCH_SIZE = 1000;
+
+  private final SqlSessionFactory sqlSessionFactory;
+  private final Configuration configuration;
+  private final String statement;
+  private final Object parameter;
+  private final RowBounds rowBounds;
+
+  public CursorPublisher(SqlSessionFactory sqlSessionFactory, String statement, Object parameter, RowBounds rowBounds) {
+    this.sqlSessionFactory = sqlSessionFactory;
+    this.configuration = sqlSessionFactory.getConfiguration();
+    this.statement = statement;
+    this.parameter = parameter;
+    this.rowBounds = rowBounds;
+  }
+
+  /**
+   * Subscribes to the results. Every subscriber gets all the results of its own execution of the select.
+   *
+   * @param subscriber
+   *          the subscriber
+   */
+  public void subscribe(Subscriber<? super T> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber");
+    CursorSubscription subscription = new CursorSubscription(subscriber);
+    subscriber.onSubscribe(subscription);
+  }
+
+  /**
+   * Receives the results of a {@link CursorPublisher}, as {@code java.util.concurrent.Flow.Subscriber} does.
+   *
+   * @param <T>
+   *          the type of the rows
+   */
+  public interface Subscriber<T> {
+
+    void onSubscribe(Subscription subscription);
+
+    void onNext(T item);
+
+    void onError(Throwable throwable);
+
+    void onComplete();
+  }
+
+  /**
+   * Controls the flow of rows to a {@link Subscriber}, as {@code java.util.concurrent.Flow.Subscription} does.
+   */
+  public interface Subscription {
+
+    void request(long n);
+
+    void cancel();
+  }
+
+  private class CursorSubscription implements Subscription, Runnable {
+
+    private final Subscriber<? super T> subscriber;
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable invalidRequest;
+
+    // only accessed by the thread that holds wip
+    private boolean done;
+    private SqlSession sqlSession;
+    private Cursor<T> cursor;
+    private Iterator<T> iterator;
+    private boolean adjustFetchSize;
+
+    CursorSubscription(Subscriber<? super T> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException("The number of requested rows must be positive but was " + n);
+      } else {
+        long current;
+        long next;
+        do {
+          current = requested.get();
+          next = current + n < 0 ? Long.MAX_VALUE : current + n;
+        } while (!requested.compareAndSet(current, next));
+      }
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      schedule();
+    }
+
+    private void schedule() {
+      if (wip.getAndIncrement() == 0) {
+        try {
+          configuration.getAsyncExecutor().execute(this);
+        } catch (RuntimeException e) {
+          wip.set(0);
+          fail(e);
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      int missed = 1;
+      do {
+        if (!done) {
+          drain();
+        }
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void drain() {
+      if (cancelled) {
+        done = true;
+        close();
+        return;
+      }
+      if (invalidRequest != null) {
+        fail(invalidRequest);
+        return;
+      }
+      long demand = requested.get();
+      if (demand == 0) {
+        return;
+      }
+      long emitted = 0;
+      try {
+        if (iterator == null) {
+          open();
+        }
+        if (adjustFetchSize) {
+          ((DefaultCursor<T>) cursor).setFetchSize((int) Math.min(demand, MAX_FETCH_SIZE));
+        }
+        while (emitted != demand) {
+          if (cancelled) {
+            done = true;
+            close();
+            return;
+          }
+          if (!iterator.hasNext()) {
+            break;
+          }
+          subscriber.onNext(iterator.next());
+          emitted++;
+        }
+        if (!cancelled && !iterator.hasNext()) {
+          done = true;
+          close();
+          subscriber.onComplete();
+          return;
+        }
+      } catch (RuntimeException e) {
+        fail(e);
+        return;
+      }
+      requested.addAndGet(-emitted);
+    }
+
+    private void open() {
+      MappedStatement ms = configuration.getMappedStatement(statement);
+      sqlSession = sqlSessionFactory.openSession();
+      cursor = sqlSession.selectCursor(statement, parameter, rowBounds);
+      iterator = cursor.iterator();
+      adjustFetchSize = cursor instanceof DefaultCursor && ms.getFetchSize() == null
+          && configuration.getDefaultFetchSize() == null;
+    }
+
+    private void fail(Throwable t) {
+      done = true;
+      close();
+      subscriber.onError(t);
+    }
+
+    private void close() {
+      if (sqlSession != null) {
+        // closes the cursor as well
+        sqlSession.close();
+        sqlSession = null;
+      }
+    }
+  }
+
+}
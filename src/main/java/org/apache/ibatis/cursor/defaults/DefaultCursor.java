@@ -121,6 +121,28 @@ public class DefaultCursor<T> implements Cursor<T> {
     }
   }
 
+  /**
+   * Gives the driver a hint of the number of rows to fetch when more rows are needed. The hint is ignored once the
+   * cursor is closed, or when the driver does not support it.
+   *
+   * @param fetchSize
+   *          the number of rows to fetch
+   * @since 3.5.6
+   */
+  public void setFetchSize(int fetchSize) {
+    if (isClosed()) {
+      return;
+    }
+    try {
+      ResultSet rs = rsw.getResultSet();
+      if (!rs.isClosed()) {
+        rs.setFetchSize(fetchSize);
+      }
+    } catch (SQLException e) {
+      // ignore, this is only a hint
+    }
+  }
+
   protected T fetchNextUsingRowBound() {
     T result = fetchNextObjectFromDatabase();
     while (objectWrapperResultHandler.fetched && indexWithRowBound < rowBounds.getOffset()) {
@@ -0,0 +1,100 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool statistics of {@link ConcurrentPooledDataSource}.
+ * <p>
+ * Counters are kept in {@link LongAdder}s so that concurrent checkouts and returns never contend on a monitor. The
+ * values reported by the getters are therefore not an atomic snapshot of the pool.
+ *
+ * @since 3.5.6
+ */
+public class ConcurrentPoolState extends PoolState {
+
+  protected final LongAdder concurrentRequestCount = new LongAdder();
+  protected final LongAdder concurrentAccumulatedRequestTime = new LongAdder();
+  protected final LongAdder concurrentAccumulatedCheckoutTime = new LongAdder();
+  protected final LongAdder concurrentClaimedOverdueConnectionCount = new LongAdder();
+  protected final LongAdder concurrentAccumulatedCheckoutTimeOfOverdueConnections = new LongAdder();
+  protected final LongAdder concurrentAccumulatedWaitTime = new LongAdder();
+  protected final LongAdder concurrentHadToWaitCount = new LongAdder();
+  protected final LongAdder concurrentBadConnectionCount = new LongAdder();
+
+  private final ConcurrentPooledDataSource concurrentDataSource;
+
+  public ConcurrentPoolState(ConcurrentPooledDataSource dataSource) {
+    super(dataSource);
+    this.concurrentDataSource = dataSource;
+  }
+
+  @Override
+  public long getRequestCount() {
+    return concurrentRequestCount.sum();
+  }
+
+  @Override
+  public long getAverageRequestTime() {
+    long count = concurrentRequestCount.sum();
+    return count == 0 ? 0 : concurrentAccumulatedRequestTime.sum() / count;
+  }
+
+  @Override
+  public long getAverageWaitTime() {
+    long count = concurrentHadToWaitCount.sum();
+    return count == 0 ? 0 : concurrentAccumulatedWaitTime.sum() / count;
+  }
+
+  @Override
+  public long getHadToWaitCount() {
+    return concurrentHadToWaitCount.sum();
+  }
+
+  @Override
+  public long getBadConnectionCount() {
+    return concurrentBadConnectionCount.sum();
+  }
+
+  @Override
+  public long getClaimedOverdueConnectionCount() {
+    return concurrentClaimedOverdueConnectionCount.sum();
+  }
+
+  @Override
+  public long getAverageOverdueCheckoutTime() {
+    long count = concurrentClaimedOverdueConnectionCount.sum();
+    return count == 0 ? 0 : concurrentAccumulatedCheckoutTimeOfOverdueConnections.sum() / count;
+  }
+
+  @Override
+  public long getAverageCheckoutTime() {
+    long count = concurrentRequestCount.sum();
+    return count == 0 ? 0 : concurrentAccumulatedCheckoutTime.sum() / count;
+  }
+
+  @Override
+  public int getIdleConnectionCount() {
+    return concurrentDataSource.idleConnectionCount.get();
+  }
+
+  @Override
+  public int getActiveConnectionCount() {
+    return concurrentDataSource.activeConnections.size();
+  }
+
+}
@@ -0,0 +1,453 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * A thread-safe database connection pool that does not serialize checkouts and returns on a single monitor.
+ * <p>
+ * It accepts the same configuration as {@link PooledDataSource}, but idle connections are kept in a concurrent deque,
+ * each thread first tries to reclaim the connection it returned last, and threads that have to wait receive returned
+ * connections through a direct hand-off queue instead of being woken up with {@code notifyAll()}.
+ *
+ * @since 3.5.6
+ */
+public class ConcurrentPooledDataSource extends PooledDataSource {
+
+  private static final Log log = LogFactory.getLog(ConcurrentPooledDataSource.class);
+
+  /**
+   * Longest time a waiting thread blocks on the hand-off queue before it checks the idle deque again, in case a
+   * connection was returned while it was not blocked there.
+   */
+  private static final long WAIT_RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final ConcurrentPoolState state = new ConcurrentPoolState(this);
+
+  private final UnpooledDataSource dataSource;
+
+  private final ConcurrentLinkedDeque<IdleConnection> idleConnections = new ConcurrentLinkedDeque<>();
+  // the size of a ConcurrentLinkedDeque is computed by traversing it
+  final AtomicInteger idleConnectionCount = new AtomicInteger();
+  final ConcurrentHashMap<Connection, PooledConnection> activeConnections = new ConcurrentHashMap<>();
+  private final AtomicInteger totalConnectionCount = new AtomicInteger();
+
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final SynchronousQueue<IdleConnection> handoffQueue = new SynchronousQueue<>(true);
+  private final ThreadLocal<WeakReference<IdleConnection>> lastReturnedConnection = new ThreadLocal<>();
+
+  private volatile int expectedConnectionTypeCode;
+
+  public ConcurrentPooledDataSource() {
+    this(new UnpooledDataSource());
+  }
+
+  public ConcurrentPooledDataSource(UnpooledDataSource dataSource) {
+    super(dataSource);
+    this.dataSource = dataSource;
+    this.expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+  }
+
+  public ConcurrentPooledDataSource(String driver, String url, String username, String password) {
+    this(new UnpooledDataSource(driver, url, username, password));
+  }
+
+  public ConcurrentPooledDataSource(String driver, String url, Properties driverProperties) {
+    this(new UnpooledDataSource(driver, url, driverProperties));
+  }
+
+  public ConcurrentPooledDataSource(ClassLoader driverClassLoader, String driver, String url, String username, String password) {
+    this(new UnpooledDataSource(driverClassLoader, driver, url, username, password));
+  }
+
+  public ConcurrentPooledDataSource(ClassLoader driverClassLoader, String driver, String url, Properties driverProperties) {
+    this(new UnpooledDataSource(driverClassLoader, driver, url, driverProperties));
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return popConnection(dataSource.getUsername(), dataSource.getPassword()).getProxyConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return popConnection(username, password).getProxyConnection();
+  }
+
+  /**
+   * Closes all active and idle connections in the pool.
+   */
+  @Override
+  public void forceCloseAll() {
+    expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+    for (Iterator<PooledConnection> it = activeConnections.values().iterator(); it.hasNext();) {
+      PooledConnection conn = it.next();
+      if (removeActiveConnection(conn)) {
+        totalConnectionCount.decrementAndGet();
+        closeQuietly(conn);
+      }
+    }
+    IdleConnection idle;
+    while ((idle = pollFirstIdleConnection()) != null) {
+      totalConnectionCount.decrementAndGet();
+      closeQuietly(idle.connection);
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("ConcurrentPooledDataSource forcefully closed/removed all connections.");
+    }
+  }
+
+  @Override
+  public PoolState getPoolState() {
+    return state;
+  }
+
+  @Override
+  protected void pushConnection(PooledConnection conn) throws SQLException {
+    // A wrapper that is no longer active (closed twice, claimed as overdue or force closed) does not own a pool slot
+    boolean owned = removeActiveConnection(conn);
+    if (!owned || !conn.isValid()) {
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      if (owned) {
+        totalConnectionCount.decrementAndGet();
+      }
+      state.concurrentBadConnectionCount.increment();
+      return;
+    }
+    state.concurrentAccumulatedCheckoutTime.add(conn.getCheckoutTime());
+    try {
+      if (!conn.getRealConnection().getAutoCommit()) {
+        conn.getRealConnection().rollback();
+      }
+    } catch (SQLException e) {
+      totalConnectionCount.decrementAndGet();
+      conn.invalidate();
+      // the slot is released, so the physical connection must not outlive it
+      try {
+        conn.getRealConnection().close();
+      } catch (SQLException ignore) {
+        // ignore
+      }
+      throw e;
+    }
+    if (conn.getConnectionTypeCode() == expectedConnectionTypeCode && reserveIdleSlot()) {
+      PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+      newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
+      newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+      newConn.setStatementCache(conn.getStatementCache());
+      conn.invalidate();
+      IdleConnection idle = new IdleConnection(newConn);
+      idleConnections.offerLast(idle);
+      lastReturnedConnection.set(new WeakReference<>(idle));
+      if (log.isDebugEnabled()) {
+        log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
+      }
+      handOff(idle);
+    } else {
+      totalConnectionCount.decrementAndGet();
+      conn.getRealConnection().close();
+      if (log.isDebugEnabled()) {
+        log.debug("Closed connection " + conn.getRealHashCode() + ".");
+      }
+      conn.invalidate();
+    }
+  }
+
+  /**
+   * Offers a connection that has just become idle to a thread blocked on the hand-off queue, if any, without waiting
+   * for one. The connection stays in the idle deque so that whoever removes it from there first, the waiter or a newly
+   * arriving thread, owns it. A waiter that was not blocked at that moment finds it there on its next check.
+   */
+  private void handOff(IdleConnection idle) {
+    if (waiters.get() > 0) {
+      handoffQueue.offer(idle);
+    }
+  }
+
+  private PooledConnection popConnection(String username, String password) throws SQLException {
+    boolean countedWait = false;
+    PooledConnection conn = null;
+    long t = System.currentTimeMillis();
+    int localBadConnectionCount = 0;
+
+    while (conn == null) {
+      conn = pollIdleConnection();
+      if (conn != null) {
+        // Pool has available connection
+        if (log.isDebugEnabled()) {
+          log.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
+        }
+      } else if (reserveActiveSlot()) {
+        // Can create new connection
+        try {
+          conn = new PooledConnection(dataSource.getConnection(), this);
+        } catch (SQLException | RuntimeException e) {
+          totalConnectionCount.decrementAndGet();
+          throw e;
+        }
+        if (log.isDebugEnabled()) {
+          log.debug("Created connection " + conn.getRealHashCode() + ".");
+        }
+      } else {
+        conn = claimOverdueConnection();
+        if (conn == null) {
+          // Must wait
+          if (!countedWait) {
+            state.concurrentHadToWaitCount.increment();
+            countedWait = true;
+          }
+          if (log.isDebugEnabled()) {
+            log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+          }
+          long wt = System.currentTimeMillis();
+          try {
+            conn = awaitIdleConnection();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
+          } finally {
+            state.concurrentAccumulatedWaitTime.add(System.currentTimeMillis() - wt);
+          }
+        }
+      }
+      if (conn != null) {
+        // ping to server and check the connection is valid or not
+        if (conn.isValid()) {
+          if (!conn.getRealConnection().getAutoCommit()) {
+            conn.getRealConnection().rollback();
+          }
+          conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
+          conn.setCheckoutTimestamp(System.currentTimeMillis());
+          conn.setLastUsedTimestamp(System.currentTimeMillis());
+          activeConnections.put(conn.getRealConnection(), conn);
+          state.concurrentRequestCount.increment();
+          state.concurrentAccumulatedRequestTime.add(System.currentTimeMillis() - t);
+        } else {
+          if (log.isDebugEnabled()) {
+            log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
+          }
+          totalConnectionCount.decrementAndGet();
+          state.concurrentBadConnectionCount.increment();
+          localBadConnectionCount++;
+          conn = null;
+          if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
+            if (log.isDebugEnabled()) {
+              log.debug("ConcurrentPooledDataSource: Could not get a good connection to the database.");
+            }
+            throw new SQLException("ConcurrentPooledDataSource: Could not get a good connection to the database.");
+          }
+        }
+      }
+    }
+
+    if (conn == null) {
+      if (log.isDebugEnabled()) {
+        log.debug("ConcurrentPooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+      }
+      throw new SQLException("ConcurrentPooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+    }
+
+    return conn;
+  }
+
+  private PooledConnection pollIdleConnection() {
+    WeakReference<IdleConnection> ref = lastReturnedConnection.get();
+    if (ref != null) {
+      lastReturnedConnection.remove();
+      IdleConnection preferred = ref.get();
+      if (preferred != null && removeIdleConnection(preferred)) {
+        return preferred.connection;
+      }
+    }
+    IdleConnection idle = pollFirstIdleConnection();
+    return idle == null ? null : idle.connection;
+  }
+
+  private IdleConnection pollFirstIdleConnection() {
+    IdleConnection idle = idleConnections.pollFirst();
+    if (idle != null) {
+      idleConnectionCount.decrementAndGet();
+    }
+    return idle;
+  }
+
+  private boolean removeIdleConnection(IdleConnection idle) {
+    if (idleConnections.remove(idle)) {
+      idleConnectionCount.decrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Reserves a place in the idle deque for a returned connection, so that concurrent returns cannot exceed the maximum
+   * number of idle connections.
+   */
+  private boolean reserveIdleSlot() {
+    int current;
+    do {
+      current = idleConnectionCount.get();
+      if (current >= poolMaximumIdleConnections) {
+        return false;
+      }
+    } while (!idleConnectionCount.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  /**
+   * Reserves a slot for a new physical connection. Idle connections are only created when the idle deque is empty, so
+   * bounding the total number of connections bounds the number of active ones like {@link PooledDataSource} does.
+   */
+  private boolean reserveActiveSlot() {
+    int current;
+    do {
+      current = totalConnectionCount.get();
+      if (current >= poolMaximumActiveConnections) {
+        return false;
+      }
+    } while (!totalConnectionCount.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  private PooledConnection claimOverdueConnection() {
+    PooledConnection oldestActiveConnection = null;
+    for (PooledConnection candidate : activeConnections.values()) {
+      if (oldestActiveConnection == null || candidate.getCheckoutTimestamp() < oldestActiveConnection.getCheckoutTimestamp()) {
+        oldestActiveConnection = candidate;
+      }
+    }
+    if (oldestActiveConnection == null) {
+      return null;
+    }
+    long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
+    if (longestCheckoutTime <= poolMaximumCheckoutTime || !removeActiveConnection(oldestActiveConnection)) {
+      return null;
+    }
+    // Can claim overdue connection, its slot is transferred to the caller
+    state.concurrentClaimedOverdueConnectionCount.increment();
+    state.concurrentAccumulatedCheckoutTimeOfOverdueConnections.add(longestCheckoutTime);
+    state.concurrentAccumulatedCheckoutTime.add(longestCheckoutTime);
+    try {
+      if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
+        oldestActiveConnection.getRealConnection().rollback();
+      }
+    } catch (SQLException e) {
+      // Same as PooledDataSource: the connection will be detected as bad and discarded by the caller
+      log.debug("Bad connection. Could not roll back");
+    }
+    PooledConnection conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
+    conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
+    conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
+    conn.setStatementCache(oldestActiveConnection.getStatementCache());
+    oldestActiveConnection.invalidate();
+    if (log.isDebugEnabled()) {
+      log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
+    }
+    return conn;
+  }
+
+  private PooledConnection awaitIdleConnection() throws InterruptedException {
+    waiters.incrementAndGet();
+    try {
+      // A connection may have been returned before this thread was registered as a waiter
+      IdleConnection idle = pollFirstIdleConnection();
+      if (idle != null) {
+        return idle.connection;
+      }
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(poolTimeToWait);
+      long remaining;
+      while ((remaining = deadline - System.nanoTime()) > 0) {
+        idle = handoffQueue.poll(Math.min(remaining, WAIT_RECHECK_NANOS), TimeUnit.NANOSECONDS);
+        if (idle == null) {
+          // nothing was handed off, but a connection may have been returned while this thread was not blocked
+          idle = pollFirstIdleConnection();
+          if (idle != null) {
+            return idle.connection;
+          }
+        } else if (removeIdleConnection(idle)) {
+          return idle.connection;
+        }
+      }
+      return null;
+    } finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  /**
+   * Removes exactly the given wrapper from the active connections. An overdue connection that was claimed by another
+   * thread shares its real connection with the new wrapper, so {@link PooledConnection#equals(Object)} cannot be used.
+   */
+  private boolean removeActiveConnection(PooledConnection conn) {
+    boolean[] removed = new boolean[1];
+    activeConnections.computeIfPresent(conn.getRealConnection(), (realConn, activeConn) -> {
+      if (activeConn != conn) {
+        return activeConn;
+      }
+      removed[0] = true;
+      return null;
+    });
+    return removed[0];
+  }
+
+  private void closeQuietly(PooledConnection conn) {
+    try {
+      conn.invalidate();
+      Connection realConn = conn.getRealConnection();
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+      realConn.close();
+    } catch (Exception e) {
+      // ignore
+    }
+  }
+
+  private int assembleConnectionTypeCode(String url, String username, String password) {
+    return ("" + url + username + password).hashCode();
+  }
+
+  /**
+   * Holder of an idle connection. Unlike {@link PooledConnection}, whose equality is based on the real connection, it
+   * compares by identity, so removing it from the idle deque claims exactly this wrapper.
+   */
+  static final class IdleConnection {
+
+    final PooledConnection connection;
+
+    IdleConnection(PooledConnection connection) {
+      this.connection = connection;
+    }
+
+  }
+
+}
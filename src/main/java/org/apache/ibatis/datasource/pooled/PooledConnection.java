@@ -29,6 +29,7 @@ import org.apache.ibatis.reflection.ExceptionUtil;
 class PooledConnection implements InvocationHandler {
 
   private static final String CLOSE = "close";
+  private static final String PREPARE_STATEMENT = "prepareStatement";
   private static final Class<?>[] IFACES = new Class<?>[] { Connection.class };
 
   private final int hashCode;
@@ -40,6 +41,7 @@ class PooledConnection implements InvocationHandler {
   private long lastUsedTimestamp;
   private int connectionTypeCode;
   private boolean valid;
+  private PreparedStatementCache statementCache;
 
   /**
    * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in.
@@ -56,6 +58,8 @@ class PooledConnection implements InvocationHandler {
     this.createdTimestamp = System.currentTimeMillis();
     this.lastUsedTimestamp = System.currentTimeMillis();
     this.valid = true;
+    int statementCacheSize = dataSource.getPoolPreparedStatementCacheSize();
+    this.statementCache = statementCacheSize > 0 ? new PreparedStatementCache(connection, statementCacheSize) : null;
     this.proxyConnection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), IFACES, this);
   }
 
@@ -205,6 +209,26 @@ class PooledConnection implements InvocationHandler {
     return System.currentTimeMillis() - checkoutTimestamp;
   }
 
+  /**
+   * Getter for the prepared statements cached on the real connection.
+   *
+   * @return the statement cache, or null if statement caching is disabled
+   */
+  PreparedStatementCache getStatementCache() {
+    return statementCache;
+  }
+
+  /**
+   * Setter for the prepared statements cached on the real connection. A new wrapper of the same real connection takes
+   * over the statements of the previous one.
+   *
+   * @param statementCache
+   *          - the statement cache
+   */
+  void setStatementCache(PreparedStatementCache statementCache) {
+    this.statementCache = statementCache;
+  }
+
   @Override
   public int hashCode() {
     return hashCode;
@@ -252,6 +276,9 @@ class PooledConnection implements InvocationHandler {
         // throw an SQLException instead of a Runtime
         checkConnection();
       }
+      if (statementCache != null && PREPARE_STATEMENT.equals(methodName)) {
+        return statementCache.prepareStatement(method, args);
+      }
       return method.invoke(realConnection, args);
     } catch (Throwable t) {
       throw ExceptionUtil.unwrapThrowable(t);
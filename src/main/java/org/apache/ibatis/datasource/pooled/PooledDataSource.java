@@ -53,6 +53,7 @@ public class PooledDataSource implements DataSource {
   protected String poolPingQuery = "NO PING QUERY SET";
   protected boolean poolPingEnabled;
   protected int poolPingConnectionsNotUsedFor;
+  protected int poolPreparedStatementCacheSize;
 
   private int expectedConnectionTypeCode;
 
@@ -254,6 +255,20 @@ public class PooledDataSource implements DataSource {
     forceCloseAll();
   }
 
+  /**
+   * The number of prepared statements kept open on each pooled connection. Closing a statement prepared through a
+   * pooled connection keeps it for the next request of the same SQL on that connection, so the database does not have
+   * to prepare it again. 0 disables the cache.
+   *
+   * @param poolPreparedStatementCacheSize
+   *          the maximum number of idle statements per connection
+   * @since 3.5.6
+   */
+  public void setPoolPreparedStatementCacheSize(int poolPreparedStatementCacheSize) {
+    this.poolPreparedStatementCacheSize = poolPreparedStatementCacheSize;
+    forceCloseAll();
+  }
+
   public String getDriver() {
     return dataSource.getDriver();
   }
@@ -324,6 +339,16 @@ public class PooledDataSource implements DataSource {
     return poolPingConnectionsNotUsedFor;
   }
 
+  /**
+   * Gets the number of prepared statements kept open on each pooled connection.
+   *
+   * @return the maximum number of idle statements per connection
+   * @since 3.5.6
+   */
+  public int getPoolPreparedStatementCacheSize() {
+    return poolPreparedStatementCacheSize;
+  }
+
   /**
    * Closes all active and idle connections in the pool.
    */
@@ -386,6 +411,7 @@ public class PooledDataSource implements DataSource {
           state.idleConnections.add(newConn);
           newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
           newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+          newConn.setStatementCache(conn.getStatementCache());
           conn.invalidate();
           if (log.isDebugEnabled()) {
             log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
@@ -461,6 +487,7 @@ public class PooledDataSource implements DataSource {
               conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
               conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
               conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
+              conn.setStatementCache(oldestActiveConnection.getStatementCache());
               oldestActiveConnection.invalidate();
               if (log.isDebugEnabled()) {
                 log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
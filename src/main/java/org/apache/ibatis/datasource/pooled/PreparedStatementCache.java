@@ -0,0 +1,235 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * A bounded cache of the prepared statements of one physical connection.
+ * <p>
+ * Statements are keyed by the arguments of {@link Connection#prepareStatement} (the SQL and, depending on the overload,
+ * the result set type and concurrency, the holdability or the generated key columns). Closing a statement handed out
+ * by the cache resets it and keeps it open for the next caller that prepares the same SQL, up to {@code maxSize} idle
+ * statements. The least recently used idle statement is closed when the limit is exceeded.
+ *
+ * @since 3.5.6
+ */
+class PreparedStatementCache {
+
+  private static final Log log = LogFactory.getLog(PreparedStatementCache.class);
+
+  private static final Class<?>[] IFACES = new Class<?>[] { PreparedStatement.class };
+  // setters whose value outlives an execution, mapped to the getter that reads the driver default
+  private static final Map<String, Method> RESETTABLE_PROPERTIES = new HashMap<>();
+
+  static {
+    try {
+      for (String property : new String[] { "QueryTimeout", "FetchSize", "FetchDirection", "MaxRows", "MaxFieldSize" }) {
+        RESETTABLE_PROPERTIES.put("set" + property, Statement.class.getMethod("get" + property));
+      }
+    } catch (NoSuchMethodException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private final Connection realConnection;
+  private final int maxSize;
+  private final Map<Key, PreparedStatement> idleStatements;
+
+  PreparedStatementCache(Connection realConnection, int maxSize) {
+    this.realConnection = realConnection;
+    this.maxSize = maxSize;
+    this.idleStatements = new LinkedHashMap<Key, PreparedStatement>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+        if (size() <= PreparedStatementCache.this.maxSize) {
+          return false;
+        }
+        closeQuietly(eldest.getValue());
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Returns an idle statement prepared with the same arguments, or prepares a new one.
+   *
+   * @param method
+   *          the {@code prepareStatement} method that was called on the connection
+   * @param args
+   *          the arguments of the call
+   * @return a statement that is returned to this cache when closed
+   * @throws Throwable
+   *           if the statement could not be prepared
+   */
+  PreparedStatement prepareStatement(Method method, Object[] args) throws Throwable {
+    Key key = new Key(args);
+    PreparedStatement statement;
+    synchronized (this) {
+      statement = idleStatements.remove(key);
+    }
+    if (statement == null || statement.isClosed()) {
+      statement = (PreparedStatement) method.invoke(realConnection, args);
+    } else if (log.isDebugEnabled()) {
+      log.debug("Reusing cached statement for: " + args[0]);
+    }
+    return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), IFACES,
+        new CachedStatement(key, statement));
+  }
+
+  int getIdleCount() {
+    synchronized (this) {
+      return idleStatements.size();
+    }
+  }
+
+  private void release(Key key, PreparedStatement statement) {
+    synchronized (this) {
+      if (!idleStatements.containsKey(key)) {
+        idleStatements.put(key, statement);
+        return;
+      }
+    }
+    // another statement with the same SQL was closed first
+    closeQuietly(statement);
+  }
+
+  private static void closeQuietly(PreparedStatement statement) {
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      // ignore
+    }
+  }
+
+  private final class CachedStatement implements InvocationHandler {
+
+    private final Key key;
+    private final PreparedStatement statement;
+    // driver defaults of the properties changed through this handle, keyed by setter
+    private final Map<Method, Object> defaults = new HashMap<>();
+    private boolean batched;
+    private boolean closed;
+
+    CachedStatement(Key key, PreparedStatement statement) {
+      this.key = key;
+      this.statement = statement;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String methodName = method.getName();
+      if ("close".equals(methodName)) {
+        close();
+        return null;
+      } else if ("isClosed".equals(methodName)) {
+        return closed || statement.isClosed();
+      }
+      try {
+        if (!Object.class.equals(method.getDeclaringClass())) {
+          checkStatement();
+          if ("addBatch".equals(methodName)) {
+            batched = true;
+          } else if ("executeBatch".equals(methodName) || "clearBatch".equals(methodName)) {
+            batched = false;
+          } else {
+            Method getter = RESETTABLE_PROPERTIES.get(methodName);
+            if (getter != null && !defaults.containsKey(method)) {
+              defaults.put(method, getter.invoke(statement));
+            }
+          }
+        }
+        return method.invoke(statement, args);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    }
+
+    private void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        if (statement.isClosed()) {
+          return;
+        }
+        statement.clearParameters();
+        if (batched) {
+          statement.clearBatch();
+        }
+        for (Map.Entry<Method, Object> entry : defaults.entrySet()) {
+          entry.getKey().invoke(statement, entry.getValue());
+        }
+      } catch (Exception e) {
+        // a statement that cannot be reset is not worth keeping
+        closeQuietly(statement);
+        return;
+      }
+      release(key, statement);
+    }
+
+    private void checkStatement() throws SQLException {
+      if (closed) {
+        throw new SQLException("Error accessing cached statement. Statement is closed.");
+      }
+    }
+  }
+
+  private static final class Key {
+
+    private final Object[] args;
+    private final int hashCode;
+
+    Key(Object[] args) {
+      this.args = args.clone();
+      this.hashCode = Arrays.deepHashCode(this.args);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      return Arrays.deepEquals(args, ((Key) o).args);
+    }
+  }
+
+}
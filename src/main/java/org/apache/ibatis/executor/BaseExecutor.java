@@ -219,12 +219,13 @@ public abstract class BaseExecutor implements Executor {
         if (closed) {
             throw new ExecutorException("Executor was closed.");
         }
-        CacheKey cacheKey = new CacheKey();
+        List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+        // id, offset, limit, sql, parameters and environment
+        CacheKey cacheKey = new CacheKey(parameterMappings.size() + 5);
         cacheKey.update(ms.getId());
         cacheKey.update(rowBounds.getOffset());
         cacheKey.update(rowBounds.getLimit());
         cacheKey.update(boundSql.getSql());
-        List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
         TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
         // mimic DefaultParameterHandler logic
         for (ParameterMapping parameterMapping : parameterMappings) {
@@ -118,37 +118,11 @@ public class BatchExecutor extends BaseExecutor {
         return Collections.emptyList();
       }
       for (int i = 0, n = statementList.size(); i < n; i++) {
-        Statement stmt = statementList.get(i);
-        applyTransactionTimeout(stmt);
         BatchResult batchResult = batchResultList.get(i);
         try {
-          batchResult.setUpdateCounts(stmt.executeBatch());
-          MappedStatement ms = batchResult.getMappedStatement();
-          List<Object> parameterObjects = batchResult.getParameterObjects();
-          KeyGenerator keyGenerator = ms.getKeyGenerator();
-          if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
-            Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
-            jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
-          } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
-            for (Object parameter : parameterObjects) {
-              keyGenerator.processAfter(this, ms, stmt, parameter);
-            }
-          }
-          // Close statement to close cursor #1109
-          closeStatement(stmt);
+          executeBatch(statementList.get(i), batchResult);
         } catch (BatchUpdateException e) {
-          StringBuilder message = new StringBuilder();
-          message.append(batchResult.getMappedStatement().getId())
-              .append(" (batch index #")
-              .append(i + 1)
-              .append(")")
-              .append(" failed.");
-          if (i > 0) {
-            message.append(" ")
-                .append(i)
-                .append(" prior sub executor(s) completed successfully, but will be rolled back.");
-          }
-          throw new BatchExecutorException(message.toString(), e, results, batchResult);
+          throw newBatchExecutorException(e, i, results, batchResult);
         }
         results.add(batchResult);
       }
@@ -163,4 +137,49 @@ public class BatchExecutor extends BaseExecutor {
     }
   }
 
+  /**
+   * Executes the batch of a statement, then processes the keys generated for its rows and closes it.
+   *
+   * @param stmt
+   *          the statement
+   * @param batchResult
+   *          the result of the batch, receiving the update counts
+   * @throws SQLException
+   *           if the batch fails
+   * @since 3.5.6
+   */
+  protected void executeBatch(Statement stmt, BatchResult batchResult) throws SQLException {
+    applyTransactionTimeout(stmt);
+    batchResult.setUpdateCounts(stmt.executeBatch());
+    MappedStatement ms = batchResult.getMappedStatement();
+    List<Object> parameterObjects = batchResult.getParameterObjects();
+    KeyGenerator keyGenerator = ms.getKeyGenerator();
+    if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
+      Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
+      jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
+    } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
+      for (Object parameter : parameterObjects) {
+        keyGenerator.processAfter(this, ms, stmt, parameter);
+      }
+    }
+    // Close statement to close cursor #1109
+    closeStatement(stmt);
+  }
+
+  protected BatchExecutorException newBatchExecutorException(BatchUpdateException e, int index,
+      List<BatchResult> successfulResults, BatchResult batchResult) {
+    StringBuilder message = new StringBuilder();
+    message.append(batchResult.getMappedStatement().getId())
+        .append(" (batch index #")
+        .append(index + 1)
+        .append(")")
+        .append(" failed.");
+    if (index > 0) {
+      message.append(" ")
+          .append(index)
+          .append(" prior sub executor(s) completed successfully, but will be rolled back.");
+    }
+    return new BatchExecutorException(message.toString(), e, successfulResults, batchResult);
+  }
+
 }
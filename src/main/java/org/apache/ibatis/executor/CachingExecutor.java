@@ -140,6 +140,45 @@ public class CachingExecutor implements Executor {
     }
   }
 
+  /**
+   * Looks up the committed result of a query in the second level cache, outside of any session.
+   * <p>
+   * Returns {@code null} when the statement would not be served from the cache (no cache, {@code useCache="false"} or
+   * {@code flushCache="true"}) or when the cache holds no result for the key. A miss does not keep the entry locked
+   * in a blocking cache, so the caller is free to run the query in another thread.
+   *
+   * @param <E>
+   *          the element type of the result
+   * @param ms
+   *          the mapped statement
+   * @param key
+   *          the cache key of the query
+   * @param boundSql
+   *          the bound sql of the query
+   * @return the cached result, or {@code null}
+   * @since 3.5.6
+   */
+  public static <E> List<E> getCommittedResult(MappedStatement ms, CacheKey key, BoundSql boundSql) {
+    Cache cache = ms.getCache();
+    if (cache == null || !ms.isUseCache() || ms.isFlushCacheRequired()) {
+      return null;
+    }
+    if (ms.getStatementType() == StatementType.CALLABLE) {
+      for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+        if (parameterMapping.getMode() != ParameterMode.IN) {
+          return null;
+        }
+      }
+    }
+    @SuppressWarnings("unchecked")
+    List<E> list = (List<E>) cache.getObject(key);
+    if (list == null) {
+      // releases the lock a BlockingCache takes on a miss, as TransactionalCache does on rollback
+      cache.removeObject(key);
+    }
+    return list;
+  }
+
   private void ensureNoOutParams(MappedStatement ms, BoundSql boundSql) {
     if (ms.getStatementType() == StatementType.CALLABLE) {
       for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
@@ -0,0 +1,190 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * A {@link BatchExecutor} that keeps one statement open per distinct SQL, so that interleaved updates (e.g. inserts
+ * into a parent and a child table) are batched by statement instead of opening a new statement at every switch.
+ * <p>
+ * The batches run in the order their statements were first executed since the last flush, and the rows of a batch in
+ * the order they were added. At most {@link Configuration#getBatchMaxStatements()} statements are kept open. When
+ * another one is needed, or when {@link Configuration#getBatchFlushRows()} rows or about
+ * {@link Configuration#getBatchFlushBytes()} bytes of parameters are pending, all the batches run. The results of these
+ * automatic flushes are not kept, so that the parameter objects can be garbage collected: {@code flushStatements()}
+ * only returns the results of the batches run since the last automatic flush.
+ *
+ * @since 3.5.6
+ */
+public class GroupedBatchExecutor extends BatchExecutor {
+
+  private final Map<GroupKey, Group> groups = new LinkedHashMap<>();
+  private int pendingRows;
+  private long pendingBytes;
+
+  public GroupedBatchExecutor(Configuration configuration, Transaction transaction) {
+    super(configuration, transaction);
+  }
+
+  @Override
+  public int doUpdate(MappedStatement ms, Object parameterObject) throws SQLException {
+    final Configuration configuration = ms.getConfiguration();
+    final StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null, null);
+    final GroupKey key = new GroupKey(ms, handler.getBoundSql().getSql());
+    Group group = groups.get(key);
+    if (group == null) {
+      if (configuration.getBatchMaxStatements() > 0 && groups.size() >= configuration.getBatchMaxStatements()) {
+        executeGroups();
+      }
+      Statement stmt = handler.prepare(getConnection(ms.getStatementLog()), transaction.getTimeout());
+      group = new Group(stmt, new BatchResult(ms, key.sql));
+      groups.put(key, group);
+    } else {
+      applyTransactionTimeout(group.stmt);
+    }
+    if (configuration.getBatchFlushBytes() > 0 && group.stmt instanceof PreparedStatement) {
+      handler.parameterize(measuringParameters((PreparedStatement) group.stmt));
+    } else {
+      handler.parameterize(group.stmt);
+    }
+    group.batchResult.addParameterObject(parameterObject);
+    handler.batch(group.stmt);
+    pendingRows++;
+    if (configuration.getBatchFlushRows() > 0 && pendingRows >= configuration.getBatchFlushRows()
+        || configuration.getBatchFlushBytes() > 0 && pendingBytes >= configuration.getBatchFlushBytes()) {
+      executeGroups();
+    }
+    return BATCH_UPDATE_RETURN_VALUE;
+  }
+
+  @Override
+  public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
+    if (isRollback) {
+      clearGroups();
+      return Collections.emptyList();
+    }
+    return executeGroups();
+  }
+
+  private List<BatchResult> executeGroups() throws SQLException {
+    try {
+      List<BatchResult> results = new ArrayList<>();
+      int i = 0;
+      for (Group group : groups.values()) {
+        try {
+          executeBatch(group.stmt, group.batchResult);
+        } catch (BatchUpdateException e) {
+          throw newBatchExecutorException(e, i, results, group.batchResult);
+        }
+        results.add(group.batchResult);
+        i++;
+      }
+      return results;
+    } finally {
+      clearGroups();
+    }
+  }
+
+  private void clearGroups() {
+    for (Group group : groups.values()) {
+      closeStatement(group.stmt);
+    }
+    groups.clear();
+    pendingRows = 0;
+    pendingBytes = 0;
+  }
+
+  private PreparedStatement measuringParameters(PreparedStatement ps) {
+    ClassLoader cl = PreparedStatement.class.getClassLoader();
+    return (PreparedStatement) Proxy.newProxyInstance(cl, new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+      // every setter declared by PreparedStatement takes the parameter index first and the value second
+      if (method.getDeclaringClass() == PreparedStatement.class && method.getName().startsWith("set")) {
+        pendingBytes += estimateSize(args[1]);
+      }
+      try {
+        return method.invoke(ps, args);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    });
+  }
+
+  private static long estimateSize(Object value) {
+    if (value instanceof CharSequence) {
+      return 2L * ((CharSequence) value).length();
+    } else if (value instanceof byte[]) {
+      return ((byte[]) value).length;
+    }
+    return 8;
+  }
+
+  private static final class GroupKey {
+
+    private final MappedStatement ms;
+    private final String sql;
+
+    GroupKey(MappedStatement ms, String sql) {
+      this.ms = ms;
+      this.sql = sql;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(ms) + sql.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof GroupKey)) {
+        return false;
+      }
+      GroupKey other = (GroupKey) o;
+      return ms == other.ms && sql.equals(other.sql);
+    }
+  }
+
+  private static final class Group {
+
+    private final Statement stmt;
+    private final BatchResult batchResult;
+
+    Group(Statement stmt, BatchResult batchResult) {
+      this.stmt = stmt;
+      this.batchResult = batchResult;
+    }
+  }
+
+}
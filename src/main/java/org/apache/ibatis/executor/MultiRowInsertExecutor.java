@@ -0,0 +1,243 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
+import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * A {@link BatchExecutor} that merges consecutive executions of an insert statement into multi-row
+ * {@code INSERT ... VALUES (...), (...)} statements.
+ * <p>
+ * Many drivers send a JDBC batch as one statement per row unless a driver specific option rewrites it. This executor
+ * does the rewriting itself for prepared inserts whose SQL ends with its {@code VALUES} groups: up to
+ * {@link Configuration#getMultiRowInsertSize()} rows with the same SQL are sent as one statement, each row being bound
+ * by its own {@link ParameterHandler}. Keys generated by {@link Jdbc3KeyGenerator} are assigned to the rows in order.
+ * Other statements are batched as by {@link BatchExecutor}, and all statements run in the order they were executed.
+ * <p>
+ * A full chunk of rows runs right away, the last one when the statements are flushed. Its {@link BatchResult} has one
+ * update count per row, which is {@link Statement#SUCCESS_NO_INFO} when the database reports another number of rows
+ * than were merged.
+ *
+ * @since 3.5.6
+ */
+public class MultiRowInsertExecutor extends BatchExecutor {
+
+  private static final Pattern INSERT_VALUES = Pattern.compile("^\\s*insert\\s+into\\s.*?\\bvalues\\s*(?=\\()",
+      Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+  private final List<BatchResult> results = new ArrayList<>();
+  private final List<StatementHandler> pendingHandlers = new ArrayList<>();
+  private final List<Object> pendingParameterObjects = new ArrayList<>();
+  private MappedStatement pendingStatement;
+  private String pendingSql;
+  // where the VALUES groups start in pendingSql
+  private int pendingValuesIndex;
+
+  public MultiRowInsertExecutor(Configuration configuration, Transaction transaction) {
+    super(configuration, transaction);
+  }
+
+  @Override
+  public int doUpdate(MappedStatement ms, Object parameterObject) throws SQLException {
+    if (!isMergeable(ms)) {
+      executePendingRows();
+      return super.doUpdate(ms, parameterObject);
+    }
+    StatementHandler handler = ms.getConfiguration().newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null, null);
+    String sql = handler.getBoundSql().getSql();
+    if (ms != pendingStatement || !sql.equals(pendingSql)) {
+      executePendingRows();
+      int valuesIndex = valuesIndex(sql);
+      if (valuesIndex < 0) {
+        return super.doUpdate(ms, parameterObject);
+      }
+      pendingStatement = ms;
+      pendingSql = sql;
+      pendingValuesIndex = valuesIndex;
+    }
+    pendingHandlers.add(handler);
+    pendingParameterObjects.add(parameterObject);
+    if (pendingHandlers.size() >= configuration.getMultiRowInsertSize()) {
+      executePendingRows();
+    }
+    return BATCH_UPDATE_RETURN_VALUE;
+  }
+
+  @Override
+  public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
+    try {
+      if (isRollback) {
+        clearPendingRows();
+        return super.doFlushStatements(true);
+      }
+      executePendingRows();
+      results.addAll(super.doFlushStatements(false));
+      return new ArrayList<>(results);
+    } finally {
+      results.clear();
+    }
+  }
+
+  private boolean isMergeable(MappedStatement ms) {
+    KeyGenerator keyGenerator = ms.getKeyGenerator();
+    return ms.getSqlCommandType() == SqlCommandType.INSERT && ms.getStatementType() == StatementType.PREPARED
+        && (NoKeyGenerator.class.equals(keyGenerator.getClass()) || Jdbc3KeyGenerator.class.equals(keyGenerator.getClass()));
+  }
+
+  private void executePendingRows() throws SQLException {
+    if (pendingHandlers.isEmpty()) {
+      return;
+    }
+    MappedStatement ms = pendingStatement;
+    List<StatementHandler> handlers = new ArrayList<>(pendingHandlers);
+    BatchResult batchResult = new BatchResult(ms, mergedSql(handlers.size()));
+    pendingParameterObjects.forEach(batchResult::addParameterObject);
+    clearPendingRows();
+    // the statements batched before these rows must run first
+    results.addAll(super.doFlushStatements(false));
+
+    BoundSql boundSql = handlers.get(0).getBoundSql();
+    Object parameterObject = batchResult.getParameterObjects().get(0);
+    StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null,
+        new BoundSql(configuration, batchResult.getSql(), boundSql.getParameterMappings(), parameterObject));
+    Statement stmt = null;
+    try {
+      stmt = handler.prepare(getConnection(ms.getStatementLog()), transaction.getTimeout());
+      int parameterCount = boundSql.getParameterMappings().size();
+      for (int i = 0; i < handlers.size(); i++) {
+        handlers.get(i).parameterize(shiftParameterIndexes((PreparedStatement) stmt, i * parameterCount));
+      }
+      int updateCount = ((PreparedStatement) stmt).executeUpdate();
+      int[] updateCounts = new int[handlers.size()];
+      Arrays.fill(updateCounts, updateCount == handlers.size() ? 1 : Statement.SUCCESS_NO_INFO);
+      batchResult.setUpdateCounts(updateCounts);
+      KeyGenerator keyGenerator = ms.getKeyGenerator();
+      if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
+        ((Jdbc3KeyGenerator) keyGenerator).processBatch(ms, stmt, batchResult.getParameterObjects());
+      }
+    } catch (SQLException e) {
+      BatchUpdateException cause = e instanceof BatchUpdateException ? (BatchUpdateException) e
+          : new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(), new int[0], e);
+      throw new BatchExecutorException(ms.getId() + " (multi-row insert of " + handlers.size() + " rows) failed.",
+          cause, new ArrayList<>(results), batchResult);
+    } finally {
+      closeStatement(stmt);
+    }
+    results.add(batchResult);
+  }
+
+  private void clearPendingRows() {
+    pendingHandlers.clear();
+    pendingParameterObjects.clear();
+    pendingStatement = null;
+    pendingSql = null;
+  }
+
+  private String mergedSql(int rows) {
+    String values = pendingSql.substring(pendingValuesIndex).trim();
+    StringBuilder sql = new StringBuilder(pendingValuesIndex + rows * (values.length() + 2));
+    sql.append(pendingSql, 0, pendingValuesIndex).append(values);
+    for (int i = 1; i < rows; i++) {
+      sql.append(", ").append(values);
+    }
+    return sql.toString();
+  }
+
+  /**
+   * Finds the groups of values of an insert statement.
+   *
+   * @param sql
+   *          the SQL of the statement
+   * @return the index of the first group, or {@code -1} when the SQL does not end with its groups of values (e.g. an
+   *         {@code INSERT ... SELECT} or an insert with an {@code ON CONFLICT} clause)
+   */
+  static int valuesIndex(String sql) {
+    Matcher matcher = INSERT_VALUES.matcher(sql);
+    if (!matcher.find()) {
+      return -1;
+    }
+    int start = matcher.end();
+    int depth = 0;
+    char quote = 0;
+    boolean expectGroup = true;
+    for (int i = start; i < sql.length(); i++) {
+      char c = sql.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (depth > 0) {
+        if (c == '\'' || c == '"') {
+          quote = c;
+        } else if (c == '(') {
+          depth++;
+        } else if (c == ')') {
+          depth--;
+        }
+      } else if (c == '(' && expectGroup) {
+        depth = 1;
+        expectGroup = false;
+      } else if (c == ',' && !expectGroup) {
+        expectGroup = true;
+      } else if (!Character.isWhitespace(c)) {
+        return -1;
+      }
+    }
+    return depth == 0 && quote == 0 && !expectGroup ? start : -1;
+  }
+
+  private static PreparedStatement shiftParameterIndexes(PreparedStatement ps, int offset) {
+    if (offset == 0) {
+      return ps;
+    }
+    ClassLoader cl = PreparedStatement.class.getClassLoader();
+    return (PreparedStatement) Proxy.newProxyInstance(cl, new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+      // every setter declared by PreparedStatement takes the parameter index first
+      if (method.getDeclaringClass() == PreparedStatement.class && method.getName().startsWith("set")) {
+        args[0] = (Integer) args[0] + offset;
+      }
+      try {
+        return method.invoke(ps, args);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    });
+  }
+
+}
@@ -18,8 +18,10 @@ package org.apache.ibatis.executor;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -38,10 +40,19 @@ import org.apache.ibatis.transaction.Transaction;
  */
 public class ReuseExecutor extends BaseExecutor {
 
-  private final Map<String, Statement> statementMap = new HashMap<>();
+  // 按访问顺序排列, 超出上限时关闭并移除最久未使用的语句
+  private final Map<String, Statement> statementMap = new LinkedHashMap<>(16, 0.75f, true);
+  private final StatementCacheStatistics statistics;
+  private final int maxSize;
+  // 正在读取结果集的查询数, 大于0时(嵌套查询或结果处理器中的更新)不关闭语句
+  private int openQueries;
+  // 游标正在读取的语句, 移出缓存, 既不会被淘汰也不会被相同SQL的查询重新执行, 游标关闭时随之关闭
+  private final List<Statement> cursorStatements = new ArrayList<>();
 
   public ReuseExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
+    this.statistics = configuration.getReuseStatementCacheStatistics();
+    this.maxSize = configuration.getReuseStatementCacheSize();
   }
 
   @Override
@@ -57,15 +68,23 @@ public class ReuseExecutor extends BaseExecutor {
     Configuration configuration = ms.getConfiguration();
     StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, resultHandler, boundSql);
     Statement stmt = prepareStatement(handler, ms.getStatementLog());
-    return handler.query(stmt, resultHandler);
+    openQueries++;
+    try {
+      return handler.query(stmt, resultHandler);
+    } finally {
+      openQueries--;
+      evictStatements();
+    }
   }
 
   @Override
   protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
     Configuration configuration = ms.getConfiguration();
     StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
-    Statement stmt = prepareStatement(handler, ms.getStatementLog());
-    return handler.queryCursor(stmt);
+    Statement stmt = prepareStatement(handler, ms.getStatementLog(), true);
+    Cursor<E> cursor = handler.queryCursor(stmt);
+    stmt.closeOnCompletion();
+    return cursor;
   }
 
   @Override
@@ -74,25 +93,54 @@ public class ReuseExecutor extends BaseExecutor {
       closeStatement(stmt);
     }
     statementMap.clear();
+    for (Statement stmt : cursorStatements) {
+      closeStatement(stmt);
+    }
+    cursorStatements.clear();
     return Collections.emptyList();
   }
 
   private Statement prepareStatement(StatementHandler handler, Log statementLog) throws SQLException {
+    return prepareStatement(handler, statementLog, false);
+  }
+
+  private Statement prepareStatement(StatementHandler handler, Log statementLog, boolean forCursor) throws SQLException {
     Statement stmt;
     BoundSql boundSql = handler.getBoundSql();
     String sql = boundSql.getSql();
     if (hasStatementFor(sql)) {
-      stmt = getStatement(sql);
+      stmt = forCursor ? statementMap.remove(sql) : getStatement(sql);
       applyTransactionTimeout(stmt);
+      statistics.hit();
     } else {
+      statistics.miss();
       Connection connection = getConnection(statementLog);
       stmt = handler.prepare(connection, transaction.getTimeout());
-      putStatement(sql, stmt);
+      if (!forCursor) {
+        putStatement(sql, stmt);
+      }
+    }
+    if (forCursor) {
+      addCursorStatement(stmt);
     }
     handler.parameterize(stmt);
     return stmt;
   }
 
+  private void addCursorStatement(Statement stmt) {
+    // the statements of cursors that were closed or fully read have closed themselves
+    cursorStatements.removeIf(this::isClosed);
+    cursorStatements.add(stmt);
+  }
+
+  private boolean isClosed(Statement stmt) {
+    try {
+      return stmt.isClosed();
+    } catch (SQLException e) {
+      return true;
+    }
+  }
+
   private boolean hasStatementFor(String sql) {
     try {
       Statement statement = statementMap.get(sql);
@@ -108,6 +156,20 @@ public class ReuseExecutor extends BaseExecutor {
 
   private void putStatement(String sql, Statement stmt) {
     statementMap.put(sql, stmt);
+    evictStatements();
+  }
+
+  private void evictStatements() {
+    if (maxSize <= 0 || openQueries > 0) {
+      // the statement of an enclosing query may be the eldest one, its result set is still being read
+      return;
+    }
+    Iterator<Statement> eldest = statementMap.values().iterator();
+    while (statementMap.size() > maxSize) {
+      closeStatement(eldest.next());
+      eldest.remove();
+      statistics.evict();
+    }
   }
 
 }
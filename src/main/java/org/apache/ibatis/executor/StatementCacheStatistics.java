@@ -0,0 +1,67 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit, miss and eviction counts of the statements cached by the {@link ReuseExecutor}s of a configuration, summed
+ * over all sessions.
+ *
+ * @since 3.5.6
+ */
+public class StatementCacheStatistics {
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  void hit() {
+    hits.increment();
+  }
+
+  void miss() {
+    misses.increment();
+  }
+
+  void evict() {
+    evictions.increment();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Gets the number of statements closed because the cache of a session was full.
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  public void reset() {
+    hits.reset();
+    misses.reset();
+    evictions.reset();
+  }
+
+}
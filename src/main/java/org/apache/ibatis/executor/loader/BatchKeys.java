@@ -0,0 +1,156 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Matches the parameters of a nested query that takes a list with the rows it returns.
+ *
+ * @since 3.5.6
+ */
+final class BatchKeys {
+
+  private final Configuration configuration;
+  private final MappedStatement nestedQuery;
+  private final ResultMapping resultMapping;
+  private final String[] foreignColumns;
+  private final Map<Class<?>, String[]> foreignProperties = new HashMap<>();
+
+  BatchKeys(Configuration configuration, MappedStatement nestedQuery, ResultMapping resultMapping) {
+    this.configuration = configuration;
+    this.nestedQuery = nestedQuery;
+    this.resultMapping = resultMapping;
+    this.foreignColumns = resultMapping.getForeignColumn().split(",");
+    for (int i = 0; i < foreignColumns.length; i++) {
+      foreignColumns[i] = foreignColumns[i].trim();
+    }
+  }
+
+  /**
+   * Returns the key of the parameter that the nested query would receive for one parent row.
+   */
+  Object parentKey(Object parameterObject) {
+    if (!resultMapping.isCompositeResult()) {
+      return normalize(parameterObject);
+    }
+    MetaObject metaParameter = configuration.newMetaObject(parameterObject);
+    List<Object> key = new ArrayList<>();
+    for (ResultMapping composite : resultMapping.getComposites()) {
+      key.add(normalize(metaParameter.getValue(composite.getProperty())));
+    }
+    return key;
+  }
+
+  /**
+   * Groups the rows returned by the nested query by the key of the parent they belong to.
+   */
+  Map<Object, List<Object>> groupByParentKey(List<Object> rows) {
+    Map<Object, List<Object>> rowsByKey = new HashMap<>();
+    for (Object row : rows) {
+      rowsByKey.computeIfAbsent(foreignKey(row), k -> new ArrayList<>()).add(row);
+    }
+    return rowsByKey;
+  }
+
+  private Object foreignKey(Object row) {
+    if (row instanceof Map) {
+      return foreignKey((Map<?, ?>) row);
+    }
+    String[] properties = foreignProperties.computeIfAbsent(row.getClass(), this::resolveForeignProperties);
+    MetaObject metaRow = configuration.newMetaObject(row);
+    if (properties.length == 1) {
+      return normalize(metaRow.getValue(properties[0]));
+    }
+    List<Object> key = new ArrayList<>();
+    for (String property : properties) {
+      key.add(normalize(metaRow.getValue(property)));
+    }
+    return key;
+  }
+
+  private Object foreignKey(Map<?, ?> row) {
+    List<Object> key = new ArrayList<>();
+    for (String column : foreignColumns) {
+      Object value = row.get(column);
+      if (value == null) {
+        for (Map.Entry<?, ?> entry : row.entrySet()) {
+          if (column.equalsIgnoreCase(String.valueOf(entry.getKey()))) {
+            value = entry.getValue();
+            break;
+          }
+        }
+      }
+      key.add(normalize(value));
+    }
+    return key.size() == 1 ? key.get(0) : key;
+  }
+
+  private String[] resolveForeignProperties(Class<?> type) {
+    String[] properties = new String[foreignColumns.length];
+    for (int i = 0; i < foreignColumns.length; i++) {
+      properties[i] = resolveForeignProperty(type, foreignColumns[i]);
+    }
+    return properties;
+  }
+
+  private String resolveForeignProperty(Class<?> type, String column) {
+    for (ResultMap resultMap : nestedQuery.getResultMaps()) {
+      for (ResultMapping mapping : resultMap.getResultMappings()) {
+        if (column.equalsIgnoreCase(mapping.getColumn()) && mapping.getProperty() != null) {
+          return mapping.getProperty();
+        }
+      }
+    }
+    MetaClass metaClass = MetaClass.forClass(type, configuration.getReflectorFactory());
+    String property = metaClass.findProperty(column, configuration.isMapUnderscoreToCamelCase());
+    if (property != null && metaClass.hasGetter(property)) {
+      return property;
+    }
+    throw new ExecutorException("Could not find the property of " + type + " that the foreign column '" + column
+        + "' of property '" + resultMapping.getProperty() + "' is mapped to by '" + nestedQuery.getId() + "'.");
+  }
+
+  // keys read from the parent rows and from the nested rows may be of different number types
+  private static Object normalize(Object value) {
+    if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+      return ((Number) value).longValue();
+    }
+    if (value instanceof BigDecimal || value instanceof BigInteger) {
+      BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal((BigInteger) value);
+      try {
+        return decimal.longValueExact();
+      } catch (ArithmeticException e) {
+        return decimal.stripTrailingZeros();
+      }
+    }
+    return value;
+  }
+
+}
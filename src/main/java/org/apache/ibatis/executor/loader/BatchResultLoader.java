@@ -0,0 +1,139 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ResultExtractor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Loads the nested select of a {@code fetchType="batch"} mapping for many parent rows at once.
+ * <p>
+ * The parameters that the nested select would receive for each parent row are collected while the parent result set
+ * is mapped. {@link #load()} then runs the nested select once per {@code batchFetchSize} distinct parameters, passing
+ * them as a list (named {@code list} and {@code collection}), and gives each parent the rows whose
+ * {@link ResultMapping#getForeignColumn() foreign columns} match its columns. The foreign columns are read from the
+ * properties they are mapped to, so they must be mapped by the result map of the nested select.
+ *
+ * @since 3.5.6
+ */
+public class BatchResultLoader {
+
+  private final Configuration configuration;
+  private final Executor executor;
+  private final MappedStatement nestedQuery;
+  private final ResultMapping resultMapping;
+  private final int batchSize;
+  private final ResultExtractor resultExtractor;
+  private final BatchKeys batchKeys;
+  // the distinct parameters in the order of the parent rows, by key
+  private final Map<Object, Object> parameters = new LinkedHashMap<>();
+  private final Map<Object, List<MetaObject>> parents = new HashMap<>();
+
+  public BatchResultLoader(Configuration configuration, Executor executor, MappedStatement nestedQuery,
+      ResultMapping resultMapping, int batchSize) {
+    this.configuration = configuration;
+    this.executor = executor;
+    this.nestedQuery = nestedQuery;
+    this.resultMapping = resultMapping;
+    this.batchSize = batchSize > 0 ? batchSize : Integer.MAX_VALUE;
+    this.resultExtractor = new ResultExtractor(configuration, configuration.getObjectFactory());
+    this.batchKeys = new BatchKeys(configuration, nestedQuery, resultMapping);
+  }
+
+  /**
+   * Adds a parent row.
+   *
+   * @param parent
+   *          the parent object
+   * @param parameterObject
+   *          the parameter of the nested select for the parent row
+   */
+  public void addParent(MetaObject parent, Object parameterObject) {
+    Object key = batchKeys.parentKey(parameterObject);
+    parameters.putIfAbsent(key, parameterObject);
+    parents.computeIfAbsent(key, k -> new ArrayList<>()).add(parent);
+  }
+
+  public boolean isEmpty() {
+    return parameters.isEmpty();
+  }
+
+  /**
+   * Runs the nested select for the parents added so far and sets their property.
+   *
+   * @throws SQLException
+   *           if the nested select fails
+   */
+  public void load() throws SQLException {
+    List<Object> keys = new ArrayList<>(parameters.keySet());
+    for (int from = 0; from < keys.size(); from += batchSize) {
+      Batch batch = new Batch();
+      List<Object> batchParameters = new ArrayList<>();
+      for (Object key : keys.subList(from, Math.min(keys.size(), from + batchSize))) {
+        batch.parents.put(key, parents.get(key));
+        batchParameters.add(parameters.get(key));
+      }
+      Object parameterObject = ParamNameResolver.wrapToMapIfCollection(batchParameters, null);
+      BoundSql boundSql = nestedQuery.getBoundSql(parameterObject);
+      CacheKey cacheKey = executor.createCacheKey(nestedQuery, parameterObject, RowBounds.DEFAULT, boundSql);
+      if (executor.isCached(nestedQuery, cacheKey)) {
+        // the same batch may still be loading further up (circular references), like other nested selects wait for it
+        executor.deferLoad(nestedQuery, configuration.newMetaObject(batch), "rows", cacheKey, List.class);
+      } else {
+        batch.setRows(executor.query(nestedQuery, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, cacheKey, boundSql));
+      }
+    }
+    parameters.clear();
+    parents.clear();
+  }
+
+  // receives the rows of a batch, possibly once they are loaded further up
+  private class Batch {
+
+    private final Map<Object, List<MetaObject>> parents = new LinkedHashMap<>();
+
+    public void setRows(List<Object> rows) {
+      Map<Object, List<Object>> rowsByKey = batchKeys.groupByParentKey(rows);
+      Class<?> targetType = resultMapping.getJavaType();
+      String property = resultMapping.getProperty();
+      for (Map.Entry<Object, List<MetaObject>> entry : parents.entrySet()) {
+        List<Object> matchingRows = rowsByKey.get(entry.getKey());
+        Object value = resultExtractor.extractObjectFromList(matchingRows == null ? new ArrayList<>() : matchingRows, targetType);
+        for (MetaObject parent : entry.getValue()) {
+          if (value != null || configuration.isCallSettersOnNulls() && !parent.getSetterType(property).isPrimitive()) {
+            parent.setValue(property, value);
+          }
+        }
+      }
+    }
+  }
+
+}
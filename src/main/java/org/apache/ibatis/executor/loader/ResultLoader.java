@@ -73,10 +73,7 @@ public class ResultLoader {
   }
 
   private <E> List<E> selectList() throws SQLException {
-    Executor localExecutor = executor;
-    if (Thread.currentThread().getId() != this.creatorThreadId || localExecutor.isClosed()) {
-      localExecutor = newExecutor();
-    }
+    Executor localExecutor = localExecutor();
     try {
       return localExecutor.query(mappedStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, cacheKey, boundSql);
     } finally {
@@ -86,6 +83,36 @@ public class ResultLoader {
     }
   }
 
+  /**
+   * Runs the mapped statement of this loader with another parameter, on the executor this loader would use.
+   *
+   * @param <E>
+   *          the element type
+   * @param parameterObject
+   *          the parameter
+   * @return the rows
+   * @throws SQLException
+   *           if the statement fails
+   * @since 3.5.6
+   */
+  protected <E> List<E> selectList(Object parameterObject) throws SQLException {
+    Executor localExecutor = localExecutor();
+    try {
+      return localExecutor.query(mappedStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+    } finally {
+      if (localExecutor != executor) {
+        localExecutor.close(false);
+      }
+    }
+  }
+
+  private Executor localExecutor() {
+    if (Thread.currentThread().getId() != this.creatorThreadId || executor.isClosed()) {
+      return newExecutor();
+    }
+    return executor;
+  }
+
   private Executor newExecutor() {
     final Environment environment = configuration.getEnvironment();
     if (environment == null) {
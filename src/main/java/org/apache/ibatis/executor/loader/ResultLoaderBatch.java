@@ -0,0 +1,109 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * The lazy loaders of one nested select mapping that were created for sibling rows.
+ * <p>
+ * The nested select of a lazy mapping with {@link ResultMapping#getForeignColumn() foreign columns} takes a list of
+ * parameters. The first loader of the batch that loads its property runs it once with the distinct parameters of all
+ * the loaders of the batch, and the other loaders then take their result from the rows it returned instead of running
+ * the nested select again.
+ *
+ * @since 3.5.6
+ */
+public class ResultLoaderBatch {
+
+  private final BatchKeys batchKeys;
+  private final int batchSize;
+  // the distinct parameters in the order of the rows, by key
+  private final Map<Object, Object> parameters = new LinkedHashMap<>();
+  private Map<Object, List<Object>> rowsByKey;
+
+  public ResultLoaderBatch(Configuration configuration, MappedStatement nestedQuery, ResultMapping resultMapping,
+      int batchSize) {
+    this.batchKeys = new BatchKeys(configuration, nestedQuery, resultMapping);
+    this.batchSize = batchSize > 0 ? batchSize : Integer.MAX_VALUE;
+  }
+
+  /**
+   * Returns whether the batch takes no more loaders, because it reached the batch fetch size or it was already loaded.
+   *
+   * @return {@code true} if the batch is closed
+   */
+  public synchronized boolean isClosed() {
+    return rowsByKey != null || parameters.size() >= batchSize;
+  }
+
+  /**
+   * Adds a loader to the batch.
+   *
+   * @param parameterObject
+   *          the parameter of the nested select for the row of the loader, before it is wrapped into a list
+   * @param resultLoader
+   *          the loader, which loads the property with a list of this parameter alone
+   * @return the loader to register instead of {@code resultLoader}, or {@code resultLoader} itself if the batch was
+   *         already loaded
+   */
+  public synchronized ResultLoader add(Object parameterObject, ResultLoader resultLoader) {
+    if (rowsByKey != null) {
+      return resultLoader;
+    }
+    Object key = batchKeys.parentKey(parameterObject);
+    parameters.putIfAbsent(key, parameterObject);
+    return new BatchedResultLoader(resultLoader, key);
+  }
+
+  private synchronized List<Object> getRows(BatchedResultLoader resultLoader) throws SQLException {
+    if (rowsByKey == null) {
+      Object parameterObject = ParamNameResolver.wrapToMapIfCollection(new ArrayList<>(parameters.values()), null);
+      rowsByKey = batchKeys.groupByParentKey(resultLoader.selectList(parameterObject));
+      parameters.clear();
+    }
+    // rows may be shared by several loaders
+    List<Object> rows = rowsByKey.get(resultLoader.key);
+    return rows == null ? new ArrayList<>() : new ArrayList<>(rows);
+  }
+
+  private class BatchedResultLoader extends ResultLoader {
+
+    private final Object key;
+
+    BatchedResultLoader(ResultLoader resultLoader, Object key) {
+      super(resultLoader.configuration, resultLoader.executor, resultLoader.mappedStatement,
+          resultLoader.parameterObject, resultLoader.targetType, resultLoader.cacheKey, resultLoader.boundSql);
+      this.key = key;
+    }
+
+    @Override
+    public Object loadResult() throws SQLException {
+      resultObject = resultExtractor.extractObjectFromList(getRows(this), targetType);
+      return resultObject;
+    }
+  }
+
+}
@@ -0,0 +1,170 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * A row mapper specialized for one result map and one set of result set columns.
+ * <p>
+ * All the decisions that {@link DefaultResultSetHandler} takes per row for a flat result map (which columns are
+ * mapped, their type handlers and the setters of the target properties) are resolved once, so that mapping a row
+ * only reads the columns by index and calls the setters.
+ *
+ * @since 3.5.6
+ */
+public class CompiledRowMapper {
+
+  private final ObjectFactory objectFactory;
+  private final Class<?> type;
+  private final boolean callSettersOnNulls;
+  private final boolean returnInstanceForEmptyRow;
+  private final int[] columnIndexes;
+  private final TypeHandler<?>[] typeHandlers;
+  private final String[] properties;
+  private final Invoker[] setters;
+  private final boolean[] primitives;
+
+  private CompiledRowMapper(Builder builder) {
+    this.objectFactory = builder.objectFactory;
+    this.type = builder.type;
+    this.callSettersOnNulls = builder.callSettersOnNulls;
+    this.returnInstanceForEmptyRow = builder.returnInstanceForEmptyRow;
+    int size = builder.columns.size();
+    this.columnIndexes = new int[size];
+    this.typeHandlers = new TypeHandler<?>[size];
+    this.properties = new String[size];
+    this.setters = new Invoker[size];
+    this.primitives = new boolean[size];
+    for (int i = 0; i < size; i++) {
+      MappedColumn column = builder.columns.get(i);
+      columnIndexes[i] = column.index;
+      typeHandlers[i] = column.typeHandler;
+      properties[i] = column.property;
+      setters[i] = column.setter;
+      primitives[i] = column.primitive;
+    }
+  }
+
+  /**
+   * Maps the current row of the result set.
+   *
+   * @param rs
+   *          the result set positioned on the row to map
+   * @return the row value, or {@code null} when all the mapped columns are null and
+   *         {@code returnInstanceForEmptyRow} is disabled
+   * @throws SQLException
+   *           if a column cannot be read
+   */
+  public Object map(ResultSet rs) throws SQLException {
+    Object rowValue = objectFactory.create(type);
+    boolean foundValues = false;
+    for (int i = 0; i < columnIndexes.length; i++) {
+      Object value = typeHandlers[i].getResult(rs, columnIndexes[i]);
+      if (value != null) {
+        foundValues = true;
+      }
+      if (value != null || (callSettersOnNulls && !primitives[i])) {
+        setValue(rowValue, i, value);
+      }
+    }
+    return foundValues || returnInstanceForEmptyRow ? rowValue : null;
+  }
+
+  public Class<?> getType() {
+    return type;
+  }
+
+  public int getColumnCount() {
+    return columnIndexes.length;
+  }
+
+  private void setValue(Object rowValue, int i, Object value) {
+    try {
+      setters[i].invoke(rowValue, new Object[] { value });
+    } catch (Throwable t) {
+      Throwable cause = ExceptionUtil.unwrapThrowable(t);
+      throw new ReflectionException("Could not set property '" + properties[i] + "' of '" + rowValue.getClass()
+          + "' with value '" + value + "' Cause: " + cause.toString(), cause);
+    }
+  }
+
+  public static class Builder {
+
+    private final ObjectFactory objectFactory;
+    private final Class<?> type;
+    private final boolean callSettersOnNulls;
+    private final boolean returnInstanceForEmptyRow;
+    private final List<MappedColumn> columns = new ArrayList<>();
+
+    public Builder(ObjectFactory objectFactory, Class<?> type, boolean callSettersOnNulls, boolean returnInstanceForEmptyRow) {
+      this.objectFactory = objectFactory;
+      this.type = type;
+      this.callSettersOnNulls = callSettersOnNulls;
+      this.returnInstanceForEmptyRow = returnInstanceForEmptyRow;
+    }
+
+    /**
+     * Adds a column. Columns are read and their properties are set in the order they are added.
+     *
+     * @param index
+     *          the 1-based index of the column in the result set
+     * @param typeHandler
+     *          the type handler that reads the column
+     * @param property
+     *          the name of the property
+     * @param setter
+     *          the setter invoker of the property
+     * @param primitive
+     *          whether the property is of a primitive type (such properties are never set to null)
+     * @return this builder
+     */
+    public Builder column(int index, TypeHandler<?> typeHandler, String property, Invoker setter, boolean primitive) {
+      columns.add(new MappedColumn(index, typeHandler, property, setter, primitive));
+      return this;
+    }
+
+    public CompiledRowMapper build() {
+      return new CompiledRowMapper(this);
+    }
+  }
+
+  private static class MappedColumn {
+    private final int index;
+    private final TypeHandler<?> typeHandler;
+    private final String property;
+    private final Invoker setter;
+    private final boolean primitive;
+
+    MappedColumn(int index, TypeHandler<?> typeHandler, String property, Invoker setter, boolean primitive) {
+      this.index = index;
+      this.typeHandler = typeHandler;
+      this.property = property;
+      this.setter = setter;
+      this.primitive = primitive;
+    }
+  }
+
+}
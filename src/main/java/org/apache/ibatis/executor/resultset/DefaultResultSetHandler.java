@@ -21,8 +21,12 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -36,7 +40,9 @@ import org.apache.ibatis.cursor.defaults.DefaultCursor;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.loader.BatchResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoader;
+import org.apache.ibatis.executor.loader.ResultLoaderBatch;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
@@ -51,8 +57,11 @@ import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.PropertyPath;
+import org.apache.ibatis.reflection.ParamNameResolver;
 import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultContext;
@@ -87,14 +96,24 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final Map<CacheKey, Object> nestedResultObjects = new HashMap<>();
   private final Map<String, Object> ancestorObjects = new HashMap<>();
   private Object previousRowValue;
+  // whether a parent is complete when the next row has another key
+  private boolean resultOrdered;
 
   // multiple resultsets
   private final Map<String, ResultMapping> nextResultMaps = new HashMap<>();
   private final Map<CacheKey, List<PendingRelation>> pendingRelations = new HashMap<>();
 
+  // nested queries of several rows
+  private final Map<ResultMapping, BatchResultLoader> batchResultLoaders = new IdentityHashMap<>();
+  private final Map<ResultMapping, ResultLoaderBatch> resultLoaderBatches = new IdentityHashMap<>();
+  private boolean batchFetching;
+
   // Cached Automappings
   private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
 
+  // Cached constructor auto-mappings, per result type
+  private final Map<Class<?>, ConstructorAutoMapping> constructorAutoMappingsCache = new HashMap<>();
+
   // temporary marking flag that indicate using constructor mapping (use field to reduce memory usage)
   private boolean useConstructorMappings;
 
@@ -106,17 +125,34 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private static class UnMappedColumnAutoMapping {
     private final String column;
     private final String property;
+    private final PropertyPath path;
     private final TypeHandler<?> typeHandler;
     private final boolean primitive;
 
-    public UnMappedColumnAutoMapping(String column, String property, TypeHandler<?> typeHandler, boolean primitive) {
+    public UnMappedColumnAutoMapping(String column, String property, PropertyPath path, TypeHandler<?> typeHandler, boolean primitive) {
       this.column = column;
       this.property = property;
+      this.path = path;
       this.typeHandler = typeHandler;
       this.primitive = primitive;
     }
   }
 
+  private static class ConstructorAutoMapping {
+    private final ResultSetWrapper rsw;
+    private final List<Class<?>> argTypes;
+    private final TypeHandler<?>[] typeHandlers;
+
+    public ConstructorAutoMapping(ResultSetWrapper rsw, Constructor<?> constructor) {
+      this.rsw = rsw;
+      this.argTypes = Arrays.asList(constructor.getParameterTypes());
+      this.typeHandlers = new TypeHandler<?>[argTypes.size()];
+      for (int i = 0; i < typeHandlers.length; i++) {
+        typeHandlers[i] = rsw.getTypeHandler(argTypes.get(i), rsw.getColumnNames().get(i));
+      }
+    }
+  }
+
   public DefaultResultSetHandler(Executor executor, MappedStatement mappedStatement, ParameterHandler parameterHandler, ResultHandler<?> resultHandler, BoundSql boundSql,
                                  RowBounds rowBounds) {
     this.executor = executor;
@@ -129,6 +165,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     this.objectFactory = configuration.getObjectFactory();
     this.reflectorFactory = configuration.getReflectorFactory();
     this.resultHandler = resultHandler;
+    this.resultOrdered = mappedStatement.isResultOrdered();
   }
 
   //
@@ -182,6 +219,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     ErrorContext.instance().activity("handling results").object(mappedStatement.getId());
 
     final List<Object> multipleResults = new ArrayList<>();
+    // rows passed to a ResultHandler cannot wait for the batch fetched properties
+    batchFetching = resultHandler == null;
 
     int resultSetCount = 0;
     ResultSetWrapper rsw = getFirstResultSet(stmt);
@@ -212,9 +251,18 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       }
     }
 
+    loadBatchResults();
     return collapseSingleResultList(multipleResults);
   }
 
+  private void loadBatchResults() throws SQLException {
+    batchFetching = false;
+    for (BatchResultLoader batchResultLoader : batchResultLoaders.values()) {
+      batchResultLoader.load();
+    }
+    batchResultLoaders.clear();
+  }
+
   @Override
   public <E> Cursor<E> handleCursorResultSets(Statement stmt) throws SQLException {
     ErrorContext.instance().activity("handling cursor results").object(mappedStatement.getId());
@@ -230,6 +278,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
     ResultMap resultMap = resultMaps.get(0);
+    // a cursor returns each parent before reading the next rows, so they must be grouped by parent
+    resultOrdered = true;
     return new DefaultCursor<>(this, resultMap, rsw, rowBounds);
   }
 
@@ -282,6 +332,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   private void cleanUpAfterHandlingResultSet() {
     nestedResultObjects.clear();
+    resultLoaderBatches.clear();
   }
 
   private void validateResultMapsCount(ResultSetWrapper rsw, int resultMapCount) {
@@ -349,9 +400,21 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
     ResultSet resultSet = rsw.getResultSet();
     skipRows(resultSet, rowBounds);
+    boolean compileRowMapper = configuration.isCompiledRowMappingEnabled() && resultMap.getDiscriminator() == null;
+    CompiledRowMapper compiledRowMapper = null;
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
-      ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
-      Object rowValue = getRowValue(rsw, discriminatedResultMap, null);
+      Object rowValue;
+      if (compiledRowMapper != null) {
+        rowValue = compiledRowMapper.map(resultSet);
+      } else {
+        ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
+        rowValue = getRowValue(rsw, discriminatedResultMap, null);
+        if (compileRowMapper) {
+          // the first row has resolved the automatic mappings, the rest can use a compiled mapper
+          compiledRowMapper = getCompiledRowMapper(rsw, resultMap);
+          compileRowMapper = false;
+        }
+      }
       storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
     }
   }
@@ -408,6 +471,78 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return rowValue;
   }
 
+  //
+  // COMPILED ROW MAPPERS FOR SIMPLE RESULT MAP
+  //
+
+  private CompiledRowMapper getCompiledRowMapper(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+    final String key = resultMap.getId() + ":" + rsw.getColumnNames() + ":" + rsw.getClassNames() + ":" + rsw.getJdbcTypes();
+    CompiledRowMapper rowMapper = configuration.getCompiledRowMapper(key);
+    if (rowMapper == null) {
+      rowMapper = compileRowMapper(rsw, resultMap);
+      if (rowMapper != null) {
+        configuration.addCompiledRowMapper(key, rowMapper);
+      }
+    }
+    return rowMapper;
+  }
+
+  private CompiledRowMapper compileRowMapper(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+    final Class<?> resultType = resultMap.getType();
+    if (resultMap.hasNestedQueries() || !resultMap.getConstructorResultMappings().isEmpty()
+        || resultType.isInterface() || Map.class.isAssignableFrom(resultType) || Collection.class.isAssignableFrom(resultType)
+        || hasTypeHandlerForResultObject(rsw, resultType)
+        || !(configuration.getObjectWrapperFactory() instanceof DefaultObjectWrapperFactory)) {
+      return null;
+    }
+    final MetaClass metaType = MetaClass.forClass(resultType, reflectorFactory);
+    if (!metaType.hasDefaultConstructor()) {
+      return null;
+    }
+    final CompiledRowMapper.Builder builder = new CompiledRowMapper.Builder(objectFactory, resultType,
+        configuration.isCallSettersOnNulls(), configuration.isReturnInstanceForEmptyRow());
+    if (shouldApplyAutomaticMappings(resultMap, false)) {
+      final List<UnMappedColumnAutoMapping> autoMapping = autoMappingsCache.get(resultMap.getId() + ":" + null);
+      if (autoMapping == null) {
+        return null;
+      }
+      for (UnMappedColumnAutoMapping mapping : autoMapping) {
+        if (!addCompiledColumn(builder, rsw, metaType, mapping.column, mapping.typeHandler, mapping.property)) {
+          return null;
+        }
+      }
+    }
+    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, null);
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      if (propertyMapping.isCompositeResult() || propertyMapping.getResultSet() != null) {
+        return null;
+      }
+      final String column = propertyMapping.getColumn();
+      // issue #541 make property optional
+      if (column != null && propertyMapping.getProperty() != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))
+          && !addCompiledColumn(builder, rsw, metaType, column, propertyMapping.getTypeHandler(), propertyMapping.getProperty())) {
+        return null;
+      }
+    }
+    return builder.build();
+  }
+
+  private boolean addCompiledColumn(CompiledRowMapper.Builder builder, ResultSetWrapper rsw, MetaClass metaType, String column,
+      TypeHandler<?> typeHandler, String property) {
+    // nested properties need the intermediate objects that only MetaObject can instantiate
+    if (property.indexOf('.') >= 0 || property.indexOf('[') >= 0 || !metaType.hasSetter(property)) {
+      return false;
+    }
+    final List<String> columnNames = rsw.getColumnNames();
+    for (int i = 0; i < columnNames.size(); i++) {
+      if (columnNames.get(i).equalsIgnoreCase(column)) {
+        builder.column(i + 1, typeHandler, property, metaType.getSetInvoker(property), metaType.getSetterType(property).isPrimitive());
+        return true;
+      }
+    }
+    return false;
+  }
+
   //
   // GET VALUE FROM ROW FOR NESTED RESULT MAP
   //
@@ -491,7 +626,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
         if (value != null || (configuration.isCallSettersOnNulls() && !metaObject.getSetterType(property).isPrimitive())) {
           // gcode issue #377, call setter on nulls (value is not 'found')
-          metaObject.setValue(property, value);
+          configuration.getPropertyPath(property).setValue(metaObject.getOriginalObject(), value);
         }
       }
     }
@@ -537,7 +672,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           final Class<?> propertyType = metaObject.getSetterType(property);
           if (typeHandlerRegistry.hasTypeHandler(propertyType, rsw.getJdbcType(columnName))) {
             final TypeHandler<?> typeHandler = rsw.getTypeHandler(propertyType, columnName);
-            autoMapping.add(new UnMappedColumnAutoMapping(columnName, property, typeHandler, propertyType.isPrimitive()));
+            autoMapping.add(new UnMappedColumnAutoMapping(columnName, property, configuration.getPropertyPath(property), typeHandler,
+                propertyType.isPrimitive()));
           } else {
             configuration.getAutoMappingUnknownColumnBehavior()
                 .doAction(mappedStatement, columnName, property, propertyType);
@@ -563,7 +699,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
         if (value != null || (configuration.isCallSettersOnNulls() && !mapping.primitive)) {
           // gcode issue #377, call setter on nulls (value is not 'found')
-          metaObject.setValue(mapping.property, value);
+          mapping.path.setValue(metaObject.getOriginalObject(), value);
         }
       }
     }
@@ -687,28 +823,38 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   }
 
   private Object createByConstructorSignature(ResultSetWrapper rsw, Class<?> resultType, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) throws SQLException {
+    // the constructor and its type handlers only depend on the result type and the columns of the result set
+    ConstructorAutoMapping constructorAutoMapping = constructorAutoMappingsCache.get(resultType);
+    if (constructorAutoMapping == null || constructorAutoMapping.rsw != rsw) {
+      constructorAutoMapping = new ConstructorAutoMapping(rsw, findConstructorBySignature(rsw, resultType));
+      constructorAutoMappingsCache.put(resultType, constructorAutoMapping);
+    }
+    return createUsingConstructor(rsw, resultType, constructorArgTypes, constructorArgs, constructorAutoMapping);
+  }
+
+  private Constructor<?> findConstructorBySignature(ResultSetWrapper rsw, Class<?> resultType) {
     final Constructor<?>[] constructors = resultType.getDeclaredConstructors();
     final Constructor<?> defaultConstructor = findDefaultConstructor(constructors);
     if (defaultConstructor != null) {
-      return createUsingConstructor(rsw, resultType, constructorArgTypes, constructorArgs, defaultConstructor);
+      return defaultConstructor;
     } else {
       for (Constructor<?> constructor : constructors) {
         if (allowedConstructorUsingTypeHandlers(constructor, rsw.getJdbcTypes())) {
-          return createUsingConstructor(rsw, resultType, constructorArgTypes, constructorArgs, constructor);
+          return constructor;
         }
       }
     }
     throw new ExecutorException("No constructor found in " + resultType.getName() + " matching " + rsw.getClassNames());
   }
 
-  private Object createUsingConstructor(ResultSetWrapper rsw, Class<?> resultType, List<Class<?>> constructorArgTypes, List<Object> constructorArgs, Constructor<?> constructor) throws SQLException {
+  private Object createUsingConstructor(ResultSetWrapper rsw, Class<?> resultType, List<Class<?>> constructorArgTypes, List<Object> constructorArgs,
+      ConstructorAutoMapping constructorAutoMapping) throws SQLException {
+    final TypeHandler<?>[] typeHandlers = constructorAutoMapping.typeHandlers;
+    final ResultSet resultSet = rsw.getResultSet();
+    constructorArgTypes.addAll(constructorAutoMapping.argTypes);
     boolean foundValues = false;
-    for (int i = 0; i < constructor.getParameterTypes().length; i++) {
-      Class<?> parameterType = constructor.getParameterTypes()[i];
-      String columnName = rsw.getColumnNames().get(i);
-      TypeHandler<?> typeHandler = rsw.getTypeHandler(parameterType, columnName);
-      Object value = typeHandler.getResult(rsw.getResultSet(), columnName);
-      constructorArgTypes.add(parameterType);
+    for (int i = 0; i < typeHandlers.length; i++) {
+      Object value = typeHandlers[i].getResult(resultSet, i + 1);
       constructorArgs.add(value);
       foundValues = value != null || foundValues;
     }
@@ -781,9 +927,16 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     final String property = propertyMapping.getProperty();
     final MappedStatement nestedQuery = configuration.getMappedStatement(nestedQueryId);
     final Class<?> nestedQueryParameterType = nestedQuery.getParameterMap().getType();
-    final Object nestedQueryParameterObject = prepareParameterForNestedQuery(rs, propertyMapping, nestedQueryParameterType, columnPrefix);
+    final Object parameterObject = prepareParameterForNestedQuery(rs, propertyMapping, nestedQueryParameterType, columnPrefix);
     Object value = null;
-    if (nestedQueryParameterObject != null) {
+    if (parameterObject != null && propertyMapping.isBatch() && !propertyMapping.isLazy() && batchFetching) {
+      batchResultLoaders.computeIfAbsent(propertyMapping, m -> new BatchResultLoader(configuration, executor, nestedQuery,
+          m, configuration.getBatchFetchSize())).addParent(metaResultObject, parameterObject);
+      value = DEFERRED;
+    } else if (parameterObject != null) {
+      // a batch of one
+      final Object nestedQueryParameterObject = propertyMapping.isMultiRowNestedQuery()
+          ? ParamNameResolver.wrapToMapIfCollection(Collections.singletonList(parameterObject), null) : parameterObject;
       final BoundSql nestedBoundSql = nestedQuery.getBoundSql(nestedQueryParameterObject);
       final CacheKey key = executor.createCacheKey(nestedQuery, nestedQueryParameterObject, RowBounds.DEFAULT, nestedBoundSql);
       final Class<?> targetType = propertyMapping.getJavaType();
@@ -791,8 +944,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         executor.deferLoad(nestedQuery, metaResultObject, property, key, targetType);
         value = DEFERRED;
       } else {
-        final ResultLoader resultLoader = new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
+        ResultLoader resultLoader = new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
         if (propertyMapping.isLazy()) {
+          if (propertyMapping.isMultiRowNestedQuery()) {
+            resultLoader = getResultLoaderBatch(propertyMapping, nestedQuery).add(parameterObject, resultLoader);
+          }
           lazyLoader.addLoader(property, metaResultObject, resultLoader);
           value = DEFERRED;
         } else {
@@ -803,6 +959,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return value;
   }
 
+  private ResultLoaderBatch getResultLoaderBatch(ResultMapping propertyMapping, MappedStatement nestedQuery) {
+    ResultLoaderBatch resultLoaderBatch = resultLoaderBatches.get(propertyMapping);
+    if (resultLoaderBatch == null || resultLoaderBatch.isClosed()) {
+      resultLoaderBatch = new ResultLoaderBatch(configuration, nestedQuery, propertyMapping, configuration.getBatchFetchSize());
+      resultLoaderBatches.put(propertyMapping, resultLoaderBatch);
+    }
+    return resultLoaderBatch;
+  }
+
   private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
     if (resultMapping.isCompositeResult()) {
       return prepareCompositeKeyParameter(rs, resultMapping, parameterType, columnPrefix);
@@ -899,7 +1064,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
       Object partialObject = nestedResultObjects.get(rowKey);
       // issue #577 && #542
-      if (mappedStatement.isResultOrdered()) {
+      if (resultOrdered) {
         if (partialObject == null && rowValue != null) {
           nestedResultObjects.clear();
           storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
@@ -912,7 +1077,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
       }
     }
-    if (rowValue != null && mappedStatement.isResultOrdered() && shouldProcessMoreRows(resultContext, rowBounds)) {
+    if (rowValue != null && resultOrdered && shouldProcessMoreRows(resultContext, rowBounds)) {
       storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
       previousRowValue = null;
     } else if (rowValue != null) {
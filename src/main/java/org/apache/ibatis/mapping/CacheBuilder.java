@@ -24,12 +24,14 @@ import java.util.Properties;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheWeightBudget;
 import org.apache.ibatis.cache.decorators.BlockingCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
@@ -46,6 +48,7 @@ public class CacheBuilder {
   private boolean readWrite;
   private Properties properties;
   private boolean blocking;
+  private CacheWeightBudget weightBudget;
 
   public CacheBuilder(String id) {
     this.id = id;
@@ -89,12 +92,17 @@ public class CacheBuilder {
     return this;
   }
 
+  public CacheBuilder weightBudget(CacheWeightBudget weightBudget) {
+    this.weightBudget = weightBudget;
+    return this;
+  }
+
   public Cache build() {
     setDefaultImplementations();
     Cache cache = newBaseCacheInstance(implementation, id);
     setCacheProperties(cache);
     // issue #352, do not apply decorators to custom caches
-    if (PerpetualCache.class.equals(cache.getClass())) {
+    if (PerpetualCache.class.equals(cache.getClass()) || ConcurrentPerpetualCache.class.equals(cache.getClass())) {
       for (Class<? extends Cache> decorator : decorators) {
         cache = newCacheDecoratorInstance(decorator, cache);
         setCacheProperties(cache);
@@ -121,6 +129,9 @@ public class CacheBuilder {
       if (size != null && metaCache.hasSetter("size")) {
         metaCache.setValue("size", size);
       }
+      if (weightBudget != null && metaCache.hasSetter("weightBudget")) {
+        metaCache.setValue("weightBudget", weightBudget);
+      }
       if (clearInterval != null) {
         cache = new ScheduledCache(cache);
         ((ScheduledCache) cache).setClearInterval(clearInterval);
@@ -129,9 +140,12 @@ public class CacheBuilder {
         cache = new SerializedCache(cache);
       }
       cache = new LoggingCache(cache);
-      cache = new SynchronizedCache(cache);
+      if (!cache.isThreadSafe()) {
+        cache = new SynchronizedCache(cache);
+      }
       if (blocking) {
         cache = new BlockingCache(cache);
+        setCacheProperties(cache);
       }
       return cache;
     } catch (Exception e) {
@@ -19,5 +19,17 @@ package org.apache.ibatis.mapping;
  * @author Eduardo Macarron
  */
 public enum FetchType {
-  LAZY, EAGER, DEFAULT
+  LAZY, EAGER, DEFAULT,
+  /**
+   * Runs the nested statement once for a batch of parent rows.
+   *
+   * @since 3.5.6
+   */
+  BATCH,
+  /**
+   * Loads the nested statement lazily, once for a group of sibling rows.
+   *
+   * @since 3.5.6
+   */
+  LAZY_BATCH
 }
@@ -45,6 +45,7 @@ public class ResultMapping {
   private String resultSet;
   private String foreignColumn;
   private boolean lazy;
+  private boolean batch;
 
   ResultMapping() {
   }
@@ -132,6 +133,20 @@ public class ResultMapping {
       return this;
     }
 
+    /**
+     * Sets whether the nested query is run once for a batch of parent rows ({@code fetchType="batch"}, or
+     * {@code fetchType="lazyBatch"} when the mapping is also lazy).
+     *
+     * @param batch
+     *          {@code true} to batch the nested query
+     * @return this builder
+     * @since 3.5.6
+     */
+    public Builder batch(boolean batch) {
+      resultMapping.batch = batch;
+      return this;
+    }
+
     public ResultMapping build() {
       // lock down collections
       resultMapping.flags = Collections.unmodifiableList(resultMapping.flags);
@@ -154,7 +169,10 @@ public class ResultMapping {
       if (resultMapping.nestedResultMapId == null && resultMapping.column == null && resultMapping.composites.isEmpty()) {
         throw new IllegalStateException("Mapping is missing column attribute for property " + resultMapping.property);
       }
-      if (resultMapping.getResultSet() != null) {
+      if (resultMapping.batch && resultMapping.nestedQueryId == null) {
+        throw new IllegalStateException("Batch fetching requires a nested select in property " + resultMapping.property);
+      }
+      if (resultMapping.getResultSet() != null || resultMapping.isMultiRowNestedQuery()) {
         int numColumns = 0;
         if (resultMapping.column != null) {
           numColumns = resultMapping.column.split(",").length;
@@ -251,6 +269,33 @@ public class ResultMapping {
     this.lazy = lazy;
   }
 
+  /**
+   * Returns whether the nested query is run once for a batch of parent rows, which are matched with the rows of the
+   * nested query by the {@link #getForeignColumn() foreign columns}.
+   *
+   * @return {@code true} if the nested query is batched
+   * @since 3.5.6
+   */
+  public boolean isBatch() {
+    return batch;
+  }
+
+  public void setBatch(boolean batch) {
+    this.batch = batch;
+  }
+
+  /**
+   * Returns whether the nested query takes the list of the column values of several parent rows. This is the case of
+   * batched nested queries, eager ({@code fetchType="batch"}) or lazy ({@code fetchType="lazyBatch"}), whose loaders
+   * are then grouped across sibling rows.
+   *
+   * @return {@code true} if the parameter of the nested query is a list
+   * @since 3.5.6
+   */
+  public boolean isMultiRowNestedQuery() {
+    return nestedQueryId != null && resultSet == null && batch;
+  }
+
   public boolean isSimple() {
     return this.nestedResultMapId == null && this.nestedQueryId == null && this.resultSet == null;
   }
@@ -298,6 +343,7 @@ public class ResultMapping {
     sb.append(", resultSet='").append(resultSet).append('\'');
     sb.append(", foreignColumn='").append(foreignColumn).append('\'');
     sb.append(", lazy=").append(lazy);
+    sb.append(", batch=").append(batch);
     sb.append('}');
     return sb.toString();
   }
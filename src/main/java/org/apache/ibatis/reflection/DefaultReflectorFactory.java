@@ -39,10 +39,22 @@ public class DefaultReflectorFactory implements ReflectorFactory {
   public Reflector findForClass(Class<?> type) {
     if (classCacheEnabled) {
       // synchronized (type) removed see issue #461
-      return reflectorMap.computeIfAbsent(type, Reflector::new);
+      return reflectorMap.computeIfAbsent(type, this::newReflector);
     } else {
-      return new Reflector(type);
+      return newReflector(type);
     }
   }
 
+  /**
+   * Creates the reflector of a class that is not cached yet.
+   *
+   * @param type
+   *          the class
+   * @return the reflector
+   * @since 3.5.6
+   */
+  protected Reflector newReflector(Class<?> type) {
+    return new Reflector(type);
+  }
+
 }
@@ -0,0 +1,114 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.apache.ibatis.reflection.invoker.GetFieldInvoker;
+import org.apache.ibatis.reflection.invoker.LambdaMethodInvoker;
+import org.apache.ibatis.reflection.invoker.MethodHandleGetFieldInvoker;
+import org.apache.ibatis.reflection.invoker.MethodHandleMethodInvoker;
+import org.apache.ibatis.reflection.invoker.MethodHandleSetFieldInvoker;
+import org.apache.ibatis.reflection.invoker.MethodInvoker;
+import org.apache.ibatis.reflection.invoker.SetFieldInvoker;
+
+/**
+ * A {@link ReflectorFactory} whose reflectors access properties without core reflection.
+ * <p>
+ * Public getters and setters of public classes are called through lambdas generated by the
+ * {@link java.lang.invoke.LambdaMetafactory}, the other instance methods and fields through
+ * {@link java.lang.invoke.MethodHandle}s. When neither can be bound (e.g. the member cannot be made accessible or is
+ * static), the reflective invoker of {@link Reflector} is used.
+ * <p>
+ * It can be enabled with {@code <reflectorFactory type="org.apache.ibatis.reflection.MethodHandleReflectorFactory"/>}.
+ *
+ * @since 3.5.6
+ */
+public class MethodHandleReflectorFactory extends DefaultReflectorFactory {
+
+  @Override
+  protected Reflector newReflector(Class<?> type) {
+    return new MethodHandleReflector(type);
+  }
+
+  static class MethodHandleReflector extends Reflector {
+
+    MethodHandleReflector(Class<?> clazz) {
+      super(clazz);
+    }
+
+    @Override
+    protected MethodInvoker newMethodInvoker(Method method) {
+      if (!Modifier.isStatic(method.getModifiers())) {
+        try {
+          if (LambdaMethodInvoker.canBind(method)) {
+            return new LambdaMethodInvoker(method);
+          }
+          if (makeAccessible(method)) {
+            return new MethodHandleMethodInvoker(method);
+          }
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+          // Fall back to reflection
+        }
+      }
+      return super.newMethodInvoker(method);
+    }
+
+    @Override
+    protected GetFieldInvoker newGetFieldInvoker(Field field) {
+      if (!Modifier.isStatic(field.getModifiers())) {
+        try {
+          if (makeAccessible(field)) {
+            return new MethodHandleGetFieldInvoker(field);
+          }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+          // Fall back to reflection
+        }
+      }
+      return super.newGetFieldInvoker(field);
+    }
+
+    @Override
+    protected SetFieldInvoker newSetFieldInvoker(Field field) {
+      if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+        try {
+          if (makeAccessible(field)) {
+            return new MethodHandleSetFieldInvoker(field);
+          }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+          // Fall back to reflection
+        }
+      }
+      return super.newSetFieldInvoker(field);
+    }
+
+    private static <T extends AccessibleObject & Member> boolean makeAccessible(T member) {
+      if (Modifier.isPublic(member.getModifiers()) && Modifier.isPublic(member.getDeclaringClass().getModifiers())) {
+        return true;
+      }
+      if (!canControlMemberAccessible()) {
+        return false;
+      }
+      member.setAccessible(true);
+      return true;
+    }
+  }
+
+}
@@ -0,0 +1,280 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
+
+/**
+ * A property expression (e.g. {@code order.items[0].name}) parsed once, that reads and writes the property like
+ * {@link MetaObject#getValue(String)} and {@link MetaObject#setValue(String, Object)} do.
+ * <p>
+ * Each step of the path remembers the invokers it resolved for the last class it was applied to, so that accessing
+ * the property of objects of the same classes does not tokenize the expression, create {@link MetaObject}s or look
+ * up reflectors again. Objects that {@link MetaObject} would not handle as a bean or a map (i.e. collections and
+ * objects with a custom {@link ObjectWrapper}), as well as null intermediate values on writes, are delegated to
+ * {@link MetaObject}.
+ *
+ * @since 3.5.6
+ */
+public class PropertyPath {
+
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
+  private final String expression;
+  private final Step[] steps;
+  private final ObjectFactory objectFactory;
+  private final ObjectWrapperFactory objectWrapperFactory;
+  private final ReflectorFactory reflectorFactory;
+
+  public PropertyPath(String expression, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory,
+      ReflectorFactory reflectorFactory) {
+    this.expression = expression;
+    this.objectFactory = objectFactory;
+    this.objectWrapperFactory = objectWrapperFactory;
+    this.reflectorFactory = reflectorFactory;
+    List<Step> list = new ArrayList<>();
+    String remaining = expression;
+    while (remaining != null) {
+      PropertyTokenizer prop = new PropertyTokenizer(remaining);
+      list.add(new Step(prop, remaining));
+      remaining = prop.getChildren();
+    }
+    this.steps = list.toArray(new Step[0]);
+  }
+
+  public String getExpression() {
+    return expression;
+  }
+
+  /**
+   * Reads the property.
+   *
+   * @param object
+   *          the root object
+   * @return the value, or {@code null} if an intermediate value is null
+   */
+  public Object getValue(Object object) {
+    Object current = object;
+    for (int i = 0; i < steps.length; i++) {
+      Step step = steps[i];
+      if (i > 0 && current == null) {
+        return null;
+      }
+      if (!isBeanOrMap(current)) {
+        return metaObjectFor(current).getValue(step.expression);
+      }
+      current = step.get(current);
+    }
+    return current;
+  }
+
+  /**
+   * Writes the property. Null intermediate values are instantiated like {@link MetaObject#setValue(String, Object)}
+   * does, unless the value is null.
+   *
+   * @param object
+   *          the root object
+   * @param value
+   *          the value
+   */
+  public void setValue(Object object, Object value) {
+    Object current = object;
+    int last = steps.length - 1;
+    for (int i = 0; i < last; i++) {
+      Step step = steps[i];
+      Object next = isBeanOrMap(current) ? step.get(current) : null;
+      if (next == null) {
+        metaObjectFor(current).setValue(step.expression, value);
+        return;
+      }
+      current = next;
+    }
+    if (isBeanOrMap(current)) {
+      steps[last].set(current, value);
+    } else {
+      metaObjectFor(current).setValue(steps[last].expression, value);
+    }
+  }
+
+  private boolean isBeanOrMap(Object object) {
+    return object != null && !(object instanceof ObjectWrapper) && !(object instanceof Collection)
+        && !objectWrapperFactory.hasWrapperFor(object);
+  }
+
+  private MetaObject metaObjectFor(Object object) {
+    return MetaObject.forObject(object, objectFactory, objectWrapperFactory, reflectorFactory);
+  }
+
+  private final class Step {
+
+    // the expression from this step to the end of the path
+    private final String expression;
+    private final String name;
+    private final String index;
+    // null if the index is not a number
+    private final Integer position;
+    private Accessor getter;
+    private Accessor setter;
+
+    Step(PropertyTokenizer prop, String expression) {
+      this.expression = expression;
+      this.name = prop.getName();
+      this.index = prop.getIndex();
+      this.position = parsePosition(index);
+    }
+
+    Object get(Object object) {
+      if (index == null) {
+        return getProperty(object);
+      }
+      Object collection = name.isEmpty() ? object : getProperty(object);
+      if (collection instanceof Map) {
+        return ((Map<?, ?>) collection).get(index);
+      }
+      int i = position();
+      if (collection instanceof List) {
+        return ((List<?>) collection).get(i);
+      } else if (collection instanceof Object[]) {
+        return ((Object[]) collection)[i];
+      } else if (collection != null && collection.getClass().isArray()) {
+        return Array.get(collection, i);
+      }
+      throw notACollection(collection);
+    }
+
+    @SuppressWarnings("unchecked")
+    void set(Object object, Object value) {
+      if (index == null) {
+        setProperty(object, value);
+        return;
+      }
+      Object collection = name.isEmpty() ? object : getProperty(object);
+      if (collection instanceof Map) {
+        ((Map<String, Object>) collection).put(index, value);
+        return;
+      }
+      int i = position();
+      if (collection instanceof List) {
+        ((List<Object>) collection).set(i, value);
+      } else if (collection instanceof Object[]) {
+        ((Object[]) collection)[i] = value;
+      } else if (collection != null && collection.getClass().isArray()) {
+        Array.set(collection, i, value);
+      } else {
+        throw notACollection(collection);
+      }
+    }
+
+    private Object getProperty(Object object) {
+      if (object instanceof Map) {
+        return ((Map<?, ?>) object).get(name);
+      }
+      try {
+        Invoker method = getInvoker(object.getClass());
+        try {
+          return method.invoke(object, NO_ARGUMENTS);
+        } catch (Throwable t) {
+          throw ExceptionUtil.unwrapThrowable(t);
+        }
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new ReflectionException("Could not get property '" + name + "' from " + object.getClass() + ".  Cause: " + t.toString(), t);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setProperty(Object object, Object value) {
+      if (object instanceof Map) {
+        ((Map<String, Object>) object).put(name, value);
+        return;
+      }
+      try {
+        Invoker method = setInvoker(object.getClass());
+        Object[] params = { value };
+        try {
+          method.invoke(object, params);
+        } catch (Throwable t) {
+          throw ExceptionUtil.unwrapThrowable(t);
+        }
+      } catch (Throwable t) {
+        throw new ReflectionException("Could not set property '" + name + "' of '" + object.getClass() + "' with value '" + value + "' Cause: " + t.toString(), t);
+      }
+    }
+
+    private Invoker getInvoker(Class<?> type) {
+      Accessor accessor = getter;
+      if (accessor == null || accessor.type != type) {
+        accessor = new Accessor(type, reflectorFactory.findForClass(type).getGetInvoker(name));
+        getter = accessor;
+      }
+      return accessor.invoker;
+    }
+
+    private Invoker setInvoker(Class<?> type) {
+      Accessor accessor = setter;
+      if (accessor == null || accessor.type != type) {
+        accessor = new Accessor(type, reflectorFactory.findForClass(type).getSetInvoker(name));
+        setter = accessor;
+      }
+      return accessor.invoker;
+    }
+
+    private int position() {
+      // same exception as MetaObject for an index that is not a number
+      return position != null ? position : Integer.parseInt(index);
+    }
+
+    private ReflectionException notACollection(Object collection) {
+      return new ReflectionException("The '" + name + "' property of " + collection + " is not a List or Array.");
+    }
+  }
+
+  private static Integer parsePosition(String index) {
+    if (index == null) {
+      return null;
+    }
+    try {
+      return Integer.valueOf(index);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * An invoker resolved for a class. It is immutable so that it can be shared between threads without locking.
+   */
+  private static final class Accessor {
+    private final Class<?> type;
+    private final Invoker invoker;
+
+    Accessor(Class<?> type, Invoker invoker) {
+      this.type = type;
+      this.invoker = invoker;
+    }
+  }
+
+}
@@ -127,7 +127,7 @@ public class Reflector {
         ? new AmbiguousMethodInvoker(method, MessageFormat.format(
             "Illegal overloaded getter method with ambiguous type for property ''{0}'' in class ''{1}''. This breaks the JavaBeans specification and can cause unpredictable results.",
             name, method.getDeclaringClass().getName()))
-        : new MethodInvoker(method);
+        : newMethodInvoker(method);
     getMethods.put(name, invoker);
     Type returnType = TypeParameterResolver.resolveReturnType(method, type);
     getTypes.put(name, typeToClass(returnType));
@@ -195,7 +195,7 @@ public class Reflector {
   }
 
   private void addSetMethod(String name, Method method) {
-    MethodInvoker invoker = new MethodInvoker(method);
+    MethodInvoker invoker = newMethodInvoker(method);
     setMethods.put(name, invoker);
     Type[] paramTypes = TypeParameterResolver.resolveParamTypes(method, type);
     setTypes.put(name, typeToClass(paramTypes[0]));
@@ -245,7 +245,7 @@ public class Reflector {
 
   private void addSetField(Field field) {
     if (isValidPropertyName(field.getName())) {
-      setMethods.put(field.getName(), new SetFieldInvoker(field));
+      setMethods.put(field.getName(), newSetFieldInvoker(field));
       Type fieldType = TypeParameterResolver.resolveFieldType(field, type);
       setTypes.put(field.getName(), typeToClass(fieldType));
     }
@@ -253,12 +253,49 @@ public class Reflector {
 
   private void addGetField(Field field) {
     if (isValidPropertyName(field.getName())) {
-      getMethods.put(field.getName(), new GetFieldInvoker(field));
+      getMethods.put(field.getName(), newGetFieldInvoker(field));
       Type fieldType = TypeParameterResolver.resolveFieldType(field, type);
       getTypes.put(field.getName(), typeToClass(fieldType));
     }
   }
 
+  /**
+   * Creates the invoker of a getter or setter method. Subclasses may return a faster implementation, it is called
+   * while this reflector is being constructed.
+   *
+   * @param method
+   *          the getter or setter
+   * @return the invoker
+   * @since 3.5.6
+   */
+  protected MethodInvoker newMethodInvoker(Method method) {
+    return new MethodInvoker(method);
+  }
+
+  /**
+   * Creates the invoker that reads a field without getter. It is called while this reflector is being constructed.
+   *
+   * @param field
+   *          the field
+   * @return the invoker
+   * @since 3.5.6
+   */
+  protected GetFieldInvoker newGetFieldInvoker(Field field) {
+    return new GetFieldInvoker(field);
+  }
+
+  /**
+   * Creates the invoker that writes a field without setter. It is called while this reflector is being constructed.
+   *
+   * @param field
+   *          the field
+   * @return the invoker
+   * @since 3.5.6
+   */
+  protected SetFieldInvoker newSetFieldInvoker(Field field) {
+    return new SetFieldInvoker(field);
+  }
+
   private boolean isValidPropertyName(String name) {
     return !(name.startsWith("$") || "serialVersionUID".equals(name) || "class".equals(name));
   }
@@ -0,0 +1,224 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.factory;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+
+/**
+ * An {@link ObjectFactory} that resolves the constructor of each type and argument types once.
+ * <p>
+ * Constructors are called through {@link MethodHandle}s cached per type and constructor argument types, instead of
+ * being looked up with {@link Class#getDeclaredConstructor(Class...)} on every call. The collections created for
+ * {@code List}, {@code Collection}, {@code Iterable}, {@code Map} and {@code Set} are instantiated directly, with the
+ * initial capacity set by the {@code collectionInitialCapacity} property (the JDK default if it is not set). Types
+ * whose constructor cannot be bound are created by {@link DefaultObjectFactory}.
+ * <p>
+ * It can be enabled with {@code <objectFactory type="org.apache.ibatis.reflection.factory.CachingObjectFactory"/>}.
+ *
+ * @since 3.5.6
+ */
+public class CachingObjectFactory extends DefaultObjectFactory {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final MethodType NO_ARG_TYPE = MethodType.methodType(Object.class);
+  private static final MethodType ARGS_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+  private int collectionInitialCapacity;
+  private transient ConcurrentMap<Class<?>, Instantiator> defaultInstantiators = new ConcurrentHashMap<>();
+  private transient ConcurrentMap<ConstructorKey, Instantiator> instantiators = new ConcurrentHashMap<>();
+  // the constructor last used for each type, found without hashing the argument types
+  private transient ConcurrentMap<Class<?>, ConstructorKey> lastConstructors = new ConcurrentHashMap<>();
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    defaultInstantiators = new ConcurrentHashMap<>();
+    instantiators = new ConcurrentHashMap<>();
+    lastConstructors = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public void setProperties(Properties properties) {
+    String capacity = properties.getProperty("collectionInitialCapacity");
+    if (capacity != null) {
+      setCollectionInitialCapacity(Integer.parseInt(capacity));
+    }
+  }
+
+  public int getCollectionInitialCapacity() {
+    return collectionInitialCapacity;
+  }
+
+  /**
+   * Sets the initial capacity of the collections created for the {@code List}, {@code Collection}, {@code Iterable},
+   * {@code Map} and {@code Set} types. 0 uses the default capacity of the JDK.
+   *
+   * @param collectionInitialCapacity
+   *          the initial capacity
+   */
+  public void setCollectionInitialCapacity(int collectionInitialCapacity) {
+    if (collectionInitialCapacity < 0) {
+      throw new IllegalArgumentException("collectionInitialCapacity must not be negative: " + collectionInitialCapacity);
+    }
+    this.collectionInitialCapacity = collectionInitialCapacity;
+    defaultInstantiators.clear();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> T create(Class<T> type) {
+    Instantiator instantiator = defaultInstantiators.get(type);
+    if (instantiator == null) {
+      instantiator = defaultInstantiators.computeIfAbsent(type, this::newDefaultInstantiator);
+    }
+    return (T) instantiator.newInstance(type, null, null);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> T create(Class<T> type, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+    if (constructorArgTypes == null || constructorArgs == null) {
+      return create(type);
+    }
+    ConstructorKey key = lastConstructors.get(type);
+    if (key == null || !key.argTypes.equals(constructorArgTypes)) {
+      key = findConstructor(type, constructorArgTypes);
+      lastConstructors.put(type, key);
+    }
+    return (T) key.instantiator.newInstance(type, constructorArgTypes, constructorArgs);
+  }
+
+  private ConstructorKey findConstructor(Class<?> type, List<Class<?>> constructorArgTypes) {
+    // the key outlives the call, so it must not share the list of the caller
+    List<Class<?>> argTypes = new ArrayList<>(constructorArgTypes);
+    ConstructorKey key = new ConstructorKey(type, argTypes);
+    key.instantiator = instantiators.computeIfAbsent(key, k -> newInstantiator(resolveInterface(type), argTypes));
+    return key;
+  }
+
+  private Instantiator newDefaultInstantiator(Class<?> type) {
+    Class<?> classToCreate = resolveInterface(type);
+    int capacity = collectionInitialCapacity;
+    if (classToCreate == ArrayList.class) {
+      return capacity > 0 ? (t, a, v) -> new ArrayList<>(capacity) : (t, a, v) -> new ArrayList<>();
+    } else if (classToCreate == HashMap.class) {
+      return capacity > 0 ? (t, a, v) -> new HashMap<>(capacity) : (t, a, v) -> new HashMap<>();
+    } else if (classToCreate == HashSet.class) {
+      return capacity > 0 ? (t, a, v) -> new HashSet<>(capacity) : (t, a, v) -> new HashSet<>();
+    }
+    return newInstantiator(classToCreate, Collections.emptyList());
+  }
+
+  private Instantiator newInstantiator(Class<?> classToCreate, List<Class<?>> constructorArgTypes) {
+    try {
+      Constructor<?> constructor = classToCreate.getDeclaredConstructor(constructorArgTypes.toArray(new Class<?>[0]));
+      if ((!Modifier.isPublic(constructor.getModifiers()) || !Modifier.isPublic(classToCreate.getModifiers()))
+          && Reflector.canControlMemberAccessible()) {
+        constructor.setAccessible(true);
+      }
+      MethodHandle handle = MethodHandles.lookup().unreflectConstructor(constructor);
+      if (constructorArgTypes.isEmpty()) {
+        MethodHandle noArgHandle = handle.asType(NO_ARG_TYPE);
+        return (type, argTypes, args) -> {
+          try {
+            return (Object) noArgHandle.invokeExact();
+          } catch (Throwable t) {
+            throw instantiationException(type, argTypes, args, new InvocationTargetException(t));
+          }
+        };
+      }
+      MethodHandle argsHandle = handle.asSpreader(Object[].class, constructorArgTypes.size()).asType(ARGS_TYPE);
+      return (type, argTypes, args) -> {
+        try {
+          return (Object) argsHandle.invokeExact(args.toArray());
+        } catch (Throwable t) {
+          throw instantiationException(type, argTypes, args, new InvocationTargetException(t));
+        }
+      };
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // Missing or inaccessible constructor: let the default factory report it the usual way
+      return (type, argTypes, args) -> super.create(type, argTypes, args);
+    }
+  }
+
+  private ReflectionException instantiationException(Class<?> type, List<Class<?>> constructorArgTypes,
+      List<Object> constructorArgs, Exception e) {
+    String argTypes = Optional.ofNullable(constructorArgTypes).orElseGet(Collections::emptyList)
+        .stream().map(Class::getSimpleName).collect(Collectors.joining(","));
+    String argValues = Optional.ofNullable(constructorArgs).orElseGet(Collections::emptyList)
+        .stream().map(String::valueOf).collect(Collectors.joining(","));
+    return new ReflectionException("Error instantiating " + resolveInterface(type) + " with invalid types (" + argTypes
+        + ") or values (" + argValues + "). Cause: " + e, e);
+  }
+
+  @FunctionalInterface
+  private interface Instantiator {
+    Object newInstance(Class<?> type, List<Class<?>> constructorArgTypes, List<Object> constructorArgs);
+  }
+
+  private static final class ConstructorKey {
+
+    private final Class<?> type;
+    private final List<Class<?>> argTypes;
+    private final int hashCode;
+    // set before the key is published through lastConstructors, not part of its identity
+    private Instantiator instantiator;
+
+    ConstructorKey(Class<?> type, List<Class<?>> argTypes) {
+      this.type = type;
+      this.argTypes = argTypes;
+      this.hashCode = 31 * type.hashCode() + argTypes.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ConstructorKey)) {
+        return false;
+      }
+      ConstructorKey other = (ConstructorKey) o;
+      return type == other.type && argTypes.equals(other.argTypes);
+    }
+  }
+
+}
@@ -0,0 +1,71 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * A {@link MethodInvoker} that calls the getter or setter through a {@link MethodHandle} instead of
+ * {@link Method#invoke(Object, Object...)}.
+ *
+ * @since 3.5.6
+ */
+public class MethodHandleMethodInvoker extends MethodInvoker {
+
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+  private final MethodHandle getter;
+  private final MethodHandle setter;
+
+  /**
+   * Creates the invoker of an instance method that is accessible to this class, either because it is public or because
+   * it has been made accessible.
+   *
+   * @param method
+   *          the getter or setter
+   * @throws IllegalAccessException
+   *           if the method is not accessible
+   */
+  public MethodHandleMethodInvoker(Method method) throws IllegalAccessException {
+    super(method);
+    MethodHandle handle = MethodHandles.lookup().unreflect(method);
+    if (method.getParameterTypes().length == 1) {
+      this.getter = null;
+      this.setter = handle.asType(SETTER_TYPE);
+    } else {
+      this.getter = handle.asType(GETTER_TYPE);
+      this.setter = null;
+    }
+  }
+
+  @Override
+  public Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+    try {
+      if (setter == null) {
+        return (Object) getter.invokeExact(target);
+      }
+      setter.invokeExact(target, args[0]);
+      return null;
+    } catch (Throwable t) {
+      throw new InvocationTargetException(t);
+    }
+  }
+}
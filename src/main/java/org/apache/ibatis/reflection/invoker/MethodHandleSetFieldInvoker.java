@@ -0,0 +1,60 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+import org.apache.ibatis.reflection.ReflectionException;
+
+/**
+ * A {@link SetFieldInvoker} that writes the field through a {@link MethodHandle}.
+ *
+ * @since 3.5.6
+ */
+public class MethodHandleSetFieldInvoker extends SetFieldInvoker {
+
+  private final MethodHandle setter;
+
+  /**
+   * Creates the invoker of a non final instance field that is accessible to this class, either because it is public or
+   * because it has been made accessible.
+   *
+   * @param field
+   *          the field
+   * @throws IllegalAccessException
+   *           if the field is not accessible or is final
+   */
+  public MethodHandleSetFieldInvoker(Field field) throws IllegalAccessException {
+    super(field);
+    this.setter = MethodHandles.lookup().unreflectSetter(field)
+        .asType(MethodType.methodType(void.class, Object.class, Object.class));
+  }
+
+  @Override
+  public Object invoke(Object target, Object[] args) throws IllegalAccessException {
+    try {
+      setter.invokeExact(target, args[0]);
+      return null;
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new ReflectionException(t);
+    }
+  }
+}
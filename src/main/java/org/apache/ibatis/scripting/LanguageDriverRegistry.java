@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2020 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -15,15 +15,15 @@
  */
 package org.apache.ibatis.scripting;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Frank D. Martinez [mnesarco]
  */
 public class LanguageDriverRegistry {
 
-  private final Map<Class<? extends LanguageDriver>, LanguageDriver> LANGUAGE_DRIVER_MAP = new HashMap<>();
+  private final Map<Class<? extends LanguageDriver>, LanguageDriver> LANGUAGE_DRIVER_MAP = new ConcurrentHashMap<>();
 
   private Class<? extends LanguageDriver> defaultDriverClass;
 
@@ -44,10 +44,7 @@ public class LanguageDriverRegistry {
     if (instance == null) {
       throw new IllegalArgumentException("null is not a valid Language Driver");
     }
-    Class<? extends LanguageDriver> cls = instance.getClass();
-    if (!LANGUAGE_DRIVER_MAP.containsKey(cls)) {
-      LANGUAGE_DRIVER_MAP.put(cls, instance);
-    }
+    LANGUAGE_DRIVER_MAP.putIfAbsent(instance.getClass(), instance);
   }
 
   public LanguageDriver getDriver(Class<? extends LanguageDriver> cls) {
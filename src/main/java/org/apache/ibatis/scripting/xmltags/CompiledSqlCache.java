@@ -0,0 +1,251 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * A bounded cache of the {@link SqlSource}s that {@link SqlSourceBuilder} produces for the SQL rendered by a
+ * {@link DynamicSqlSource}. When it is full, the least recently used entry is evicted.
+ * <p>
+ * The rendered SQL text identifies the branches taken through the {@link SqlNode} tree, so entries are keyed by the
+ * text and the parameter type. The parameter mappings of properties resolved from the additional bindings (e.g.
+ * {@code <foreach>} items or {@code <bind>} variables) depend on the runtime type of the bound values, so an entry is
+ * only reused when the classes of those values still match. The parameter mappings of a cached entry are shared by
+ * all the {@link BoundSql}s created from it, and cannot be modified.
+ *
+ * @since 3.5.6
+ */
+public class CompiledSqlCache {
+
+  private final int maxSize;
+  private final Map<Key, CompiledSql> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public CompiledSqlCache(int maxSize) {
+    this.maxSize = maxSize;
+    this.entries = new LinkedHashMap<Key, CompiledSql>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, CompiledSql> eldest) {
+        return size() > CompiledSqlCache.this.maxSize;
+      }
+    };
+  }
+
+  SqlSource get(String sql, Class<?> parameterType, Map<String, Object> bindings) {
+    CompiledSql entry;
+    synchronized (entries) {
+      entry = entries.get(new Key(sql, parameterType));
+    }
+    if (entry != null && entry.matches(bindings)) {
+      hits.increment();
+      return entry.sqlSource;
+    }
+    misses.increment();
+    return null;
+  }
+
+  /**
+   * Caches the SQL parsed from the rendered SQL.
+   *
+   * @return the cached source, whose parameter mappings cannot be modified, or {@code null} if the types of the
+   *         parameter mappings cannot be validated without parsing the SQL again
+   */
+  SqlSource put(Configuration configuration, String sql, Class<?> parameterType, Map<String, Object> bindings,
+      BoundSql parsed) {
+    List<ParameterMapping> parameterMappings = Collections.unmodifiableList(parsed.getParameterMappings());
+    CompiledSql entry = CompiledSql.create(new StaticSqlSource(configuration, parsed.getSql(), parameterMappings),
+        parameterMappings, bindings);
+    if (entry == null) {
+      return null;
+    }
+    synchronized (entries) {
+      entries.put(new Key(sql, parameterType), entry);
+    }
+    return entry.sqlSource;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public int getSize() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  private static final class Key {
+
+    private final String sql;
+    private final Class<?> parameterType;
+    private final int hashCode;
+
+    Key(String sql, Class<?> parameterType) {
+      this.sql = sql;
+      this.parameterType = parameterType;
+      this.hashCode = 31 * sql.hashCode() + parameterType.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return parameterType == other.parameterType && sql.equals(other.sql);
+    }
+  }
+
+  /**
+   * The parsed SQL, with the classes of the values that the property path of each parameter mapping goes through in
+   * the bindings. The type of a mapping resolved from the bindings by {@code MetaObject} only depends on them: each
+   * nested {@link Map} is read by key, and the last property of a path may be read from a bean, whose getter type
+   * depends on its class.
+   */
+  private static final class CompiledSql {
+
+    // recorded for a key that is bound to null
+    private static final Class<?> NULL_VALUE = Void.class;
+    private static final Class<?>[] UNRESOLVABLE = new Class<?>[0];
+
+    private final SqlSource sqlSource;
+    private final String[][] paths;
+    // the classes along each path, null for a missing key, after which the path is not read further
+    private final Class<?>[][] valueTypes;
+
+    private CompiledSql(SqlSource sqlSource, String[][] paths, Class<?>[][] valueTypes) {
+      this.sqlSource = sqlSource;
+      this.paths = paths;
+      this.valueTypes = valueTypes;
+    }
+
+    static CompiledSql create(SqlSource sqlSource, List<ParameterMapping> parameterMappings, Map<String, Object> bindings) {
+      String[][] paths = new String[parameterMappings.size()][];
+      Class<?>[][] valueTypes = new Class<?>[paths.length][];
+      for (int i = 0; i < paths.length; i++) {
+        String property = parameterMappings.get(i).getProperty();
+        if (property == null) {
+          continue;
+        }
+        paths[i] = property.split("\\.");
+        valueTypes[i] = resolveValueTypes(bindings, paths[i]);
+        if (valueTypes[i] == UNRESOLVABLE) {
+          return null;
+        }
+      }
+      return new CompiledSql(sqlSource, paths, valueTypes);
+    }
+
+    private static Class<?>[] resolveValueTypes(Map<String, Object> bindings, String[] path) {
+      Class<?>[] types = new Class<?>[path.length];
+      Object value = bindings;
+      for (int i = 0; i < path.length; i++) {
+        Map<?, ?> map = (Map<?, ?>) value;
+        if (!containsKey(map, path[i])) {
+          return Arrays.copyOf(types, i + 1);
+        }
+        if (path[i].indexOf('[') >= 0) {
+          // an indexed value is read from a collection
+          return UNRESOLVABLE;
+        }
+        value = map.get(path[i]);
+        types[i] = value == null ? NULL_VALUE : value.getClass();
+        int remaining = path.length - i - 1;
+        if (value == null || remaining == 0 || !(value instanceof Map) && remaining == 1) {
+          return Arrays.copyOf(types, i + 1);
+        }
+        if (!(value instanceof Map)) {
+          // a nested property of a bean is resolved from the runtime values of its properties
+          return UNRESOLVABLE;
+        }
+      }
+      return types;
+    }
+
+    boolean matches(Map<String, Object> bindings) {
+      for (int i = 0; i < paths.length; i++) {
+        if (paths[i] != null && !matches(bindings, paths[i], valueTypes[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static boolean matches(Map<String, Object> bindings, String[] path, Class<?>[] types) {
+      Object value = bindings;
+      for (int i = 0; i < types.length; i++) {
+        Map<?, ?> map = (Map<?, ?>) value;
+        if (types[i] == null) {
+          return !containsKey(map, path[i]);
+        }
+        // the recorded classes of all but the last value are maps
+        value = map.get(path[i]);
+        if (types[i] != (value == null ? NULL_VALUE : value.getClass())) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static boolean containsKey(Map<?, ?> map, String property) {
+      if (map.containsKey(property)) {
+        return true;
+      }
+      // MetaObject looks up an indexed property of a map by its name alone when it is the last one of the path
+      int index = property.indexOf('[');
+      return index >= 0 && map.containsKey(property.substring(0, index));
+    }
+  }
+
+}
@@ -27,22 +27,50 @@ public class DynamicSqlSource implements SqlSource {
 
   private final Configuration configuration;
   private final SqlNode rootSqlNode;
+  private final CompiledSqlCache compiledSqlCache;
 
   public DynamicSqlSource(Configuration configuration, SqlNode rootSqlNode) {
     this.configuration = configuration;
     this.rootSqlNode = rootSqlNode;
+    int cacheSize = configuration.getDynamicSqlCacheSize();
+    this.compiledSqlCache = cacheSize > 0 ? new CompiledSqlCache(cacheSize) : null;
   }
 
   @Override
   public BoundSql getBoundSql(Object parameterObject) {
     DynamicContext context = new DynamicContext(configuration, parameterObject);
     rootSqlNode.apply(context);
-    SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
+    String sql = context.getSql();
     Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
-    SqlSource sqlSource = sqlSourceParser.parse(context.getSql(), parameterType, context.getBindings());
-    BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+    SqlSource sqlSource = compiledSqlCache == null ? null
+        : compiledSqlCache.get(sql, parameterType, context.getBindings());
+    BoundSql boundSql;
+    if (sqlSource != null) {
+      boundSql = sqlSource.getBoundSql(parameterObject);
+    } else {
+      SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
+      sqlSource = sqlSourceParser.parse(sql, parameterType, context.getBindings());
+      boundSql = sqlSource.getBoundSql(parameterObject);
+      SqlSource cachedSqlSource = compiledSqlCache == null ? null
+          : compiledSqlCache.put(configuration, sql, parameterType, context.getBindings(), boundSql);
+      if (cachedSqlSource != null) {
+        // the parameter mappings of a cached source are shared, so they are not handed out modifiable
+        boundSql = cachedSqlSource.getBoundSql(parameterObject);
+      }
+    }
     context.getBindings().forEach(boundSql::setAdditionalParameter);
     return boundSql;
   }
 
+  /**
+   * Gets the cache of parsed SQL, or {@code null} when it is disabled.
+   *
+   * @return the compiled SQL cache
+   * @since 3.5.6
+   * @see Configuration#getDynamicSqlCacheSize()
+   */
+  public CompiledSqlCache getCompiledSqlCache() {
+    return compiledSqlCache;
+  }
+
 }
@@ -25,6 +25,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -34,24 +38,34 @@ import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.builder.annotation.MethodResolver;
 import org.apache.ibatis.builder.xml.XMLStatementBuilder;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheWeightBudget;
 import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
+import org.apache.ibatis.datasource.pooled.ConcurrentPooledDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
 import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.CachingExecutor;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.GroupedBatchExecutor;
+import org.apache.ibatis.executor.MultiRowInsertExecutor;
 import org.apache.ibatis.executor.ReuseExecutor;
 import org.apache.ibatis.executor.SimpleExecutor;
+import org.apache.ibatis.executor.StatementCacheStatistics;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.resultset.CompiledRowMapper;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
@@ -78,6 +92,7 @@ import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.plugin.InterceptorChain;
 import org.apache.ibatis.reflection.DefaultReflectorFactory;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.PropertyPath;
 import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
@@ -140,6 +155,36 @@ public class Configuration {
   // 从SQL中删除多余的空白字符。这也会影响SQL中的文字字符串
   protected boolean shrinkWhitespacesInSql;
 
+  // 每个动态SQL语句缓存的已解析SQL的最大数量, 0表示不缓存(每次执行都重新解析#{}占位符)
+  protected int dynamicSqlCacheSize;
+
+  // 为简单结果映射(无嵌套、无鉴别器、无构造器映射)生成按列下标读取并直接调用setter的行映射器, 默认关闭
+  protected boolean compiledRowMappingEnabled;
+
+  // 所有按权重淘汰(WEIGHTED)的二级缓存共享的字节预算, 最大值为0表示不限制
+  protected final CacheWeightBudget cacheWeightBudget = new CacheWeightBudget();
+
+  // fetchType="batch"(或"lazyBatch")的嵌套查询每次执行时最多传入的不同参数(外键)个数
+  protected int batchFetchSize = 100;
+
+  // MULTI_ROW_INSERT执行器合并成一条多行INSERT语句的最大行数
+  protected int multiRowInsertSize = 100;
+
+  // GROUPED_BATCH执行器同时保持打开的语句数上限, 以及自动执行批处理前最多积压的行数和参数字节数(0表示不限制)
+  protected int batchMaxStatements = 32;
+  protected int batchFlushRows = 1000;
+  protected long batchFlushBytes;
+
+  // ReuseExecutor每个会话最多缓存的语句数, 超出时关闭最久未使用的语句, 0表示不限制
+  protected int reuseStatementCacheSize;
+  protected final StatementCacheStatistics reuseStatementCacheStatistics = new StatementCacheStatistics();
+
+  // 启动时在ForkJoinPool中并行构建<mappers>中的各个Mapper, 再按声明顺序合并到配置中, 默认关闭
+  protected boolean parallelMapperParsing;
+
+  // 执行返回CompletableFuture的Mapper方法的线程池, 未设置时在支持虚拟线程的JDK上使用虚拟线程
+  protected volatile java.util.concurrent.Executor asyncExecutor;
+
   // 指定MyBatis将添加到记录器名称的前缀字符串
   protected String logPrefix;
 
@@ -216,6 +261,9 @@ public class Configuration {
   protected final Map<String, ResultMap> resultMaps = new StrictMap<>("Result Maps collection");
   protected final Map<String, ParameterMap> parameterMaps = new StrictMap<>("Parameter Maps collection");
   protected final Map<String, KeyGenerator> keyGenerators = new StrictMap<>("Key Generators collection");
+  protected final Map<String, CompiledRowMapper> compiledRowMappers = new ConcurrentHashMap<>();
+  // 解析过的属性路径, 按表达式缓存
+  protected final Map<String, PropertyPath> propertyPaths = new ConcurrentHashMap<>();
 
   protected final Set<String> loadedResources = new HashSet<>();
   protected final Map<String, XNode> sqlFragments = new StrictMap<>("XML fragments parsed from previous mappers");
@@ -232,6 +280,10 @@ public class Configuration {
    */
   protected final Map<String, String> cacheRefMap = new HashMap<>();
 
+  // 并行构建Mapper时, 当前线程的改动记录在它的暂存区中; stagedBuilds为0时不必查询ThreadLocal
+  final ThreadLocal<ConfigurationStage> currentStage = new ThreadLocal<>();
+  final AtomicInteger stagedBuilds = new AtomicInteger();
+
   public Configuration(Environment environment) {
     this();
     this.environment = environment;
@@ -243,13 +295,18 @@ public class Configuration {
 
     typeAliasRegistry.registerAlias("JNDI", JndiDataSourceFactory.class);
     typeAliasRegistry.registerAlias("POOLED", PooledDataSourceFactory.class);
+    typeAliasRegistry.registerAlias("CONCURRENT_POOLED", ConcurrentPooledDataSourceFactory.class);
     typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
 
     typeAliasRegistry.registerAlias("PERPETUAL", PerpetualCache.class);
+    typeAliasRegistry.registerAlias("CONCURRENT_PERPETUAL", ConcurrentPerpetualCache.class);
+    typeAliasRegistry.registerAlias("OFF_HEAP", OffHeapCache.class);
     typeAliasRegistry.registerAlias("FIFO", FifoCache.class);
     typeAliasRegistry.registerAlias("LRU", LruCache.class);
     typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
     typeAliasRegistry.registerAlias("WEAK", WeakCache.class);
+    typeAliasRegistry.registerAlias("TINYLFU", TinyLfuCache.class);
+    typeAliasRegistry.registerAlias("WEIGHTED", WeightedCache.class);
 
     typeAliasRegistry.registerAlias("DB_VENDOR", VendorDatabaseIdProvider.class);
 
@@ -354,6 +411,314 @@ public class Configuration {
     this.shrinkWhitespacesInSql = shrinkWhitespacesInSql;
   }
 
+  /**
+   * Gets the maximum number of parsed SQL shapes cached per dynamic statement.
+   *
+   * @return the cache size, {@code 0} means that the rendered SQL is parsed on every execution
+   * @since 3.5.6
+   */
+  public int getDynamicSqlCacheSize() {
+    return dynamicSqlCacheSize;
+  }
+
+  /**
+   * Sets the maximum number of parsed SQL shapes cached per dynamic statement. When it is reached, the least recently
+   * used shape is evicted. The parameter mappings of the {@link BoundSql}s created from a cached shape are shared, and
+   * cannot be modified. It is applied to the statements that are built after this setting is changed.
+   *
+   * @param dynamicSqlCacheSize
+   *          the cache size, {@code 0} (the default) disables the cache
+   * @since 3.5.6
+   */
+  public void setDynamicSqlCacheSize(int dynamicSqlCacheSize) {
+    this.dynamicSqlCacheSize = dynamicSqlCacheSize;
+  }
+
+  /**
+   * Gets whether the rows of flat result maps are mapped by a {@link CompiledRowMapper}.
+   *
+   * @return {@code true} if compiled row mappers are used
+   * @since 3.5.6
+   */
+  public boolean isCompiledRowMappingEnabled() {
+    return compiledRowMappingEnabled;
+  }
+
+  /**
+   * Sets whether the rows of flat result maps are mapped by a {@link CompiledRowMapper}, which is built after the
+   * first row of a result set and reused for the same result map and columns.
+   *
+   * @param compiledRowMappingEnabled
+   *          {@code true} to use compiled row mappers, {@code false} (the default) to always map rows through
+   *          {@link MetaObject}
+   * @since 3.5.6
+   */
+  public void setCompiledRowMappingEnabled(boolean compiledRowMappingEnabled) {
+    this.compiledRowMappingEnabled = compiledRowMappingEnabled;
+  }
+
+  /**
+   * Gets the maximum weight, in bytes, of the entries of all the {@link WeightedCache}s of this configuration.
+   *
+   * @return the maximum weight, {@code 0} means no limit
+   * @since 3.5.6
+   */
+  public long getMaximumCacheWeight() {
+    return cacheWeightBudget.getMaximumWeight();
+  }
+
+  /**
+   * Sets the maximum weight, in bytes, of the entries of all the {@link WeightedCache}s of this configuration. When the
+   * limit is exceeded, the least recently used entries of the caches holding the most weight are evicted first.
+   *
+   * @param maximumCacheWeight
+   *          the maximum weight, {@code 0} (the default) for no limit
+   * @since 3.5.6
+   */
+  public void setMaximumCacheWeight(long maximumCacheWeight) {
+    cacheWeightBudget.setMaximumWeight(maximumCacheWeight);
+  }
+
+  /**
+   * Gets the maximum number of distinct parameters passed to one execution of a batch fetched nested select.
+   *
+   * @return the batch fetch size
+   * @since 3.5.6
+   */
+  public int getBatchFetchSize() {
+    return batchFetchSize;
+  }
+
+  /**
+   * Sets the maximum number of distinct parameters passed to one execution of a nested select whose mapping is
+   * declared with {@code fetchType="batch"}. Larger result sets are loaded with several executions. This is also the
+   * number of sibling rows whose lazy loaders are grouped, for mappings declared with {@code fetchType="lazyBatch"}.
+   *
+   * @param batchFetchSize
+   *          the batch fetch size, {@code 100} by default
+   * @since 3.5.6
+   */
+  public void setBatchFetchSize(int batchFetchSize) {
+    this.batchFetchSize = batchFetchSize;
+  }
+
+  /**
+   * Gets the maximum number of rows that the {@link ExecutorType#MULTI_ROW_INSERT} executor merges into one statement.
+   *
+   * @return the multi-row insert size
+   * @since 3.5.6
+   */
+  public int getMultiRowInsertSize() {
+    return multiRowInsertSize;
+  }
+
+  /**
+   * Sets the maximum number of rows that the {@link ExecutorType#MULTI_ROW_INSERT} executor merges into one
+   * {@code INSERT ... VALUES (...), (...)} statement. Drivers and databases limit the number of parameters of a
+   * statement, so this should stay below that limit divided by the number of parameters of one row.
+   *
+   * @param multiRowInsertSize
+   *          the multi-row insert size, {@code 100} by default
+   * @since 3.5.6
+   */
+  public void setMultiRowInsertSize(int multiRowInsertSize) {
+    this.multiRowInsertSize = multiRowInsertSize;
+  }
+
+  /**
+   * Gets the maximum number of statements that the {@link ExecutorType#GROUPED_BATCH} executor keeps open.
+   *
+   * @return the maximum number of statements, {@code 0} when unlimited
+   * @since 3.5.6
+   */
+  public int getBatchMaxStatements() {
+    return batchMaxStatements;
+  }
+
+  /**
+   * Sets the maximum number of statements, one per distinct SQL, that the {@link ExecutorType#GROUPED_BATCH} executor
+   * keeps open. Executing another statement first runs all the pending batches.
+   *
+   * @param batchMaxStatements
+   *          the maximum number of statements, {@code 32} by default and {@code 0} for no limit
+   * @since 3.5.6
+   */
+  public void setBatchMaxStatements(int batchMaxStatements) {
+    this.batchMaxStatements = batchMaxStatements;
+  }
+
+  /**
+   * Gets the number of pending rows after which the {@link ExecutorType#GROUPED_BATCH} executor runs its batches.
+   *
+   * @return the number of rows, {@code 0} when unlimited
+   * @since 3.5.6
+   */
+  public int getBatchFlushRows() {
+    return batchFlushRows;
+  }
+
+  /**
+   * Sets the number of pending rows, over all statements, after which the {@link ExecutorType#GROUPED_BATCH} executor
+   * runs its batches.
+   *
+   * @param batchFlushRows
+   *          the number of rows, {@code 1000} by default and {@code 0} for no limit
+   * @since 3.5.6
+   */
+  public void setBatchFlushRows(int batchFlushRows) {
+    this.batchFlushRows = batchFlushRows;
+  }
+
+  /**
+   * Gets the estimated size of the pending parameters after which the {@link ExecutorType#GROUPED_BATCH} executor runs
+   * its batches.
+   *
+   * @return the number of bytes, {@code 0} when unlimited
+   * @since 3.5.6
+   */
+  public long getBatchFlushBytes() {
+    return batchFlushBytes;
+  }
+
+  /**
+   * Sets the estimated size of the pending parameters after which the {@link ExecutorType#GROUPED_BATCH} executor runs
+   * its batches. Strings count two bytes per character, byte arrays their length and other values eight bytes.
+   *
+   * @param batchFlushBytes
+   *          the number of bytes, {@code 0} (no limit) by default
+   * @since 3.5.6
+   */
+  public void setBatchFlushBytes(long batchFlushBytes) {
+    this.batchFlushBytes = batchFlushBytes;
+  }
+
+  /**
+   * Gets the maximum number of statements that a {@link ExecutorType#REUSE} executor keeps open.
+   *
+   * @return the maximum number of statements, {@code 0} when unlimited
+   * @since 3.5.6
+   */
+  public int getReuseStatementCacheSize() {
+    return reuseStatementCacheSize;
+  }
+
+  /**
+   * Sets the maximum number of statements that a {@link ExecutorType#REUSE} executor keeps open. When a session needs
+   * another one, the least recently used statement is closed. The statement of a {@code Cursor} is not cached while
+   * the cursor reads from it, and is closed with the cursor. While the results of a query are mapped, its nested
+   * selects add statements without closing any, so that the statement being read stays open; the extra statements are
+   * closed when the query completes.
+   *
+   * @param reuseStatementCacheSize
+   *          the maximum number of statements, {@code 0} (the default) for no limit
+   * @since 3.5.6
+   */
+  public void setReuseStatementCacheSize(int reuseStatementCacheSize) {
+    this.reuseStatementCacheSize = reuseStatementCacheSize;
+  }
+
+  public boolean isParallelMapperParsing() {
+    return parallelMapperParsing;
+  }
+
+  /**
+   * Sets whether the mappers of the {@code <mappers>} element, XML files and annotated interfaces alike, are built
+   * concurrently. Each mapper is built into its own {@link ConfigurationStage}, and the stages are merged into this
+   * configuration in the order the mappers are declared, followed each time by the incomplete result map, cache-ref,
+   * statement and method passes.
+   *
+   * @param parallelMapperParsing
+   *          {@code true} to build the mappers on a fork-join pool, {@code false} (the default) to build them one after
+   *          another
+   * @since 3.5.6
+   */
+  public void setParallelMapperParsing(boolean parallelMapperParsing) {
+    this.parallelMapperParsing = parallelMapperParsing;
+  }
+
+  /**
+   * Creates a stage in which one mapper can be built while other mappers are built on other threads.
+   *
+   * @return a new, empty stage
+   * @since 3.5.6
+   */
+  public ConfigurationStage newStage() {
+    return new ConfigurationStage(this);
+  }
+
+  private ConfigurationStage currentStage() {
+    return stagedBuilds.get() == 0 ? null : currentStage.get();
+  }
+
+  /**
+   * Gets the hit, miss and eviction counts of the statements cached by the {@link ExecutorType#REUSE} executors.
+   *
+   * @return the statistics, summed over all sessions
+   * @since 3.5.6
+   */
+  public StatementCacheStatistics getReuseStatementCacheStatistics() {
+    return reuseStatementCacheStatistics;
+  }
+
+  /**
+   * Gets the executor that runs the mapper methods returning a {@link CompletableFuture}. Unless one was set, a virtual
+   * thread per task executor is created on Java 21 and later, and a cached pool of daemon threads before.
+   *
+   * @return the asynchronous executor
+   * @since 3.5.6
+   */
+  public java.util.concurrent.Executor getAsyncExecutor() {
+    java.util.concurrent.Executor executor = asyncExecutor;
+    if (executor == null) {
+      synchronized (this) {
+        executor = asyncExecutor;
+        if (executor == null) {
+          executor = newDefaultAsyncExecutor();
+          asyncExecutor = executor;
+        }
+      }
+    }
+    return executor;
+  }
+
+  /**
+   * Sets the executor that runs the mapper methods returning a {@link CompletableFuture}. Each call runs in its own
+   * {@link SqlSession}, opened by {@link SqlSession#openSiblingSession()}, so its transaction is independent of the
+   * session of the mapper.
+   *
+   * @param asyncExecutor
+   *          the asynchronous executor
+   * @since 3.5.6
+   */
+  public void setAsyncExecutor(java.util.concurrent.Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  private static java.util.concurrent.Executor newDefaultAsyncExecutor() {
+    try {
+      return (java.util.concurrent.Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      // before Java 21
+      AtomicInteger threadNumber = new AtomicInteger();
+      return Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mybatis-async-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  /**
+   * Gets the budget shared by the {@link WeightedCache}s of this configuration, which also reports their current
+   * total weight.
+   *
+   * @return the cache weight budget
+   * @since 3.5.6
+   */
+  public CacheWeightBudget getCacheWeightBudget() {
+    return cacheWeightBudget;
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
@@ -395,10 +760,19 @@ public class Configuration {
   }
 
   public void addLoadedResource(String resource) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      stage.addLoadedResource(resource);
+      return;
+    }
     loadedResources.add(resource);
   }
 
   public boolean isResourceLoaded(String resource) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.isResourceLoaded(resource);
+    }
     return loadedResources.contains(resource);
   }
 
@@ -624,6 +998,7 @@ public class Configuration {
 
   public void setReflectorFactory(ReflectorFactory reflectorFactory) {
     this.reflectorFactory = reflectorFactory;
+    propertyPaths.clear();
   }
 
   public ObjectFactory getObjectFactory() {
@@ -632,6 +1007,7 @@ public class Configuration {
 
   public void setObjectFactory(ObjectFactory objectFactory) {
     this.objectFactory = objectFactory;
+    propertyPaths.clear();
   }
 
   public ObjectWrapperFactory getObjectWrapperFactory() {
@@ -640,6 +1016,7 @@ public class Configuration {
 
   public void setObjectWrapperFactory(ObjectWrapperFactory objectWrapperFactory) {
     this.objectWrapperFactory = objectWrapperFactory;
+    propertyPaths.clear();
   }
 
   /**
@@ -698,6 +1075,24 @@ public class Configuration {
     return MetaObject.forObject(object, objectFactory, objectWrapperFactory, reflectorFactory);
   }
 
+  /**
+   * Gets the compiled form of a property expression, which reads and writes the property like the {@link MetaObject}
+   * returned by {@link #newMetaObject(Object)} does.
+   *
+   * @param expression
+   *          the property expression (e.g. {@code order.items[0].name})
+   * @return the property path
+   * @since 3.5.6
+   */
+  public PropertyPath getPropertyPath(String expression) {
+    PropertyPath path = propertyPaths.get(expression);
+    if (path == null) {
+      path = propertyPaths.computeIfAbsent(expression,
+          e -> new PropertyPath(e, objectFactory, objectWrapperFactory, reflectorFactory));
+    }
+    return path;
+  }
+
   public ParameterHandler newParameterHandler(MappedStatement mappedStatement, Object parameterObject, BoundSql boundSql) {
     ParameterHandler parameterHandler = mappedStatement.getLang().createParameterHandler(mappedStatement, parameterObject, boundSql);
     parameterHandler = (ParameterHandler) interceptorChain.pluginAll(parameterHandler);
@@ -733,6 +1128,12 @@ public class Configuration {
     if (ExecutorType.BATCH == executorType) {
       // 如果批量操作, 则创建BatchExecutor对象, this指的是Configuration
       executor = new BatchExecutor(this, transaction);
+    } else if (ExecutorType.MULTI_ROW_INSERT == executorType) {
+      // 批量操作, 且把连续的INSERT合并成多行INSERT语句
+      executor = new MultiRowInsertExecutor(this, transaction);
+    } else if (ExecutorType.GROUPED_BATCH == executorType) {
+      // 批量操作, 且每条不同的SQL保持一个语句, 交替执行的更新按语句分组
+      executor = new GroupedBatchExecutor(this, transaction);
     } else if (ExecutorType.REUSE == executorType) {
       // 如果是重用类型, 则创建ReuseExecutor对象, this指的是Configuration
       executor = new ReuseExecutor(this, transaction);
@@ -751,6 +1152,11 @@ public class Configuration {
   }
 
   public void addKeyGenerator(String id, KeyGenerator keyGenerator) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      stage.addKeyGenerator(id, keyGenerator);
+      return;
+    }
     keyGenerators.put(id, keyGenerator);
   }
 
@@ -763,14 +1169,27 @@ public class Configuration {
   }
 
   public KeyGenerator getKeyGenerator(String id) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.getKeyGenerator(id);
+    }
     return keyGenerators.get(id);
   }
 
   public boolean hasKeyGenerator(String id) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.hasKeyGenerator(id);
+    }
     return keyGenerators.containsKey(id);
   }
 
   public void addCache(Cache cache) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      stage.addCache(cache);
+      return;
+    }
     caches.put(cache.getId(), cache);
   }
 
@@ -778,19 +1197,44 @@ public class Configuration {
     return caches.keySet();
   }
 
+  public CompiledRowMapper getCompiledRowMapper(String key) {
+    return compiledRowMappers.get(key);
+  }
+
+  public void addCompiledRowMapper(String key, CompiledRowMapper rowMapper) {
+    compiledRowMappers.put(key, rowMapper);
+  }
+
+  public Collection<CompiledRowMapper> getCompiledRowMappers() {
+    return compiledRowMappers.values();
+  }
+
   public Collection<Cache> getCaches() {
     return caches.values();
   }
 
   public Cache getCache(String id) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.getCache(id);
+    }
     return caches.get(id);
   }
 
   public boolean hasCache(String id) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.hasCache(id);
+    }
     return caches.containsKey(id);
   }
 
   public void addResultMap(ResultMap rm) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      stage.addResultMap(rm);
+      return;
+    }
     resultMaps.put(rm.getId(), rm);
     checkLocallyForDiscriminatedNestedResultMaps(rm);
     checkGloballyForDiscriminatedNestedResultMaps(rm);
@@ -805,14 +1249,27 @@ public class Configuration {
   }
 
   public ResultMap getResultMap(String id) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.getResultMap(id);
+    }
     return resultMaps.get(id);
   }
 
   public boolean hasResultMap(String id) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.hasResultMap(id);
+    }
     return resultMaps.containsKey(id);
   }
 
   public void addParameterMap(ParameterMap pm) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      stage.addParameterMap(pm);
+      return;
+    }
     parameterMaps.put(pm.getId(), pm);
   }
 
@@ -825,14 +1282,27 @@ public class Configuration {
   }
 
   public ParameterMap getParameterMap(String id) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.getParameterMap(id);
+    }
     return parameterMaps.get(id);
   }
 
   public boolean hasParameterMap(String id) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.hasParameterMap(id);
+    }
     return parameterMaps.containsKey(id);
   }
 
   public void addMappedStatement(MappedStatement ms) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      stage.addMappedStatement(ms);
+      return;
+    }
     mappedStatements.put(ms.getId(), ms);
   }
 
@@ -847,34 +1317,70 @@ public class Configuration {
   }
 
   public Collection<XMLStatementBuilder> getIncompleteStatements() {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.getIncompleteStatements();
+    }
     return incompleteStatements;
   }
 
   public void addIncompleteStatement(XMLStatementBuilder incompleteStatement) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      stage.getIncompleteStatements().add(incompleteStatement);
+      return;
+    }
     incompleteStatements.add(incompleteStatement);
   }
 
   public Collection<CacheRefResolver> getIncompleteCacheRefs() {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.getIncompleteCacheRefs();
+    }
     return incompleteCacheRefs;
   }
 
   public void addIncompleteCacheRef(CacheRefResolver incompleteCacheRef) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      stage.getIncompleteCacheRefs().add(incompleteCacheRef);
+      return;
+    }
     incompleteCacheRefs.add(incompleteCacheRef);
   }
 
   public Collection<ResultMapResolver> getIncompleteResultMaps() {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.getIncompleteResultMaps();
+    }
     return incompleteResultMaps;
   }
 
   public void addIncompleteResultMap(ResultMapResolver resultMapResolver) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      stage.getIncompleteResultMaps().add(resultMapResolver);
+      return;
+    }
     incompleteResultMaps.add(resultMapResolver);
   }
 
   public void addIncompleteMethod(MethodResolver builder) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      stage.getIncompleteMethods().add(builder);
+      return;
+    }
     incompleteMethods.add(builder);
   }
 
   public Collection<MethodResolver> getIncompleteMethods() {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.getIncompleteMethods();
+    }
     return incompleteMethods;
   }
 
@@ -886,10 +1392,18 @@ public class Configuration {
     if (validateIncompleteStatements) {
       buildAllStatements();
     }
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.getMappedStatement(id);
+    }
     return mappedStatements.get(id);
   }
 
   public Map<String, XNode> getSqlFragments() {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.getSqlFragments();
+    }
     return sqlFragments;
   }
 
@@ -906,6 +1420,11 @@ public class Configuration {
   }
 
   public <T> void addMapper(Class<T> type) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      stage.addMapper(type);
+      return;
+    }
     mapperRegistry.addMapper(type);
   }
 
@@ -914,6 +1433,10 @@ public class Configuration {
   }
 
   public boolean hasMapper(Class<?> type) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.hasMapper(type);
+    }
     return mapperRegistry.hasMapper(type);
   }
 
@@ -925,10 +1448,19 @@ public class Configuration {
     if (validateIncompleteStatements) {
       buildAllStatements();
     }
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      return stage.hasStatement(statementName);
+    }
     return mappedStatements.containsKey(statementName);
   }
 
   public void addCacheRef(String namespace, String referencedNamespace) {
+    ConfigurationStage stage = currentStage();
+    if (stage != null) {
+      stage.addCacheRef(namespace, referencedNamespace);
+      return;
+    }
     cacheRefMap.put(namespace, referencedNamespace);
   }
 
@@ -938,6 +1470,10 @@ public class Configuration {
    * statement validation.
    */
   protected void buildAllStatements() {
+    if (currentStage() != null) {
+      // a mapper built in a stage leaves its incomplete elements to the merge
+      return;
+    }
     parsePendingResultMaps();
     if (!incompleteCacheRefs.isEmpty()) {
       synchronized (incompleteCacheRefs) {
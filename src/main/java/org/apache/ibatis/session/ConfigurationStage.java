@@ -0,0 +1,409 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.BooleanSupplier;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.builder.CacheRefResolver;
+import org.apache.ibatis.builder.ResultMapResolver;
+import org.apache.ibatis.builder.annotation.MapperAnnotationBuilder;
+import org.apache.ibatis.builder.annotation.MethodResolver;
+import org.apache.ibatis.builder.xml.XMLStatementBuilder;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMap;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.session.Configuration.StrictMap;
+
+/**
+ * The changes that building one mapper makes to a {@link Configuration}, kept apart so that several mappers can be
+ * built at the same time.
+ * <p>
+ * While {@link #build(Callable)} runs, the statements, result maps, caches, SQL fragments, loaded resources, mappers
+ * and incomplete elements that the builder adds on the current thread are kept in this stage, and the builder sees
+ * them together with those already in the configuration. The configuration itself is only read, so it must not be
+ * changed while stages are being built. Every read whose answer could differ once the mappers declared before have
+ * been added is recorded. A reference that is not found yet is not recorded: the element is left incomplete, as for a
+ * forward reference, and is resolved when the incomplete elements are parsed after merging.
+ * <p>
+ * {@link #merge()} then applies the changes to the configuration, in the order they were made, provided that every
+ * recorded read still gives the same answer and that no key is already taken. Otherwise nothing is applied and the
+ * mapper has to be built again on the configuration itself, which gives exactly the result, or the error, of a
+ * sequential build.
+ *
+ * @since 3.5.6
+ * @see Configuration#newStage()
+ */
+public final class ConfigurationStage {
+
+  private final Configuration configuration;
+  private final StagedMap<MappedStatement> mappedStatements;
+  private final StagedMap<Cache> caches;
+  private final StagedMap<ResultMap> resultMaps;
+  private final StagedMap<ParameterMap> parameterMaps;
+  private final StagedMap<KeyGenerator> keyGenerators;
+  private final StagedMap<XNode> sqlFragments;
+  private final Set<String> loadedResources = new HashSet<>();
+  private final Set<Class<?>> mappers = new HashSet<>();
+  private final Collection<XMLStatementBuilder> incompleteStatements = new LinkedList<>();
+  private final Collection<CacheRefResolver> incompleteCacheRefs = new LinkedList<>();
+  private final Collection<ResultMapResolver> incompleteResultMaps = new LinkedList<>();
+  private final Collection<MethodResolver> incompleteMethods = new LinkedList<>();
+  private final List<Runnable> changes = new ArrayList<>();
+  private final List<BooleanSupplier> assumptions = new ArrayList<>();
+  private boolean failed;
+
+  ConfigurationStage(Configuration configuration) {
+    this.configuration = configuration;
+    this.mappedStatements = new StagedMap<>("Mapped Statements collection", configuration.mappedStatements, this, false);
+    this.caches = new StagedMap<>("Caches collection", configuration.caches, this, false);
+    this.resultMaps = new StagedMap<>("Result Maps collection", configuration.resultMaps, this, false);
+    this.parameterMaps = new StagedMap<>("Parameter Maps collection", configuration.parameterMaps, this, false);
+    this.keyGenerators = new StagedMap<>("Key Generators collection", configuration.keyGenerators, this, false);
+    // the fragments of other mappers are DOM nodes, which may not be read by several threads at once
+    this.sqlFragments = new StagedMap<>("XML fragments parsed from previous mappers", configuration.sqlFragments, this, true);
+  }
+
+  /**
+   * Runs a builder on the current thread, keeping the changes it makes to the configuration in this stage. A failure
+   * is not thrown but makes {@link #merge()} return {@code false}, so that it is reported by building the mapper again.
+   *
+   * @param builder
+   *          the builder of one mapper
+   */
+  public void build(Callable<?> builder) {
+    configuration.stagedBuilds.incrementAndGet();
+    configuration.currentStage.set(this);
+    try {
+      builder.call();
+    } catch (Exception | LinkageError e) {
+      failed = true;
+    } finally {
+      configuration.currentStage.remove();
+      configuration.stagedBuilds.decrementAndGet();
+    }
+  }
+
+  /**
+   * Applies the changes of this stage to the configuration. Must be called on a thread that is not building a stage,
+   * once no stage of the configuration is being built any more.
+   *
+   * @return {@code false}, with nothing applied, if building failed or if the configuration has changed in a way that
+   *         would have made the mapper build differently
+   */
+  public boolean merge() {
+    if (failed) {
+      return false;
+    }
+    for (BooleanSupplier assumption : assumptions) {
+      if (!assumption.getAsBoolean()) {
+        return false;
+      }
+    }
+    for (Runnable change : changes) {
+      change.run();
+    }
+    configuration.incompleteStatements.addAll(incompleteStatements);
+    configuration.incompleteCacheRefs.addAll(incompleteCacheRefs);
+    configuration.incompleteResultMaps.addAll(incompleteResultMaps);
+    configuration.incompleteMethods.addAll(incompleteMethods);
+    return true;
+  }
+
+  void assume(BooleanSupplier assumption) {
+    assumptions.add(assumption);
+  }
+
+  void addLoadedResource(String resource) {
+    loadedResources.add(resource);
+    changes.add(() -> configuration.addLoadedResource(resource));
+  }
+
+  boolean isResourceLoaded(String resource) {
+    if (loadedResources.contains(resource)) {
+      return true;
+    }
+    boolean loaded = configuration.loadedResources.contains(resource);
+    assume(() -> configuration.isResourceLoaded(resource) == loaded);
+    return loaded;
+  }
+
+  <T> void addMapper(Class<T> type) {
+    // the same steps as MapperRegistry#addMapper
+    if (type.isInterface()) {
+      if (hasMapper(type)) {
+        throw new BindingException("Type " + type + " is already known to the MapperRegistry.");
+      }
+      boolean loadCompleted = false;
+      try {
+        mappers.add(type);
+        changes.add(() -> configuration.getMapperRegistry().addParsedMapper(type));
+        MapperAnnotationBuilder parser = new MapperAnnotationBuilder(configuration, type);
+        parser.parse();
+        loadCompleted = true;
+      } finally {
+        if (!loadCompleted) {
+          mappers.remove(type);
+          failed = true;
+        }
+      }
+    }
+  }
+
+  boolean hasMapper(Class<?> type) {
+    if (mappers.contains(type)) {
+      return true;
+    }
+    boolean known = configuration.mapperRegistry.hasMapper(type);
+    assume(() -> configuration.hasMapper(type) == known);
+    return known;
+  }
+
+  void addCache(Cache cache) {
+    caches.put(cache.getId(), cache);
+    changes.add(() -> configuration.addCache(cache));
+  }
+
+  Cache getCache(String id) {
+    // a cache-ref to a mapper that is not merged yet is resolved later
+    return caches.get(id, true);
+  }
+
+  boolean hasCache(String id) {
+    return caches.contains(id, false);
+  }
+
+  void addResultMap(ResultMap rm) {
+    resultMaps.put(rm.getId(), rm);
+    checkLocallyForDiscriminatedNestedResultMaps(rm);
+    checkGloballyForDiscriminatedNestedResultMaps(rm);
+    changes.add(() -> configuration.addResultMap(rm));
+  }
+
+  ResultMap getResultMap(String id) {
+    return resultMaps.get(id, true);
+  }
+
+  boolean hasResultMap(String id) {
+    return resultMaps.contains(id, true);
+  }
+
+  void addParameterMap(ParameterMap pm) {
+    parameterMaps.put(pm.getId(), pm);
+    changes.add(() -> configuration.addParameterMap(pm));
+  }
+
+  ParameterMap getParameterMap(String id) {
+    return parameterMaps.get(id, true);
+  }
+
+  boolean hasParameterMap(String id) {
+    return parameterMaps.contains(id, false);
+  }
+
+  void addKeyGenerator(String id, KeyGenerator keyGenerator) {
+    keyGenerators.put(id, keyGenerator);
+    changes.add(() -> configuration.addKeyGenerator(id, keyGenerator));
+  }
+
+  KeyGenerator getKeyGenerator(String id) {
+    return keyGenerators.get(id, false);
+  }
+
+  boolean hasKeyGenerator(String id) {
+    return keyGenerators.contains(id, false);
+  }
+
+  void addMappedStatement(MappedStatement ms) {
+    mappedStatements.put(ms.getId(), ms);
+    changes.add(() -> configuration.addMappedStatement(ms));
+  }
+
+  MappedStatement getMappedStatement(String id) {
+    return mappedStatements.get(id, false);
+  }
+
+  boolean hasStatement(String statementName) {
+    return mappedStatements.contains(statementName, false);
+  }
+
+  void addCacheRef(String namespace, String referencedNamespace) {
+    changes.add(() -> configuration.addCacheRef(namespace, referencedNamespace));
+  }
+
+  Map<String, XNode> getSqlFragments() {
+    return sqlFragments;
+  }
+
+  Collection<XMLStatementBuilder> getIncompleteStatements() {
+    return incompleteStatements;
+  }
+
+  Collection<CacheRefResolver> getIncompleteCacheRefs() {
+    return incompleteCacheRefs;
+  }
+
+  Collection<ResultMapResolver> getIncompleteResultMaps() {
+    return incompleteResultMaps;
+  }
+
+  Collection<MethodResolver> getIncompleteMethods() {
+    return incompleteMethods;
+  }
+
+  private void checkLocallyForDiscriminatedNestedResultMaps(ResultMap rm) {
+    if (!rm.hasNestedResultMaps() && rm.getDiscriminator() != null) {
+      for (String discriminatedResultMapName : rm.getDiscriminator().getDiscriminatorMap().values()) {
+        if (resultMaps.contains(discriminatedResultMapName, false)) {
+          ResultMap discriminatedResultMap = resultMaps.get(discriminatedResultMapName, false);
+          if (discriminatedResultMap.hasNestedResultMaps()) {
+            rm.forceNestedResultMaps();
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  private void checkGloballyForDiscriminatedNestedResultMaps(ResultMap rm) {
+    if (rm.hasNestedResultMaps()) {
+      for (Object value : resultMaps.values()) {
+        if (isDiscriminatedBy(value, rm)) {
+          ((ResultMap) value).forceNestedResultMaps();
+        }
+      }
+      // the result maps of the configuration are shared by all stages, so they are not changed here
+      for (Object value : configuration.resultMaps.values()) {
+        if (isDiscriminatedBy(value, rm)) {
+          assume(() -> false);
+          return;
+        }
+      }
+    }
+  }
+
+  private static boolean isDiscriminatedBy(Object value, ResultMap rm) {
+    if (value instanceof ResultMap) {
+      ResultMap resultMap = (ResultMap) value;
+      return !resultMap.hasNestedResultMaps() && resultMap.getDiscriminator() != null
+          && resultMap.getDiscriminator().getDiscriminatorMap().values().contains(rm.getId());
+    }
+    return false;
+  }
+
+  /**
+   * The entries added by a stage, seen together with those of the configuration.
+   */
+  private static final class StagedMap<V> extends StrictMap<V> {
+
+    private static final long serialVersionUID = 2486412390405346197L;
+    private final transient Map<String, V> shared;
+    private final transient ConfigurationStage stage;
+    private final boolean fragments;
+
+    StagedMap(String name, Map<String, V> shared, ConfigurationStage stage, boolean fragments) {
+      super(name);
+      this.shared = shared;
+      this.stage = stage;
+      this.fragments = fragments;
+    }
+
+    @Override
+    public V put(String key, V value) {
+      // StrictMap#put calls containsKey, which records that the key must still be free when merging
+      V previous = super.put(key, value);
+      if (fragments) {
+        stage.changes.add(() -> shared.put(key, value));
+      }
+      return previous;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return contains((String) key, false);
+    }
+
+    @Override
+    public V get(Object key) {
+      return get((String) key, true);
+    }
+
+    /**
+     * @param deferred
+     *          whether the builder leaves the element incomplete when the key is missing, in which case a miss is not
+     *          recorded
+     */
+    boolean contains(String key, boolean deferred) {
+      if (super.containsKey(key)) {
+        assumeNotShared(key);
+        return true;
+      }
+      if (shared.containsKey(key)) {
+        return true;
+      }
+      if (!deferred) {
+        stage.assume(() -> !shared.containsKey(key));
+      }
+      return false;
+    }
+
+    V get(String key, boolean deferred) {
+      if (super.containsKey(key)) {
+        V value = super.get(key);
+        assumeNotShared(key);
+        return value;
+      }
+      if (!fragments && shared.containsKey(key)) {
+        V value = shared.get(key);
+        stage.assume(() -> sharedValueIs(key, value));
+        return value;
+      }
+      if (!deferred) {
+        stage.assume(() -> !shared.containsKey(key));
+      }
+      // throws the exception of a missing key
+      return super.get(key);
+    }
+
+    private void assumeNotShared(String key) {
+      // a full id was recorded when it was put; a short name becomes ambiguous if another namespace has it too
+      if (!key.contains(".")) {
+        stage.assume(() -> !shared.containsKey(key));
+      }
+    }
+
+    private boolean sharedValueIs(String key, V value) {
+      try {
+        return shared.get(key) == value;
+      } catch (IllegalArgumentException e) {
+        return false;
+      }
+    }
+
+  }
+
+}
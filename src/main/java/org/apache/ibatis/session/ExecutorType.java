@@ -23,6 +23,8 @@ public enum ExecutorType {
    * SIMPLE 普通的执行器；
    * REUSE 执行器会重用预处理语句（prepared statements）
    * BATCH 执行器将重用语句并执行批量更新
+   * MULTI_ROW_INSERT 在BATCH的基础上, 把同一语句的连续INSERT合并成多行INSERT语句
+   * GROUPED_BATCH 在BATCH的基础上, 每条不同的SQL保持一个语句, 并按行数或参数大小自动执行批处理
    */
-  SIMPLE, REUSE, BATCH
+  SIMPLE, REUSE, BATCH, MULTI_ROW_INSERT, GROUPED_BATCH
 }
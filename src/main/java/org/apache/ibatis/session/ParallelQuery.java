@@ -0,0 +1,209 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.exceptions.ExceptionFactory;
+import org.apache.ibatis.exceptions.TooManyResultsException;
+import org.apache.ibatis.executor.CachingExecutor;
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.executor.SimpleExecutor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.ParamNameResolver;
+
+/**
+ * Runs several independent selects concurrently, each in its own {@link SqlSession} and therefore on its own
+ * connection.
+ *
+ * <pre>
+ * ParallelQuery query = sqlSessionFactory.openParallel();
+ * CompletableFuture&lt;List&lt;Blog&gt;&gt; blogs = query.selectList("selectBlogsByAuthor", authorId);
+ * CompletableFuture&lt;Author&gt; author = query.selectOne("selectAuthor", authorId);
+ * query.execute();
+ * </pre>
+ *
+ * Queries are only queued until {@link #execute()} is called. Results that are already committed to the second level
+ * cache are returned right away by the calling thread, without opening a session or taking a connection; the other
+ * queries run on {@link Configuration#getAsyncExecutor()}. Since every query has its own session, they do not share
+ * a transaction nor the local cache. This class is not thread safe.
+ *
+ * @since 3.5.6
+ */
+public class ParallelQuery {
+
+  private final SqlSessionFactory sqlSessionFactory;
+  private final Configuration configuration;
+  private final List<Query> queries = new ArrayList<>();
+
+  public ParallelQuery(SqlSessionFactory sqlSessionFactory) {
+    this.sqlSessionFactory = sqlSessionFactory;
+    this.configuration = sqlSessionFactory.getConfiguration();
+  }
+
+  public <E> CompletableFuture<List<E>> selectList(String statement) {
+    return selectList(statement, null);
+  }
+
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter) {
+    return selectList(statement, parameter, RowBounds.DEFAULT);
+  }
+
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter, RowBounds rowBounds) {
+    return add(statement, parameter, rowBounds, false);
+  }
+
+  public <T> CompletableFuture<T> selectOne(String statement) {
+    return selectOne(statement, null);
+  }
+
+  public <T> CompletableFuture<T> selectOne(String statement, Object parameter) {
+    return add(statement, parameter, RowBounds.DEFAULT, true);
+  }
+
+  /**
+   * Runs the queued queries and waits for all of them to complete.
+   *
+   * @return the results, in the order the queries were added
+   * @throws org.apache.ibatis.exceptions.PersistenceException
+   *           if any query failed; the other queries are still waited for
+   */
+  public List<Object> execute() {
+    List<Query> pending = new ArrayList<>(queries);
+    queries.clear();
+    Executor executor = null;
+    // only builds cache keys, it never takes a connection
+    SimpleExecutor keyFactory = configuration.isCacheEnabled() ? new SimpleExecutor(configuration, null) : null;
+    for (Query query : pending) {
+      if (keyFactory != null && query.completeFromCache(keyFactory)) {
+        continue;
+      }
+      if (executor == null) {
+        executor = configuration.getAsyncExecutor();
+      }
+      query.run(executor);
+    }
+    List<Object> results = new ArrayList<>(pending.size());
+    RuntimeException failure = null;
+    for (Query query : pending) {
+      try {
+        results.add(query.future.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw ExceptionFactory.wrapException("Interrupted while waiting for query " + query.statement + ".", e);
+      } catch (ExecutionException e) {
+        results.add(null);
+        if (failure == null) {
+          failure = unwrap(e.getCause());
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return Collections.unmodifiableList(results);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> CompletableFuture<T> add(String statement, Object parameter, RowBounds rowBounds, boolean one) {
+    Query query = new Query(statement, parameter, rowBounds, one);
+    queries.add(query);
+    return (CompletableFuture<T>) query.future;
+  }
+
+  private static RuntimeException unwrap(Throwable t) {
+    if (t instanceof RuntimeException) {
+      return (RuntimeException) t;
+    } else if (t instanceof Error) {
+      throw (Error) t;
+    }
+    return ExceptionFactory.wrapException("Error querying database.  Cause: " + t, (Exception) t);
+  }
+
+  private class Query {
+
+    private final String statement;
+    private final Object parameter;
+    private final RowBounds rowBounds;
+    private final boolean one;
+    private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+    Query(String statement, Object parameter, RowBounds rowBounds, boolean one) {
+      this.statement = statement;
+      this.parameter = parameter;
+      this.rowBounds = rowBounds;
+      this.one = one;
+    }
+
+    boolean completeFromCache(SimpleExecutor keyFactory) {
+      List<Object> list;
+      try {
+        MappedStatement ms = configuration.getMappedStatement(statement);
+        if (ms.getCache() == null) {
+          return false;
+        }
+        // same parameter and key as DefaultSqlSession and CachingExecutor use
+        Object parameterObject = ParamNameResolver.wrapToMapIfCollection(parameter, null);
+        BoundSql boundSql = ms.getBoundSql(parameterObject);
+        CacheKey key = keyFactory.createCacheKey(ms, parameterObject, rowBounds, boundSql);
+        list = CachingExecutor.getCommittedResult(ms, key, boundSql);
+      } catch (Exception e) {
+        future.completeExceptionally(ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e));
+        return true;
+      } finally {
+        ErrorContext.instance().reset();
+      }
+      if (list == null) {
+        return false;
+      }
+      complete(list);
+      return true;
+    }
+
+    void run(Executor executor) {
+      try {
+        executor.execute(() -> {
+          try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            complete(sqlSession.selectList(statement, parameter, rowBounds));
+          } catch (Throwable t) {
+            future.completeExceptionally(t);
+          }
+        });
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+    }
+
+    private void complete(List<Object> list) {
+      if (!one) {
+        future.complete(list);
+      } else if (list.size() > 1) {
+        future.completeExceptionally(new TooManyResultsException(
+            "Expected one result (or null) to be returned by selectOne(), but found: " + list.size()));
+      } else {
+        future.complete(list.isEmpty() ? null : list.get(0));
+      }
+    }
+  }
+
+}
@@ -49,7 +49,6 @@ public interface SqlSession extends Closeable {
     <T> Cursor<T> selectCursor(String statement, Object parameter);
     <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds);
 
-
     void select(String statement, Object parameter, ResultHandler handler);
     void select(String statement, ResultHandler handler);
     void select(String statement, Object parameter, RowBounds rowBounds, ResultHandler handler);
@@ -76,6 +75,20 @@ public interface SqlSession extends Closeable {
     <T> T getMapper(Class<T> type);
     Connection getConnection();
 
+    /**
+     * Opens another session from the {@link SqlSessionFactory} that opened this one, with the same executor type,
+     * auto-commit mode and isolation level, to run statements on another thread. The new session has its own
+     * transaction, independent of the transaction of this session.
+     *
+     * @return a new session, to be closed by the caller
+     * @throws UnsupportedOperationException
+     *           if this session was not opened by a {@link SqlSessionFactory}
+     * @since 3.5.6
+     */
+    default SqlSession openSiblingSession() {
+        throw new UnsupportedOperationException("This session was not opened by a SqlSessionFactory.");
+    }
+
 
     @Override
     void close();
@@ -17,6 +17,8 @@ package org.apache.ibatis.session;
 
 import java.sql.Connection;
 
+import org.apache.ibatis.cursor.CursorPublisher;
+
 /**
  * 用于获取{@link SqlSession}
  *
@@ -42,4 +44,34 @@ public interface SqlSessionFactory {
 
   Configuration getConfiguration();
 
+  /**
+   * Creates a {@link ParallelQuery} that runs several selects concurrently, each in its own session.
+   *
+   * @return a new parallel query
+   * @since 3.5.6
+   */
+  default ParallelQuery openParallel() {
+    return new ParallelQuery(this);
+  }
+
+  /**
+   * Streams the results of a select to a subscriber, fetching the rows as they are requested. Each subscription runs
+   * the select in its own session, opened by this factory and closed once the results are consumed or the
+   * subscription is cancelled.
+   *
+   * @since 3.5.6
+   * @see CursorPublisher
+   */
+  default <T> CursorPublisher<T> selectPublisher(String statement) {
+    return selectPublisher(statement, null);
+  }
+
+  default <T> CursorPublisher<T> selectPublisher(String statement, Object parameter) {
+    return selectPublisher(statement, parameter, RowBounds.DEFAULT);
+  }
+
+  default <T> CursorPublisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds) {
+    return new CursorPublisher<>(this, statement, parameter, rowBounds);
+  }
+
 }
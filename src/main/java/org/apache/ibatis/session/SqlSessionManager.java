@@ -270,6 +270,21 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSession.getConnection();
   }
 
+  /**
+   * Opens a sibling of the managed session of this thread, or a new session from the wrapped factory when no managed
+   * session is started.
+   *
+   * @since 3.5.6
+   */
+  @Override
+  public SqlSession openSiblingSession() {
+    final SqlSession sqlSession = localSqlSession.get();
+    if (sqlSession != null) {
+      return sqlSession.openSiblingSession();
+    }
+    return openSession();
+  }
+
   @Override
   public void clearCache() {
     final SqlSession sqlSession = localSqlSession.get();
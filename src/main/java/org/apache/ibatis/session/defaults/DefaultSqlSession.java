@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.apache.ibatis.binding.BindingException;
 import org.apache.ibatis.cursor.Cursor;
@@ -51,14 +52,26 @@ public class DefaultSqlSession implements SqlSession {
   private final Executor executor;
 
   private final boolean autoCommit;
+  private final Supplier<SqlSession> siblingSessionOpener;
   private boolean dirty;
   private List<Cursor<?>> cursorList;
 
   public DefaultSqlSession(Configuration configuration, Executor executor, boolean autoCommit) {
+    this(configuration, executor, autoCommit, null);
+  }
+
+  /**
+   * @param siblingSessionOpener
+   *          opens the sessions returned by {@link #openSiblingSession()}, {@code null} if this session cannot open
+   *          any
+   * @since 3.5.6
+   */
+  public DefaultSqlSession(Configuration configuration, Executor executor, boolean autoCommit, Supplier<SqlSession> siblingSessionOpener) {
     this.configuration = configuration;
     this.executor = executor;
     this.dirty = false;
     this.autoCommit = autoCommit;
+    this.siblingSessionOpener = siblingSessionOpener;
   }
 
   public DefaultSqlSession(Configuration configuration, Executor executor) {
@@ -300,6 +313,14 @@ public class DefaultSqlSession implements SqlSession {
     return configuration.getMapper(type, this);
   }
 
+  @Override
+  public SqlSession openSiblingSession() {
+    if (siblingSessionOpener == null) {
+      return SqlSession.super.openSiblingSession();
+    }
+    return siblingSessionOpener.get();
+  }
+
   @Override
   public Connection getConnection() {
     try {
@@ -109,8 +109,8 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
             tx = transactionFactory.newTransaction(environment.getDataSource(), level, autoCommit);
             // 通过全局配置对象Configuration创建出Executor实例,
             final Executor executor = configuration.newExecutor(tx, execType);
-            // 最后new一个DefaultSqlSession实例
-            return new DefaultSqlSession(configuration, executor, autoCommit);
+            // 最后new一个DefaultSqlSession实例, 它可以从本工厂打开同样设置的会话(例如在其它线程执行语句)
+            return new DefaultSqlSession(configuration, executor, autoCommit, () -> openSiblingSession(execType, level, autoCommit));
         } catch (Exception e) {
             closeTransaction(tx); // may have fetched a connection so lets call close()
             throw ExceptionFactory.wrapException("Error opening session.  Cause: " + e, e);
@@ -140,7 +140,9 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
             final TransactionFactory transactionFactory = getTransactionFactoryFromEnvironment(environment);
             final Transaction tx = transactionFactory.newTransaction(connection);
             final Executor executor = configuration.newExecutor(tx, execType);
-            return new DefaultSqlSession(configuration, executor, autoCommit);
+            // 连接不能在线程间共享, 同样设置的会话从数据源获取连接
+            final boolean siblingAutoCommit = autoCommit;
+            return new DefaultSqlSession(configuration, executor, autoCommit, () -> openSiblingSession(execType, null, siblingAutoCommit));
         } catch (Exception e) {
             throw ExceptionFactory.wrapException("Error opening session.  Cause: " + e, e);
         } finally {
@@ -148,6 +150,14 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
         }
     }
 
+    /**
+     * 通过公开的openSession方法打开, 以便子类的定制同样生效
+     */
+    private SqlSession openSiblingSession(ExecutorType execType, TransactionIsolationLevel level, boolean autoCommit) {
+        // 指定事务等级的会话都不自动提交
+        return level == null ? openSession(execType, autoCommit) : openSession(execType, level);
+    }
+
     private TransactionFactory getTransactionFactoryFromEnvironment(Environment environment) {
         // 如果未配置环境(与spring整合), 或者事务工厂为null
         if (environment == null || environment.getTransactionFactory() == null) {
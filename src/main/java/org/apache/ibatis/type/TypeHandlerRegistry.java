@@ -62,7 +62,7 @@ public final class TypeHandlerRegistry {
     private final Map<JdbcType, TypeHandler<?>> jdbcTypeHandlerMap = new EnumMap<>(JdbcType.class);
     private final Map<Type, Map<JdbcType, TypeHandler<?>>> typeHandlerMap = new ConcurrentHashMap<>();
     private final TypeHandler<Object> unknownTypeHandler;
-    private final Map<Class<?>, TypeHandler<?>> allTypeHandlersMap = new HashMap<>();
+    private final Map<Class<?>, TypeHandler<?>> allTypeHandlersMap = new ConcurrentHashMap<>();
     private Class<? extends TypeHandler> defaultEnumTypeHandler = EnumTypeHandler.class;
 
     /**
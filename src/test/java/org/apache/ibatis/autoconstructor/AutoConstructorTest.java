@@ -19,6 +19,8 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.Reader;
+import java.sql.Connection;
+import java.sql.Statement;
 import java.util.List;
 
 import org.apache.ibatis.BaseDataTest;
@@ -44,6 +46,14 @@ class AutoConstructorTest {
     // populate in-memory database
     BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
         "org/apache/ibatis/autoconstructor/CreateDB.sql");
+    // the statement separators of the body cannot go through the script runner
+    try (Connection conn = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource().getConnection();
+        Statement stmt = conn.createStatement()) {
+      stmt.execute("CREATE PROCEDURE get_shaped_subjects() READS SQL DATA DYNAMIC RESULT SETS 2 BEGIN ATOMIC"
+          + " DECLARE names CURSOR WITH RETURN FOR SELECT id, name FROM subject ORDER BY id, name FOR READ ONLY;"
+          + " DECLARE ages CURSOR WITH RETURN FOR SELECT name, id, age FROM subject ORDER BY id, name FOR READ ONLY;"
+          + " OPEN names; OPEN ages; END");
+    }
   }
 
   @Test
@@ -87,6 +97,20 @@ class AutoConstructorTest {
     }
   }
 
+  @Test
+  void shapedSubjects() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      final AutoConstructorMapper mapper = sqlSession.getMapper(AutoConstructorMapper.class);
+      // the same type is created from two result sets with other columns, so by other constructors
+      final List<List<ShapedSubject>> subjects = mapper.getShapedSubjects();
+      Assertions.assertThat(subjects).hasSize(2);
+      Assertions.assertThat(subjects.get(0)).extracting(ShapedSubject::getId, ShapedSubject::getName, ShapedSubject::getAge)
+          .containsExactly(Assertions.tuple(1, "a", 0), Assertions.tuple(2, "b", 0), Assertions.tuple(2, "c", 0));
+      Assertions.assertThat(subjects.get(1)).extracting(ShapedSubject::getId, ShapedSubject::getName, ShapedSubject::getAge)
+          .containsExactly(Assertions.tuple(1, "a", 10), Assertions.tuple(2, "b", 10), Assertions.tuple(2, "c", 10));
+    }
+  }
+
   private void verifySubjects(final List<?> subjects) {
     assertNotNull(subjects);
     Assertions.assertThat(subjects.size()).isEqualTo(3);
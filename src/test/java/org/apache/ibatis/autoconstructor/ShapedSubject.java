@@ -0,0 +1,44 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.autoconstructor;
+
+public class ShapedSubject {
+  private final int id;
+  private final String name;
+  private final int age;
+
+  public ShapedSubject(final int id, final String name) {
+    this(name, id, 0);
+  }
+
+  public ShapedSubject(final String name, final int id, final int age) {
+    this.id = id;
+    this.name = name;
+    this.age = age;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getAge() {
+    return age;
+  }
+}
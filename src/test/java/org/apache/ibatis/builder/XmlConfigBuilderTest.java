@@ -23,7 +23,9 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.BufferedReader;
 import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringReader;
 import java.math.RoundingMode;
 import java.sql.CallableStatement;
@@ -33,6 +35,7 @@ import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Properties;
+import java.util.stream.Collectors;
 
 import org.apache.ibatis.builder.mapper.CustomMapper;
 import org.apache.ibatis.builder.typehandler.CustomIntegerTypeHandler;
@@ -49,6 +52,8 @@ import org.apache.ibatis.io.JBoss6VFS;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.logging.slf4j.Slf4jImpl;
 import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultSetType;
 import org.apache.ibatis.scripting.defaults.RawLanguageDriver;
 import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
@@ -102,6 +107,16 @@ class XmlConfigBuilderTest {
       assertThat(config.getTypeHandlerRegistry().getTypeHandler(RoundingMode.class)).isInstanceOf(EnumTypeHandler.class);
       assertThat(config.isShrinkWhitespacesInSql()).isFalse();
       assertThat(config.getDefaultSqlProviderType()).isNull();
+      assertThat(config.getDynamicSqlCacheSize()).isZero();
+      assertThat(config.isCompiledRowMappingEnabled()).isFalse();
+      assertThat(config.getMaximumCacheWeight()).isZero();
+      assertThat(config.getBatchFetchSize()).isEqualTo(100);
+      assertThat(config.getMultiRowInsertSize()).isEqualTo(100);
+      assertThat(config.getBatchMaxStatements()).isEqualTo(32);
+      assertThat(config.getBatchFlushRows()).isEqualTo(1000);
+      assertThat(config.getBatchFlushBytes()).isZero();
+      assertThat(config.getReuseStatementCacheSize()).isZero();
+      assertThat(config.isParallelMapperParsing()).isFalse();
     }
   }
 
@@ -198,6 +213,16 @@ class XmlConfigBuilderTest {
       assertThat(config.getConfigurationFactory().getName()).isEqualTo(String.class.getName());
       assertThat(config.isShrinkWhitespacesInSql()).isTrue();
       assertThat(config.getDefaultSqlProviderType().getName()).isEqualTo(MySqlProvider.class.getName());
+      assertThat(config.getDynamicSqlCacheSize()).isEqualTo(50);
+      assertThat(config.isCompiledRowMappingEnabled()).isTrue();
+      assertThat(config.getMaximumCacheWeight()).isEqualTo(67108864L);
+      assertThat(config.getBatchFetchSize()).isEqualTo(50);
+      assertThat(config.getMultiRowInsertSize()).isEqualTo(25);
+      assertThat(config.getBatchMaxStatements()).isEqualTo(8);
+      assertThat(config.getBatchFlushRows()).isEqualTo(500);
+      assertThat(config.getBatchFlushBytes()).isEqualTo(1048576L);
+      assertThat(config.getReuseStatementCacheSize()).isEqualTo(64);
+      assertThat(config.isParallelMapperParsing()).isTrue();
 
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blogauthor")).isEqualTo(Author.class);
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blog")).isEqualTo(Blog.class);
@@ -306,6 +331,146 @@ class XmlConfigBuilderTest {
       .hasMessageContaining("The properties element cannot specify both a URL and a resource based property file reference.  Please specify one or the other.");
   }
 
+  @Test
+  void parallelMapperParsingBuildsSameMappers() throws Exception {
+    String resource = "org/apache/ibatis/builder/MapperConfig.xml";
+    Configuration sequential;
+    try (InputStream inputStream = Resources.getResourceAsStream(resource)) {
+      sequential = new XMLConfigBuilder(inputStream).parse();
+    }
+    String mapperConfig;
+    try (Reader reader = Resources.getResourceAsReader(resource)) {
+      mapperConfig = new BufferedReader(reader).lines().collect(Collectors.joining("\n"))
+          .replace("<settings>", "<settings>\n    <setting name=\"parallelMapperParsing\" value=\"true\"/>");
+    }
+    Configuration parallel = new XMLConfigBuilder(new StringReader(mapperConfig)).parse();
+
+    assertThat(parallel.isParallelMapperParsing()).isTrue();
+    assertSameMappers(parallel, sequential);
+  }
+
+  @Test
+  void parallelMapperParsingBuildsSameMappersFromPackagesClassesAndUrls() throws Exception {
+    String resource = "org/apache/ibatis/builder/CustomizedSettingsMapperConfig.xml";
+    Configuration parallel;
+    try (InputStream inputStream = Resources.getResourceAsStream(resource)) {
+      parallel = new XMLConfigBuilder(inputStream).parse();
+    }
+    String mapperConfig;
+    try (Reader reader = Resources.getResourceAsReader(resource)) {
+      mapperConfig = new BufferedReader(reader).lines().collect(Collectors.joining("\n"))
+          .replace("<setting name=\"parallelMapperParsing\" value=\"true\"/>", "");
+    }
+    Configuration sequential = new XMLConfigBuilder(new StringReader(mapperConfig)).parse();
+
+    assertThat(parallel.isParallelMapperParsing()).isTrue();
+    assertThat(sequential.isParallelMapperParsing()).isFalse();
+    assertSameMappers(parallel, sequential);
+  }
+
+  @Test
+  void parallelMapperParsingResolvesReferencesBetweenMappers() throws Exception {
+    final String mappers = "    <mapper resource=\"org/apache/ibatis/builder/parallel/FirstMapper.xml\"/>\n"
+        + "    <mapper resource=\"org/apache/ibatis/builder/parallel/SecondMapper.xml\"/>\n"
+        + "    <mapper resource=\"org/apache/ibatis/builder/parallel/ThirdMapper.xml\"/>\n"
+        + "    <mapper resource=\"org/apache/ibatis/builder/parallel/FirstMapper.xml\"/>\n"
+        + "    <mapper class=\"org.apache.ibatis.builder.CachedAuthorMapper\"/>\n"
+        + "    <package name=\"org.apache.ibatis.builder.mapper\"/>\n";
+    Configuration sequential = parseMappers(mappers, false);
+    Configuration parallel = parseMappers(mappers, true);
+
+    assertSameMappers(parallel, sequential);
+    String namespace = "org.apache.ibatis.builder.parallel.";
+    assertThat(parallel.getMappedStatement(namespace + "Second.selectAuthorWithEmail").getCache())
+        .isSameAs(parallel.getCache(namespace + "First"));
+    assertThat(parallel.getResultMap(namespace + "Second.authorWithEmail").getMappedProperties())
+        .containsExactlyInAnyOrder("id", "username", "email");
+    assertThat(parallel.getResultMap(namespace + "First.authorWithBio").getMappedProperties())
+        .containsExactlyInAnyOrder("id", "bio");
+    assertThat(parallel.getResultMap(namespace + "First.blog").hasNestedResultMaps()).isTrue();
+    assertThat(parallel.hasKeyGenerator(namespace + "Second.insertAuthor!selectKey")).isTrue();
+    assertThat(parallel.getMapperRegistry().getMappers()).contains(CachedAuthorMapper.class, CustomMapper.class);
+  }
+
+  @Test
+  void parallelMapperParsingReportsSameErrorAsSequentialParsing() {
+    final String mappers = "    <mapper resource=\"org/apache/ibatis/builder/parallel/FirstMapper.xml\"/>\n"
+        + "    <mapper resource=\"org/apache/ibatis/builder/parallel/DuplicateStatementMapper.xml\"/>\n"
+        + "    <mapper resource=\"org/apache/ibatis/builder/parallel/SecondMapper.xml\"/>\n";
+
+    when(() -> parseMappers(mappers, false));
+    Exception sequential = caughtException();
+    when(() -> parseMappers(mappers, true));
+    then(caughtException()).isInstanceOf(BuilderException.class)
+      .hasMessageContaining("Mapped Statements collection already contains value for org.apache.ibatis.builder.parallel.First.selectBlog")
+      .hasMessage(sequential.getMessage());
+  }
+
+  @Test
+  void parallelMapperParsingReportsFirstErrorInDeclarationOrder() {
+    final String MAPPER_CONFIG = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+            + "<!DOCTYPE configuration PUBLIC \"-//mybatis.org//DTD Config 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-config.dtd\">\n"
+            + "<configuration>\n"
+            + "  <settings>\n"
+            + "    <setting name=\"parallelMapperParsing\" value=\"true\"/>\n"
+            + "  </settings>\n"
+            + "  <mappers>\n"
+            + "    <mapper resource=\"a/b/c/Missing.xml\"/>\n"
+            + "    <mapper class=\"a.b.c.MissingMapper\"/>\n"
+            + "    <mapper resource=\"a/b/c/Foo.xml\" url=\"file:./a/b/c/Foo.xml\"/>\n"
+            + "  </mappers>\n"
+            + "</configuration>\n";
+
+    XMLConfigBuilder builder = new XMLConfigBuilder(new StringReader(MAPPER_CONFIG));
+    when(builder::parse);
+    then(caughtException()).isInstanceOf(BuilderException.class)
+      .hasMessageContaining("Could not find resource a/b/c/Missing.xml");
+  }
+
+  private static Configuration parseMappers(String mappers, boolean parallelMapperParsing) {
+    final String MAPPER_CONFIG = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+            + "<!DOCTYPE configuration PUBLIC \"-//mybatis.org//DTD Config 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-config.dtd\">\n"
+            + "<configuration>\n"
+            + "  <settings>\n"
+            + "    <setting name=\"parallelMapperParsing\" value=\"" + parallelMapperParsing + "\"/>\n"
+            + "  </settings>\n"
+            + "  <mappers>\n"
+            + mappers
+            + "  </mappers>\n"
+            + "</configuration>\n";
+    return new XMLConfigBuilder(new StringReader(MAPPER_CONFIG)).parse();
+  }
+
+  private static void assertSameMappers(Configuration actual, Configuration expected) {
+    assertThat(actual.getMappedStatementNames()).containsExactlyInAnyOrderElementsOf(expected.getMappedStatementNames());
+    assertThat(actual.getResultMapNames()).containsExactlyInAnyOrderElementsOf(expected.getResultMapNames());
+    assertThat(actual.getCacheNames()).containsExactlyInAnyOrderElementsOf(expected.getCacheNames());
+    assertThat(actual.getKeyGeneratorNames()).containsExactlyInAnyOrderElementsOf(expected.getKeyGeneratorNames());
+    assertThat(actual.getMapperRegistry().getMappers()).containsExactlyInAnyOrderElementsOf(expected.getMapperRegistry().getMappers());
+    // short names may be ambiguous
+    expected.getMappedStatementNames().stream().filter(id -> id.contains(".")).forEach(id -> {
+      MappedStatement expectedStatement = expected.getMappedStatement(id);
+      MappedStatement actualStatement = actual.getMappedStatement(id);
+      assertThat(actualStatement.getResultMaps()).extracting(ResultMap::getId)
+          .containsExactlyElementsOf(expectedStatement.getResultMaps().stream().map(ResultMap::getId).collect(Collectors.toList()));
+      assertThat(actualStatement.hasNestedResultMaps()).as(id).isEqualTo(expectedStatement.hasNestedResultMaps());
+      assertThat(actualStatement.getCache() == null ? null : actualStatement.getCache().getId()).as(id)
+          .isEqualTo(expectedStatement.getCache() == null ? null : expectedStatement.getCache().getId());
+      assertThat(actualStatement.getKeyGenerator()).as(id).hasSameClassAs(expectedStatement.getKeyGenerator());
+    });
+    expected.getResultMapNames().stream().filter(id -> id.contains(".")).forEach(id -> {
+      ResultMap expectedResultMap = expected.getResultMap(id);
+      ResultMap actualResultMap = actual.getResultMap(id);
+      assertThat(actualResultMap.getMappedProperties()).as(id).isEqualTo(expectedResultMap.getMappedProperties());
+      assertThat(actualResultMap.getMappedColumns()).as(id).isEqualTo(expectedResultMap.getMappedColumns());
+      assertThat(actualResultMap.hasNestedResultMaps()).as(id).isEqualTo(expectedResultMap.hasNestedResultMaps());
+    });
+    assertThat(actual.getIncompleteStatements()).isEmpty();
+    assertThat(actual.getIncompleteResultMaps()).isEmpty();
+    assertThat(actual.getIncompleteCacheRefs()).isEmpty();
+    assertThat(actual.getIncompleteMethods()).isEmpty();
+  }
+
   static class MySqlProvider {
     @SuppressWarnings("unused")
     public static String provideSql() {
@@ -16,12 +16,16 @@
 package org.apache.ibatis.builder.xml.dynamic;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,7 +33,9 @@ import java.util.Map;
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.scripting.xmltags.ChooseSqlNode;
+import org.apache.ibatis.scripting.xmltags.CompiledSqlCache;
 import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
 import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
 import org.apache.ibatis.scripting.xmltags.IfSqlNode;
@@ -399,6 +405,124 @@ class DynamicSqlSourceTest extends BaseDataTest {
     Assertions.assertEquals("id=", sql);
   }
 
+  @Test
+  void shouldReuseParsedSqlWhenTheSameBranchesAreTaken() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlCacheSize(10);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new TextSqlNode("SELECT * FROM BLOG"),
+        new IfSqlNode(mixedContents(new TextSqlNode("WHERE ID = #{id}")), "id != null")));
+    CompiledSqlCache cache = source.getCompiledSqlCache();
+
+    BoundSql first = source.getBoundSql(new Bean("1"));
+    BoundSql second = source.getBoundSql(new Bean("2"));
+    BoundSql third = source.getBoundSql(new Bean(null));
+
+    assertEquals("SELECT * FROM BLOG WHERE ID = ?", second.getSql());
+    assertSame(first.getParameterMappings(), second.getParameterMappings());
+    assertEquals("SELECT * FROM BLOG", third.getSql());
+    assertEquals(0, third.getParameterMappings().size());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+    assertEquals(2, cache.getSize());
+  }
+
+  @Test
+  void shouldNotReuseParsedSqlWhenBindingTypesDiffer() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlCacheSize(10);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(configuration, mixedContents(new TextSqlNode("#{item}")), "list", null, "item", "(", ")", ",")));
+    CompiledSqlCache cache = source.getCompiledSqlCache();
+
+    BoundSql integers = source.getBoundSql(Collections.singletonMap("list", Arrays.asList(1, 2)));
+    BoundSql strings = source.getBoundSql(Collections.singletonMap("list", Arrays.asList("1", "2")));
+    BoundSql moreStrings = source.getBoundSql(Collections.singletonMap("list", Arrays.asList("3", "4")));
+
+    assertEquals(Integer.class, integers.getParameterMappings().get(0).getJavaType());
+    assertEquals(String.class, strings.getParameterMappings().get(0).getJavaType());
+    assertEquals(String.class, moreStrings.getParameterMappings().get(0).getJavaType());
+    assertEquals("3", moreStrings.getAdditionalParameter("__frch_item_0"));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  void shouldBoundTheNumberOfCachedSqlShapes() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlCacheSize(2);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new TextSqlNode("SELECT * FROM BLOG ORDER BY ${column}")));
+    for (String column : Arrays.asList("ID", "TITLE", "AUTHOR_ID", "CONTENT")) {
+      source.getBoundSql(Collections.singletonMap("column", column));
+    }
+    assertEquals(2, source.getCompiledSqlCache().getSize());
+    assertEquals(4, source.getCompiledSqlCache().getMissCount());
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedSqlShape() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlCacheSize(2);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new TextSqlNode("SELECT * FROM BLOG ORDER BY ${column}")));
+    CompiledSqlCache cache = source.getCompiledSqlCache();
+    for (String column : Arrays.asList("ID", "TITLE", "ID", "AUTHOR_ID", "ID", "TITLE")) {
+      source.getBoundSql(Collections.singletonMap("column", column));
+    }
+    // TITLE was evicted by AUTHOR_ID, as ID had been used since
+    assertEquals(2, cache.getSize());
+    assertEquals(2, cache.getHitCount());
+    assertEquals(4, cache.getMissCount());
+  }
+
+  @Test
+  void shouldNotHandOutModifiableCachedParameterMappings() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlCacheSize(10);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new TextSqlNode("SELECT * FROM BLOG WHERE ID = #{id}")));
+    ParameterMapping extra = new ParameterMapping.Builder(configuration, "id", String.class).build();
+
+    List<ParameterMapping> parsed = source.getBoundSql(new Bean("1")).getParameterMappings();
+    List<ParameterMapping> cached = source.getBoundSql(new Bean("2")).getParameterMappings();
+
+    assertThrows(UnsupportedOperationException.class, () -> parsed.add(extra));
+    assertThrows(UnsupportedOperationException.class, () -> cached.add(extra));
+    assertEquals(1, source.getCompiledSqlCache().getHitCount());
+  }
+
+  @Test
+  void shouldNotReuseParsedSqlWhenNestedBindingTypesDiffer() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlCacheSize(10);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new TextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(configuration, mixedContents(new TextSqlNode("#{item.id}")), "list", null, "item", "(", ")", ",")));
+    CompiledSqlCache cache = source.getCompiledSqlCache();
+
+    BoundSql integers = source.getBoundSql(Collections.singletonMap("list",
+        Collections.singletonList(Collections.singletonMap("id", 1))));
+    BoundSql strings = source.getBoundSql(Collections.singletonMap("list",
+        Collections.singletonList(Collections.singletonMap("id", "1"))));
+    BoundSql beans = source.getBoundSql(Collections.singletonMap("list", Collections.singletonList(new Bean("1"))));
+    BoundSql moreBeans = source.getBoundSql(Collections.singletonMap("list", Collections.singletonList(new Bean("2"))));
+
+    assertEquals(Integer.class, integers.getParameterMappings().get(0).getJavaType());
+    assertEquals(String.class, strings.getParameterMappings().get(0).getJavaType());
+    assertEquals(String.class, beans.getParameterMappings().get(0).getJavaType());
+    assertSame(beans.getParameterMappings(), moreBeans.getParameterMappings());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(3, cache.getMissCount());
+  }
+
+  @Test
+  void shouldNotCacheParsedSqlByDefault() {
+    DynamicSqlSource source = new DynamicSqlSource(new Configuration(), mixedContents(new TextSqlNode("SELECT * FROM BLOG")));
+    assertNull(source.getCompiledSqlCache());
+  }
+
   public static class Bean {
     public String id;
     Bean(String property) {
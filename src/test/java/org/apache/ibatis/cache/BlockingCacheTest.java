@@ -0,0 +1,119 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+
+class BlockingCacheTest {
+
+  @Test
+  void shouldDropLocksOfLoadedKeys() {
+    BlockingCache cache = new BlockingCache(new LruCache(new PerpetualCache("default")));
+    for (int i = 0; i < 1_000_000; i++) {
+      assertNull(cache.getObject(i));
+      cache.putObject(i, i);
+    }
+    assertEquals(0, cache.getLockCount());
+  }
+
+  @Test
+  void shouldDropLocksReleasedOnRollback() {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    for (int i = 0; i < 1000; i++) {
+      assertNull(cache.getObject(i));
+      cache.removeObject(i);
+    }
+    assertEquals(0, cache.getLockCount());
+  }
+
+  @Test
+  void shouldNotAllocateLocksWhenStriped() {
+    BlockingCache cache = new BlockingCache(new LruCache(new PerpetualCache("default")));
+    cache.setLockStripes(64);
+    for (int i = 0; i < 1_000_000; i++) {
+      assertNull(cache.getObject(i));
+      cache.putObject(i, i);
+    }
+    assertEquals(64, cache.getLockCount());
+  }
+
+  @Test
+  void shouldBlockOtherThreadsUntilKeyIsLoaded() throws Exception {
+    for (int stripes : new int[] { 0, 16 }) {
+      BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+      cache.setLockStripes(stripes);
+      assertNull(cache.getObject("key"));
+      CountDownLatch started = new CountDownLatch(1);
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+        Future<Object> waiting = executor.submit(() -> {
+          started.countDown();
+          return cache.getObject("key");
+        });
+        started.await();
+        Thread.sleep(100);
+        assertFalse(waiting.isDone());
+        cache.putObject("key", "value");
+        assertEquals("value", waiting.get(5, TimeUnit.SECONDS));
+      } finally {
+        executor.shutdownNow();
+      }
+      assertEquals(stripes, cache.getLockCount());
+    }
+  }
+
+  @Test
+  void shouldReleaseReferenceWhenLockTimesOut() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    cache.setTimeout(50);
+    assertNull(cache.getObject("key"));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> waiting = executor.submit(() -> cache.getObject("key"));
+      Exception e = assertThrows(Exception.class, () -> waiting.get(5, TimeUnit.SECONDS));
+      assertTrue(e.getCause() instanceof CacheException);
+    } finally {
+      executor.shutdownNow();
+    }
+    cache.putObject("key", "value");
+    assertEquals(0, cache.getLockCount());
+  }
+
+  @Test
+  void shouldConfigureLocksFromCacheProperties() {
+    Properties props = new Properties();
+    props.setProperty("lockStripes", "32");
+    props.setProperty("timeout", "1000");
+    Cache cache = new CacheBuilder("default").blocking(true).properties(props).build();
+    BlockingCache blockingCache = (BlockingCache) cache;
+    assertEquals(32, blockingCache.getLockStripes());
+    assertEquals(1000, blockingCache.getTimeout());
+  }
+
+}
@@ -111,4 +111,38 @@ class CacheKeyTest {
       return (T) new ObjectInputStream(bais).readObject();
   }
 
+  @Test
+  void shouldGrowBeyondExpectedUpdateCount() {
+    CacheKey key1 = new CacheKey(2);
+    CacheKey key2 = new CacheKey();
+    for (int i = 0; i < 100; i++) {
+      key1.update(i);
+      key2.update(i);
+    }
+    assertEquals(100, key1.getUpdateCount());
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+    assertEquals(key1.toString(), key2.toString());
+  }
+
+  @Test
+  void shouldCompareComponentsWhenHashesCollide() {
+    // "Aa" and "BB" have the same hash code
+    CacheKey key1 = new CacheKey(new Object[] { "select", "Aa" });
+    CacheKey key2 = new CacheKey(new Object[] { "select", "BB" });
+    assertEquals(key1.hashCode(), key2.hashCode());
+    assertNotEquals(key1, key2);
+  }
+
+  @Test
+  void shouldUpdateClonedKeyIndependently() throws Exception {
+    CacheKey key = new CacheKey(new Object[] { 1, "hello" });
+    CacheKey clone = key.clone();
+    assertEquals(key, clone);
+    clone.update("world");
+    assertNotEquals(key, clone);
+    assertEquals(2, key.getUpdateCount());
+    assertEquals(new CacheKey(new Object[] { 1, "hello", "world" }), clone);
+  }
+
 }
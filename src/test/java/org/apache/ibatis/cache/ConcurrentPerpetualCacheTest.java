@@ -0,0 +1,131 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.decorators.FifoCache;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.ScheduledCache;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.decorators.SoftCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentPerpetualCacheTest {
+
+  @Test
+  void shouldDemonstrateHowAllObjectsAreKept() {
+    Cache cache = new ConcurrentPerpetualCache("default");
+    for (int i = 0; i < 100000; i++) {
+      cache.putObject(i, i);
+      assertEquals(i, cache.getObject(i));
+    }
+    assertEquals(100000, cache.getSize());
+  }
+
+  @Test
+  void shouldDemonstrateCopiesAreEqual() {
+    Cache cache = new ConcurrentPerpetualCache("default");
+    cache = new SerializedCache(cache);
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, i);
+      assertEquals(i, cache.getObject(i));
+    }
+  }
+
+  @Test
+  void shouldAcceptNullValues() {
+    Cache cache = new ConcurrentPerpetualCache("default");
+    cache.putObject(0, null);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getSize());
+    assertNull(cache.removeObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    Cache cache = new ConcurrentPerpetualCache("default");
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    assertEquals(0, cache.removeObject(0));
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new ConcurrentPerpetualCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+  }
+
+  @Test
+  void shouldReportThreadSafetyThroughDecorators() {
+    assertTrue(new ConcurrentPerpetualCache("default").isThreadSafe());
+    assertTrue(new LoggingCache(new SerializedCache(new ScheduledCache(
+        new LruCache(new ConcurrentPerpetualCache("default"))))).isThreadSafe());
+    assertTrue(new FifoCache(new ConcurrentPerpetualCache("default")).isThreadSafe());
+    assertFalse(new LruCache(new PerpetualCache("default")).isThreadSafe());
+    assertFalse(new SoftCache(new ConcurrentPerpetualCache("default")).isThreadSafe());
+  }
+
+  @Test
+  void shouldKeepLruAndFifoBoundedUnderConcurrentAccess() throws Exception {
+    LruCache lru = new LruCache(new ConcurrentPerpetualCache("lru"));
+    lru.setSize(100);
+    FifoCache fifo = new FifoCache(new ConcurrentPerpetualCache("fifo"));
+    fifo.setSize(100);
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int offset = t * 10000;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 10000; i++) {
+            Integer key = offset + i;
+            lru.putObject(key, key);
+            fifo.putObject(key, key);
+            lru.getObject(offset + i / 2);
+            fifo.getObject(offset + i / 2);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(100, lru.getSize());
+    assertEquals(100, fifo.getSize());
+  }
+
+}
@@ -0,0 +1,190 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.cache.impl.CompactSerializer;
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.apache.ibatis.domain.blog.Section;
+import org.junit.jupiter.api.Test;
+
+class OffHeapCacheTest {
+
+  @Test
+  void shouldReturnCopiesOfCachedItems() {
+    OffHeapCache cache = new OffHeapCache("default");
+    List<Order> orders = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      orders.add(new Order(i, "order" + i));
+    }
+    cache.putObject("key", orders);
+    @SuppressWarnings("unchecked")
+    List<Order> copy = (List<Order>) cache.getObject("key");
+    assertNotSame(orders, copy);
+    assertEquals(100, copy.size());
+    assertEquals(42, copy.get(42).id);
+    assertEquals("order42", copy.get(42).name);
+    assertNotSame(orders.get(42), copy.get(42));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    Cache cache = new OffHeapCache("default");
+    cache.putObject(0, 0);
+    assertEquals(0, cache.getObject(0));
+    assertEquals(0, cache.removeObject(0));
+    assertNull(cache.getObject(0));
+    assertNull(cache.removeObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new OffHeapCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    cache.clear();
+    for (int i = 0; i < 5; i++) {
+      assertNull(cache.getObject(i));
+    }
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldEvictOldestItemsWhenFull() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setSlabSize(1024);
+    cache.setCapacity(4096);
+    String value = new String(new char[100]).replace('\0', 'x');
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, value);
+    }
+    assertNull(cache.getObject(0));
+    assertEquals(value, cache.getObject(999));
+    assertTrue(cache.getSize() < 40, "size: " + cache.getSize());
+    assertEquals(4096, cache.getAllocatedBytes());
+  }
+
+  @Test
+  void shouldNotCacheItemsLargerThanASlab() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setSlabSize(1024);
+    cache.putObject("small", new byte[10]);
+    cache.putObject("large", new byte[2000]);
+    assertNotNull(cache.getObject("small"));
+    assertNull(cache.getObject("large"));
+  }
+
+  @Test
+  void shouldCopyCommonColumnTypes() {
+    CompactSerializer serializer = new CompactSerializer();
+    Timestamp timestamp = new Timestamp(1600000000123L);
+    timestamp.setNanos(123456789);
+    List<Object> values = new ArrayList<>(Arrays.asList(null, true, false, (byte) -1, (short) 300, -7, Long.MIN_VALUE,
+        1.5f, -2.25d, 'x', "", "ascii", "café 日本", new BigDecimal("-12345.6789"),
+        new BigInteger("123456789012345678901234567890"), new Date(1600000000000L), new java.sql.Date(1600000000000L),
+        new java.sql.Time(36000000L), timestamp, LocalDate.of(2020, 2, 29), LocalTime.of(23, 59, 59, 999),
+        LocalDateTime.of(1969, 7, 20, 20, 17), Instant.ofEpochSecond(-1, 5),
+        OffsetDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.ofHours(-5)), Section.NEWS));
+    Object copy = serializer.deserialize(serializer.serialize(values));
+    assertEquals(values, copy);
+    byte[] bytes = new byte[] { 1, 2, 3 };
+    assertArrayEquals(bytes, (byte[]) serializer.deserialize(serializer.serialize(bytes)));
+  }
+
+  @Test
+  void shouldPreserveSharedAndCircularReferences() {
+    CompactSerializer serializer = new CompactSerializer();
+    Customer customer = new Customer();
+    customer.name = "customer";
+    Order first = new Order(1, "first");
+    Order second = new Order(2, "second");
+    first.customer = customer;
+    second.customer = customer;
+    customer.orders = new ArrayList<>(Arrays.asList(first, second));
+    customer.attributes = new LinkedHashMap<>();
+    customer.attributes.put("favorite", first);
+    customer.cache = "not copied";
+
+    Customer copy = (Customer) serializer.deserialize(serializer.serialize(customer));
+    assertEquals("customer", copy.name);
+    assertEquals(2, copy.orders.size());
+    assertSame(copy, copy.orders.get(0).customer);
+    assertSame(copy, copy.orders.get(1).customer);
+    assertSame(copy.orders.get(0), copy.attributes.get("favorite"));
+    assertNull(copy.cache);
+  }
+
+  @Test
+  void shouldFallBackToJavaSerialization() {
+    CompactSerializer serializer = new CompactSerializer();
+    Map<String, Integer> map = new ConcurrentHashMap<>();
+    map.put("one", 1);
+    Object copy = serializer.deserialize(serializer.serialize(map));
+    assertEquals(ConcurrentHashMap.class, copy.getClass());
+    assertEquals(map, copy);
+  }
+
+  @Test
+  void shouldRejectNonSerializableObjects() {
+    CompactSerializer serializer = new CompactSerializer();
+    assertThrows(CacheException.class, () -> serializer.serialize(new Object()));
+  }
+
+  static class Order implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private int id;
+    private String name;
+    private Customer customer;
+
+    public Order() {
+    }
+
+    Order(int id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+  }
+
+  static class Customer implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private String name;
+    private List<Order> orders;
+    private Map<String, Order> attributes;
+    private transient String cache;
+  }
+
+}
@@ -0,0 +1,141 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class TinyLfuCacheTest {
+
+  @Test
+  void shouldNotExceedMaximumSize() {
+    TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+    cache.setSize(100);
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(100, cache.getSize());
+  }
+
+  @Test
+  void shouldKeepFrequentlyUsedItemsDuringScan() {
+    TinyLfuCache tinyLfu = new TinyLfuCache(new PerpetualCache("tinylfu"));
+    tinyLfu.setSize(100);
+    LruCache lru = new LruCache(new PerpetualCache("lru"));
+    lru.setSize(100);
+    for (Cache cache : new Cache[] { tinyLfu, lru }) {
+      for (int round = 0; round < 10; round++) {
+        for (int i = 0; i < 50; i++) {
+          if (cache.getObject(i) == null) {
+            cache.putObject(i, i);
+          }
+        }
+      }
+      // a report query reads 500 rows once
+      for (int i = 1000; i < 1500; i++) {
+        cache.putObject(i, i);
+      }
+    }
+    int tinyLfuHits = 0;
+    int lruHits = 0;
+    for (int i = 0; i < 50; i++) {
+      tinyLfuHits += tinyLfu.getObject(i) == null ? 0 : 1;
+      lruHits += lru.getObject(i) == null ? 0 : 1;
+    }
+    assertEquals(50, tinyLfuHits);
+    assertEquals(0, lruHits);
+  }
+
+  @Test
+  void shouldWorkWithOneEntry() {
+    TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+    cache.setSize(1);
+    for (int i = 0; i < 10; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(1, cache.getSize());
+    assertEquals(9, cache.getObject(9));
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    Cache cache = new TinyLfuCache(new PerpetualCache("default"));
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new TinyLfuCache(new PerpetualCache("default"));
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+  }
+
+  @Test
+  void shouldBeResolvedByAlias() {
+    assertEquals(TinyLfuCache.class, new Configuration().getTypeAliasRegistry().resolveAlias("TINYLFU"));
+  }
+
+  @Test
+  void shouldStayBoundedUnderConcurrentAccess() throws Exception {
+    TinyLfuCache cache = new TinyLfuCache(new ConcurrentPerpetualCache("default"));
+    cache.setSize(100);
+    assertTrue(cache.isThreadSafe());
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int offset = t * 10000;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 10000; i++) {
+            Integer key = offset + i;
+            cache.putObject(key, key);
+            cache.getObject(i % 200);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(100, cache.getSize());
+  }
+
+}
@@ -0,0 +1,200 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.junit.jupiter.api.Test;
+
+class WeightedCacheTest {
+
+  // weighs an entry by its value
+  private static final Weigher VALUE_WEIGHER = (key, value) -> (Integer) value;
+
+  @Test
+  void shouldEvictLeastRecentlyUsedItemsWhenOverweight() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.setWeigher(VALUE_WEIGHER);
+    cache.setMaximumWeight(100);
+    cache.putObject("a", 40);
+    cache.putObject("b", 40);
+    cache.getObject("a");
+    cache.putObject("c", 40);
+    assertEquals(40, cache.getObject("a"));
+    assertNull(cache.getObject("b"));
+    assertEquals(40, cache.getObject("c"));
+    assertEquals(80, cache.getWeight());
+  }
+
+  @Test
+  void shouldNotCacheItemsHeavierThanMaximumWeight() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.setWeigher(VALUE_WEIGHER);
+    cache.setMaximumWeight(100);
+    cache.putObject("a", 40);
+    cache.putObject("b", 101);
+    assertEquals(40, cache.getObject("a"));
+    assertNull(cache.getObject("b"));
+    assertEquals(40, cache.getWeight());
+  }
+
+  @Test
+  void shouldBoundTheNumberOfItems() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.setWeigher(VALUE_WEIGHER);
+    cache.setSize(5);
+    for (int i = 0; i < 10; i++) {
+      cache.putObject(i, 1);
+    }
+    assertEquals(5, cache.getSize());
+    assertEquals(5, cache.getWeight());
+  }
+
+  @Test
+  void shouldReleaseWeightOnRemoveReplaceAndClear() {
+    CacheWeightBudget budget = new CacheWeightBudget();
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.setWeigher(VALUE_WEIGHER);
+    cache.setWeightBudget(budget);
+    cache.putObject("a", 10);
+    cache.putObject("b", 20);
+    cache.putObject("b", 30);
+    assertEquals(40, cache.getWeight());
+    cache.removeObject("a");
+    assertEquals(30, cache.getWeight());
+    assertEquals(30, budget.getWeight());
+    cache.clear();
+    assertEquals(0, cache.getWeight());
+    assertEquals(0, budget.getWeight());
+  }
+
+  @Test
+  void shouldShareBudgetBetweenCaches() {
+    CacheWeightBudget budget = new CacheWeightBudget();
+    budget.setMaximumWeight(100);
+    WeightedCache first = new WeightedCache(new PerpetualCache("first"));
+    WeightedCache second = new WeightedCache(new PerpetualCache("second"));
+    for (WeightedCache cache : new WeightedCache[] { first, second }) {
+      cache.setWeigher(VALUE_WEIGHER);
+      cache.setWeightBudget(budget);
+    }
+    first.putObject("a", 60);
+    second.putObject("b", 30);
+    second.putObject("c", 30);
+    // both caches hold 60, the first one registered gives way
+    assertNull(first.getObject("a"));
+    assertEquals(30, second.getObject("b"));
+    assertEquals(30, second.getObject("c"));
+    assertEquals(60, budget.getWeight());
+    // an item heavier than the budget is not kept
+    second.putObject("d", 150);
+    assertNull(second.getObject("d"));
+    assertEquals(0, budget.getWeight());
+  }
+
+  @Test
+  void shouldChargeBudgetOverflowToHeaviestCache() {
+    CacheWeightBudget budget = new CacheWeightBudget();
+    budget.setMaximumWeight(100);
+    WeightedCache heavy = new WeightedCache(new PerpetualCache("heavy"));
+    WeightedCache light = new WeightedCache(new PerpetualCache("light"));
+    for (WeightedCache cache : new WeightedCache[] { heavy, light }) {
+      cache.setWeigher(VALUE_WEIGHER);
+      cache.setWeightBudget(budget);
+    }
+    heavy.putObject("h1", 40);
+    heavy.putObject("h2", 40);
+    light.putObject("l1", 10);
+    light.putObject("l2", 10);
+    // the light cache overflows the budget, the heavy cache gives way
+    light.putObject("l3", 10);
+    assertNull(heavy.getObject("h1"));
+    assertEquals(40, heavy.getObject("h2"));
+    assertEquals(3, light.getSize());
+    assertEquals(70, budget.getWeight());
+    // the heavy cache overflows the budget, it evicts its own items
+    heavy.putObject("h3", 40);
+    assertNull(heavy.getObject("h2"));
+    assertEquals(40, heavy.getObject("h3"));
+    assertEquals(3, light.getSize());
+    // an item heavier than the budget empties the heavy cache only
+    heavy.putObject("h4", 150);
+    assertEquals(0, heavy.getSize());
+    assertEquals(3, light.getSize());
+    assertEquals(30, budget.getWeight());
+  }
+
+  @Test
+  void shouldWeighResultsByRowCount() {
+    DefaultWeigher weigher = new DefaultWeigher();
+    List<Author> small = authors(10);
+    List<Author> large = authors(1000);
+    long smallWeight = weigher.weigh("key", small);
+    long largeWeight = weigher.weigh("key", large);
+    assertTrue(smallWeight > 10 * 100, "weight of 10 authors: " + smallWeight);
+    assertTrue(largeWeight > 90 * smallWeight, "weight of 1000 authors: " + largeWeight);
+    assertTrue(weigher.weigh("key", Collections.emptyList()) < smallWeight);
+    assertTrue(weigher.weigh("key", new byte[1000]) >= 1000);
+  }
+
+  @Test
+  void shouldBeBuiltFromCacheProperties() {
+    CacheWeightBudget budget = new CacheWeightBudget();
+    Properties props = new Properties();
+    props.setProperty("maximumWeight", "4096");
+    props.setProperty("weigherClass", FixedWeigher.class.getName());
+    Cache cache = new CacheBuilder("weighted")
+        .addDecorator(WeightedCache.class)
+        .properties(props)
+        .weightBudget(budget)
+        .build();
+    for (int i = 0; i < 10; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(4, cache.getSize());
+    assertEquals(4096, budget.getWeight());
+    Cache weighted = (Cache) SystemMetaObject.forObject(cache).getValue("delegate.delegate");
+    assertEquals(4096, ((WeightedCache) weighted).getMaximumWeight());
+  }
+
+  private static List<Author> authors(int count) {
+    List<Author> authors = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      authors.add(new Author(i, "author" + i, "password" + i, "author" + i + "@example.com", "bio of author " + i,
+          Section.NEWS));
+    }
+    return authors;
+  }
+
+  public static class FixedWeigher implements Weigher {
+    @Override
+    public long weigh(Object key, Object value) {
+      return 1024;
+    }
+  }
+
+}
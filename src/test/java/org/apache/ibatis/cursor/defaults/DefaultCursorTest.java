@@ -18,27 +18,34 @@ package org.apache.ibatis.cursor.defaults;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.when;
 
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Proxy;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetWrapper;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultFlag;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.mapping.SqlCommandType;
@@ -101,6 +108,130 @@ class DefaultCursorTest {
     }
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  void shouldStreamNestedResultsWithoutHoldingPreviousParents() throws Exception {
+    final int parentCount = 400_000;
+    final int childrenPerParent = 5;
+    final MappedStatement ms = getNestedMappedStatement();
+    final DefaultResultSetHandler resultSetHandler = new DefaultResultSetHandler(null, ms, null, null, null,
+      RowBounds.DEFAULT);
+    final Statement stmt = generatedStatement(parentCount, childrenPerParent);
+
+    final List<WeakReference<Object>> previousParents = new ArrayList<>();
+    int parents = 0;
+    try (Cursor<Map<String, Object>> cursor = resultSetHandler.handleCursorResultSets(stmt)) {
+      for (Map<String, Object> parent : cursor) {
+        assertEquals(parents, parent.get("id"));
+        List<Map<String, Object>> children = (List<Map<String, Object>>) parent.get("children");
+        assertEquals(childrenPerParent, children.size());
+        assertEquals(parents * childrenPerParent + childrenPerParent - 1, children.get(childrenPerParent - 1).get("childId"));
+        if (parents % 100_000 == 0) {
+          previousParents.add(new WeakReference<>(parent));
+        }
+        parents++;
+      }
+      assertTrue(cursor.isConsumed());
+    }
+    assertEquals(parentCount, parents);
+
+    // 2,000,000 rows were mapped, no parent is retained once it is returned
+    for (int i = 0; i < 10 && previousParents.stream().anyMatch(parent -> parent.get() != null); i++) {
+      System.gc();
+      Thread.sleep(50);
+    }
+    previousParents.forEach(parent -> assertNull(parent.get()));
+  }
+
+  @SuppressWarnings("serial")
+  private MappedStatement getNestedMappedStatement() {
+    final Configuration config = new Configuration();
+    final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
+
+    ResultMap childMap = new ResultMap.Builder(config, "childMap", HashMap.class, new ArrayList<ResultMapping>() {
+      {
+        add(new ResultMapping.Builder(config, "childId", "child_id", registry.getTypeHandler(Integer.class))
+          .flags(Collections.singletonList(ResultFlag.ID)).build());
+        add(new ResultMapping.Builder(config, "name", "name", registry.getTypeHandler(String.class)).build());
+      }
+    }).build();
+    config.addResultMap(childMap);
+
+    // resultOrdered is not set, the cursor relies on the rows being grouped by parent
+    return new MappedStatement.Builder(config, "selectParents", new StaticSqlSource(config, "select parents..."),
+      SqlCommandType.SELECT).resultMaps(
+        new ArrayList<ResultMap>() {
+          {
+            add(new ResultMap.Builder(config, "parentMap", HashMap.class, new ArrayList<ResultMapping>() {
+              {
+                add(new ResultMapping.Builder(config, "id", "id", registry.getTypeHandler(Integer.class))
+                  .flags(Collections.singletonList(ResultFlag.ID)).build());
+                add(new ResultMapping.Builder(config, "children").nestedResultMapId("childMap").javaType(List.class)
+                  .build());
+              }
+            }).build());
+          }
+        })
+        .build();
+  }
+
+  /*
+   * A statement whose result set generates the joined rows of parents and children, without keeping them.
+   */
+  private Statement generatedStatement(int parentCount, int childrenPerParent) {
+    final String[] columns = { "id", "child_id", "name" };
+    final int rowCount = parentCount * childrenPerParent;
+    final int[] row = { -1 };
+    final boolean[] closed = { false };
+    final ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+      new Class<?>[] { ResultSetMetaData.class }, (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "getColumnCount":
+            return columns.length;
+          case "getColumnLabel":
+          case "getColumnName":
+            return columns[(Integer) args[0] - 1];
+          case "getColumnType":
+            return (Integer) args[0] == 3 ? Types.VARCHAR : Types.INTEGER;
+          case "getColumnClassName":
+            return (Integer) args[0] == 3 ? String.class.getName() : Integer.class.getName();
+          default:
+            throw new UnsupportedOperationException(method.getName());
+        }
+      });
+    final ResultSet resultSet = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+      new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "next":
+            return ++row[0] < rowCount;
+          case "isClosed":
+            return closed[0];
+          case "close":
+            closed[0] = true;
+            return null;
+          case "getType":
+            return ResultSet.TYPE_FORWARD_ONLY;
+          case "getMetaData":
+            return metaData;
+          case "wasNull":
+            return false;
+          case "getInt":
+            return "id".equals(args[0]) ? row[0] / childrenPerParent : row[0];
+          case "getString":
+            return "child";
+          default:
+            throw new UnsupportedOperationException(method.getName());
+        }
+      });
+    return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Statement.class },
+      (proxy, method, args) -> {
+        if ("getResultSet".equals(method.getName())) {
+          return resultSet;
+        }
+        throw new UnsupportedOperationException(method.getName());
+      });
+  }
+
   @SuppressWarnings("serial")
   private MappedStatement getNestedAndOrderedMappedStatement() {
     final Configuration config = new Configuration();
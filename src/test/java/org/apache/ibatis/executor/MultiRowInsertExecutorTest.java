@@ -0,0 +1,50 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.apache.ibatis.transaction.Transaction;
+import org.junit.jupiter.api.Test;
+
+class MultiRowInsertExecutorTest extends BaseExecutorTest {
+
+  @Test
+  void shouldFindValuesOfInsertStatements() {
+    assertValuesAt("insert into t (a, b) values (?, ?)", "(?, ?)");
+    assertValuesAt("INSERT INTO t (a) VALUES\n  (?), (')'), (f(?, '('))", "(?), (')'), (f(?, '('))");
+    assertValuesAt("insert into t values(?)", "(?)");
+  }
+
+  @Test
+  void shouldNotFindValuesOfOtherStatements() {
+    assertEquals(-1, MultiRowInsertExecutor.valuesIndex("insert into t (a) select a from u"));
+    assertEquals(-1, MultiRowInsertExecutor.valuesIndex("insert into t (a) values (?) on conflict do nothing"));
+    assertEquals(-1, MultiRowInsertExecutor.valuesIndex("insert into t (a) values (?) returning id"));
+    assertEquals(-1, MultiRowInsertExecutor.valuesIndex("insert into t (a) values (?),"));
+    assertEquals(-1, MultiRowInsertExecutor.valuesIndex("insert into t (a) values (?"));
+    assertEquals(-1, MultiRowInsertExecutor.valuesIndex("update t set a = ?"));
+  }
+
+  private void assertValuesAt(String sql, String values) {
+    assertEquals(values, sql.substring(MultiRowInsertExecutor.valuesIndex(sql)));
+  }
+
+  @Override
+  protected Executor createExecutor(Transaction transaction) {
+    return new MultiRowInsertExecutor(config, transaction);
+  }
+}
@@ -15,7 +15,19 @@
  */
 package org.apache.ibatis.executor;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Post;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
 import org.junit.jupiter.api.Test;
 
 class ReuseExecutorTest extends BaseExecutorTest {
@@ -30,6 +42,80 @@ class ReuseExecutorTest extends BaseExecutorTest {
     super.shouldFetchPostWithBlogWithCompositeKey();
   }
 
+  @Test
+  void shouldCloseLeastRecentlyUsedStatements() throws Exception {
+    config.setReuseStatementCacheSize(2);
+    StatementCacheStatistics statistics = config.getReuseStatementCacheStatistics();
+    MappedStatement selectAuthor = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+    MappedStatement selectAuthors = ExecutorTestHelper.prepareSelectAllAuthorsAutoMappedStatement(config);
+    MappedStatement selectAuthor99 = ExecutorTestHelper.createSelectAuthorWithIDof99MappedStatement(config);
+    Executor executor = createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+    try {
+      executor.query(selectAuthor, 101, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      executor.query(selectAuthor, 102, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      executor.query(selectAuthors, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      // closes the statement of selectAuthor
+      executor.query(selectAuthor99, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      // closes the statement of selectAuthors
+      executor.query(selectAuthor, 103, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      executor.clearLocalCache();
+      executor.query(selectAuthor99, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(2, statistics.getHitCount());
+      assertEquals(4, statistics.getMissCount());
+      assertEquals(2, statistics.getEvictionCount());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldNotCloseStatementOfEnclosingQuery() throws Exception {
+    config.setReuseStatementCacheSize(1);
+    config.setLazyLoadingEnabled(false);
+    StatementCacheStatistics statistics = config.getReuseStatementCacheStatistics();
+    MappedStatement selectBlog = ExecutorTestHelper.prepareComplexSelectBlogMappedStatement(config);
+    MappedStatement selectPosts = ExecutorTestHelper.prepareSelectPostsForBlogMappedStatement(config);
+    config.addMappedStatement(selectBlog);
+    config.addMappedStatement(selectPosts);
+    Executor executor = createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+    try {
+      // the blog of the first post is selected while the result set of the posts is read
+      List<Post> posts = executor.query(selectPosts, 1, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(2, posts.size());
+      assertEquals(1, posts.get(1).getBlog().getId());
+      // the statement of the posts is closed once the query completes
+      assertEquals(1, statistics.getEvictionCount());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldNotCloseStatementOfOpenCursor() throws Exception {
+    config.setReuseStatementCacheSize(1);
+    MappedStatement selectAuthor = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+    MappedStatement selectAuthors = ExecutorTestHelper.prepareSelectAllAuthorsAutoMappedStatement(config);
+    MappedStatement selectAuthor99 = ExecutorTestHelper.createSelectAuthorWithIDof99MappedStatement(config);
+    Executor executor = createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+    try {
+      try (Cursor<Author> cursor = executor.queryCursor(selectAuthors, null, RowBounds.DEFAULT)) {
+        Iterator<Author> authors = cursor.iterator();
+        assertEquals(101, authors.next().getId());
+        // other statements, including one with the same SQL, do not close the result set of the cursor
+        executor.query(selectAuthor, 101, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+        executor.query(selectAuthor99, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+        assertEquals(2, executor.query(selectAuthors, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER).size());
+        assertEquals(102, authors.next().getId());
+        assertFalse(authors.hasNext());
+      }
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
   @Override
   protected Executor createExecutor(Transaction transaction) {
     return new ReuseExecutor(config,transaction);
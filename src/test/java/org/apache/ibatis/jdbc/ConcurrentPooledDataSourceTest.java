@@ -0,0 +1,241 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.jdbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.ConcurrentPooledDataSource;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.hsqldb.jdbc.JDBCConnection;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentPooledDataSourceTest extends BaseDataTest {
+
+  @Test
+  void shouldProperlyMaintainPoolOf3ActiveAnd2IdleConnections() throws Exception {
+    ConcurrentPooledDataSource ds = createConcurrentPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      runScript(ds, JPETSTORE_DDL);
+      ds.setDefaultAutoCommit(false);
+      ds.setDriverProperties(new Properties() {
+        {
+          setProperty("username", "sa");
+          setProperty("password", "");
+        }
+      });
+      ds.setPoolMaximumActiveConnections(3);
+      ds.setPoolMaximumIdleConnections(2);
+      ds.setPoolMaximumCheckoutTime(10000);
+      ds.setPoolPingConnectionsNotUsedFor(1);
+      ds.setPoolPingEnabled(true);
+      ds.setPoolPingQuery("SELECT * FROM PRODUCT");
+      ds.setPoolTimeToWait(10000);
+      ds.setLogWriter(null);
+      List<Connection> connections = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        connections.add(ds.getConnection());
+      }
+      assertEquals(3, ds.getPoolState().getActiveConnectionCount());
+      for (Connection c : connections) {
+        c.close();
+      }
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+      assertEquals(4, ds.getPoolState().getRequestCount());
+      assertEquals(0, ds.getPoolState().getBadConnectionCount());
+      assertEquals(0, ds.getPoolState().getHadToWaitCount());
+      assertEquals(0, ds.getPoolState().getAverageOverdueCheckoutTime());
+      assertEquals(0, ds.getPoolState().getClaimedOverdueConnectionCount());
+      assertEquals(0, ds.getPoolState().getAverageWaitTime());
+      assertNotNull(ds.getPoolState().toString());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldReuseTheConnectionLastReturnedByTheSameThread() throws Exception {
+    ConcurrentPooledDataSource ds = createConcurrentPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      Connection c1 = ds.getConnection();
+      Connection c2 = ds.getConnection();
+      Connection real2 = PooledDataSource.unwrapConnection(c2);
+      c1.close();
+      c2.close();
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+      Connection c3 = ds.getConnection();
+      assertSame(real2, PooledDataSource.unwrapConnection(c3));
+      c3.close();
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldHandOffReturnedConnectionToWaitingThread() throws Exception {
+    ConcurrentPooledDataSource ds = createConcurrentPooledDataSource(JPETSTORE_PROPERTIES);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      ds.setPoolMaximumActiveConnections(1);
+      ds.setPoolTimeToWait(10000);
+      Connection c1 = ds.getConnection();
+      CountDownLatch waiting = new CountDownLatch(1);
+      Future<Connection> future = executor.submit(() -> {
+        waiting.countDown();
+        return ds.getConnection();
+      });
+      waiting.await();
+      TimeUnit.MILLISECONDS.sleep(100);
+      c1.close();
+      Connection c2 = future.get(5, TimeUnit.SECONDS);
+      assertEquals(1, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(1, ds.getPoolState().getHadToWaitCount());
+      c2.close();
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldNotWaitOnReturnForWaiterThatIsNotBlocked() throws Exception {
+    ConcurrentPooledDataSource ds = createConcurrentPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      Connection c = ds.getConnection();
+      // a thread that counted itself as a waiter, but is not blocked on the hand-off queue
+      Field waitersField = ConcurrentPooledDataSource.class.getDeclaredField("waiters");
+      waitersField.setAccessible(true);
+      AtomicInteger waiters = (AtomicInteger) waitersField.get(ds);
+      waiters.incrementAndGet();
+      try {
+        assertTimeoutPreemptively(Duration.ofSeconds(5), c::close);
+      } finally {
+        waiters.decrementAndGet();
+      }
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldNeverExceedMaximumActiveConnectionsUnderContention() throws Exception {
+    ConcurrentPooledDataSource ds = createConcurrentPooledDataSource(JPETSTORE_PROPERTIES);
+    int threads = 16;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      ds.setPoolMaximumActiveConnections(4);
+      ds.setPoolMaximumIdleConnections(4);
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          int maxSeen = 0;
+          for (int j = 0; j < 200; j++) {
+            try (Connection c = ds.getConnection();
+                 PreparedStatement st = c.prepareStatement("VALUES(1)");
+                 ResultSet rs = st.executeQuery()) {
+              maxSeen = Math.max(maxSeen, ds.getPoolState().getActiveConnectionCount());
+              assertTrue(rs.next());
+            }
+          }
+          return maxSeen;
+        }));
+      }
+      for (Future<Integer> future : futures) {
+        assertTrue(future.get(30, TimeUnit.SECONDS) <= 4);
+      }
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertTrue(ds.getPoolState().getIdleConnectionCount() <= 4);
+      assertEquals(threads * 200, ds.getPoolState().getRequestCount());
+      assertEquals(0, ds.getPoolState().getBadConnectionCount());
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldNotFailCallingToStringOverAnInvalidConnection() throws Exception {
+    ConcurrentPooledDataSource ds = createConcurrentPooledDataSource(JPETSTORE_PROPERTIES);
+    Connection c = ds.getConnection();
+    c.close();
+    c.toString();
+  }
+
+  @Test
+  void ShouldReturnRealConnection() throws Exception {
+    ConcurrentPooledDataSource ds = createConcurrentPooledDataSource(JPETSTORE_PROPERTIES);
+    Connection c = ds.getConnection();
+    JDBCConnection realConnection = (JDBCConnection) PooledDataSource.unwrapConnection(c);
+    assertNotNull(realConnection);
+    c.close();
+  }
+
+  @Test
+  void shouldCloseRealConnectionWhenRollbackOnReturnFails() throws Exception {
+    Connection realConnection = mock(Connection.class);
+    // auto-commit on checkout, a pending transaction on return
+    when(realConnection.getAutoCommit()).thenReturn(true, false);
+    doThrow(new SQLException("rollback failed")).when(realConnection).rollback();
+    ConcurrentPooledDataSource ds = new ConcurrentPooledDataSource(new UnpooledDataSource() {
+      @Override
+      public Connection getConnection() {
+        return realConnection;
+      }
+    });
+    Connection c = ds.getConnection();
+    SQLException e = assertThrows(SQLException.class, c::close);
+    assertEquals("rollback failed", e.getMessage());
+    verify(realConnection).close();
+    assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+    assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+  }
+
+  private static ConcurrentPooledDataSource createConcurrentPooledDataSource(String resource) throws IOException {
+    Properties props = Resources.getResourceAsProperties(resource);
+    ConcurrentPooledDataSource ds = new ConcurrentPooledDataSource();
+    ds.setDriver(props.getProperty("driver"));
+    ds.setUrl(props.getProperty("url"));
+    ds.setUsername(props.getProperty("username"));
+    ds.setPassword(props.getProperty("password"));
+    return ds;
+  }
+
+}
@@ -34,6 +34,8 @@ import org.junit.jupiter.api.Test;
 
 class PooledDataSourceTest extends BaseDataTest {
 
+  private static final String TABLE_COUNT_SQL = "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SYSTEM_TABLES WHERE TABLE_NAME = ?";
+
   @Test
   void shouldProperlyMaintainPoolOf3ActiveAnd2IdleConnections() throws Exception {
     PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
@@ -91,6 +93,81 @@ class PooledDataSourceTest extends BaseDataTest {
     c.close();
   }
 
+  @Test
+  void shouldReuseCachedPreparedStatementOnTheSameConnection() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolMaximumActiveConnections(1);
+      ds.setPoolPreparedStatementCacheSize(2);
+      PreparedStatement realStatement;
+      int defaultFetchSize;
+      try (Connection c = ds.getConnection(); PreparedStatement st = c.prepareStatement(TABLE_COUNT_SQL)) {
+        realStatement = st.unwrap(PreparedStatement.class);
+        defaultFetchSize = st.getFetchSize();
+        st.setFetchSize(defaultFetchSize + 7);
+        st.setString(1, "SYSTEM_TABLES");
+        assertEquals(1, countTables(st));
+      }
+      assertFalse(realStatement.isClosed());
+      try (Connection c = ds.getConnection(); PreparedStatement st = c.prepareStatement(TABLE_COUNT_SQL)) {
+        assertSame(realStatement, st.unwrap(PreparedStatement.class));
+        assertEquals(defaultFetchSize, st.getFetchSize());
+        // the parameters of the previous caller must have been cleared
+        assertThrows(SQLException.class, st::executeQuery);
+        st.setString(1, "NO_SUCH_TABLE");
+        assertEquals(0, countTables(st));
+      }
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldNotHandOutCachedPreparedStatementThatIsInUse() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolPreparedStatementCacheSize(2);
+      try (Connection c = ds.getConnection()) {
+        PreparedStatement first = c.prepareStatement(TABLE_COUNT_SQL);
+        PreparedStatement second = c.prepareStatement(TABLE_COUNT_SQL);
+        PreparedStatement realFirst = first.unwrap(PreparedStatement.class);
+        PreparedStatement realSecond = second.unwrap(PreparedStatement.class);
+        assertNotSame(realFirst, realSecond);
+        first.close();
+        second.close();
+        assertTrue(first.isClosed());
+        assertThrows(SQLException.class, first::executeQuery);
+        // only one idle statement is kept per SQL
+        assertFalse(realFirst.isClosed());
+        assertTrue(realSecond.isClosed());
+      }
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldCloseLeastRecentlyUsedCachedPreparedStatement() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolPreparedStatementCacheSize(1);
+      try (Connection c = ds.getConnection()) {
+        PreparedStatement realFirst;
+        try (PreparedStatement st = c.prepareStatement(TABLE_COUNT_SQL)) {
+          realFirst = st.unwrap(PreparedStatement.class);
+        }
+        PreparedStatement realSecond;
+        try (PreparedStatement st = c.prepareStatement(TABLE_COUNT_SQL + " AND TABLE_SCHEM = 'PUBLIC'")) {
+          realSecond = st.unwrap(PreparedStatement.class);
+        }
+        assertTrue(realFirst.isClosed());
+        assertFalse(realSecond.isClosed());
+      }
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
   @Disabled("See the comments")
   @Test
   void shouldReconnectWhenServerKilledLeakedConnection() throws Exception {
@@ -136,6 +213,13 @@ class PooledDataSourceTest extends BaseDataTest {
     con.close();
   }
 
+  private int countTables(PreparedStatement st) throws SQLException {
+    try (ResultSet rs = st.executeQuery()) {
+      rs.next();
+      return rs.getInt(1);
+    }
+  }
+
   private void executeQuery(Connection con) throws SQLException {
     try (PreparedStatement st = con.prepareStatement("select 1");
          ResultSet rs = st.executeQuery()) {
@@ -23,6 +23,11 @@ import java.lang.reflect.Field;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SoftCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -43,6 +48,34 @@ class CacheBuilderTest {
       .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
   }
 
+  @Test
+  void testSynchronizedWhenChainIsNotThreadSafe() {
+    Cache cache = new CacheBuilder("test").build();
+
+    then(cache).isInstanceOf(SynchronizedCache.class);
+    then(cache.isThreadSafe()).isTrue();
+  }
+
+  @Test
+  void testNotSynchronizedWhenChainIsThreadSafe() {
+    Cache cache = new CacheBuilder("test").implementation(ConcurrentPerpetualCache.class).addDecorator(LruCache.class)
+        .size(10).clearInterval(60000L).readWrite(true).build();
+
+    then(cache).isInstanceOf(LoggingCache.class);
+    then(cache.isThreadSafe()).isTrue();
+    for (int i = 0; i < 20; i++) {
+      cache.putObject(i, i);
+    }
+    then(cache.getSize()).isEqualTo(10);
+  }
+
+  @Test
+  void testSynchronizedWhenDecoratorIsNotThreadSafe() {
+    Cache cache = new CacheBuilder("test").implementation(ConcurrentPerpetualCache.class).addDecorator(SoftCache.class).build();
+
+    then(cache).isInstanceOf(SynchronizedCache.class);
+  }
+
   @SuppressWarnings("unchecked")
   private <T> T unwrap(Cache cache) {
     Field field;
@@ -0,0 +1,156 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.LambdaMethodInvoker;
+import org.apache.ibatis.reflection.invoker.MethodHandleGetFieldInvoker;
+import org.apache.ibatis.reflection.invoker.MethodHandleMethodInvoker;
+import org.apache.ibatis.reflection.invoker.MethodHandleSetFieldInvoker;
+import org.apache.ibatis.reflection.invoker.MethodInvoker;
+import org.apache.ibatis.reflection.invoker.SetFieldInvoker;
+import org.junit.jupiter.api.Test;
+
+class MethodHandleReflectorFactoryTest {
+
+  private final ReflectorFactory reflectorFactory = new MethodHandleReflectorFactory();
+
+  @Test
+  void shouldBindPublicAccessorsToLambdas() throws Exception {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    Bean bean = new Bean();
+
+    Invoker setter = reflector.getSetInvoker("count");
+    Invoker getter = reflector.getGetInvoker("count");
+    assertThat(setter).isInstanceOf(LambdaMethodInvoker.class);
+    assertThat(getter).isInstanceOf(LambdaMethodInvoker.class);
+    setter.invoke(bean, new Object[] { 42 });
+    assertThat(getter.invoke(bean, null)).isEqualTo(42);
+    assertThat(getter.getType()).isEqualTo(int.class);
+
+    reflector.getSetInvoker("name").invoke(bean, new Object[] { "mybatis" });
+    assertThat(reflector.getGetInvoker("name").invoke(bean, null)).isEqualTo("mybatis");
+  }
+
+  @Test
+  void shouldBindPrivateMembersToMethodHandles() throws Exception {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    Bean bean = new Bean();
+
+    assertThat(reflector.getSetInvoker("secret")).isInstanceOf(MethodHandleMethodInvoker.class);
+    reflector.getSetInvoker("secret").invoke(bean, new Object[] { "s" });
+    assertThat(reflector.getGetInvoker("secret").invoke(bean, null)).isEqualTo("s");
+
+    assertThat(reflector.getSetInvoker("field")).isInstanceOf(MethodHandleSetFieldInvoker.class);
+    assertThat(reflector.getGetInvoker("field")).isInstanceOf(MethodHandleGetFieldInvoker.class);
+    reflector.getSetInvoker("field").invoke(bean, new Object[] { 7L });
+    assertThat(reflector.getGetInvoker("field").invoke(bean, null)).isEqualTo(7L);
+  }
+
+  @Test
+  void shouldFallBackToReflectionForStaticAndFinalMembers() throws Exception {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+
+    assertThat(reflector.getSetInvoker("finalField")).isExactlyInstanceOf(SetFieldInvoker.class);
+    assertThat(reflector.getSetInvoker("staticValue")).isExactlyInstanceOf(MethodInvoker.class);
+  }
+
+  @Test
+  void shouldWrapExceptionsThrownByAccessors() {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    Invoker getter = reflector.getGetInvoker("failing");
+
+    assertThatThrownBy(() -> getter.invoke(new Bean(), null)).isInstanceOf(InvocationTargetException.class)
+        .hasCauseInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void shouldKeepGenericTypesOfProperties() {
+    MetaClass metaClass = MetaClass.forClass(Bean.class, reflectorFactory);
+
+    assertThat(metaClass.getGetterType("names[0]")).isEqualTo(String.class);
+  }
+
+  @Test
+  void shouldAccessPropertiesThroughMetaObject() {
+    Bean bean = new Bean();
+    MetaObject metaObject = MetaObject.forObject(bean, SystemMetaObject.DEFAULT_OBJECT_FACTORY,
+        SystemMetaObject.DEFAULT_OBJECT_WRAPPER_FACTORY, reflectorFactory);
+
+    metaObject.setValue("count", 3);
+    metaObject.setValue("names", new ArrayList<>());
+    assertThat(metaObject.getValue("count")).isEqualTo(3);
+    assertThat(bean.getNames()).isEmpty();
+  }
+
+  public static class Bean {
+    private int count;
+    private String name;
+    private String secret;
+    private Long field;
+    private final String finalField = "final";
+    private List<String> names;
+    private static String staticValue;
+
+    public int getCount() {
+      return count;
+    }
+
+    public void setCount(int count) {
+      this.count = count;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    private String getSecret() {
+      return secret;
+    }
+
+    private void setSecret(String secret) {
+      this.secret = secret;
+    }
+
+    public List<String> getNames() {
+      return names;
+    }
+
+    public void setNames(List<String> names) {
+      this.names = names;
+    }
+
+    public String getFailing() {
+      throw new UnsupportedOperationException();
+    }
+
+    public static void setStaticValue(String staticValue) {
+      Bean.staticValue = staticValue;
+    }
+  }
+
+}
@@ -0,0 +1,153 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.misc.CustomBeanWrapperFactory;
+import org.apache.ibatis.domain.misc.RichType;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
+import org.junit.jupiter.api.Test;
+
+class PropertyPathTest {
+
+  private static PropertyPath compile(String expression) {
+    return compile(expression, new DefaultObjectWrapperFactory());
+  }
+
+  private static PropertyPath compile(String expression, ObjectWrapperFactory objectWrapperFactory) {
+    return new PropertyPath(expression, new DefaultObjectFactory(), objectWrapperFactory, new DefaultReflectorFactory());
+  }
+
+  @Test
+  void shouldGetAndSetFieldsAndProperties() {
+    RichType rich = new RichType();
+    compile("richField").setValue(rich, "foo");
+    compile("richProperty").setValue(rich, "bar");
+    assertEquals("foo", compile("richField").getValue(rich));
+    assertEquals("bar", SystemMetaObject.forObject(rich).getValue("richProperty"));
+  }
+
+  @Test
+  void shouldInstantiateNullIntermediateValuesOnSet() {
+    RichType rich = new RichType();
+    PropertyPath path = compile("richType.richType.richProperty");
+    assertNull(path.getValue(rich));
+    path.setValue(rich, "foo");
+    assertEquals("foo", rich.getRichType().getRichType().getRichProperty());
+    assertEquals("foo", path.getValue(rich));
+  }
+
+  @Test
+  void shouldNotInstantiateIntermediateValuesWhenSettingNull() {
+    RichType rich = new RichType();
+    compile("richType.richProperty").setValue(rich, null);
+    assertNull(rich.getRichType());
+  }
+
+  @Test
+  void shouldGetAndSetMapEntriesAndIndexedValues() {
+    RichType rich = new RichType();
+    rich.setRichType(new RichType());
+    compile("richType.richMap.key").setValue(rich, "foo");
+    compile("richType.richMap[other]").setValue(rich, "bar");
+    assertEquals("foo", rich.getRichType().getRichMap().get("key"));
+    assertEquals("bar", compile("richType.richMap.other").getValue(rich));
+
+    compile("richList[0]").setValue(rich, "baz");
+    assertEquals("baz", compile("richList[0]").getValue(rich));
+    assertEquals("baz", SystemMetaObject.forObject(rich).getValue("richList[0]"));
+  }
+
+  @Test
+  void shouldGetAndSetArrayElements() {
+    Map<String, Object> map = new HashMap<>();
+    map.put("ints", new int[] { 1, 2 });
+    map.put("names", new String[] { "a", "b" });
+    compile("ints[1]").setValue(map, 5);
+    compile("names[0]").setValue(map, "c");
+    assertEquals(5, compile("ints[1]").getValue(map));
+    assertEquals("c", compile("names[0]").getValue(map));
+  }
+
+  @Test
+  void shouldFollowTheClassOfEachObject() {
+    PropertyPath path = compile("richType.richProperty");
+    RichType rich = new RichType();
+    rich.setRichType(new RichType());
+    rich.getRichType().setRichProperty("foo");
+    RichType subclass = new RichType() {
+    };
+    subclass.setRichType(new RichType());
+    subclass.getRichType().setRichProperty("bar");
+    Map<String, Object> map = new HashMap<>();
+    map.put("richType", rich.getRichType());
+
+    assertEquals("foo", path.getValue(rich));
+    assertEquals("bar", path.getValue(subclass));
+    assertEquals("foo", path.getValue(map));
+    assertEquals("foo", path.getValue(rich));
+  }
+
+  @Test
+  void shouldDelegateCollectionsAndCustomWrappersToMetaObject() {
+    List<Author> authors = new ArrayList<>();
+    authors.add(new Author(1));
+    assertThrows(UnsupportedOperationException.class, () -> compile("id").getValue(authors));
+
+    AtomicInteger wrapped = new AtomicInteger();
+    ObjectWrapperFactory countingFactory = new CustomBeanWrapperFactory() {
+      @Override
+      public ObjectWrapper getWrapperFor(MetaObject metaObject, Object object) {
+        wrapped.incrementAndGet();
+        return super.getWrapperFor(metaObject, object);
+      }
+    };
+    Author author = new Author(1);
+    PropertyPath path = compile("id", countingFactory);
+    path.setValue(author, 2);
+    assertEquals(2, path.getValue(author));
+    assertEquals(2, wrapped.get());
+  }
+
+  @Test
+  void shouldReportMissingPropertiesLikeMetaObject() {
+    RichType rich = new RichType();
+    ReflectionException expected = assertThrows(ReflectionException.class,
+        () -> SystemMetaObject.forObject(rich).getValue("unknown"));
+    ReflectionException actual = assertThrows(ReflectionException.class, () -> compile("unknown").getValue(rich));
+    assertEquals(expected.getMessage(), actual.getMessage());
+
+    expected = assertThrows(ReflectionException.class, () -> SystemMetaObject.forObject(rich).setValue("unknown", "foo"));
+    actual = assertThrows(ReflectionException.class, () -> compile("unknown").setValue(rich, "foo"));
+    assertEquals(expected.getMessage(), actual.getMessage());
+
+    expected = assertThrows(ReflectionException.class, () -> SystemMetaObject.forObject(rich).getValue("richProperty[0]"));
+    actual = assertThrows(ReflectionException.class, () -> compile("richProperty[0]").getValue(rich));
+    assertEquals(expected.getMessage(), actual.getMessage());
+  }
+
+}
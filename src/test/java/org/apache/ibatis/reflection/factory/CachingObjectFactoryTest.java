@@ -0,0 +1,131 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.factory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.ibatis.reflection.ReflectionException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CachingObjectFactoryTest {
+
+  @Test
+  void createClassWithConstructorArgs() {
+    CachingObjectFactory objectFactory = new CachingObjectFactory();
+    List<Class<?>> argTypes = new ArrayList<>(Arrays.asList(String.class, Integer.class));
+    for (int i = 0; i < 3; i++) {
+      TestClass testClass = objectFactory.create(TestClass.class, argTypes, Arrays.asList("foo", i));
+      Assertions.assertEquals((Integer) i, testClass.myInteger);
+      Assertions.assertEquals("foo", testClass.myString);
+    }
+    // the cached constructor must not depend on the list passed by the caller
+    argTypes.clear();
+    TestClass testClass = objectFactory.create(TestClass.class, Arrays.asList(String.class, Integer.class),
+        Arrays.asList("bar", 1));
+    Assertions.assertEquals("bar", testClass.myString);
+  }
+
+  @Test
+  void createClassWithPrivateConstructor() {
+    CachingObjectFactory objectFactory = new CachingObjectFactory();
+    Assertions.assertNotNull(objectFactory.create(PrivateConstructor.class));
+  }
+
+  @Test
+  void createClassThrowsSameErrorAsDefaultObjectFactory() {
+    List<Class<?>> argTypes = Collections.singletonList(String.class);
+    List<Object> args = Collections.singletonList("foo");
+    ReflectionException expected = Assertions.assertThrows(ReflectionException.class,
+        () -> new DefaultObjectFactory().create(TestClass.class, argTypes, args));
+    ReflectionException actual = Assertions.assertThrows(ReflectionException.class,
+        () -> new CachingObjectFactory().create(TestClass.class, argTypes, args));
+    Assertions.assertEquals(expected.getMessage(), actual.getMessage());
+  }
+
+  @Test
+  void createClassWrapsExceptionThrownByConstructor() {
+    CachingObjectFactory objectFactory = new CachingObjectFactory();
+    ReflectionException e = Assertions.assertThrows(ReflectionException.class,
+        () -> objectFactory.create(FailingConstructor.class, Collections.singletonList(String.class),
+            Collections.singletonList("foo")));
+    Assertions.assertTrue(e.getMessage().contains("(String)"));
+    Assertions.assertTrue(e.getMessage().contains("(foo)"));
+    Assertions.assertTrue(e.getCause().getCause() instanceof IllegalStateException);
+  }
+
+  @Test
+  void createDefaultCollectionTypes() {
+    CachingObjectFactory objectFactory = new CachingObjectFactory();
+    Properties properties = new Properties();
+    properties.setProperty("collectionInitialCapacity", "64");
+    objectFactory.setProperties(properties);
+    Assertions.assertEquals(64, objectFactory.getCollectionInitialCapacity());
+
+    Assertions.assertTrue(objectFactory.create(List.class) instanceof ArrayList);
+    Assertions.assertTrue(objectFactory.create(Collection.class) instanceof ArrayList);
+    Assertions.assertTrue(objectFactory.create(Iterable.class) instanceof ArrayList);
+    Assertions.assertTrue(objectFactory.create(Map.class) instanceof HashMap);
+    Assertions.assertTrue(objectFactory.create(Set.class) instanceof HashSet);
+    Assertions.assertTrue(objectFactory.create(SortedSet.class) instanceof TreeSet);
+    Assertions.assertNotSame(objectFactory.create(List.class), objectFactory.create(List.class));
+  }
+
+  @Test
+  void shouldBeSerializable() throws Exception {
+    CachingObjectFactory objectFactory = new CachingObjectFactory();
+    objectFactory.setCollectionInitialCapacity(8);
+    objectFactory.create(TestClass.class, Arrays.asList(String.class, Integer.class), Arrays.asList("foo", 0));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(objectFactory);
+    }
+    CachingObjectFactory copy;
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = (CachingObjectFactory) in.readObject();
+    }
+    Assertions.assertEquals(8, copy.getCollectionInitialCapacity());
+    Assertions.assertEquals("foo", copy.create(TestClass.class, Arrays.asList(String.class, Integer.class),
+        Arrays.asList("foo", 0)).myString);
+  }
+
+  public static class PrivateConstructor {
+    private PrivateConstructor() {
+    }
+  }
+
+  public static class FailingConstructor {
+    public FailingConstructor(String value) {
+      throw new IllegalStateException(value);
+    }
+  }
+
+}
@@ -0,0 +1,108 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.io.Resources;
+import org.junit.jupiter.api.Test;
+
+class ConfigurationStageTest {
+
+  private static final String NAMESPACE = "org.apache.ibatis.builder.parallel.";
+
+  @Test
+  void shouldKeepChangesInStageUntilMerged() {
+    Configuration configuration = new Configuration();
+    ConfigurationStage first = configuration.newStage();
+    ConfigurationStage second = configuration.newStage();
+    first.build(() -> {
+      parseMapper(configuration, "FirstMapper.xml");
+      assertThat(configuration.hasStatement(NAMESPACE + "First.selectAuthor", false)).isTrue();
+      return null;
+    });
+    second.build(() -> parseMapper(configuration, "SecondMapper.xml"));
+
+    assertThat(configuration.hasStatement(NAMESPACE + "First.selectAuthor", false)).isFalse();
+    assertThat(configuration.getCacheNames()).isEmpty();
+    assertThat(configuration.getIncompleteStatements()).isEmpty();
+
+    assertThat(first.merge()).isTrue();
+    assertThat(configuration.hasStatement(NAMESPACE + "First.selectAuthor", false)).isTrue();
+    assertThat(configuration.getCacheNames()).contains(NAMESPACE + "First");
+    assertThat(configuration.isResourceLoaded("org/apache/ibatis/builder/parallel/FirstMapper.xml")).isTrue();
+
+    // the second stage could not see the cache, result maps and fragment of the first mapper
+    assertThat(second.merge()).isTrue();
+    assertThat(configuration.getIncompleteCacheRefs()).hasSize(1);
+    assertThat(configuration.getIncompleteStatements()).isNotEmpty();
+    assertThat(configuration.getIncompleteCacheRefs().iterator().next().resolveCacheRef())
+        .isSameAs(configuration.getCache(NAMESPACE + "First"));
+  }
+
+  @Test
+  void shouldNotMergeStageWhoseKeyIsTaken() {
+    Configuration configuration = new Configuration();
+    ConfigurationStage duplicate = configuration.newStage();
+    ConfigurationStage first = configuration.newStage();
+    duplicate.build(() -> parseMapper(configuration, "DuplicateStatementMapper.xml"));
+    first.build(() -> parseMapper(configuration, "FirstMapper.xml"));
+
+    assertThat(duplicate.merge()).isTrue();
+    assertThat(first.merge()).isFalse();
+    assertThat(configuration.hasStatement(NAMESPACE + "First.selectAuthor", false)).isFalse();
+    assertThat(configuration.getCacheNames()).isEmpty();
+  }
+
+  @Test
+  void shouldNotMergeStageReadingResourceLoadedSince() {
+    Configuration configuration = new Configuration();
+    ConfigurationStage first = configuration.newStage();
+    ConfigurationStage again = configuration.newStage();
+    first.build(() -> parseMapper(configuration, "FirstMapper.xml"));
+    again.build(() -> parseMapper(configuration, "FirstMapper.xml"));
+
+    assertThat(first.merge()).isTrue();
+    assertThat(again.merge()).isFalse();
+  }
+
+  @Test
+  void shouldNotMergeFailedStage() {
+    Configuration configuration = new Configuration();
+    ConfigurationStage stage = configuration.newStage();
+    stage.build(() -> {
+      configuration.addCache(new PerpetualCache("failed"));
+      throw new IllegalStateException("build failed");
+    });
+
+    assertThat(stage.merge()).isFalse();
+    assertThat(configuration.getCacheNames()).isEmpty();
+  }
+
+  private static Object parseMapper(Configuration configuration, String name) throws IOException {
+    String resource = "org/apache/ibatis/builder/parallel/" + name;
+    try (InputStream inputStream = Resources.getResourceAsStream(resource)) {
+      new XMLMapperBuilder(inputStream, configuration, resource, configuration.getSqlFragments()).parse();
+    }
+    return null;
+  }
+
+}
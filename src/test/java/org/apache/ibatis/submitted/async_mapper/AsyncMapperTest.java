@@ -0,0 +1,160 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncMapperTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/async_mapper/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/async_mapper/CreateDB.sql");
+  }
+
+  @Test
+  void shouldSelectInParallel() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      CompletableFuture<List<User>> users = mapper.getUsers();
+      CompletableFuture<User> user = mapper.getUser(2);
+      CompletableFuture<Optional<User>> missingUser = mapper.findUser(3);
+      CompletableFuture.allOf(users, user, missingUser).get();
+      assertThat(users.get()).extracting(User::getName).containsExactly("User1", "User2");
+      assertThat(user.get().getName()).isEqualTo("User2");
+      assertThat(missingUser.get()).isEmpty();
+    }
+  }
+
+  @Test
+  void shouldRunOnConfiguredExecutor() throws Exception {
+    AtomicInteger tasks = new AtomicInteger();
+    sqlSessionFactory.getConfiguration().setAsyncExecutor(task -> {
+      tasks.incrementAndGet();
+      new Thread(task).start();
+    });
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUser(1).get().getName()).isEqualTo("User1");
+      assertThat(mapper.findUser(1).get()).isPresent();
+      assertThat(tasks.get()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void shouldCommitInOwnTransaction() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.insertUser(new User(3, "User3")).get()).isEqualTo(1);
+      // the session of the mapper did not take part in the insert
+      sqlSession.rollback(true);
+      assertThat(mapper.deleteUser(1).get()).isNull();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThat(mapper.getUserNow(3).getName()).isEqualTo("User3");
+      assertThat(mapper.getUserNow(1)).isNull();
+    }
+  }
+
+  @Test
+  void shouldOpenSessionsFromOriginatingFactory() throws Exception {
+    List<ExecutorType> executorTypes = new CopyOnWriteArrayList<>();
+    SqlSessionFactory factory = new DefaultSqlSessionFactory(sqlSessionFactory.getConfiguration()) {
+      @Override
+      public SqlSession openSession(ExecutorType execType, boolean autoCommit) {
+        executorTypes.add(execType);
+        return super.openSession(execType, autoCommit);
+      }
+    };
+    try (SqlSession sqlSession = factory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      // the insert is batched, then flushed by the commit of its session
+      assertThat(mapper.insertUser(new User(3, "User3")).get()).isEqualTo(BatchExecutor.BATCH_UPDATE_RETURN_VALUE);
+      assertThat(executorTypes).containsExactly(ExecutorType.BATCH);
+      assertThat(mapper.getUserNow(3).getName()).isEqualTo("User3");
+    }
+  }
+
+  @Test
+  void shouldRunMappersOfSqlSessionManager() throws Exception {
+    SqlSessionManager manager = SqlSessionManager.newInstance(sqlSessionFactory);
+    Mapper mapper = manager.getMapper(Mapper.class);
+    // without a managed session, each call opens a session from the wrapped factory
+    assertThat(mapper.insertUser(new User(3, "User3")).get()).isEqualTo(1);
+    assertThat(mapper.getUser(3).get().getName()).isEqualTo("User3");
+    // with a managed session, each call opens a sibling of it
+    manager.startManagedSession(ExecutorType.BATCH);
+    try {
+      assertThat(mapper.insertUser(new User(4, "User4")).get()).isEqualTo(BatchExecutor.BATCH_UPDATE_RETURN_VALUE);
+      assertThat(mapper.getUserNow(4).getName()).isEqualTo("User4");
+    } finally {
+      manager.close();
+    }
+  }
+
+  @Test
+  void shouldCompleteExceptionallyOnFailure() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      CompletableFuture<Integer> duplicate = mapper.insertUser(new User(1, "Duplicate"));
+      assertThatThrownBy(duplicate::get).isInstanceOf(ExecutionException.class)
+          .hasCauseInstanceOf(PersistenceException.class);
+      assertThat(mapper.getUserNow(1).getName()).isEqualTo("User1");
+    }
+  }
+
+  @Test
+  void shouldRejectCursors() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThatThrownBy(mapper::getUserCursor).isInstanceOf(BindingException.class)
+          .hasMessageContaining("cannot return a Cursor asynchronously");
+    }
+  }
+
+}
@@ -0,0 +1,154 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_fetch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchFetchTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_fetch/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_fetch/CreateDB.sql");
+  }
+
+  @Test
+  void shouldLoadEagerlyWithOneSelectPerRow() {
+    List<Department> departments = select(Mapper::selectDepartments);
+    assertDepartments(departments);
+    // 1 department select, 3 employee selects and 5 badge selects
+    assertThat(StatementCounter.COUNT.get()).isEqualTo(9);
+  }
+
+  @Test
+  void shouldBatchLoadCollectionsAndAssociations() {
+    List<Department> departments = select(Mapper::selectDepartmentsBatched);
+    assertDepartments(departments);
+    assertThat(StatementCounter.COUNT.get()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldSplitBatchesByBatchFetchSize() {
+    sqlSessionFactory.getConfiguration().setBatchFetchSize(2);
+    List<Department> departments = select(Mapper::selectDepartmentsBatched);
+    assertDepartments(departments);
+    // employees of departments [1, 2] and [3], badges of employees [1, 2], [3, 4] and [5]
+    assertThat(StatementCounter.COUNT.get()).isEqualTo(6);
+  }
+
+  @Test
+  void shouldBatchLoadWithAnnotations() {
+    List<Department> departments = select(Mapper::selectDepartmentsAnnotated);
+    assertDepartments(departments);
+    assertThat(StatementCounter.COUNT.get()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldLoadLazyPropertiesOfSiblingsTogether() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      StatementCounter.COUNT.set(0);
+      List<Department> departments = sqlSession.getMapper(Mapper.class).selectDepartmentsLazy();
+      assertThat(StatementCounter.COUNT.get()).isEqualTo(1);
+      assertThat(departments.get(1).getEmployees()).extracting(Employee::getName).containsExactly("Dave", "Erin");
+      // the employees of all the departments and their badges
+      assertThat(StatementCounter.COUNT.get()).isEqualTo(3);
+      assertDepartments(departments);
+      assertThat(StatementCounter.COUNT.get()).isEqualTo(3);
+    }
+  }
+
+  @Test
+  void shouldSplitLazyBatchesByBatchFetchSize() {
+    sqlSessionFactory.getConfiguration().setBatchFetchSize(2);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      StatementCounter.COUNT.set(0);
+      List<Department> departments = sqlSession.getMapper(Mapper.class).selectDepartmentsLazy();
+      assertThat(departments.get(0).getEmployees()).hasSize(3);
+      assertThat(departments.get(1).getEmployees()).hasSize(2);
+      // employees of departments [1, 2], badges of employees [1, 2] and [3, 4], then [5]
+      assertThat(StatementCounter.COUNT.get()).isEqualTo(5);
+      assertThat(departments.get(2).getEmployees()).isEmpty();
+      assertThat(StatementCounter.COUNT.get()).isEqualTo(6);
+      assertDepartments(departments);
+    }
+  }
+
+  @Test
+  void shouldLoadLazyPropertiesPerRowWithoutLazyBatch() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      StatementCounter.COUNT.set(0);
+      // a foreignColumn alone does not change the parameter of the nested select
+      List<Department> departments = sqlSession.getMapper(Mapper.class).selectDepartmentsLazyPerRow();
+      assertThat(StatementCounter.COUNT.get()).isEqualTo(1);
+      assertThat(departments.get(1).getEmployees()).extracting(Employee::getName).containsExactly("Dave", "Erin");
+      // the employees of one department and their badges
+      assertThat(StatementCounter.COUNT.get()).isEqualTo(1 + 1 + 2);
+      assertDepartments(departments);
+    }
+  }
+
+  @Test
+  void shouldLoadEagerlyWithResultHandler() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      StatementCounter.COUNT.set(0);
+      List<Department> departments = new java.util.ArrayList<>();
+      sqlSession.select("org.apache.ibatis.submitted.batch_fetch.Mapper.selectDepartmentsBatched",
+          context -> departments.add((Department) context.getResultObject()));
+      assertDepartments(departments);
+      // the rows handed to the handler cannot wait for the batches, only the nested employee select batches badges
+      assertThat(StatementCounter.COUNT.get()).isEqualTo(1 + 3 + 2);
+    }
+  }
+
+  private List<Department> select(Function<Mapper, List<Department>> query) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      StatementCounter.COUNT.set(0);
+      return query.apply(sqlSession.getMapper(Mapper.class));
+    }
+  }
+
+  private static void assertDepartments(List<Department> departments) {
+    assertThat(departments).extracting(Department::getName).containsExactly("Sales", "Support", "Research");
+    assertThat(departments.get(0).getEmployees()).extracting(Employee::getName).containsExactly("Alice", "Bob", "Carol");
+    assertThat(departments.get(1).getEmployees()).extracting(Employee::getName).containsExactly("Dave", "Erin");
+    assertThat(departments.get(2).getEmployees()).isEmpty();
+    assertThat(departments.get(0).getEmployees()).extracting(employee -> employee.getBadge() == null ? null
+        : employee.getBadge().getCode()).containsExactly("A-1", "B-2", null);
+    assertThat(departments.get(1).getEmployees().get(0).getBadge().getEmployeeId()).isEqualTo(4);
+    assertThat(departments.get(1).getEmployees().get(1).getBadge()).isNull();
+  }
+
+}
@@ -0,0 +1,51 @@
+--
+--    Copyright 2009-2020 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+drop table badge if exists;
+drop table employee if exists;
+drop table department if exists;
+
+create table department (
+  id int,
+  name varchar(20)
+);
+
+create table employee (
+  id int,
+  department_id int,
+  name varchar(20)
+);
+
+create table badge (
+  id int,
+  employee_id int,
+  code varchar(20)
+);
+
+insert into department (id, name) values(1, 'Sales');
+insert into department (id, name) values(2, 'Support');
+insert into department (id, name) values(3, 'Research');
+
+insert into employee (id, department_id, name) values(1, 1, 'Alice');
+insert into employee (id, department_id, name) values(2, 1, 'Bob');
+insert into employee (id, department_id, name) values(3, 1, 'Carol');
+insert into employee (id, department_id, name) values(4, 2, 'Dave');
+insert into employee (id, department_id, name) values(5, 2, 'Erin');
+
+insert into badge (id, employee_id, code) values(1, 1, 'A-1');
+insert into badge (id, employee_id, code) values(2, 2, 'B-2');
+insert into badge (id, employee_id, code) values(3, 4, 'D-4');
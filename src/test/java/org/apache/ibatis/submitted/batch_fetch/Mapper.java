@@ -0,0 +1,42 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_fetch;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Many;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.FetchType;
+
+public interface Mapper {
+
+  List<Department> selectDepartments();
+
+  List<Department> selectDepartmentsBatched();
+
+  List<Department> selectDepartmentsLazy();
+
+  List<Department> selectDepartmentsLazyPerRow();
+
+  @Select("select * from department order by id")
+  @Result(id = true, property = "id", column = "id")
+  @Result(property = "name", column = "name")
+  @Result(property = "employees", column = "id", many = @Many(select = "selectEmployeesByDepartments",
+      fetchType = FetchType.BATCH, foreignColumn = "department_id"))
+  List<Department> selectDepartmentsAnnotated();
+
+}
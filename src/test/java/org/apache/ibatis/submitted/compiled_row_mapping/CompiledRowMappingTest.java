@@ -0,0 +1,129 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.resultset.CompiledRowMapper;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CompiledRowMappingTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/compiled_row_mapping/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compiled_row_mapping/CreateDB.sql");
+  }
+
+  @Test
+  void shouldMapAutomaticMappingsWithCompiledMapper() {
+    List<User> users = select(Mapper::getUsers);
+    assertThat(users).hasSize(4);
+    assertUser(users.get(0), 1, "User1", 30);
+    assertUser(users.get(1), 2, "User2", -1);
+    assertUser(users.get(2), 3, null, 25);
+    // all the columns are null
+    assertThat(users.get(3)).isNull();
+
+    assertThat(sqlSessionFactory.getConfiguration().getCompiledRowMappers()).hasSize(1)
+        .allSatisfy(rowMapper -> {
+          assertThat(rowMapper.getType()).isEqualTo(User.class);
+          assertThat(rowMapper.getColumnCount()).isEqualTo(3);
+        });
+  }
+
+  @Test
+  void shouldMapPropertyMappingsWithCompiledMapper() {
+    List<User> users = select(Mapper::getUsersWithResultMap);
+    assertThat(users).hasSize(4);
+    assertUser(users.get(0), 1, "User1", 30);
+    assertUser(users.get(1), 2, "User2", -1);
+    assertUser(users.get(2), 3, null, 25);
+    assertThat(users.get(3)).isNull();
+    assertThat(sqlSessionFactory.getConfiguration().getCompiledRowMappers()).extracting(CompiledRowMapper::getColumnCount)
+        .containsExactly(3);
+  }
+
+  @Test
+  void shouldReuseCompiledMapperForSameColumns() {
+    select(Mapper::getUsers);
+    CompiledRowMapper rowMapper = sqlSessionFactory.getConfiguration().getCompiledRowMappers().iterator().next();
+    List<User> users = select(Mapper::getUsers);
+    assertUser(users.get(0), 1, "User1", 30);
+    assertThat(sqlSessionFactory.getConfiguration().getCompiledRowMappers()).containsExactly(rowMapper);
+  }
+
+  @Test
+  void shouldCallSettersOnNulls() {
+    sqlSessionFactory.getConfiguration().setCallSettersOnNulls(true);
+    sqlSessionFactory.getConfiguration().setReturnInstanceForEmptyRow(true);
+    List<User> users = select(Mapper::getUsers);
+    assertUser(users.get(1), 2, "User2", -1);
+    assertUser(users.get(3), null, null, -1);
+  }
+
+  @Test
+  void shouldFallBackForNestedProperties() {
+    List<User> users = select(Mapper::getUsersWithAddress);
+    assertThat(users).hasSize(3);
+    assertThat(users.get(0).getAddress().getCity()).isEqualTo("Tokyo");
+    assertThat(users.get(1).getAddress().getCity()).isEqualTo("Osaka");
+    assertThat(users.get(2).getAddress()).isNull();
+    assertThat(sqlSessionFactory.getConfiguration().getCompiledRowMappers()).isEmpty();
+  }
+
+  @Test
+  void shouldFallBackForDiscriminatedResultMaps() {
+    List<User> users = select(Mapper::getDiscriminatedUsers);
+    assertThat(users).hasSize(3);
+    assertUser(users.get(0), 1, "Tokyo", 30);
+    assertUser(users.get(1), 2, "User2", -1);
+    assertUser(users.get(2), 3, null, 25);
+    assertThat(sqlSessionFactory.getConfiguration().getCompiledRowMappers()).isEmpty();
+  }
+
+  private List<User> select(Function<Mapper, List<User>> query) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return query.apply(sqlSession.getMapper(Mapper.class));
+    }
+  }
+
+  private static void assertUser(User user, Integer id, String name, int age) {
+    assertThat(user.getId()).isEqualTo(id);
+    assertThat(user.getName()).isEqualTo(name);
+    assertThat(user.getAge()).isEqualTo(age);
+  }
+
+}
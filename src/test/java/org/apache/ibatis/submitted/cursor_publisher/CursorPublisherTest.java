@@ -0,0 +1,219 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cursor_publisher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.CursorPublisher;
+import org.apache.ibatis.cursor.CursorPublisher.Subscriber;
+import org.apache.ibatis.cursor.CursorPublisher.Subscription;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CursorPublisherTest {
+
+  private static final String GET_USERS = "org.apache.ibatis.submitted.cursor_publisher.Mapper.getUsers";
+
+  private SqlSessionFactory sqlSessionFactory;
+  private final AtomicInteger openConnections = new AtomicInteger();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor_publisher/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cursor_publisher/CreateDB.sql");
+
+    // keeps track of the connections that are not closed yet
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Environment environment = configuration.getEnvironment();
+    DataSource dataSource = environment.getDataSource();
+    DataSource trackingDataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+          Object result = invoke(method, dataSource, args);
+          if (!"getConnection".equals(method.getName())) {
+            return result;
+          }
+          openConnections.incrementAndGet();
+          Connection connection = (Connection) result;
+          return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+              (connectionProxy, connectionMethod, connectionArgs) -> {
+                if ("close".equals(connectionMethod.getName()) && !connection.isClosed()) {
+                  openConnections.decrementAndGet();
+                }
+                return invoke(connectionMethod, connection, connectionArgs);
+              });
+        });
+    configuration.setEnvironment(new Environment(environment.getId(), environment.getTransactionFactory(), trackingDataSource));
+    // reads the rows in the thread that requests them
+    configuration.setAsyncExecutor(Runnable::run);
+  }
+
+  private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  @Test
+  void shouldPublishRowsAsTheyAreRequested() {
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    sqlSessionFactory.<User>selectPublisher(GET_USERS).subscribe(subscriber);
+    assertThat(openConnections.get()).isZero();
+
+    subscriber.subscription.request(2);
+    assertThat(subscriber.names()).containsExactly("User1", "User2");
+    assertThat(subscriber.completed).isFalse();
+    assertThat(openConnections.get()).isEqualTo(1);
+
+    subscriber.subscription.request(2);
+    assertThat(subscriber.names()).containsExactly("User1", "User2", "User3", "User4");
+    assertThat(subscriber.completed).isFalse();
+
+    subscriber.subscription.request(10);
+    assertThat(subscriber.names()).containsExactly("User1", "User2", "User3", "User4", "User5");
+    assertThat(subscriber.completed).isTrue();
+    assertThat(subscriber.error).isNull();
+    assertThat(openConnections.get()).isZero();
+  }
+
+  @Test
+  void shouldCloseConnectionWhenCancelled() {
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new CursorPublisher<User>(sqlSessionFactory, GET_USERS, null, RowBounds.DEFAULT).subscribe(subscriber);
+    subscriber.subscription.request(1);
+    assertThat(subscriber.error).isNull();
+    assertThat(openConnections.get()).isEqualTo(1);
+
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(1);
+    assertThat(subscriber.names()).containsExactly("User1");
+    assertThat(subscriber.completed).isFalse();
+    assertThat(openConnections.get()).isZero();
+  }
+
+  @Test
+  void shouldOpenSessionsFromPublisherFactory() {
+    AtomicInteger openedSessions = new AtomicInteger();
+    SqlSessionFactory factory = new DefaultSqlSessionFactory(sqlSessionFactory.getConfiguration()) {
+      @Override
+      public SqlSession openSession() {
+        openedSessions.incrementAndGet();
+        return super.openSession();
+      }
+    };
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    factory.<User>selectPublisher(GET_USERS).subscribe(subscriber);
+    assertThat(openedSessions.get()).isZero();
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertThat(subscriber.completed).isTrue();
+    assertThat(openedSessions.get()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldFailOnNonPositiveRequest() {
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    sqlSessionFactory.<User>selectPublisher(GET_USERS).subscribe(subscriber);
+    subscriber.subscription.request(1);
+    subscriber.subscription.request(0);
+    assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    assertThat(openConnections.get()).isZero();
+  }
+
+  @Test
+  void shouldGiveEachSubscriberItsOwnResults() throws Exception {
+    sqlSessionFactory.getConfiguration().setAsyncExecutor(task -> new Thread(task).start());
+    CursorPublisher<User> publisher = sqlSessionFactory.selectPublisher(GET_USERS, null, new RowBounds(1, 3));
+    RecordingSubscriber first = new RecordingSubscriber();
+    RecordingSubscriber second = new RecordingSubscriber();
+    publisher.subscribe(first);
+    publisher.subscribe(second);
+    first.subscription.request(Long.MAX_VALUE);
+    second.subscription.request(1);
+    second.subscription.request(Long.MAX_VALUE);
+
+    first.done.get(10, TimeUnit.SECONDS);
+    second.done.get(10, TimeUnit.SECONDS);
+    assertThat(first.names()).containsExactly("User2", "User3", "User4");
+    assertThat(second.names()).containsExactly("User2", "User3", "User4");
+    assertThat(openConnections.get()).isZero();
+  }
+
+  static class RecordingSubscriber implements Subscriber<User> {
+
+    private final List<User> users = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private volatile Subscription subscription;
+    private volatile boolean completed;
+    private volatile Throwable error;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(User item) {
+      users.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+      done.complete(null);
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+      done.complete(null);
+    }
+
+    List<String> names() {
+      return users.stream().map(User::getName).collect(Collectors.toList());
+    }
+  }
+
+}
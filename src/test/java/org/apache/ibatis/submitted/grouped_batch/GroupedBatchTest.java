@@ -0,0 +1,150 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.grouped_batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GroupedBatchTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/grouped_batch/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/grouped_batch/CreateDB.sql");
+    StatementCounter.COUNT.set(0);
+  }
+
+  @Test
+  void shouldGroupInterleavedUpdatesByStatement() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.GROUPED_BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 1; i <= 5; i++) {
+        mapper.insertParent(i, "Parent" + i);
+        mapper.insertChild(i * 10, i, "Child" + i);
+        mapper.insertChild(i * 10 + 1, i, "Child" + i);
+      }
+      mapper.updateParent(1, "Renamed");
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertThat(StatementCounter.COUNT.get()).isEqualTo(3);
+      assertThat(results).extracting(r -> r.getMappedStatement().getId().replaceFirst(".*\\.", ""))
+          .containsExactly("insertParent", "insertChild", "updateParent");
+      assertThat(results).extracting(r -> r.getParameterObjects().size()).containsExactly(5, 10, 1);
+      assertThat(results.get(1).getUpdateCounts()).hasSize(10).containsOnly(1);
+      assertThat(mapper.countParents()).isEqualTo(5);
+      assertThat(mapper.countChildren()).isEqualTo(10);
+    }
+  }
+
+  @Test
+  void shouldFlushAfterConfiguredNumberOfRows() {
+    sqlSessionFactory.getConfiguration().setBatchFlushRows(4);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.GROUPED_BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 1; i <= 5; i++) {
+        mapper.insertParent(i, "Parent" + i);
+        mapper.insertChild(i, i, "Child" + i);
+      }
+      // 8 rows ran in two automatic flushes, their results are not kept
+      assertThat(StatementCounter.COUNT.get()).isEqualTo(6);
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertThat(results).extracting(r -> r.getParameterObjects().size()).containsExactly(1, 1);
+      assertThat(mapper.countParents()).isEqualTo(5);
+      assertThat(mapper.countChildren()).isEqualTo(5);
+    }
+  }
+
+  @Test
+  void shouldFlushAfterConfiguredNumberOfBytes() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setBatchFlushRows(0);
+    // an id (8 bytes) and a name of 50 characters (100 bytes) per row
+    configuration.setBatchFlushBytes(300);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.GROUPED_BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      String name = new String(new char[50]).replace('\0', 'x');
+      for (int i = 1; i <= 7; i++) {
+        mapper.insertParent(i, name);
+      }
+      // flushed after the rows 3 and 6
+      assertThat(StatementCounter.COUNT.get()).isEqualTo(3);
+      assertThat(sqlSession.flushStatements()).extracting(r -> r.getParameterObjects().size()).containsExactly(1);
+      assertThat(mapper.countParents()).isEqualTo(7);
+    }
+  }
+
+  @Test
+  void shouldBatchPlainStatementsWithFlushBytes() {
+    sqlSessionFactory.getConfiguration().setBatchFlushBytes(300);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.GROUPED_BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertParentStatement(1, "Parent1");
+      mapper.insertParentStatement(2, "Parent2");
+      // a plain statement has no parameters to measure, and one SQL per row
+      assertThat(sqlSession.flushStatements()).extracting(r -> r.getParameterObjects().size()).containsExactly(1, 1);
+      assertThat(mapper.countParents()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void shouldBoundOpenStatements() {
+    sqlSessionFactory.getConfiguration().setBatchMaxStatements(1);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.GROUPED_BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertParent(1, "Parent1");
+      mapper.insertParent(2, "Parent2");
+      mapper.insertChild(1, 1, "Child1");
+      mapper.insertChild(2, 2, "Child2");
+      mapper.updateParent(1, "Renamed");
+      assertThat(StatementCounter.COUNT.get()).isEqualTo(3);
+      assertThat(sqlSession.flushStatements()).extracting(r -> r.getParameterObjects().size()).containsExactly(1);
+      assertThat(mapper.countChildren()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void shouldDiscardPendingRowsOnRollback() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.GROUPED_BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertParent(1, "Parent1");
+      mapper.insertChild(1, 1, "Child1");
+      sqlSession.rollback();
+      assertThat(sqlSession.flushStatements()).isEmpty();
+      assertThat(mapper.countParents()).isZero();
+    }
+  }
+
+}
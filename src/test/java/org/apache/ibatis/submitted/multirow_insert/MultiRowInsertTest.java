@@ -0,0 +1,129 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.multirow_insert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MultiRowInsertTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/multirow_insert/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/multirow_insert/CreateDB.sql");
+    StatementCounter.COUNT.set(0);
+  }
+
+  @Test
+  void shouldMergeInsertsAndAssignGeneratedKeys() {
+    List<User> users = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.MULTI_ROW_INSERT)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 1; i <= 7; i++) {
+        User user = new User(null, "User" + i);
+        users.add(user);
+        mapper.insertUser(user);
+      }
+      // full chunks run right away
+      assertThat(StatementCounter.COUNT.get()).isEqualTo(2);
+
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertThat(StatementCounter.COUNT.get()).isEqualTo(3);
+      assertThat(results).hasSize(3);
+      assertThat(results.get(0).getSql()).isEqualTo("insert into users (name) values (?), (?), (?)");
+      assertThat(results.get(0).getParameterObjects()).containsExactly(users.get(0), users.get(1), users.get(2));
+      assertThat(results.get(0).getUpdateCounts()).containsExactly(1, 1, 1);
+      assertThat(results.get(2).getUpdateCounts()).containsExactly(1);
+      assertThat(users).extracting(User::getId).containsExactly(1, 2, 3, 4, 5, 6, 7);
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getUsers()).extracting(User::getName)
+          .containsExactly("User1", "User2", "User3", "User4", "User5", "User6", "User7");
+    }
+  }
+
+  @Test
+  void shouldAssignGeneratedKeysToParamMaps() {
+    User user1 = new User(null, "User1");
+    User user2 = new User(null, "User2");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.MULTI_ROW_INSERT)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUserWithSuffix(user1, "a");
+      mapper.insertUserWithSuffix(user2, "b");
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertThat(results).hasSize(1);
+      assertThat(results.get(0).getSql()).isEqualTo("insert into users (name) values (? || ?), (? || ?)");
+      assertThat(user1.getId()).isEqualTo(1);
+      assertThat(user2.getId()).isEqualTo(2);
+      assertThat(mapper.getUsers()).extracting(User::getName).containsExactly("User1a", "User2b");
+    }
+  }
+
+  @Test
+  void shouldRunStatementsInOrder() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.MULTI_ROW_INSERT)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUser(new User(null, "User1"));
+      mapper.insertUser(new User(null, "User2"));
+      mapper.updateName(1, "Renamed");
+      // not a plain VALUES insert, so batched as is
+      mapper.copyUser(2);
+      mapper.insertUser(new User(null, "User3"));
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertThat(results).extracting(r -> r.getMappedStatement().getId().replaceFirst(".*\\.", ""))
+          .containsExactly("insertUser", "updateName", "copyUser", "insertUser");
+      assertThat(results.get(0).getUpdateCounts()).containsExactly(1, 1);
+      assertThat(mapper.getUsers()).extracting(User::getName)
+          .containsExactly("Renamed", "User2", "User2 copy", "User3");
+    }
+  }
+
+  @Test
+  void shouldDiscardPendingRowsOnRollback() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.MULTI_ROW_INSERT)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUser(new User(null, "User1"));
+      mapper.insertUser(new User(null, "User2"));
+      sqlSession.rollback();
+      assertThat(sqlSession.flushStatements()).isEmpty();
+      assertThat(mapper.getUsers()).isEmpty();
+    }
+    assertThat(StatementCounter.COUNT.get()).isEqualTo(1);
+  }
+
+}
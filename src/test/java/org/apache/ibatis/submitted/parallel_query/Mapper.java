@@ -0,0 +1,37 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_query;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.CacheNamespace;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Select;
+
+@CacheNamespace(readWrite = false)
+public interface Mapper {
+
+  @Select("select * from users order by id")
+  List<User> getUsers();
+
+  @Select("select * from users where id = #{id}")
+  User getUser(Integer id);
+
+  @Options(useCache = false)
+  @Select("select count(*) from users")
+  int countUsers();
+
+}
@@ -0,0 +1,184 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.Reader;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.exceptions.TooManyResultsException;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ParallelQuery;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ParallelQueryTest {
+
+  private static final String GET_USERS = "org.apache.ibatis.submitted.parallel_query.Mapper.getUsers";
+  private static final String GET_USER = "org.apache.ibatis.submitted.parallel_query.Mapper.getUser";
+  private static final String COUNT_USERS = "org.apache.ibatis.submitted.parallel_query.Mapper.countUsers";
+
+  private SqlSessionFactory sqlSessionFactory;
+  private final AtomicInteger connections = new AtomicInteger();
+  private final AtomicInteger tasks = new AtomicInteger();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_query/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/parallel_query/CreateDB.sql");
+
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Environment environment = configuration.getEnvironment();
+    DataSource dataSource = environment.getDataSource();
+    DataSource countingDataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+          if ("getConnection".equals(method.getName())) {
+            connections.incrementAndGet();
+          }
+          return method.invoke(dataSource, args);
+        });
+    configuration.setEnvironment(new Environment(environment.getId(), environment.getTransactionFactory(), countingDataSource));
+    configuration.setAsyncExecutor(task -> {
+      tasks.incrementAndGet();
+      new Thread(task).start();
+    });
+  }
+
+  @Test
+  void shouldRunQueriesConcurrently() {
+    // every statement waits for the other two, so running them one after the other would time out
+    sqlSessionFactory.getConfiguration().addInterceptor(new BarrierInterceptor(new CyclicBarrier(3)));
+    ParallelQuery query = sqlSessionFactory.openParallel();
+    CompletableFuture<List<User>> users = query.selectList(GET_USERS);
+    CompletableFuture<User> user = query.selectOne(GET_USER, 2);
+    CompletableFuture<Integer> count = query.selectOne(COUNT_USERS);
+    List<Object> results = query.execute();
+
+    assertThat(users.join()).extracting(User::getName).containsExactly("User1", "User2");
+    assertThat(user.join().getName()).isEqualTo("User2");
+    assertThat(count.join()).isEqualTo(2);
+    assertThat(results).containsExactly(users.join(), user.join(), count.join());
+    assertThat(tasks.get()).isEqualTo(3);
+    assertThat(connections.get()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldServeCachedResultsWithoutTakingConnection() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.selectList(GET_USERS);
+      sqlSession.selectOne(GET_USER, 1);
+    }
+    connections.set(0);
+
+    ParallelQuery query = sqlSessionFactory.openParallel();
+    CompletableFuture<List<User>> users = query.selectList(GET_USERS);
+    CompletableFuture<User> user = query.selectOne(GET_USER, 1);
+    CompletableFuture<User> uncachedUser = query.selectOne(GET_USER, 2);
+    CompletableFuture<Integer> count = query.selectOne(COUNT_USERS);
+    query.execute();
+
+    assertThat(users.join()).extracting(User::getName).containsExactly("User1", "User2");
+    assertThat(user.join().getName()).isEqualTo("User1");
+    assertThat(uncachedUser.join().getName()).isEqualTo("User2");
+    assertThat(count.join()).isEqualTo(2);
+    assertThat(tasks.get()).isEqualTo(2);
+    assertThat(connections.get()).isEqualTo(2);
+
+    // the results of the parallel queries are committed to the cache as well
+    tasks.set(0);
+    connections.set(0);
+    query.selectOne(GET_USER, 2);
+    assertThat(query.execute()).extracting("name").containsExactly("User2");
+    assertThat(tasks.get()).isZero();
+    assertThat(connections.get()).isZero();
+  }
+
+  @Test
+  void shouldWaitForAllQueriesBeforeReportingFailure() {
+    ParallelQuery query = sqlSessionFactory.openParallel();
+    CompletableFuture<User> tooMany = query.selectOne(GET_USERS);
+    CompletableFuture<Integer> count = query.selectOne(COUNT_USERS);
+    assertThatThrownBy(query::execute).isInstanceOf(TooManyResultsException.class);
+    assertThat(tooMany).isCompletedExceptionally();
+    assertThat(count.join()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldReportUnknownStatement() {
+    ParallelQuery query = sqlSessionFactory.openParallel();
+    CompletableFuture<List<User>> users = query.selectList(GET_USERS);
+    query.selectList("unknown");
+    assertThatThrownBy(query::execute).isInstanceOf(PersistenceException.class)
+        .hasMessageContaining("unknown");
+    assertThat(users.join()).hasSize(2);
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  static class BarrierInterceptor implements Interceptor {
+
+    private final CyclicBarrier barrier;
+
+    BarrierInterceptor(CyclicBarrier barrier) {
+      this.barrier = barrier;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      try {
+        barrier.await(10, TimeUnit.SECONDS);
+      } catch (BrokenBarrierException | TimeoutException e) {
+        throw new IllegalStateException("Statements did not run concurrently", e);
+      }
+      return invocation.proceed();
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+  }
+
+}